@@ -0,0 +1,259 @@
+import java.util.Arrays;
+
+/**
+ * A class to represent points collapsed into weighted representatives, so that algorithms run over
+ * the distinct values of the data rather than every row. Either identical points are collapsed,
+ * each representative being the shared value, or every point in the same square cell of a grid is
+ * collapsed, each representative being the weighted mean of its cell. A representative weighs the
+ * total weight of its points, so weighted sums over the representatives equal the sums over the
+ * points: the weighted means, and the moments of identical points, are unchanged.
+ *
+ * <p>Points are matched with an open addressing hash table over primitive keys, in a single pass,
+ * and representatives are numbered in the order their first point appears. An aggregation is
+ * immutable.
+ */
+public class Aggregation {
+
+  /**
+   * The multiplier that spreads keys across the hash table, from the golden ratio.
+   */
+  private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+  /**
+   * The representatives.
+   */
+  private final PointArray points;
+
+  /**
+   * The weight of each representative.
+   */
+  private final double[] weights;
+
+  /**
+   * The representative of each original point.
+   */
+  private final int[] index;
+
+  /**
+   * Constructs an aggregation. The arrays are kept, not copied.
+   *
+   * @param points  PointArray, the representatives.
+   * @param weights Double[], the weight of each representative.
+   * @param index   Integer[], the representative of each original point.
+   */
+  private Aggregation(PointArray points, double[] weights, int[] index) {
+    this.points = points;
+    this.weights = weights;
+    this.index = index;
+  }
+
+  /**
+   * Method to collapse identical points, which have the same x and the same y.
+   *
+   * @param points  PointSet, the points to collapse.
+   * @param weights Double[], the weight of each point, or null to weight every point 1.
+   * @return Aggregation, one representative per distinct point.
+   * @throws IllegalArgumentException When there is not one weight per point.
+   */
+  public static Aggregation exact(PointSet points, double[] weights)
+          throws IllegalArgumentException {
+    return collapse(points, weights, 0);
+  }
+
+  /**
+   * Method to collapse the points in each square cell of a grid, with cells of the given side
+   * aligned on the origin. Each representative is the weighted mean of its cell's points, so the
+   * points are moved by less than the cell's diagonal.
+   *
+   * @param points  PointSet, the points to collapse.
+   * @param weights Double[], the weight of each point, or null to weight every point 1.
+   * @param cell    Double, the side of each cell.
+   * @return Aggregation, one representative per occupied cell.
+   * @throws IllegalArgumentException When there is not one weight per point, or the cell is not
+   *                                  positive and finite.
+   */
+  public static Aggregation grid(PointSet points, double[] weights, double cell)
+          throws IllegalArgumentException {
+    if (!(cell > 0) || Double.isInfinite(cell)) {
+      throw new IllegalArgumentException("Cell size must be positive and finite.");
+    }
+    return collapse(points, weights, cell);
+  }
+
+  /**
+   * Method to get the number of representatives.
+   *
+   * @return Integer, the number of distinct points or occupied cells.
+   */
+  public int size() {
+    return this.weights.length;
+  }
+
+  /**
+   * Method to get the representatives.
+   *
+   * @return PointSet, a read-only view of the representatives.
+   */
+  public PointSet getPoints() {
+    return this.points;
+  }
+
+  /**
+   * Method to get the weight of a representative.
+   *
+   * @param representative Integer, the index of the representative.
+   * @return Double, the total weight of its points.
+   */
+  public double getWeight(int representative) {
+    return this.weights[representative];
+  }
+
+  /**
+   * Method to get the weight of every representative.
+   *
+   * @return Double[], a copy of the weights.
+   */
+  public double[] getWeights() {
+    return this.weights.clone();
+  }
+
+  /**
+   * Method to get the representative of an original point.
+   *
+   * @param point Integer, the index of the original point.
+   * @return Integer, the index of its representative.
+   */
+  public int getIndex(int point) {
+    return this.index[point];
+  }
+
+  /**
+   * Method to get the number of original points.
+   *
+   * @return Integer, the number of points collapsed.
+   */
+  public int getSourceSize() {
+    return this.index.length;
+  }
+
+  /**
+   * Helper method to collapse points that share a key: their exact coordinates, or their cell.
+   *
+   * @param points  PointSet, the points to collapse.
+   * @param weights Double[], the weight of each point, or null to weight every point 1.
+   * @param cell    Double, the side of each cell, or 0 to collapse identical points only.
+   * @return Aggregation, one representative per key.
+   * @throws IllegalArgumentException When there is not one weight per point.
+   */
+  private static Aggregation collapse(PointSet points, double[] weights, double cell)
+          throws IllegalArgumentException {
+    int n = points.size();
+    if (weights != null && weights.length != n) {
+      throw new IllegalArgumentException("Expected one weight per point.");
+    }
+    int[] index = new int[n];
+    int capacity = 16;
+    long[] keysX = new long[capacity];
+    long[] keysY = new long[capacity];
+    // The representative in each slot plus one, so that 0 marks an empty slot
+    int[] slots = new int[capacity];
+    double[] sumX = new double[16];
+    double[] sumY = new double[16];
+    double[] mass = new double[16];
+    int size = 0;
+    for (int i = 0; i < n; i++) {
+      double x = points.getX(i);
+      double y = points.getY(i);
+      long keyX = key(x, cell);
+      long keyY = key(y, cell);
+      int mask = capacity - 1;
+      int slot = hash(keyX, keyY) & mask;
+      while (slots[slot] != 0 && (keysX[slot] != keyX || keysY[slot] != keyY)) {
+        slot = (slot + 1) & mask;
+      }
+      int representative;
+      if (slots[slot] == 0) {
+        representative = size++;
+        if (representative == mass.length) {
+          sumX = Arrays.copyOf(sumX, mass.length * 2);
+          sumY = Arrays.copyOf(sumY, mass.length * 2);
+          mass = Arrays.copyOf(mass, mass.length * 2);
+        }
+        keysX[slot] = keyX;
+        keysY[slot] = keyY;
+        slots[slot] = representative + 1;
+        if (cell == 0) {
+          // Identical points share their value exactly, with no rounding from a mean
+          sumX[representative] = x;
+          sumY[representative] = y;
+        }
+        if (2 * size > capacity) {
+          // Keep the table at most half full, so probes stay short
+          capacity *= 2;
+          long[] oldX = keysX;
+          long[] oldY = keysY;
+          int[] oldSlots = slots;
+          keysX = new long[capacity];
+          keysY = new long[capacity];
+          slots = new int[capacity];
+          for (int s = 0; s < oldSlots.length; s++) {
+            if (oldSlots[s] != 0) {
+              int moved = hash(oldX[s], oldY[s]) & (capacity - 1);
+              while (slots[moved] != 0) {
+                moved = (moved + 1) & (capacity - 1);
+              }
+              keysX[moved] = oldX[s];
+              keysY[moved] = oldY[s];
+              slots[moved] = oldSlots[s];
+            }
+          }
+        }
+      } else {
+        representative = slots[slot] - 1;
+      }
+      double weight = weights == null ? 1 : weights[i];
+      index[i] = representative;
+      mass[representative] += weight;
+      if (cell > 0) {
+        sumX[representative] += weight * x;
+        sumY[representative] += weight * y;
+      }
+    }
+    PointArray representatives = new PointArray(size);
+    for (int r = 0; r < size; r++) {
+      if (cell > 0) {
+        representatives.add(sumX[r] / mass[r], sumY[r] / mass[r]);
+      } else {
+        representatives.add(sumX[r], sumY[r]);
+      }
+    }
+    return new Aggregation(representatives, Arrays.copyOf(mass, size), index);
+  }
+
+  /**
+   * Helper method to compute the key of a coordinate: its bits, with negative zero taken as zero,
+   * or the index of its cell.
+   *
+   * @param value Double, the coordinate.
+   * @param cell  Double, the side of each cell, or 0 for the exact value.
+   * @return Long, the key.
+   */
+  private static long key(double value, double cell) {
+    if (cell > 0) {
+      return (long) Math.floor(value / cell);
+    }
+    return Double.doubleToLongBits(value == 0 ? 0.0 : value);
+  }
+
+  /**
+   * Helper method to hash a pair of keys into the table.
+   *
+   * @param keyX Long, the key of the x coordinate.
+   * @param keyY Long, the key of the y coordinate.
+   * @return Integer, the hash, to be masked to the table's size.
+   */
+  private static int hash(long keyX, long keyY) {
+    long h = (keyX * SPREAD + keyY) * SPREAD;
+    return (int) (h ^ (h >>> 32));
+  }
+}
@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A class to convert text point files, as found in the data folder, into binary point files, and
+ * to open binary point files as point stores. The binary format is the one written by
+ * MappedPointStore: a small header with the count, bounds and precision, followed by packed
+ * little-endian coordinates. Opening a binary file maps it rather than reading it, so a DataModel
+ * over it is ready in milliseconds no matter how many points it holds. Methods are static.
+ */
+public final class BinaryPointFile {
+
+  /**
+   * Method to convert a text point file into a new binary point file. The text is streamed
+   * straight into the mapped binary file, so the points never have to fit on the heap.
+   *
+   * @param text      Path, the text point file to read.
+   * @param binary    Path, the binary point file to write. It is replaced if it exists.
+   * @param precision Integer, the number of bytes per coordinate: 8 for doubles, 4 for floats.
+   * @return Bounds, the bounding box of the points converted.
+   * @throws IOException When the text cannot be read or the binary file cannot be written.
+   */
+  public static Bounds convert(Path text, Path binary, int precision) throws IOException {
+    Files.deleteIfExists(binary);
+    try (MappedPointStore store = new MappedPointStore(binary, precision)) {
+      new PointFileReader().read(text, new DataModel(store));
+      store.force();
+      return store.getBounds();
+    } catch (IOException | RuntimeException e) {
+      // Do not leave a partial file behind to be mistaken for a cached conversion
+      Files.deleteIfExists(binary);
+      throw e;
+    }
+  }
+
+  /**
+   * Method to open a binary point file in place, read-only. Wrap the store in a DataModel to
+   * model the points, and close it when done. The file is left exactly as it was.
+   *
+   * @param binary Path, the binary point file to open.
+   * @return MappedPointStore, the read-only store mapped over the file.
+   * @throws IOException When the file does not exist or is not a binary point file.
+   */
+  public static MappedPointStore open(Path binary) throws IOException {
+    if (!Files.isRegularFile(binary)) {
+      throw new IOException("No binary point file at " + binary);
+    }
+    return MappedPointStore.readOnly(binary);
+  }
+
+  /**
+   * Method to open the binary version of a text point file, converting the text first if the
+   * binary file is missing or older than the text. Re-runs over the same data then skip parsing.
+   *
+   * @param text   Path, the text point file.
+   * @param binary Path, the binary point file caching the text.
+   * @return MappedPointStore, the read-only store mapped over the binary file.
+   * @throws IOException When either file cannot be read or the binary file cannot be written.
+   */
+  public static MappedPointStore cached(Path text, Path binary) throws IOException {
+    if (!Files.isRegularFile(binary)
+            || Files.getLastModifiedTime(binary).compareTo(Files.getLastModifiedTime(text)) < 0) {
+      convert(text, binary, 8);
+    }
+    return open(binary);
+  }
+
+  /**
+   * Method to convert a text point file from the command line.
+   *
+   * @param args the text file, the binary file, and optionally the precision (4 or 8, default 8)
+   */
+  public static void main(String[] args) {
+    if (args.length < 2 || args.length > 3) {
+      System.out.println("Usage: BinaryPointFile <text file> <binary file> [4|8]");
+      return;
+    }
+    try {
+      int precision = args.length == 3 ? Integer.parseInt(args[2]) : 8;
+      Bounds bounds = convert(Paths.get(args[0]), Paths.get(args[1]), precision);
+      System.out.println("Converted " + args[0] + " to " + args[1] + ", bounds " + bounds);
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Could not convert " + args[0] + ": " + e.getMessage());
+    }
+  }
+}
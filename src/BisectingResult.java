@@ -0,0 +1,199 @@
+/**
+ * A class to represent the outcome of a bisecting k-means clustering: the flat labels and centers
+ * of any KmeansResult, plus the hierarchy of splits that produced them. The hierarchy is a binary
+ * tree of nodes, numbered in the order they were created: node 0 is the root, holding every point,
+ * and each split gives a node two children, so a clustering into k clusters has 2k - 1 nodes. The
+ * leaves are the clusters, and the nodes created by the first few splits give a coarser clustering.
+ * A result is immutable.
+ */
+public class BisectingResult extends KmeansResult {
+
+  /**
+   * The parent of each node, or -1 for the root.
+   */
+  private final int[] parents;
+
+  /**
+   * The first child of each node, or -1 for a leaf.
+   */
+  private final int[] lefts;
+
+  /**
+   * The second child of each node, or -1 for a leaf.
+   */
+  private final int[] rights;
+
+  /**
+   * The x coordinate of the center of each node.
+   */
+  private final double[] nodeX;
+
+  /**
+   * The y coordinate of the center of each node.
+   */
+  private final double[] nodeY;
+
+  /**
+   * The number of points in each node.
+   */
+  private final int[] nodeSizes;
+
+  /**
+   * The sum of the squared distances of the points of each node from its center.
+   */
+  private final double[] nodeInertias;
+
+  /**
+   * The cluster of each leaf, or -1 for a node that was split.
+   */
+  private final int[] clusters;
+
+  /**
+   * The leaf of each cluster.
+   */
+  private final int[] leaves;
+
+  /**
+   * Constructs a result from the flat clustering and the hierarchy of splits. The arrays of the
+   * hierarchy are kept, not copied.
+   *
+   * @param flat         KmeansResult, the labels, centers and statistics of the leaves.
+   * @param parents      Integer[], the parent of each node, or -1 for the root.
+   * @param lefts        Integer[], the first child of each node, or -1 for a leaf.
+   * @param rights       Integer[], the second child of each node, or -1 for a leaf.
+   * @param nodeX        Double[], the x coordinate of the center of each node.
+   * @param nodeY        Double[], the y coordinate of the center of each node.
+   * @param nodeSizes    Integer[], the number of points in each node.
+   * @param nodeInertias Double[], the inertia of each node.
+   * @param clusters     Integer[], the cluster of each leaf, or -1 for a node that was split.
+   */
+  BisectingResult(KmeansResult flat, int[] parents, int[] lefts, int[] rights, double[] nodeX,
+                  double[] nodeY, int[] nodeSizes, double[] nodeInertias, int[] clusters) {
+    super(flat);
+    this.parents = parents;
+    this.lefts = lefts;
+    this.rights = rights;
+    this.nodeX = nodeX;
+    this.nodeY = nodeY;
+    this.nodeSizes = nodeSizes;
+    this.nodeInertias = nodeInertias;
+    this.clusters = clusters;
+    this.leaves = new int[flat.getK()];
+    for (int node = 0; node < clusters.length; node++) {
+      if (clusters[node] >= 0) {
+        this.leaves[clusters[node]] = node;
+      }
+    }
+  }
+
+  /**
+   * Method to get the number of nodes in the hierarchy.
+   *
+   * @return Integer, 2k - 1.
+   */
+  public int getNodes() {
+    return this.parents.length;
+  }
+
+  /**
+   * Method to get the parent of a node.
+   *
+   * @param node Integer, the index of the node.
+   * @return Integer, the index of its parent, or -1 for the root.
+   */
+  public int getParent(int node) {
+    return this.parents[node];
+  }
+
+  /**
+   * Method to get the first child of a node.
+   *
+   * @param node Integer, the index of the node.
+   * @return Integer, the index of its first child, or -1 for a leaf.
+   */
+  public int getLeft(int node) {
+    return this.lefts[node];
+  }
+
+  /**
+   * Method to get the second child of a node.
+   *
+   * @param node Integer, the index of the node.
+   * @return Integer, the index of its second child, or -1 for a leaf.
+   */
+  public int getRight(int node) {
+    return this.rights[node];
+  }
+
+  /**
+   * Method to check whether a node is a leaf, that is, one of the clusters.
+   *
+   * @param node Integer, the index of the node.
+   * @return Boolean, true if the node was never split.
+   */
+  public boolean isLeaf(int node) {
+    return this.lefts[node] < 0;
+  }
+
+  /**
+   * Method to get the x coordinate of the center of a node.
+   *
+   * @param node Integer, the index of the node.
+   * @return Double, the x coordinate of the mean of its points.
+   */
+  public double getNodeCenterX(int node) {
+    return this.nodeX[node];
+  }
+
+  /**
+   * Method to get the y coordinate of the center of a node.
+   *
+   * @param node Integer, the index of the node.
+   * @return Double, the y coordinate of the mean of its points.
+   */
+  public double getNodeCenterY(int node) {
+    return this.nodeY[node];
+  }
+
+  /**
+   * Method to get the number of points in a node.
+   *
+   * @param node Integer, the index of the node.
+   * @return Integer, the number of points, the sum over its children.
+   */
+  public int getNodeSize(int node) {
+    return this.nodeSizes[node];
+  }
+
+  /**
+   * Method to get the inertia of a node: the sum of the squared distances of its points from its
+   * center.
+   *
+   * @param node Integer, the index of the node.
+   * @return Double, the inertia of the node.
+   */
+  public double getNodeInertia(int node) {
+    return this.nodeInertias[node];
+  }
+
+  /**
+   * Method to get the cluster a leaf became.
+   *
+   * @param node Integer, the index of the node.
+   * @return Integer, the cluster index the leaf's points are labelled with, or -1 for a node that
+   *         was split.
+   */
+  public int getCluster(int node) {
+    return this.clusters[node];
+  }
+
+  /**
+   * Method to get the leaf a cluster came from.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Integer, the index of its leaf node.
+   */
+  public int getLeaf(int cluster) {
+    return this.leaves[cluster];
+  }
+}
@@ -0,0 +1,140 @@
+/**
+ * A class to represent the bounding box of a set of 2D data points: the minimum and maximum x and
+ * y coordinates seen so far. An empty bounding box has no points, and its minimums are positive
+ * infinity and its maximums negative infinity.
+ */
+public class Bounds {
+
+  /**
+   * The smallest x coordinate seen so far.
+   */
+  private double xMin;
+
+  /**
+   * The largest x coordinate seen so far.
+   */
+  private double xMax;
+
+  /**
+   * The smallest y coordinate seen so far.
+   */
+  private double yMin;
+
+  /**
+   * The largest y coordinate seen so far.
+   */
+  private double yMax;
+
+  /**
+   * Constructs an empty bounding box.
+   */
+  public Bounds() {
+    this.xMin = Double.POSITIVE_INFINITY;
+    this.xMax = Double.NEGATIVE_INFINITY;
+    this.yMin = Double.POSITIVE_INFINITY;
+    this.yMax = Double.NEGATIVE_INFINITY;
+  }
+
+  /**
+   * Constructs a bounding box with the given extent.
+   *
+   * @param xMin Double, the smallest x coordinate.
+   * @param xMax Double, the largest x coordinate.
+   * @param yMin Double, the smallest y coordinate.
+   * @param yMax Double, the largest y coordinate.
+   */
+  public Bounds(double xMin, double xMax, double yMin, double yMax) {
+    this.xMin = xMin;
+    this.xMax = xMax;
+    this.yMin = yMin;
+    this.yMax = yMax;
+  }
+
+  /**
+   * Method to grow the bounding box to include a point.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   */
+  public void include(double x, double y) {
+    if (x < this.xMin) {
+      this.xMin = x;
+    }
+    if (x > this.xMax) {
+      this.xMax = x;
+    }
+    if (y < this.yMin) {
+      this.yMin = y;
+    }
+    if (y > this.yMax) {
+      this.yMax = y;
+    }
+  }
+
+  /**
+   * Method to grow the bounding box to include another bounding box.
+   *
+   * @param other Bounds, the bounding box to include.
+   */
+  public void include(Bounds other) {
+    this.xMin = Math.min(this.xMin, other.xMin);
+    this.xMax = Math.max(this.xMax, other.xMax);
+    this.yMin = Math.min(this.yMin, other.yMin);
+    this.yMax = Math.max(this.yMax, other.yMax);
+  }
+
+  /**
+   * Method to check whether the bounding box has not seen any points.
+   *
+   * @return Boolean, true if the bounding box is empty.
+   */
+  public boolean isEmpty() {
+    return this.xMin > this.xMax;
+  }
+
+  /**
+   * Method to get the smallest x coordinate.
+   *
+   * @return Double, the minimum x.
+   */
+  public double getXMin() {
+    return this.xMin;
+  }
+
+  /**
+   * Method to get the largest x coordinate.
+   *
+   * @return Double, the maximum x.
+   */
+  public double getXMax() {
+    return this.xMax;
+  }
+
+  /**
+   * Method to get the smallest y coordinate.
+   *
+   * @return Double, the minimum y.
+   */
+  public double getYMin() {
+    return this.yMin;
+  }
+
+  /**
+   * Method to get the largest y coordinate.
+   *
+   * @return Double, the maximum y.
+   */
+  public double getYMax() {
+    return this.yMax;
+  }
+
+  /**
+   * Returns a string representation of the bounding box.
+   *
+   * @return string in the form [xMin, xMax] x [yMin, yMax]
+   */
+  @Override
+  public String toString() {
+    return "[" + this.xMin + ", " + this.xMax + "] x [" + this.yMin + ", " + this.yMax + "]";
+  }
+}
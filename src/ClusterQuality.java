@@ -0,0 +1,402 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Helper class with scores of how well a k-means clustering fits its points, beyond the error the
+ * engines report.
+ *
+ * <p>The silhouette of a point compares the average distance a to the other points of its own
+ * cluster with the average distance b to the points of the nearest other cluster, as (b - a) /
+ * max(a, b), and the silhouette of a clustering is the mean over its points: near 1 when clusters
+ * are tight and far apart, near 0 when they overlap. It needs every pairwise distance, so the exact
+ * score is computed in square blocks of points, which keeps each block's coordinates in cache, with
+ * the blocks of rows spread across a fork-join pool. For large datasets the sampled score measures
+ * only a random sample of points, each against every point, and bounds the error of the estimate.
+ *
+ * <p>The Davies-Bouldin index averages, over the clusters, the worst ratio of the spreads of two
+ * clusters to the distance between their centers: lower is better. It needs only the size and
+ * spread of each cluster, which results from the engines already carry, so it costs O(k^2).
+ */
+public final class ClusterQuality {
+
+  /**
+   * The number of points in each block of the pairwise distances.
+   */
+  private static final int BLOCK = 256;
+
+  /**
+   * Private constructor, as this class only has static methods.
+   */
+  private ClusterQuality() {
+  }
+
+  /**
+   * Method to compute the exact silhouette of a clustering on the common pool.
+   *
+   * @param points PointSet, the points that were clustered.
+   * @param result KmeansResult, the clustering.
+   * @return Double, the mean silhouette of every point, between -1 and 1.
+   * @throws IllegalArgumentException When the result does not cover the points or has fewer than
+   *                                  two non-empty clusters.
+   */
+  public static double silhouette(PointSet points, KmeansResult result)
+          throws IllegalArgumentException {
+    return silhouette(points, result, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Method to compute the exact silhouette of a clustering, which takes O(n^2) distances. The
+   * score does not depend on the number of workers.
+   *
+   * @param points PointSet, the points that were clustered.
+   * @param result KmeansResult, the clustering.
+   * @param pool   ForkJoinPool, the pool that measures the blocks.
+   * @return Double, the mean silhouette of every point, between -1 and 1.
+   * @throws IllegalArgumentException When the result does not cover the points or has fewer than
+   *                                  two non-empty clusters.
+   */
+  public static double silhouette(PointSet points, KmeansResult result, ForkJoinPool pool)
+          throws IllegalArgumentException {
+    Pairs pairs = new Pairs(points, result);
+    int n = points.size();
+    int[] rows = IntStream.range(0, n).toArray();
+    double[] values = pairs.silhouettes(rows, pool);
+    double total = 0;
+    for (double value : values) {
+      total += value;
+    }
+    return total / n;
+  }
+
+  /**
+   * Method to estimate the silhouette of a clustering from a random sample of points on the common
+   * pool.
+   *
+   * @param points     PointSet, the points that were clustered.
+   * @param result     KmeansResult, the clustering.
+   * @param samples    Integer, the number of points to sample.
+   * @param confidence Double, the probability that the silhouette lies within the bounds.
+   * @param random     SplittableRandom, the generator to sample with.
+   * @return SilhouetteEstimate, the estimate and its bounds.
+   * @throws IllegalArgumentException When the result does not cover the points or has fewer than
+   *                                  two non-empty clusters, the sample size is not positive, or
+   *                                  the confidence is not between 0 and 1.
+   */
+  public static SilhouetteEstimate sampledSilhouette(PointSet points, KmeansResult result,
+                                                     int samples, double confidence,
+                                                     SplittableRandom random)
+          throws IllegalArgumentException {
+    return sampledSilhouette(points, result, samples, confidence, random,
+            ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Method to estimate the silhouette of a clustering from a random sample of points, each
+   * measured against every point, which takes O(samples * n) distances. The bounds follow from
+   * Serfling's inequality for sampling without replacement, since every silhouette lies between -1
+   * and 1, so they hold whatever the distribution of the silhouettes. When the sample is as large
+   * as the data, every point is measured and the estimate is exact.
+   *
+   * @param points     PointSet, the points that were clustered.
+   * @param result     KmeansResult, the clustering.
+   * @param samples    Integer, the number of points to sample.
+   * @param confidence Double, the probability that the silhouette lies within the bounds.
+   * @param random     SplittableRandom, the generator to sample with.
+   * @param pool       ForkJoinPool, the pool that measures the samples.
+   * @return SilhouetteEstimate, the estimate and its bounds.
+   * @throws IllegalArgumentException When the result does not cover the points or has fewer than
+   *                                  two non-empty clusters, the sample size is not positive, or
+   *                                  the confidence is not between 0 and 1.
+   */
+  public static SilhouetteEstimate sampledSilhouette(PointSet points, KmeansResult result,
+                                                     int samples, double confidence,
+                                                     SplittableRandom random, ForkJoinPool pool)
+          throws IllegalArgumentException {
+    if (samples <= 0) {
+      throw new IllegalArgumentException("Sample size must be positive.");
+    }
+    if (!(confidence > 0 && confidence < 1)) {
+      throw new IllegalArgumentException("Confidence must be between 0 and 1.");
+    }
+    Pairs pairs = new Pairs(points, result);
+    int n = points.size();
+    if (samples >= n) {
+      double exact = silhouette(points, result, pool);
+      return new SilhouetteEstimate(exact, 0, exact, exact, confidence, n);
+    }
+    double[] values = pairs.silhouettes(sample(n, samples, random), pool);
+    double total = 0;
+    for (double value : values) {
+      total += value;
+    }
+    double mean = total / samples;
+    double deviations = 0;
+    for (double value : values) {
+      deviations += (value - mean) * (value - mean);
+    }
+    // The finite population correction, as no point is sampled twice
+    double remaining = (double) (n - samples) / (n - 1);
+    double variance = samples > 1 ? deviations / (samples - 1) : 0;
+    double standardError = Math.sqrt(variance / samples * remaining);
+    double half = Math.sqrt(2 * (1 - (samples - 1.0) / n) * Math.log(2 / (1 - confidence))
+            / samples);
+    return new SilhouetteEstimate(mean, standardError, Math.max(-1, mean - half),
+            Math.min(1, mean + half), confidence, samples);
+  }
+
+  /**
+   * Method to compute the Davies-Bouldin index of a clustering: the average over the non-empty
+   * clusters of the largest (s_i + s_j) / d_ij over the other clusters, where s is the spread of a
+   * cluster, the average distance of its points from its center, and d the distance between two
+   * centers. It uses the statistics a result from an engine carries; for a result without them,
+   * such as an online snapshot, the points are measured once.
+   *
+   * @param points PointSet, the points that were clustered.
+   * @param result KmeansResult, the clustering.
+   * @return Double, the index, 0 or more; lower is better.
+   * @throws IllegalArgumentException When the result does not cover the points or has fewer than
+   *                                  two non-empty clusters.
+   */
+  public static double daviesBouldin(PointSet points, KmeansResult result)
+          throws IllegalArgumentException {
+    int k = result.getK();
+    int[] counts = new int[k];
+    double[] spreads = new double[k];
+    if (result.hasClusterStatistics()) {
+      checkSize(points, result);
+      for (int c = 0; c < k; c++) {
+        counts[c] = result.getCount(c);
+        spreads[c] = result.getSpread(c);
+      }
+    } else {
+      counts = countLabels(points, result);
+      for (int i = 0; i < points.size(); i++) {
+        int c = result.getLabel(i);
+        double dx = points.getX(i) - result.getCenterX(c);
+        double dy = points.getY(i) - result.getCenterY(c);
+        spreads[c] += Math.sqrt(dx * dx + dy * dy);
+      }
+      for (int c = 0; c < k; c++) {
+        spreads[c] = counts[c] == 0 ? 0 : spreads[c] / counts[c];
+      }
+    }
+    int clusters = checkClusters(counts);
+    double total = 0;
+    for (int c = 0; c < k; c++) {
+      if (counts[c] == 0) {
+        continue;
+      }
+      double worst = 0;
+      for (int d = 0; d < k; d++) {
+        if (d == c || counts[d] == 0) {
+          continue;
+        }
+        double dx = result.getCenterX(c) - result.getCenterX(d);
+        double dy = result.getCenterY(c) - result.getCenterY(d);
+        double separation = Math.sqrt(dx * dx + dy * dy);
+        double spread = spreads[c] + spreads[d];
+        // Two clusters sharing a center are as bad as can be, unless neither has any spread
+        double ratio = separation > 0 ? spread / separation
+                : spread > 0 ? Double.POSITIVE_INFINITY : 0;
+        worst = Math.max(worst, ratio);
+      }
+      total += worst;
+    }
+    return total / clusters;
+  }
+
+  /**
+   * Helper method to sample distinct indices uniformly with Floyd's algorithm, in ascending order
+   * so the sampled points are read in order.
+   *
+   * @param n       Integer, the number of indices to sample from.
+   * @param samples Integer, the number of indices to sample, less than n.
+   * @param random  SplittableRandom, the generator to sample with.
+   * @return Integer[], the sampled indices, ascending.
+   */
+  private static int[] sample(int n, int samples, SplittableRandom random) {
+    Set<Integer> chosen = new HashSet<>();
+    for (int j = n - samples; j < n; j++) {
+      int index = random.nextInt(j + 1);
+      chosen.add(chosen.contains(index) ? j : index);
+    }
+    int[] rows = new int[samples];
+    int r = 0;
+    for (int index : chosen) {
+      rows[r++] = index;
+    }
+    Arrays.sort(rows);
+    return rows;
+  }
+
+  /**
+   * Helper method to check that a clustering covers the points.
+   *
+   * @param points PointSet, the points that were clustered.
+   * @param result KmeansResult, the clustering.
+   * @throws IllegalArgumentException When it does not.
+   */
+  private static void checkSize(PointSet points, KmeansResult result)
+          throws IllegalArgumentException {
+    if (result.size() != points.size()) {
+      throw new IllegalArgumentException("Result does not cover the points.");
+    }
+  }
+
+  /**
+   * Helper method to count the points of each cluster.
+   *
+   * @param points PointSet, the points that were clustered.
+   * @param result KmeansResult, the clustering.
+   * @return Integer[], the number of points in each cluster.
+   * @throws IllegalArgumentException When the result does not cover the points.
+   */
+  private static int[] countLabels(PointSet points, KmeansResult result)
+          throws IllegalArgumentException {
+    checkSize(points, result);
+    int[] counts = new int[result.getK()];
+    for (int i = 0; i < result.size(); i++) {
+      counts[result.getLabel(i)]++;
+    }
+    return counts;
+  }
+
+  /**
+   * Helper method to check that at least two clusters have points, as neither score means
+   * anything for a single cluster.
+   *
+   * @param counts Integer[], the number of points in each cluster.
+   * @return Integer, the number of non-empty clusters.
+   * @throws IllegalArgumentException When fewer than two clusters have points.
+   */
+  private static int checkClusters(int[] counts) throws IllegalArgumentException {
+    int clusters = 0;
+    for (int count : counts) {
+      if (count > 0) {
+        clusters++;
+      }
+    }
+    if (clusters < 2) {
+      throw new IllegalArgumentException("Needs at least two non-empty clusters.");
+    }
+    return clusters;
+  }
+
+  /**
+   * The coordinates, labels and cluster sizes the silhouette is measured from, copied once into
+   * primitive arrays so the blocks read them without going through the PointSet.
+   */
+  private static final class Pairs {
+
+    /**
+     * The x coordinate of each point.
+     */
+    private final double[] xs;
+
+    /**
+     * The y coordinate of each point.
+     */
+    private final double[] ys;
+
+    /**
+     * The cluster of each point.
+     */
+    private final int[] labels;
+
+    /**
+     * The number of points in each cluster.
+     */
+    private final int[] counts;
+
+    /**
+     * Constructs the pairs of a clustering.
+     *
+     * @param points PointSet, the points that were clustered.
+     * @param result KmeansResult, the clustering.
+     * @throws IllegalArgumentException When the result does not cover the points or has fewer
+     *                                  than two non-empty clusters.
+     */
+    private Pairs(PointSet points, KmeansResult result) throws IllegalArgumentException {
+      this.counts = countLabels(points, result);
+      checkClusters(this.counts);
+      int n = points.size();
+      this.xs = new double[n];
+      this.ys = new double[n];
+      for (int i = 0; i < n; i++) {
+        this.xs[i] = points.getX(i);
+        this.ys[i] = points.getY(i);
+      }
+      this.labels = result.getLabels();
+    }
+
+    /**
+     * Method to measure the silhouette of some of the points, against every point, with the rows
+     * split into blocks across the pool.
+     *
+     * @param rows Integer[], the indices of the points to measure.
+     * @param pool ForkJoinPool, the pool that measures the blocks.
+     * @return Double[], the silhouette of each point, in the order of the rows.
+     */
+    private double[] silhouettes(int[] rows, ForkJoinPool pool) {
+      double[] values = new double[rows.length];
+      int blocks = (rows.length + BLOCK - 1) / BLOCK;
+      // Each block writes only its own values, so the result does not depend on the scheduling
+      pool.submit(() -> IntStream.range(0, blocks).parallel()
+              .forEach(b -> this.measure(rows, b * BLOCK,
+                      Math.min(rows.length, (b + 1) * BLOCK), values))).join();
+      return values;
+    }
+
+    /**
+     * Helper method to measure the silhouettes of a block of rows, summing the distances from each
+     * row to every cluster one block of columns at a time.
+     *
+     * @param rows   Integer[], the indices of the points to measure.
+     * @param from   Integer, the first row of the block.
+     * @param to     Integer, the row after the last row of the block.
+     * @param values Double[], the silhouette of each row, written for this block.
+     */
+    private void measure(int[] rows, int from, int to, double[] values) {
+      int k = this.counts.length;
+      int n = this.xs.length;
+      double[] sums = new double[(to - from) * k];
+      for (int start = 0; start < n; start += BLOCK) {
+        int end = Math.min(n, start + BLOCK);
+        for (int r = from; r < to; r++) {
+          int i = rows[r];
+          double x = this.xs[i];
+          double y = this.ys[i];
+          int offset = (r - from) * k;
+          // A point's distance to itself is 0, so it need not be skipped
+          for (int j = start; j < end; j++) {
+            double dx = x - this.xs[j];
+            double dy = y - this.ys[j];
+            sums[offset + this.labels[j]] += Math.sqrt(dx * dx + dy * dy);
+          }
+        }
+      }
+      for (int r = from; r < to; r++) {
+        int own = this.labels[rows[r]];
+        int offset = (r - from) * k;
+        if (this.counts[own] <= 1) {
+          // A point alone in its cluster has a silhouette of 0
+          values[r] = 0;
+          continue;
+        }
+        double a = sums[offset + own] / (this.counts[own] - 1);
+        double b = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < k; c++) {
+          if (c != own && this.counts[c] > 0) {
+            b = Math.min(b, sums[offset + c] / this.counts[c]);
+          }
+        }
+        double scale = Math.max(a, b);
+        values[r] = scale > 0 ? (b - a) / scale : 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,307 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A class to represent a coreset: a small set of weighted points whose k-means cost for any k
+ * centers is close to the cost of the full dataset, so centers found on the coreset fit the full
+ * dataset nearly as well. A coreset is immutable.
+ *
+ * <p>Coresets are built by sensitivity sampling. A rough clustering is found first, with k-means||
+ * for plain points or weighted k-means++ for weighted ones. Each point's sensitivity then bounds
+ * how much of the cost of any clustering it can carry: points far from their rough center, and
+ * points in small or costly rough clusters, are sampled more often. Each sampled point is weighted
+ * by the inverse of its chance of being sampled, so the weighted cost of any centers is an
+ * unbiased estimate of the full cost. The relative error of that estimate shrinks about as one
+ * over the square root of the coreset size.
+ *
+ * <p>The union of coresets of disjoint parts is a coreset of their union, which CoresetBuilder
+ * uses to build a coreset of a stream one chunk at a time.
+ */
+public class Coreset {
+
+  /**
+   * The number of points in each chunk of the passes over the points.
+   */
+  private static final int GRAIN = 1 << 14;
+
+  /**
+   * The points of the coreset.
+   */
+  private final PointArray points;
+
+  /**
+   * The weight of each point.
+   */
+  private final double[] weights;
+
+  /**
+   * Constructs a coreset from weighted points. The arrays are kept, not copied.
+   *
+   * @param points  PointArray, the points.
+   * @param weights Double[], the weight of each point.
+   */
+  Coreset(PointArray points, double[] weights) {
+    this.points = points;
+    this.weights = weights;
+  }
+
+  /**
+   * Method to build a coreset of the given size from plain points, on the common pool.
+   *
+   * @param points PointSet, the points to compress.
+   * @param k      Integer, the number of clusters the coreset will be clustered into.
+   * @param size   Integer, the number of points to sample.
+   * @param random SplittableRandom, the generator to sample with.
+   * @return Coreset, at most size weighted points, or every point if there are no more than size.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points, or
+   *                                  the size is less than k.
+   */
+  public static Coreset sample(PointSet points, int k, int size, SplittableRandom random)
+          throws IllegalArgumentException {
+    return sample(points, null, k, size, random, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Method to build a coreset of the given size from weighted points. The passes over the points
+   * run in chunks on the pool, with partial sums added up in chunk order, so the coreset does not
+   * depend on the number of workers.
+   *
+   * @param points  PointSet, the points to compress.
+   * @param weights Double[], the weight of each point, or null to weight every point 1.
+   * @param k       Integer, the number of clusters the coreset will be clustered into.
+   * @param size    Integer, the number of points to sample.
+   * @param random  SplittableRandom, the generator to sample with.
+   * @param pool    ForkJoinPool, the pool that runs the passes.
+   * @return Coreset, at most size weighted points, or every point if there are no more than size.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points, or
+   *                                  the size is less than k.
+   */
+  public static Coreset sample(PointSet points, double[] weights, int k, int size,
+                               SplittableRandom random, ForkJoinPool pool)
+          throws IllegalArgumentException {
+    LloydEngine.checkK(points, k);
+    if (size < k) {
+      throw new IllegalArgumentException("Coreset size must be at least k.");
+    }
+    int n = points.size();
+    if (size >= n) {
+      // Already small enough: keep every point as it is
+      PointArray copy = new PointArray(n);
+      copy.addAll(points);
+      double[] kept = new double[n];
+      for (int i = 0; i < n; i++) {
+        kept[i] = weights == null ? 1 : weights[i];
+      }
+      return new Coreset(copy, kept);
+    }
+    double[] centerX = new double[k];
+    double[] centerY = new double[k];
+    if (weights == null) {
+      Kmeans.parallelCenters(points, k, centerX, centerY, random, pool);
+    } else {
+      Kmeans.plusPlusCenters(points, weights, k, centerX, centerY, random);
+    }
+    // Assign every point to its rough center, and total the weight and cost of each cluster
+    int chunks = (n + GRAIN - 1) / GRAIN;
+    int[] labels = new int[n];
+    double[] distances = new double[n];
+    double[] partialWeight = new double[chunks * k];
+    double[] partialCost = new double[chunks * k];
+    forChunks(pool, chunks, chunk -> {
+      int offset = chunk * k;
+      int end = Math.min(n, (chunk + 1) * GRAIN);
+      for (int i = chunk * GRAIN; i < end; i++) {
+        double x = points.getX(i);
+        double y = points.getY(i);
+        int nearest = 0;
+        double best = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < k; c++) {
+          double dx = x - centerX[c];
+          double dy = y - centerY[c];
+          double distance = dx * dx + dy * dy;
+          if (distance < best) {
+            best = distance;
+            nearest = c;
+          }
+        }
+        double weight = weights == null ? 1 : weights[i];
+        labels[i] = nearest;
+        distances[i] = best;
+        partialWeight[offset + nearest] += weight;
+        partialCost[offset + nearest] += weight * best;
+      }
+    });
+    double[] clusterWeight = new double[k];
+    double[] clusterCost = new double[k];
+    double cost = 0;
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      for (int c = 0; c < k; c++) {
+        clusterWeight[c] += partialWeight[chunk * k + c];
+        clusterCost[c] += partialCost[chunk * k + c];
+      }
+    }
+    for (int c = 0; c < k; c++) {
+      cost += clusterCost[c];
+    }
+    // The sensitivity bound of Bachem, Lucic and Krause for a rough k-means++ clustering
+    double alpha = 16 * (Math.log(k) + 2);
+    double scale = cost > 0 ? alpha / cost : 0;
+    double[] sensitivities = new double[n];
+    forChunks(pool, chunks, chunk -> {
+      int end = Math.min(n, (chunk + 1) * GRAIN);
+      for (int i = chunk * GRAIN; i < end; i++) {
+        int c = labels[i];
+        double weight = weights == null ? 1 : weights[i];
+        sensitivities[i] = weight * (scale * distances[i]
+                + (2 * scale * clusterCost[c] + 4) / clusterWeight[c]);
+      }
+    });
+    // Running totals, added up in point order, to draw points in proportion to their sensitivity
+    double[] cumulative = new double[n];
+    double total = 0;
+    for (int i = 0; i < n; i++) {
+      total += sensitivities[i];
+      cumulative[i] = total;
+    }
+    int[] drawn = new int[size];
+    for (int j = 0; j < size; j++) {
+      int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+      drawn[j] = Math.min(n - 1, index >= 0 ? index + 1 : -index - 1);
+    }
+    // A point drawn more than once is kept once, with the weight of every draw
+    Arrays.sort(drawn);
+    PointArray sampled = new PointArray(size);
+    double[] sampledWeights = new double[size];
+    int kept = 0;
+    for (int j = 0; j < size; j++) {
+      int i = drawn[j];
+      double weight = (weights == null ? 1 : weights[i]) * total / (size * sensitivities[i]);
+      if (j > 0 && drawn[j - 1] == i) {
+        sampledWeights[kept - 1] += weight;
+      } else {
+        sampled.add(points.getX(i), points.getY(i));
+        sampledWeights[kept++] = weight;
+      }
+    }
+    return new Coreset(sampled, Arrays.copyOf(sampledWeights, kept));
+  }
+
+  /**
+   * Method to join two coresets of disjoint sets of points into a coreset of their union.
+   *
+   * @param first  Coreset, the first coreset.
+   * @param second Coreset, the second coreset.
+   * @return Coreset, every weighted point of both.
+   */
+  public static Coreset merge(Coreset first, Coreset second) {
+    PointArray points = new PointArray(first.size() + second.size());
+    points.addAll(first.points);
+    points.addAll(second.points);
+    double[] weights = Arrays.copyOf(first.weights, first.size() + second.size());
+    System.arraycopy(second.weights, 0, weights, first.size(), second.size());
+    return new Coreset(points, weights);
+  }
+
+  /**
+   * Method to sample a smaller coreset from this one, for merge-and-reduce. Its error adds to the
+   * error of this coreset.
+   *
+   * @param k      Integer, the number of clusters the coreset will be clustered into.
+   * @param size   Integer, the number of points to sample.
+   * @param random SplittableRandom, the generator to sample with.
+   * @return Coreset, at most size weighted points.
+   * @throws IllegalArgumentException When k is not positive or exceeds the size of this coreset,
+   *                                  or the size is less than k.
+   */
+  public Coreset reduce(int k, int size, SplittableRandom random)
+          throws IllegalArgumentException {
+    return sample(this.points, this.weights, k, size, random, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Method to get the number of points in the coreset.
+   *
+   * @return Integer, the number of weighted points.
+   */
+  public int size() {
+    return this.weights.length;
+  }
+
+  /**
+   * Method to get the points of the coreset.
+   *
+   * @return PointSet, a read-only view of the points.
+   */
+  public PointSet getPoints() {
+    return this.points;
+  }
+
+  /**
+   * Method to get the weight of a point of the coreset.
+   *
+   * @param index Integer, the index of the point.
+   * @return Double, its weight: roughly the number of original points it stands for.
+   */
+  public double getWeight(int index) {
+    return this.weights[index];
+  }
+
+  /**
+   * Method to get the weight of every point of the coreset.
+   *
+   * @return Double[], a copy of the weights.
+   */
+  public double[] getWeights() {
+    return this.weights.clone();
+  }
+
+  /**
+   * Method to get the total weight of the coreset, an unbiased estimate of the number of original
+   * points.
+   *
+   * @return Double, the sum of the weights.
+   */
+  public double getTotalWeight() {
+    double total = 0;
+    for (double weight : this.weights) {
+      total += weight;
+    }
+    return total;
+  }
+
+  /**
+   * Method to estimate the k-means cost of centers on the original points: the weighted sum of the
+   * squared distances of the coreset's points from their nearest centers.
+   *
+   * @param centerX Double[], the x coordinates of the centers.
+   * @param centerY Double[], the y coordinates of the centers.
+   * @return Double, the estimated inertia.
+   */
+  public double getCost(double[] centerX, double[] centerY) {
+    double cost = 0;
+    for (int i = 0; i < this.weights.length; i++) {
+      double best = Double.POSITIVE_INFINITY;
+      for (int c = 0; c < centerX.length; c++) {
+        double dx = this.points.getX(i) - centerX[c];
+        double dy = this.points.getY(i) - centerY[c];
+        best = Math.min(best, dx * dx + dy * dy);
+      }
+      cost += this.weights[i] * best;
+    }
+    return cost;
+  }
+
+  /**
+   * Helper method to run a body for each chunk of the points on a pool, waiting for all of them.
+   *
+   * @param pool   ForkJoinPool, the pool to run the chunks on.
+   * @param chunks Integer, the number of chunks.
+   * @param body   IntConsumer, the work for a chunk, given its index.
+   */
+  private static void forChunks(ForkJoinPool pool, int chunks, IntConsumer body) {
+    pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(body)).join();
+  }
+}
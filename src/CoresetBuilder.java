@@ -0,0 +1,156 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A class to build a coreset of a stream of points by merge and reduce, holding only a few
+ * coresets in memory however long the stream is. Points are buffered until a chunk of the coreset
+ * size has arrived, which becomes a coreset of level 0 with every point weighted 1. Whenever two
+ * coresets share a level, they are merged and reduced back to the coreset size at the next level,
+ * like carrying in a binary counter. After n points there are at most log2(n / size) levels.
+ *
+ * <p>Each reduction adds its own error, so the error of the built coreset grows with the number of
+ * levels; a larger size lowers the error of every reduction, at the cost of memory and of the
+ * clustering that follows. Given the same points in the same order and the same generator, the
+ * coreset is the same.
+ */
+public class CoresetBuilder {
+
+  /**
+   * The number of clusters the coreset will be clustered into.
+   */
+  private final int k;
+
+  /**
+   * The number of points in each coreset.
+   */
+  private final int size;
+
+  /**
+   * The generator each reduction's generator is split from.
+   */
+  private final SplittableRandom random;
+
+  /**
+   * The coreset held at each level, or null if none is.
+   */
+  private final List<Coreset> levels;
+
+  /**
+   * The points not yet in a coreset.
+   */
+  private PointArray buffer;
+
+  /**
+   * The number of points added.
+   */
+  private long count;
+
+  /**
+   * Constructs a builder for coresets of the given size.
+   *
+   * @param k      Integer, the number of clusters the coreset will be clustered into.
+   * @param size   Integer, the number of points in each coreset.
+   * @param random SplittableRandom, the generator to sample with.
+   * @throws IllegalArgumentException When k is not positive or the size is less than k.
+   */
+  public CoresetBuilder(int k, int size, SplittableRandom random)
+          throws IllegalArgumentException {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    if (size < k) {
+      throw new IllegalArgumentException("Coreset size must be at least k.");
+    }
+    this.k = k;
+    this.size = size;
+    this.random = random;
+    this.levels = new ArrayList<>();
+    this.buffer = new PointArray(size);
+  }
+
+  /**
+   * Method to add a point of the stream.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   */
+  public void add(double x, double y) {
+    this.buffer.add(x, y);
+    this.count++;
+    if (this.buffer.size() == this.size) {
+      double[] weights = new double[this.size];
+      Arrays.fill(weights, 1);
+      this.carry(new Coreset(this.buffer, weights));
+      this.buffer = new PointArray(this.size);
+    }
+  }
+
+  /**
+   * Method to add a chunk of the stream, in order.
+   *
+   * @param chunk PointSet, the points to add.
+   */
+  public void addAll(PointSet chunk) {
+    int n = chunk.size();
+    for (int i = 0; i < n; i++) {
+      this.add(chunk.getX(i), chunk.getY(i));
+    }
+  }
+
+  /**
+   * Method to get the number of points added so far.
+   *
+   * @return Long, the number of points.
+   */
+  public long getCount() {
+    return this.count;
+  }
+
+  /**
+   * Method to build the coreset of every point added so far: the union of the coresets held at
+   * each level and the buffered points, each weighted 1. It holds at most size points per level,
+   * plus the buffer, and the builder can carry on taking points afterwards.
+   *
+   * @return Coreset, the coreset of the stream so far.
+   * @throws IllegalStateException When fewer than k points have been added.
+   */
+  public Coreset build() throws IllegalStateException {
+    if (this.count < this.k) {
+      throw new IllegalStateException("Cannot build a coreset of fewer than k points.");
+    }
+    PointArray points = new PointArray(this.buffer.size());
+    points.addAll(this.buffer);
+    double[] weights = new double[points.size()];
+    Arrays.fill(weights, 1);
+    Coreset union = new Coreset(points, weights);
+    for (Coreset level : this.levels) {
+      if (level != null) {
+        union = Coreset.merge(union, level);
+      }
+    }
+    return union;
+  }
+
+  /**
+   * Helper method to place a coreset at level 0, merging and reducing with the coreset at each
+   * level until it reaches an empty level.
+   *
+   * @param coreset Coreset, the coreset of the latest chunk.
+   */
+  private void carry(Coreset coreset) {
+    int level = 0;
+    while (level < this.levels.size() && this.levels.get(level) != null) {
+      coreset = Coreset.merge(this.levels.get(level), coreset)
+              .reduce(this.k, this.size, this.random.split());
+      this.levels.set(level, null);
+      level++;
+    }
+    if (level == this.levels.size()) {
+      this.levels.add(coreset);
+    } else {
+      this.levels.set(level, coreset);
+    }
+  }
+}
@@ -1,26 +1,69 @@
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * A class to store and operate upon the data. This class has a list of data points, and offers the
- * data modeling methods fitLine and kmeans.
+ * A class to store and operate upon the data. This class has a columnar store of data points, and
+ * offers the data modeling methods fitLine and kmeans.
  */
 public class DataModel {
 
   /**
-   * A list of data points.
+   * The store holding the data points.
    */
-  private List<Point2D.Double> data;
+  private PointStore points;
+
+  /**
+   * The running moments of the data points, updated as each point is added. Null until first
+   * needed when the model is opened over a store that already holds points.
+   */
+  private Moments moments;
+
+  /**
+   * The KD-tree over the data points, built when first needed for filtering k-means and dropped
+   * whenever a point is added.
+   */
+  private KdTree tree;
+
+  /**
+   * The weight of each data point, with spare capacity at the end. Null while every point weighs 1,
+   * so unweighted models pay nothing for weights.
+   */
+  private double[] weights;
 
   /**
    * Constructs an initial DataModel object. It does not yet contain any data points.
    */
   public DataModel() {
-    // Use a linked list for storage: fast appending, no need to resize
-    this.data = new LinkedList<>();
+    // Use primitive columns for storage: amortized constant time appending, no boxing per point
+    this(new PointArray());
+  }
+
+  /**
+   * Constructs a DataModel object on top of the given point store, such as an off-heap
+   * MappedPointStore for datasets larger than the heap. Any points already in the store are part of
+   * the model, and are only summarized when a line is first fit, so opening a large store is
+   * immediate. The caller remains responsible for closing the store.
+   *
+   * @param store PointStore, the store to hold the data points.
+   * @throws IllegalArgumentException When the store is null.
+   */
+  public DataModel(PointStore store) throws IllegalArgumentException {
+    if (store == null) {
+      throw new IllegalArgumentException("Point store cannot be null.");
+    }
+    this.points = store;
+    this.moments = store.size() == 0 ? new Moments() : null;
   }
 
   /**
@@ -29,68 +72,173 @@ public class DataModel {
    * @param point Point2D.Double, the point to add to the data model.
    */
   public void add(Point2D.Double point) {
-    this.data.add(point);
+    this.add(point.getX(), point.getY());
+  }
+
+  /**
+   * Method to add a new point to the DataModel from its coordinates, without creating a Point2D.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   */
+  public void add(double x, double y) {
+    this.points.add(x, y);
+    this.tree = null;
+    this.addWeight(this.points.size() - 1, 1);
+    if (this.moments != null) {
+      this.moments.add(x, y);
+    }
+  }
+
+  /**
+   * Method to add a new weighted point to the DataModel, which counts as that many copies of the
+   * point: a point of weight 3 pulls the line of best fit and the cluster centers as hard as three
+   * identical points would. Weights suit data with many duplicates, or data already counted into
+   * bins, which then costs one point per distinct value.
+   *
+   * @param x      Double, the x coordinate of the point.
+   * @param y      Double, the y coordinate of the point.
+   * @param weight Double, the weight of the point.
+   * @throws IllegalArgumentException When the weight is not positive and finite.
+   * @throws IllegalStateException    When the model cannot hold weighted points, as a sliding
+   *                                  window, which evicts points without their weights, cannot.
+   */
+  public void add(double x, double y, double weight) throws IllegalArgumentException {
+    if (!(weight > 0) || Double.isInfinite(weight)) {
+      throw new IllegalArgumentException("Weight must be positive and finite.");
+    }
+    this.points.add(x, y);
+    this.tree = null;
+    this.addWeight(this.points.size() - 1, weight);
+    if (this.moments != null) {
+      this.moments.add(x, y, weight);
+    }
   }
 
   /**
-   * Method to get a list of all the Point2D objects in the DataModel's list so far.
+   * Method to append every point of another DataModel to this one, in order. The points are copied
+   * in bulk and the other model's moments are combined with these, so the line of best fit is not
+   * recomputed point by point.
+   *
+   * @param other DataModel, the model whose points to append.
+   */
+  public void addAll(DataModel other) {
+    // Take the other moments and weights first, in case the other model is this model
+    Moments added = other.getMoments();
+    double[] addedWeights = other.weightArray();
+    int start = this.points.size();
+    int count = other.getPoints().size();
+    this.points.addAll(other.getPoints());
+    this.tree = null;
+    if (addedWeights != null || this.weights != null) {
+      for (int i = 0; i < count; i++) {
+        this.addWeight(start + i, addedWeights == null ? 1 : addedWeights[i]);
+      }
+    }
+    if (this.moments != null) {
+      this.moments = this.moments.combine(added);
+    }
+  }
+
+  /**
+   * Method to get the weight of a data point.
+   *
+   * @param index Integer, the index of the point.
+   * @return Double, the weight it was added with, or 1 if it was added without one.
+   * @throws IndexOutOfBoundsException When there is no point at the index.
+   */
+  public double getWeight(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= this.points.size()) {
+      throw new IndexOutOfBoundsException("No point at index " + index + ".");
+    }
+    return this.weights == null ? 1 : this.weights[index];
+  }
+
+  /**
+   * Method to check whether any data point was added with a weight other than 1.
+   *
+   * @return Boolean, true if the points are weighted.
+   */
+  public boolean isWeighted() {
+    return this.weights != null;
+  }
+
+  /**
+   * Method to collapse the data points into weighted representatives: identical points, or every
+   * point in the same square cell of a grid. Fitting or clustering the representatives costs one
+   * point per distinct value or occupied cell rather than one per data point.
+   *
+   * @param cell Double, the side of each grid cell, or 0 to collapse identical points only.
+   * @return Aggregation, the representatives, their weights, and the representative of each point.
+   * @throws IllegalArgumentException When the cell is negative or not finite.
+   */
+  public Aggregation aggregate(double cell) throws IllegalArgumentException {
+    if (cell == 0) {
+      return Aggregation.exact(this.points, this.weightArray());
+    }
+    return Aggregation.grid(this.points, this.weightArray(), cell);
+  }
+
+  /**
+   * Method to get a list of all the Point2D objects in the DataModel's list so far. Every call
+   * copies and boxes the whole dataset, so algorithms should use getPoints() instead.
    *
    * @return ArrayList of Point2D objects, an array of all the data points in the DataModel so far.
    */
   public List<Point2D.Double> getData() {
     // Return an array list: use the .get(int index) method for constant time access to indices
-    return new ArrayList<>(this.data);
+    List<Point2D.Double> data = new ArrayList<>(this.points.size());
+    for (int i = 0; i < this.points.size(); i++) {
+      data.add(new Point2D.Double(this.points.getX(i), this.points.getY(i)));
+    }
+    return data;
   }
 
   /**
-   * Method to perform a Linear Regression algorithm on the set of data.
+   * Method to get a read-only view of the data points in the DataModel. The view is not a copy, so
+   * it reflects points added after it was obtained.
+   *
+   * @return PointSet, a zero-copy view of all the data points in the DataModel so far.
+   */
+  public PointSet getPoints() {
+    return this.points;
+  }
+
+  /**
+   * Method to perform a Linear Regression algorithm on the set of data. Runs in constant time,
+   * regardless of the number of data points.
    *
    * @return Line, the standard form line representing the line of best fit for the given data.
    * @throws IllegalStateException When the DataModel has less than 2 data points.
    */
   public Line fitLine() throws IllegalStateException {
-    // The helper function will coordinate the necessary calculations and return the Line object
-    return calculateLine(this.getData());
+    // The averages and sums of squares are kept up to date by add, so no pass over the data
+    return this.runningMoments().toLine();
   }
 
   /**
-   * Helper method to the fitLine() method. This method coordinates the calculation of the necessary
-   * variables in the linear regression, and returns an array of three doubles that correspond to
-   * the three constants needed to construct a Line: a,b,c.
+   * Method to get a snapshot of the running moments of the data. The moments of several DataModel
+   * objects can be combined to fit a single line through all of their points.
    *
-   * @param points ArrayList of Point2D.Double, the data from the DataModel.
-   * @return Double[], three double that correspond to the constants in standard form equation.
-   * @throws IllegalStateException When the DataModel has less than 2 data points.
+   * @return Moments, a copy of the moments of all the data points in the DataModel so far.
    */
-  private Line calculateLine(List<Point2D.Double> points) throws IllegalStateException {
-    // A line of best fit cannot be calculated for a DataModel with less than 2 data points
-    if (points.size() < 2) {
-      throw new IllegalStateException("Operation requires the DataModel to have at least two" +
-              "data points.");
-    }
-    // Step 1: Compute following sums for all points using Regression class static methods
-    // Find the average x and average y; Find the sum of squares for yy, xx, xy
-    double avgX = Regression.averageX(points);
-    double avgY = Regression.averageY(points);
-    // The sumSquares method returns: double array = {sumXX, sumYY, sumXY}
-    double[] sumSquares = Regression.sumSquares(points, avgX, avgY);
-    double sumXX = sumSquares[0];
-    double sumYY = sumSquares[1];
-    double sumXY = sumSquares[2];
-    // Step 2: Compute distance using the provided formula
-    // Piazza @449: d = infinity is a valid case, no need to check for division by zero
-    double distance = Regression.distance(sumXX, sumYY, sumXY);
-    // Step 3: Compute theta using the provided formula
-    double theta = Math.toDegrees(Math.atan(distance));
-    // Step 4: Compute positive result for f(t): t = theta or t = theta + 180
-    theta = Regression.formula(theta, sumXX, sumYY, sumXY);
-    // Step 5: Compute the a,b,c constants required to define a line in the standard form equation
-    double lineConstantA = Math.cos(Math.toRadians(theta / 2));
-    double lineConstantB = Math.sin(Math.toRadians(theta / 2));
-    double lineConstantC = (-1 * lineConstantA * avgX) - (lineConstantB * avgY);
-    return new Line(lineConstantA, lineConstantB, lineConstantC);
+  public Moments getMoments() {
+    return new Moments(this.runningMoments());
   }
 
+  /**
+   * Method to get the running moments of the data, computing them first if the model was opened
+   * over points that have not been summarized yet. Subclasses that evict or down-weight points
+   * adjust these moments to match.
+   *
+   * @return Moments, the live moments of all the data points in the DataModel so far.
+   */
+  protected Moments runningMoments() {
+    if (this.moments == null) {
+      this.moments = Moments.of(this.points, this.weightArray());
+    }
+    return this.moments;
+  }
 
   /**
    * Runs 10 k-mean clustering algorithms that move the data points until they align with randomized
@@ -101,52 +249,996 @@ public class DataModel {
    * @throws IllegalArgumentException if k is not a positive integer or within data size
    */
   public List kmeans(int k) throws IllegalArgumentException {
-    if (k <= 0) {
-      throw new IllegalArgumentException("k must be positive");
-    }
-    // Initialize lists for 10 iterations of RANSAC and their corresponding errors
-    List<List> ransacList = new ArrayList<>();
-    List<Double> errorList = new ArrayList<>();
-    for (int i = 0; i < 10; i++) {
-      // Choose k points from data set at random to be centers of clusters
-      List<Point2D.Double> data = this.getData();
-      if (k > data.size()) {
-        throw new IllegalArgumentException("k cannot exceed data size");
-      }
-      List<Cluster> clusters = Kmeans.getClusters(data, k);
-      // Set initial error as infinity
-      double error = Double.POSITIVE_INFINITY;
-      double newError;
-      double percentageError;
-      while (true) {
-        Kmeans.resetClusterDataPointSizes(clusters);
-        // Assign each point to a cluster by finding its nearest (min distance) cluster
-        for (Point2D.Double point : data) {
-          Kmeans.categorizePoint(point, clusters);
+    return this.cluster(k).getLabelList();
+  }
+
+  /**
+   * Runs k-mean clustering algorithms that move the data points until they align with k clusters,
+   * seeded, restarted and run as the options say.
+   *
+   * @param k       integer for number of clusters we want
+   * @param options the seeding, restarts and engine to cluster with
+   * @return list of integers denoting clusters corresponding to the ith point in the dataset
+   * @throws IllegalArgumentException if k is not a positive integer or within data size
+   */
+  public List<Integer> kmeans(int k, KmeansOptions options) throws IllegalArgumentException {
+    return this.cluster(k, options).getLabelList();
+  }
+
+  /**
+   * Runs a k-mean clustering algorithm that moves the data points until they align with k clusters,
+   * starting from a previous clustering of the first points rather than from random centers.
+   *
+   * @param k        integer for number of clusters we want
+   * @param previous the clustering before points were appended
+   * @return list of integers denoting clusters corresponding to the ith point in the dataset
+   * @throws IllegalArgumentException if k is not a positive integer or within data size, or does
+   *                                  not match the previous clustering
+   */
+  public List<Integer> kmeans(int k, KmeansResult previous) throws IllegalArgumentException {
+    return this.cluster(k, previous).getLabelList();
+  }
+
+  /**
+   * Runs 10 k-mean clustering algorithms that move the data points until they align with randomized
+   * k clusters, and reports the one with the minimum error.
+   *
+   * @param k integer for number of clusters we want
+   * @return the labels, centers, error and cost of the best clustering
+   * @throws IllegalArgumentException if k is not a positive integer or within data size
+   */
+  public KmeansResult cluster(int k) throws IllegalArgumentException {
+    return this.cluster(k, new KmeansOptions());
+  }
+
+  /**
+   * Runs 10 k-mean clustering algorithms, as kmeans does, and keeps the centers of the one with the
+   * minimum error as a model to label new points with.
+   *
+   * @param k integer for number of clusters we want
+   * @return the fitted model, which labels any point with its nearest center
+   * @throws IllegalArgumentException if k is not a positive integer or within data size
+   */
+  public KmeansModel fitKmeans(int k) throws IllegalArgumentException {
+    return new KmeansModel(this.cluster(k));
+  }
+
+  /**
+   * Runs k-mean clustering algorithms, as kmeans does with the same options, and keeps the centers
+   * of the one with the minimum error as a model to label new points with, along with any seed.
+   *
+   * @param k       integer for number of clusters we want
+   * @param options the seeding, restarts and engine to cluster with
+   * @return the fitted model, which labels any point with its nearest center
+   * @throws IllegalArgumentException if k is not a positive integer or within data size, or the
+   *                                  options cannot be combined
+   */
+  public KmeansModel fitKmeans(int k, KmeansOptions options) throws IllegalArgumentException {
+    return new KmeansModel(this.cluster(k, options), options);
+  }
+
+  /**
+   * Runs k-mean clustering algorithms that move the data points until they align with randomized
+   * k clusters, and reports the one with the minimum error. The number of restarts, their seed, and
+   * the executor they run on are taken from the options. With a seed set, the result is the same
+   * whichever executor runs the restarts. Weighted points are clustered by weighted centroids and
+   * weighted error, and with aggregation the restarts run over weighted representatives of the
+   * points, before a single pass labels every point.
+   *
+   * @param k       integer for number of clusters we want
+   * @param options the restarts, seed and executor to cluster with
+   * @return the labels, centers, error and cost of the best clustering, with no iterations if
+   *         aggregated, as the data points are only labelled
+   * @throws IllegalArgumentException if k is not a positive integer or within data size or the
+   *                                  number of representatives, or the options combine more than
+   *                                  one way of running the iterations, or ask for Elkan,
+   *                                  filtering, an iteration pool or mini-batches with weighted
+   *                                  points or aggregation
+   */
+  public KmeansResult cluster(int k, KmeansOptions options) throws IllegalArgumentException {
+    if (options.isBisecting()) {
+      return this.bisect(k, options);
+    }
+    if (options.getCoresetSize() > 0) {
+      LloydEngine.checkK(this.points, k);
+      checkCoreset(options);
+      SplittableRandom random = options.hasSeed()
+              ? new SplittableRandom(options.getSeed()) : new SplittableRandom();
+      ForkJoinPool pool = options.getIterationPool() != null
+              ? options.getIterationPool() : ForkJoinPool.commonPool();
+      Coreset coreset = Coreset.sample(this.points, this.weightArray(), k,
+              options.getCoresetSize(), random.split(), pool);
+      return this.cluster(k, coreset, options, random.split());
+    }
+    // Split a generator off for each restart up front, so restarts draw the same centers in any order
+    SplittableRandom root = options.hasSeed()
+            ? new SplittableRandom(options.getSeed()) : new SplittableRandom();
+    SplittableRandom[] randoms = new SplittableRandom[options.getRestarts()];
+    for (int i = 0; i < randoms.length; i++) {
+      randoms[i] = root.split();
+    }
+    // Check everything before any restart starts, and build any tree the restarts share
+    LloydEngine.checkK(this.points, k);
+    checkEngine(options);
+    double[] weights = this.weightArray();
+    if (options.isAggregating()) {
+      checkWeighted(options);
+      // Iterate over the representatives, then label every point with the centers found
+      Aggregation aggregation = this.aggregate(options.getGridCell());
+      LloydEngine.checkK(aggregation.getPoints(), k);
+      KmeansResult best = best(aggregation.getPoints(), aggregation.getWeights(), k, options,
+              randoms, null);
+      double[] centerX = new double[k];
+      double[] centerY = new double[k];
+      for (int c = 0; c < k; c++) {
+        centerX[c] = best.getCenterX(c);
+        centerY[c] = best.getCenterY(c);
+      }
+      return this.label(k, centerX, centerY, options);
+    }
+    if (weights != null) {
+      checkWeighted(options);
+    }
+    KdTree shared = options.isFiltering() ? this.kdTree() : null;
+    return best(this.points, weights, k, options, randoms, shared);
+  }
+
+  /**
+   * Runs a k-mean clustering algorithm that moves the data points until they align with k clusters,
+   * starting from a previous clustering of the first points, such as the clustering before a small
+   * append. Points that provably keep their old cluster are checked against their old center alone,
+   * and later iterations skip every point whose cluster cannot change, so re-clustering after a
+   * small append costs a fraction of a run from random centers. Weighted points are instead
+   * re-clustered by a full run of weighted Lloyd iterations from the previous centers, which
+   * measures every point against every center and keeps none of the previous labels, so it only
+   * saves the seeding and the iterations a good start avoids.
+   *
+   * @param k        integer for number of clusters we want
+   * @param previous the clustering before points were appended
+   * @return the labels, centers, error and cost of the refined clustering
+   * @throws IllegalArgumentException if k is not a positive integer or within data size, or does
+   *                                  not match the previous clustering
+   */
+  public KmeansResult cluster(int k, KmeansResult previous) throws IllegalArgumentException {
+    if (this.isWeighted()) {
+      // Check the previous clustering before the engine copies every weight
+      LloydEngine.checkK(this.points, k);
+      double[] xs = new double[k];
+      double[] ys = new double[k];
+      LloydEngine.previousCenters(previous, k, this.points.size(), xs, ys);
+      WeightedLloydEngine engine = new WeightedLloydEngine(this.points, this.weightArray(), k);
+      engine.setCenters(xs, ys);
+      engine.run();
+      return engine.getResult();
+    }
+    HamerlyEngine engine = new HamerlyEngine(this.points, k);
+    engine.warmStart(previous);
+    engine.run();
+    return engine.getResult();
+  }
+
+  /**
+   * Runs k-mean clustering algorithms on a coreset of the data points, such as one built from a
+   * stream by CoresetBuilder, and labels every data point with the nearest of the centers found.
+   * Each restart seeds the weighted points with k-means++, or with random points, and runs weighted
+   * Lloyd iterations over them until no point changes cluster; the restart with the minimum
+   * weighted cost is kept. A single parallel pass over the data points, on the options' iteration
+   * pool or the common fork-join pool, then labels them and measures the error, so the data is
+   * read once however many restarts and iterations ran.
+   *
+   * @param k       integer for number of clusters we want
+   * @param coreset the weighted points standing for the data points
+   * @param options the seeding, restarts and seed to cluster the coreset with
+   * @return the labels, centers, error and cost of the clustering over every data point, with no
+   *         iterations, as the data points are only labelled
+   * @throws IllegalArgumentException if k is not a positive integer or within data size or the
+   *                                  coreset size, or the options combine the coreset with Elkan,
+   *                                  filtering, mini-batches or bisecting
+   */
+  public KmeansResult cluster(int k, Coreset coreset, KmeansOptions options)
+          throws IllegalArgumentException {
+    SplittableRandom random = options.hasSeed()
+            ? new SplittableRandom(options.getSeed()) : new SplittableRandom();
+    return this.cluster(k, coreset, options, random);
+  }
+
+  /**
+   * Runs a bisecting k-mean clustering: starting from a single cluster of every data point, the
+   * cluster with the largest inertia is split in two with 2-means, keeping the best of the options'
+   * restarts, until there are k clusters. Each level of splits costs O(n) per iteration, so large k
+   * costs about O(n log k) rather than the O(n k) of flat k-means.
+   *
+   * <p>A cluster is split as soon as it is created, in parallel on the options' executor or the
+   * common fork-join pool, so independent branches split at the same time; the splits of the final
+   * clusters are never used, and stop at their next restart once bisecting is done. Each cluster
+   * draws from a generator split off its parent in a fixed order, so with a seed set the result
+   * does not depend on the scheduling.
+   *
+   * @param k       integer for number of clusters we want
+   * @param options the seeding, restarts, engine and executor to split with
+   * @return the labels, centers, error and cost of the clusters, and the hierarchy of splits
+   * @throws IllegalArgumentException if k is not a positive integer or within data size, or the
+   *                                  options combine more than one way of running the iterations,
+   *                                  or ask for filtering, a coreset or aggregation, or the points
+   *                                  are weighted
+   */
+  public BisectingResult bisect(int k, KmeansOptions options) throws IllegalArgumentException {
+    LloydEngine.checkK(this.points, k);
+    checkEngine(options);
+    if (options.isFiltering() || options.getCoresetSize() > 0 || options.isAggregating()
+            || this.isWeighted()) {
+      // Each split clusters a different subset of the points, which none of these covers
+      throw new IllegalArgumentException("Bisecting cannot be combined with filtering, a coreset, "
+              + "aggregation or weighted points.");
+    }
+    ExecutorService executor = options.getExecutor() != null
+            ? options.getExecutor() : ForkJoinPool.commonPool();
+    int n = this.points.size();
+    int nodes = 2 * k - 1;
+    int[] parents = new int[nodes];
+    int[] lefts = new int[nodes];
+    int[] rights = new int[nodes];
+    double[] nodeX = new double[nodes];
+    double[] nodeY = new double[nodes];
+    int[] nodeSizes = new int[nodes];
+    double[] nodeInertias = new double[nodes];
+    int[][] members = new int[nodes][];
+    SplittableRandom[] randoms = new SplittableRandom[nodes];
+    List<Future<Bisection>> splits = new ArrayList<>(Collections.nCopies(nodes, null));
+    Arrays.fill(lefts, -1);
+    Arrays.fill(rights, -1);
+    parents[0] = -1;
+    members[0] = new int[n];
+    for (int i = 0; i < n; i++) {
+      members[0][i] = i;
+    }
+    Bisection whole = Bisection.measure(this.points, members[0], null, 0);
+    nodeX[0] = whole.centerX[0];
+    nodeY[0] = whole.centerY[0];
+    nodeSizes[0] = n;
+    nodeInertias[0] = whole.inertias[0];
+    randoms[0] = options.hasSeed()
+            ? new SplittableRandom(options.getSeed()) : new SplittableRandom();
+    // Split first the clusters that can be split, then the largest inertia, then the oldest
+    PriorityQueue<Integer> leaves = new PriorityQueue<>((a, b) -> {
+      if ((nodeSizes[a] > 1) != (nodeSizes[b] > 1)) {
+        return nodeSizes[a] > 1 ? -1 : 1;
+      }
+      int inertia = Double.compare(nodeInertias[b], nodeInertias[a]);
+      return inertia != 0 ? inertia : Integer.compare(a, b);
+    });
+    leaves.add(0);
+    // Set once the hierarchy is complete, so splits still running give up at their next restart
+    AtomicBoolean finished = new AtomicBoolean();
+    int created = 1;
+    int iterations = 0;
+    try {
+      splits.set(0, this.submitSplit(executor, members[0], options, randoms[0].split(),
+              finished));
+      while (created < nodes) {
+        int node = leaves.poll();
+        Bisection split = await(splits.get(node));
+        splits.set(node, null);
+        iterations += split.iterations;
+        lefts[node] = created;
+        rights[node] = created + 1;
+        for (int side = 0; side < 2; side++) {
+          int child = created++;
+          parents[child] = node;
+          members[child] = split.members[side];
+          nodeX[child] = split.centerX[side];
+          nodeY[child] = split.centerY[side];
+          nodeSizes[child] = members[child].length;
+          nodeInertias[child] = split.inertias[side];
+          randoms[child] = randoms[node].split();
+          if (nodeSizes[child] > 1) {
+            splits.set(child, this.submitSplit(executor, members[child], options,
+                    randoms[child].split(), finished));
+          }
+          leaves.add(child);
+        }
+        members[node] = null;
+      }
+    } finally {
+      finished.set(true);
+      for (Future<Bisection> speculative : splits) {
+        if (speculative != null) {
+          speculative.cancel(false);
         }
-        // For each cluster, find average of its data points' x and y to compute center
-        Kmeans.computeClusterCenters(clusters);
-        // Compute new error:
-        //    Find distance between each point and the center of its cluster
-        //    Average these distances to get the new error
-        newError = Kmeans.computeNewError(data, clusters);
-        // Calculate percentage error
-        if (error != Double.POSITIVE_INFINITY) {
-          percentageError = Math.abs(newError - error) / error;
-          if (percentageError < 0.01) {
-            break;
+      }
+    }
+    // Number the leaves in the order they were created, and label their points
+    int[] labels = new int[n];
+    int[] clusters = new int[nodes];
+    int[] counts = new int[k];
+    double[] centerX = new double[k];
+    double[] centerY = new double[k];
+    double[] distances = new double[k];
+    double[] squares = new double[k];
+    double total = 0;
+    double inertia = 0;
+    int cluster = 0;
+    for (int node = 0; node < nodes; node++) {
+      if (lefts[node] >= 0) {
+        clusters[node] = -1;
+        continue;
+      }
+      int c = cluster++;
+      clusters[node] = c;
+      centerX[c] = nodeX[node];
+      centerY[c] = nodeY[node];
+      counts[c] = nodeSizes[node];
+      squares[c] = nodeInertias[node];
+      for (int i : members[node]) {
+        labels[i] = c;
+        double dx = this.points.getX(i) - centerX[c];
+        double dy = this.points.getY(i) - centerY[c];
+        distances[c] += Math.sqrt(dx * dx + dy * dy);
+      }
+      total += distances[c];
+      inertia += squares[c];
+    }
+    KmeansResult flat = new KmeansResult(labels, centerX, centerY, total / n, inertia,
+            iterations, counts, distances, squares, null);
+    return new BisectingResult(flat, parents, lefts, rights, nodeX, nodeY, nodeSizes,
+            nodeInertias, clusters);
+  }
+
+  /**
+   * Runs k-mean clustering algorithms for every k in a range, sharing the work between them. The
+   * data points are used in place, any KD-tree is built once, and each restart chooses its
+   * starting centers once for the largest k: the first k of those centers start the clustering for
+   * each smaller k, as k-means++ and random seeding would choose them anyway. The k values then run
+   * in parallel on the options' executor, or on the common fork-join pool if it has none.
+   *
+   * @param minK    the smallest number of clusters
+   * @param maxK    the largest number of clusters
+   * @param options the seeding, restarts and engine to cluster with
+   * @return the best clustering for each k, with its error and inertia
+   * @throws IllegalArgumentException if the range is empty, or not within 1 and the data size, or
+   *                                  the options combine more than one way of running the
+   *                                  iterations, or ask for aggregation, or the points are weighted
+   */
+  public KmeansSweep sweep(int minK, int maxK, KmeansOptions options)
+          throws IllegalArgumentException {
+    LloydEngine.checkK(this.points, minK);
+    LloydEngine.checkK(this.points, maxK);
+    if (minK > maxK) {
+      throw new IllegalArgumentException("The smallest k cannot exceed the largest.");
+    }
+    if (options.isBisecting() || options.getCoresetSize() > 0 || options.isAggregating()
+            || this.isWeighted()) {
+      throw new IllegalArgumentException("Sweeps cannot be combined with bisecting, a coreset, "
+              + "aggregation or weighted points.");
+    }
+    checkEngine(options);
+    KdTree shared = options.isFiltering() ? this.kdTree() : null;
+    ExecutorService executor = options.getExecutor() != null
+            ? options.getExecutor() : ForkJoinPool.commonPool();
+    SplittableRandom root = options.hasSeed()
+            ? new SplittableRandom(options.getSeed()) : new SplittableRandom();
+    SplittableRandom[] randoms = new SplittableRandom[options.getRestarts()];
+    for (int i = 0; i < randoms.length; i++) {
+      randoms[i] = root.split();
+    }
+    // Choose each restart's starting centers for the largest k, and a generator for each k
+    List<Callable<SweepSeeds>> seeding = new ArrayList<>();
+    for (SplittableRandom random : randoms) {
+      seeding.add(() -> this.sweepSeeds(minK, maxK, options, random));
+    }
+    List<SweepSeeds> seeds = invokeAll(executor, seeding);
+    List<Callable<KmeansResult>> runs = new ArrayList<>();
+    for (int k = minK; k <= maxK; k++) {
+      int clusters = k;
+      runs.add(() -> {
+        LloydEngine engine = engine(this.points, null, clusters, options, shared);
+        KmeansResult best = null;
+        for (SweepSeeds seed : seeds) {
+          double[] seedX = Arrays.copyOf(seed.centerX, clusters);
+          double[] seedY = Arrays.copyOf(seed.centerY, clusters);
+          if (seed.samples != null) {
+            // k-means|| refines its centers over the weighted samples for each k
+            Kmeans.refineCenters(seed.samples, seed.weights, clusters, seedX, seedY);
+          }
+          KmeansResult result = refine(engine, seedX, seedY, seed.randoms[clusters - minK]);
+          if (best == null || result.getError() < best.getError()) {
+            best = result;
           }
         }
-        error = newError;
+        return best;
+      });
+    }
+    return new KmeansSweep(minK, invokeAll(executor, runs));
+  }
+
+  /**
+   * Method to get the KD-tree over the data points, building it if points have been added since it
+   * was last built. Filtering k-means reuses the tree across restarts and iterations.
+   *
+   * @return the tree over all the data points in the DataModel so far
+   */
+  protected KdTree kdTree() {
+    if (this.tree == null || this.tree.size() != this.points.size()) {
+      this.tree = new KdTree(this.points);
+    }
+    return this.tree;
+  }
+
+  /**
+   * Helper method to record the weight of the point just added at the given index. The weights are
+   * only allocated once a point weighs other than 1, at which point every earlier point weighs 1.
+   *
+   * @param index  the index of the point
+   * @param weight the weight of the point
+   */
+  private void addWeight(int index, double weight) {
+    if (this.weights == null) {
+      if (weight == 1) {
+        return;
+      }
+      this.weights = new double[Math.max(16, 2 * (index + 1))];
+      Arrays.fill(this.weights, 0, index, 1);
+    } else if (index >= this.weights.length) {
+      this.weights = Arrays.copyOf(this.weights,
+              Math.max(index + 1, this.weights.length + (this.weights.length >> 1)));
+    }
+    this.weights[index] = weight;
+  }
+
+  /**
+   * Helper method to get the weight of every data point.
+   *
+   * @return a copy of the weights, or null if every point weighs 1
+   */
+  private double[] weightArray() {
+    return this.weights == null ? null : Arrays.copyOf(this.weights, this.points.size());
+  }
+
+  /**
+   * Helper method to check that the options ask for at most one way of running the iterations.
+   *
+   * @param options the options to cluster with
+   * @throws IllegalArgumentException if the options combine Elkan, filtering, an iteration pool or
+   *                                  mini-batches
+   */
+  private static void checkEngine(KmeansOptions options) throws IllegalArgumentException {
+    int engines = (options.isElkan() ? 1 : 0) + (options.isFiltering() ? 1 : 0)
+            + (options.getIterationPool() != null ? 1 : 0) + (options.getBatchSize() > 0 ? 1 : 0);
+    if (engines > 1) {
+      throw new IllegalArgumentException(
+              "Choose at most one of Elkan, filtering, an iteration pool and mini-batches.");
+    }
+  }
+
+  /**
+   * Helper method to check that the options can cluster a coreset, which is never iterated over by
+   * an engine.
+   *
+   * @param options the options to cluster with
+   * @throws IllegalArgumentException if the options ask for Elkan, filtering, mini-batches,
+   *                                  bisecting or aggregation
+   */
+  private static void checkCoreset(KmeansOptions options) throws IllegalArgumentException {
+    if (options.isElkan() || options.isFiltering() || options.getBatchSize() > 0
+            || options.isBisecting() || options.isAggregating()) {
+      throw new IllegalArgumentException("A coreset cannot be combined with Elkan, filtering, "
+              + "mini-batches, bisecting or aggregation.");
+    }
+  }
+
+  /**
+   * Helper method to check that the options can cluster weighted points, which only plain
+   * iterations on one thread support.
+   *
+   * @param options the options to cluster with
+   * @throws IllegalArgumentException if the options ask for Elkan, filtering, an iteration pool or
+   *                                  mini-batches
+   */
+  private static void checkWeighted(KmeansOptions options) throws IllegalArgumentException {
+    if (options.isElkan() || options.isFiltering() || options.getIterationPool() != null
+            || options.getBatchSize() > 0) {
+      throw new IllegalArgumentException("Weighted points cannot be combined with Elkan, "
+              + "filtering, an iteration pool or mini-batches.");
+    }
+  }
+
+  /**
+   * Helper method to create the engine for a restart: one that skips distances with the triangle
+   * inequality if the options ask for it, one that filters centers down the KD-tree if they ask for
+   * that, one that moves centers with mini-batches if they set a batch size, one that spreads each
+   * iteration across the options' iteration pool if they have one, or else one that runs each
+   * iteration on one thread. Weighted points always get an engine that runs each iteration on one
+   * thread.
+   *
+   * @param points  the points to cluster
+   * @param weights the weight of each point, or null if every point weighs 1
+   * @param k       integer for number of clusters we want
+   * @param options the options to cluster with
+   * @param shared  the KD-tree over the points, if filtering
+   * @return a new engine over the points
+   */
+  private static LloydEngine engine(PointSet points, double[] weights, int k,
+                                    KmeansOptions options, KdTree shared) {
+    if (weights != null) {
+      return new WeightedLloydEngine(points, weights, k);
+    }
+    if (options.isElkan()) {
+      return new ElkanEngine(points, k);
+    }
+    if (options.isFiltering()) {
+      return new FilteringEngine(shared, k);
+    }
+    if (options.getBatchSize() > 0) {
+      return new MiniBatchEngine(points, k, options.getBatchSize(), options.getMaxBatches(),
+              options.getPatience());
+    }
+    if (options.getIterationPool() != null) {
+      return new ParallelLloydEngine(points, k, options.getIterationPool());
+    }
+    return new LloydEngine(points, k);
+  }
+
+  /**
+   * Helper method to cluster a coreset and label the data points with the centers found.
+   *
+   * @param k       integer for number of clusters we want
+   * @param coreset the weighted points standing for the data points
+   * @param options the options to cluster with
+   * @param root    the generator the restarts' generators are split from
+   * @return the labels, centers, error and cost of the clustering over every data point
+   */
+  private KmeansResult cluster(int k, Coreset coreset, KmeansOptions options,
+                               SplittableRandom root) {
+    LloydEngine.checkK(this.points, k);
+    LloydEngine.checkK(coreset.getPoints(), k);
+    checkCoreset(options);
+    PointSet weighted = coreset.getPoints();
+    double[] weights = coreset.getWeights();
+    SplittableRandom[] randoms = new SplittableRandom[options.getRestarts()];
+    for (int i = 0; i < randoms.length; i++) {
+      randoms[i] = root.split();
+    }
+    double[] bestX = null;
+    double[] bestY = null;
+    double bestCost = Double.POSITIVE_INFINITY;
+    for (SplittableRandom random : randoms) {
+      double[] seedX = new double[k];
+      double[] seedY = new double[k];
+      if (options.getSeeding() == Seeding.RANDOM) {
+        Kmeans.randomCenters(weighted, k, seedX, seedY, random);
+      } else {
+        // The coreset is small, so k-means|| has nothing to gain over k-means++
+        Kmeans.plusPlusCenters(weighted, weights, k, seedX, seedY, random);
+      }
+      Kmeans.refineCenters(weighted, weights, k, seedX, seedY, LloydEngine.MAX_ITERATIONS);
+      double cost = coreset.getCost(seedX, seedY);
+      if (bestX == null || cost < bestCost) {
+        bestX = seedX;
+        bestY = seedY;
+        bestCost = cost;
+      }
+    }
+    return this.label(k, bestX, bestY, options);
+  }
+
+  /**
+   * Helper method to label every data point with the nearest of the given centers, in a single
+   * pass: spread across the options' iteration pool or the common fork-join pool, or on the calling
+   * thread for weighted points, whose error is weighted.
+   *
+   * @param k       integer for number of clusters we want
+   * @param centerX the x coordinates of the centers
+   * @param centerY the y coordinates of the centers
+   * @param options the options to cluster with
+   * @return the labels, centers, error and cost of the centers over every data point
+   */
+  private KmeansResult label(int k, double[] centerX, double[] centerY, KmeansOptions options) {
+    double[] weights = this.weightArray();
+    LloydEngine engine;
+    if (weights != null) {
+      engine = new WeightedLloydEngine(this.points, weights, k);
+    } else {
+      ForkJoinPool pool = options.getIterationPool() != null
+              ? options.getIterationPool() : ForkJoinPool.commonPool();
+      engine = new ParallelLloydEngine(this.points, k, pool);
+    }
+    engine.setCenters(centerX, centerY);
+    engine.label();
+    return engine.getResult();
+  }
+
+  /**
+   * Helper method to run the options' restarts over the given points, on the options' executor or
+   * the calling thread, and keep the one with the minimum error.
+   *
+   * @param points  the points to cluster
+   * @param weights the weight of each point, or null if every point weighs 1
+   * @param k       integer for number of clusters we want
+   * @param options the options to cluster with
+   * @param randoms the generator of each restart
+   * @param shared  the KD-tree over the points, if filtering
+   * @return the labels, centers, error and cost of the best restart
+   */
+  private static KmeansResult best(PointSet points, double[] weights, int k,
+                                   KmeansOptions options, SplittableRandom[] randoms,
+                                   KdTree shared) {
+    ExecutorService executor = options.getExecutor();
+    if (executor == null) {
+      // The engine allocates everything the iterations need up front
+      LloydEngine engine = engine(points, weights, k, options, shared);
+      KmeansResult best = null;
+      for (SplittableRandom random : randoms) {
+        KmeansResult result = restart(points, weights, engine, random, options);
+        // Keep the iteration with the minimum error
+        if (best == null || result.getError() < best.getError()) {
+          best = result;
+        }
+      }
+      return best;
+    }
+    // Give each restart an engine of its own
+    List<Callable<KmeansResult>> restarts = new ArrayList<>();
+    for (SplittableRandom random : randoms) {
+      restarts.add(() -> restart(points, weights, engine(points, weights, k, options, shared),
+              random, options));
+    }
+    KmeansResult best = null;
+    // Compare in restart order, so ties go to the same restart as on the calling thread
+    for (KmeansResult result : invokeAll(executor, restarts)) {
+      if (best == null || result.getError() < best.getError()) {
+        best = result;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Helper method to start splitting a cluster in two on an executor.
+   *
+   * @param executor the executor to split on
+   * @param members  the indices of the cluster's points
+   * @param options  the options to split with
+   * @param random   the generator for the split's restarts
+   * @param finished set once the split is no longer needed
+   * @return the split, once it is done, or null if it was abandoned
+   */
+  private Future<Bisection> submitSplit(ExecutorService executor, int[] members,
+                                        KmeansOptions options, SplittableRandom random,
+                                        AtomicBoolean finished) {
+    return executor.submit(() -> this.split(members, options, random, finished));
+  }
+
+  /**
+   * Helper method to split a cluster in two with the best of the options' restarts of 2-means. A
+   * cluster whose points all coincide cannot be split by 2-means, so its last point is split off.
+   * The split is abandoned before any restart once it is no longer needed.
+   *
+   * @param members  the indices of the cluster's points, at least two
+   * @param options  the options to split with
+   * @param random   the generator for the restarts
+   * @param finished set once the split is no longer needed
+   * @return the two halves, with their centers and inertias, or null if the split was abandoned
+   */
+  private Bisection split(int[] members, KmeansOptions options, SplittableRandom random,
+                          AtomicBoolean finished) {
+    if (finished.get()) {
+      return null;
+    }
+    PointArray subset = new PointArray(members.length);
+    for (int i : members) {
+      subset.add(this.points.getX(i), this.points.getY(i));
+    }
+    SplittableRandom[] randoms = new SplittableRandom[options.getRestarts()];
+    for (int r = 0; r < randoms.length; r++) {
+      randoms[r] = random.split();
+    }
+    LloydEngine engine = engine(subset, null, 2, options, null);
+    KmeansResult best = null;
+    for (SplittableRandom restart : randoms) {
+      if (finished.get()) {
+        return null;
+      }
+      KmeansResult result = restart(subset, null, engine, restart, options);
+      if (best == null || result.getError() < best.getError()) {
+        best = result;
+      }
+    }
+    int[] sides = best.getLabels();
+    if (best.getCount(0) == 0 || best.getCount(1) == 0) {
+      Arrays.fill(sides, 0);
+      sides[sides.length - 1] = 1;
+    }
+    return Bisection.measure(this.points, members, sides, best.getIterations());
+  }
+
+  /**
+   * Helper method to run a single restart of the k-mean clustering.
+   *
+   * @param points  the points the engine clusters
+   * @param weights the weight of each point, or null if every point weighs 1
+   * @param engine  the engine to run the restart on
+   * @param random  the generator to choose the starting centers with
+   * @param options the options to cluster with
+   * @return the labels, centers, error and cost of the restart
+   */
+  private static KmeansResult restart(PointSet points, double[] weights, LloydEngine engine,
+                                      SplittableRandom random, KmeansOptions options) {
+    double[] seedX = new double[engine.k];
+    double[] seedY = new double[engine.k];
+    // Choose k points from data set to be centers of clusters
+    switch (options.getSeeding()) {
+      case PLUS_PLUS:
+        if (weights != null) {
+          Kmeans.plusPlusCenters(points, weights, engine.k, seedX, seedY, random);
+        } else {
+          Kmeans.plusPlusCenters(points, engine.k, seedX, seedY, random);
+        }
+        break;
+      case PARALLEL:
+        if (weights != null) {
+          // There are few weighted points to seed from, so k-means|| has nothing to gain
+          Kmeans.plusPlusCenters(points, weights, engine.k, seedX, seedY, random);
+          break;
+        }
+        ForkJoinPool pool = options.getIterationPool() != null
+                ? options.getIterationPool() : ForkJoinPool.commonPool();
+        Kmeans.parallelCenters(points, engine.k, seedX, seedY, random, pool);
+        break;
+      default:
+        Kmeans.randomCenters(points, engine.k, seedX, seedY, random);
+        break;
+    }
+    return refine(engine, seedX, seedY, random);
+  }
+
+  /**
+   * Helper method to choose a sweep restart's starting centers for the largest k, so that the
+   * first k of them start the clustering for each smaller k.
+   *
+   * @param minK    the smallest number of clusters
+   * @param maxK    the largest number of clusters
+   * @param options the options to cluster with
+   * @param random  the restart's generator
+   * @return the starting centers, with a generator for each k
+   */
+  private SweepSeeds sweepSeeds(int minK, int maxK, KmeansOptions options,
+                                SplittableRandom random) {
+    double[] seedX = new double[maxK];
+    double[] seedY = new double[maxK];
+    PointArray samples = null;
+    double[] weights = null;
+    switch (options.getSeeding()) {
+      case PLUS_PLUS:
+        Kmeans.plusPlusCenters(this.points, maxK, seedX, seedY, random);
+        break;
+      case PARALLEL:
+        ForkJoinPool pool = options.getIterationPool() != null
+                ? options.getIterationPool() : ForkJoinPool.commonPool();
+        samples = new PointArray();
+        weights = Kmeans.parallelSamples(this.points, maxK, samples, random, pool);
+        if (weights == null) {
+          samples = null;
+          Kmeans.plusPlusCenters(this.points, maxK, seedX, seedY, random);
+        } else {
+          Kmeans.plusPlusCenters(samples, weights, maxK, seedX, seedY, random);
+        }
+        break;
+      default:
+        Kmeans.randomCenters(this.points, maxK, seedX, seedY, random);
+        break;
+    }
+    SplittableRandom[] randoms = new SplittableRandom[maxK - minK + 1];
+    for (int i = 0; i < randoms.length; i++) {
+      randoms[i] = random.split();
+    }
+    return new SweepSeeds(seedX, seedY, samples, weights, randoms);
+  }
+
+  /**
+   * Helper method to run an engine from the given starting centers.
+   *
+   * @param engine the engine to run
+   * @param seedX  the x coordinates of the starting centers
+   * @param seedY  the y coordinates of the starting centers
+   * @param random the generator for any random choices the engine makes
+   * @return the labels, centers, error and cost of the run
+   */
+  private static KmeansResult refine(LloydEngine engine, double[] seedX, double[] seedY,
+                                     SplittableRandom random) {
+    engine.setCenters(seedX, seedY);
+    if (engine instanceof MiniBatchEngine) {
+      // Draw the batches from the restart's generator too, so seeded runs repeat
+      ((MiniBatchEngine) engine).setRandom(random);
+    }
+    // Assign points to their nearest centers and move the centers until the error settles
+    engine.run();
+    return engine.getResult();
+  }
+
+  /**
+   * Helper method to run tasks on an executor and wait for all of their results, in task order.
+   *
+   * @param executor the executor to run the tasks on
+   * @param tasks    the tasks to run
+   * @param <T>      the type of the results
+   * @return the result of each task
+   * @throws IllegalStateException if interrupted, or a task failed with a checked exception
+   */
+  private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks)
+          throws IllegalStateException {
+    List<Future<T>> futures;
+    try {
+      futures = executor.invokeAll(tasks);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while clustering.", e);
+    }
+    List<T> results = new ArrayList<>(tasks.size());
+    for (Future<T> future : futures) {
+      results.add(await(future));
+    }
+    return results;
+  }
+
+  /**
+   * Helper method to wait for the result of a task.
+   *
+   * @param future the task to wait for
+   * @param <T>    the type of the result
+   * @return the result of the task
+   * @throws IllegalStateException if interrupted, or the task failed with a checked exception
+   */
+  private static <T> T await(Future<T> future) throws IllegalStateException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while clustering.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Could not cluster.", e.getCause());
+    }
+  }
+
+  /**
+   * The starting centers a sweep restart shares between every k.
+   */
+  private static final class SweepSeeds {
+
+    /**
+     * The x coordinates of the starting centers for the largest k.
+     */
+    private final double[] centerX;
+
+    /**
+     * The y coordinates of the starting centers for the largest k.
+     */
+    private final double[] centerY;
+
+    /**
+     * The weighted samples k-means|| chose the centers from, or null for other seedings.
+     */
+    private final PointArray samples;
+
+    /**
+     * The weight of each sample, or null for other seedings.
+     */
+    private final double[] weights;
+
+    /**
+     * The generator for the run of each k, from the smallest.
+     */
+    private final SplittableRandom[] randoms;
+
+    /**
+     * Constructs the starting centers of a sweep restart.
+     *
+     * @param centerX the x coordinates of the starting centers
+     * @param centerY the y coordinates of the starting centers
+     * @param samples the weighted samples, or null
+     * @param weights the weight of each sample, or null
+     * @param randoms the generator for the run of each k
+     */
+    private SweepSeeds(double[] centerX, double[] centerY, PointArray samples, double[] weights,
+                       SplittableRandom[] randoms) {
+      this.centerX = centerX;
+      this.centerY = centerY;
+      this.samples = samples;
+      this.weights = weights;
+      this.randoms = randoms;
+    }
+  }
+
+  /**
+   * A cluster split into halves: the indices of the points of each half, with its center and
+   * inertia.
+   */
+  private static final class Bisection {
+
+    /**
+     * The indices of the points of each half.
+     */
+    private final int[][] members;
+
+    /**
+     * The x coordinate of the center of each half.
+     */
+    private final double[] centerX;
+
+    /**
+     * The y coordinate of the center of each half.
+     */
+    private final double[] centerY;
+
+    /**
+     * The inertia of each half.
+     */
+    private final double[] inertias;
+
+    /**
+     * The number of iterations the split took.
+     */
+    private final int iterations;
+
+    /**
+     * Constructs a split.
+     *
+     * @param members    the indices of the points of each half
+     * @param centerX    the x coordinate of the center of each half
+     * @param centerY    the y coordinate of the center of each half
+     * @param inertias   the inertia of each half
+     * @param iterations the number of iterations the split took
+     */
+    private Bisection(int[][] members, double[] centerX, double[] centerY, double[] inertias,
+                      int iterations) {
+      this.members = members;
+      this.centerX = centerX;
+      this.centerY = centerY;
+      this.inertias = inertias;
+      this.iterations = iterations;
+    }
+
+    /**
+     * Method to divide a cluster's points by side, and measure the mean and inertia of each side.
+     *
+     * @param points     the data points
+     * @param members    the indices of the cluster's points
+     * @param sides      the side of each of the cluster's points, 0 or 1, or null to keep them all
+     *                   on side 0
+     * @param iterations the number of iterations the split took
+     * @return the halves, with their centers and inertias
+     */
+    private static Bisection measure(PointSet points, int[] members, int[] sides,
+                                     int iterations) {
+      int[] sizes = new int[2];
+      double[] centerX = new double[2];
+      double[] centerY = new double[2];
+      for (int j = 0; j < members.length; j++) {
+        int side = sides == null ? 0 : sides[j];
+        sizes[side]++;
+        centerX[side] += points.getX(members[j]);
+        centerY[side] += points.getY(members[j]);
+      }
+      int[][] halves = {new int[sizes[0]], new int[sizes[1]]};
+      for (int side = 0; side < 2; side++) {
+        if (sizes[side] > 0) {
+          centerX[side] /= sizes[side];
+          centerY[side] /= sizes[side];
+        }
+      }
+      double[] inertias = new double[2];
+      int[] filled = new int[2];
+      for (int j = 0; j < members.length; j++) {
+        int side = sides == null ? 0 : sides[j];
+        int i = members[j];
+        halves[side][filled[side]++] = i;
+        double dx = points.getX(i) - centerX[side];
+        double dy = points.getY(i) - centerY[side];
+        inertias[side] += dx * dx + dy * dy;
       }
-      // Add this iteration's clusters and error to RANSAC lists
-      List ransacClusterIntList = Kmeans.reportClusters(data, clusters);
-      ransacList.add(ransacClusterIntList);
-      errorList.add(newError);
+      return new Bisection(halves, centerX, centerY, inertias, iterations);
     }
-    // After 10 iterations, return clusters list with minimum error
-    Object minimumError = Collections.min(errorList);
-    List bestIteration = ransacList.get(errorList.indexOf(minimumError));
-    return bestIteration;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+/**
+ * A DataModel whose line of best fit favours recent points. Every time a point is added, the
+ * weight of all the earlier points is multiplied by a decay factor, so a point that is n points
+ * old carries a weight of factor^n. The weights are applied to the running moments in constant
+ * time, so fitLine never rescans the data.
+ *
+ * <p>The points can also be kept in a ring buffer, so memory stays bounded on an endless stream.
+ * The oldest point is then evicted along with the little weight it still carries. Such a model
+ * refuses weighted points, as the ring evicts points without their weights.
+ */
+public class DecayedDataModel extends DataModel {
+
+  /**
+   * The factor every earlier weight is multiplied by when a point is added.
+   */
+  private final double factor;
+
+  /**
+   * The ring buffer holding the points, or null if every point is kept.
+   */
+  private final PointRing window;
+
+  /**
+   * The weight carried by the oldest point in a full window at the moment it is evicted.
+   */
+  private final double evictedWeight;
+
+  /**
+   * Constructs an empty DataModel that decays the weight of earlier points by the given factor,
+   * and keeps every point.
+   *
+   * @param factor Double, the decay factor per point added, between 0 and 1.
+   * @throws IllegalArgumentException When the factor is not in the range (0, 1].
+   */
+  public DecayedDataModel(double factor) throws IllegalArgumentException {
+    this(factor, new PointArray());
+  }
+
+  /**
+   * Constructs an empty DataModel that decays the weight of earlier points by the given factor,
+   * and keeps only the given number of most recent points.
+   *
+   * @param factor     Double, the decay factor per point added, between 0 and 1.
+   * @param windowSize Integer, the number of points kept.
+   * @throws IllegalArgumentException When the factor is not in the range (0, 1], or the window
+   *                                  size is not positive.
+   */
+  public DecayedDataModel(double factor, int windowSize) throws IllegalArgumentException {
+    this(factor, new PointRing(windowSize));
+  }
+
+  /**
+   * Constructs an empty DataModel over the given store. A PointRing store bounds the points kept.
+   *
+   * @param factor Double, the decay factor per point added, between 0 and 1.
+   * @param store  PointStore, the empty store to hold the points.
+   * @throws IllegalArgumentException When the factor is not in the range (0, 1].
+   */
+  private DecayedDataModel(double factor, PointStore store) throws IllegalArgumentException {
+    super(store);
+    if (!(factor > 0 && factor <= 1)) {
+      throw new IllegalArgumentException("Decay factor must be in the range (0, 1].");
+    }
+    this.factor = factor;
+    this.window = store instanceof PointRing ? (PointRing) store : null;
+    this.evictedWeight = this.window == null ? 0 : Math.pow(factor, this.window.getCapacity());
+  }
+
+  /**
+   * Method to add a new point to the DataModel with a weight of one, decaying the weight of every
+   * earlier point.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   */
+  @Override
+  public void add(double x, double y) {
+    this.runningMoments().decay(this.factor);
+    if (this.window != null && this.window.isFull()) {
+      this.runningMoments().remove(this.window.getX(0), this.window.getY(0), this.evictedWeight);
+    }
+    super.add(x, y);
+  }
+
+  /**
+   * Method to add a new weighted point to the DataModel, decaying the weight of every earlier
+   * point. The point starts out with its own weight, which then decays like any other.
+   *
+   * @param x      Double, the x coordinate of the point.
+   * @param y      Double, the y coordinate of the point.
+   * @param weight Double, the weight of the point.
+   * @throws IllegalArgumentException When the weight is not positive and finite.
+   * @throws IllegalStateException    When the points are kept in a window, which evicts points
+   *                                  without their weights.
+   */
+  @Override
+  public void add(double x, double y, double weight) throws IllegalArgumentException {
+    if (this.window != null) {
+      throw new IllegalStateException("A window cannot hold weighted points.");
+    }
+    if (!(weight > 0) || Double.isInfinite(weight)) {
+      // Check before decaying, so a rejected point leaves the moments as they were
+      throw new IllegalArgumentException("Weight must be positive and finite.");
+    }
+    this.runningMoments().decay(this.factor);
+    super.add(x, y, weight);
+  }
+
+  /**
+   * Method to append every point of another DataModel to this one, in order, with their weights,
+   * decaying the weights as each point is added.
+   *
+   * @param other DataModel, the model whose points to append.
+   * @throws IllegalStateException When the other model's points are weighted and the points are
+   *                               kept in a window.
+   */
+  @Override
+  public void addAll(DataModel other) throws IllegalStateException {
+    boolean weighted = other.isWeighted();
+    if (weighted && this.window != null) {
+      throw new IllegalStateException("A window cannot hold weighted points.");
+    }
+    PointSet source = other.getPoints();
+    int count = source.size();
+    if (other == this) {
+      // Each add to a full window evicts the oldest point and shifts every index, so copy the
+      // points of this model before appending them. Only an unwindowed model is weighted, and its
+      // weights keep their indices.
+      PointArray copy = new PointArray(count);
+      copy.addAll(source);
+      source = copy;
+    }
+    for (int i = 0; i < count; i++) {
+      if (weighted) {
+        this.add(source.getX(i), source.getY(i), other.getWeight(i));
+      } else {
+        this.add(source.getX(i), source.getY(i));
+      }
+    }
+  }
+
+  /**
+   * Method to get the decay factor applied per point added.
+   *
+   * @return Double, the decay factor.
+   */
+  public double getFactor() {
+    return this.factor;
+  }
+}
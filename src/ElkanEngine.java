@@ -0,0 +1,281 @@
+/**
+ * A LloydEngine that uses the triangle inequality to skip distance computations that cannot change
+ * an assignment, after Elkan's algorithm. Each point keeps an upper bound on the distance to its
+ * own center and a lower bound on the distance to every other center, and the distances between
+ * centers are kept for each iteration. A center is only measured when neither its lower bound nor
+ * half its distance from the point's own center rules it out, and a point whose upper bound is
+ * within half the distance from its center to the nearest other center is not measured at all.
+ *
+ * <p>Assignments are identical to plain Lloyd iterations, ties included: a center is only skipped
+ * when it is strictly farther than the point's own center, with a margin for rounding, and
+ * measured centers are compared by squared distance exactly as LloydEngine compares them. The
+ * bounds take k doubles per point, so the engine suits large k more than large n.
+ */
+public class ElkanEngine extends LloydEngine {
+
+  /**
+   * The margin for rounding in the bounds, relative to the magnitude of the coordinates.
+   */
+  private static final double SLACK = 1e-9;
+
+  /**
+   * The upper bound on the distance of each point from its own center.
+   */
+  private final double[] upper;
+
+  /**
+   * The lower bound on the distance of each point from each center, k per point.
+   */
+  private final double[] lower;
+
+  /**
+   * The distance between each pair of centers, k per center.
+   */
+  private final double[] centerDistance;
+
+  /**
+   * Half the distance from each center to its nearest other center.
+   */
+  private final double[] separation;
+
+  /**
+   * The distance each center moved when it was last moved.
+   */
+  private final double[] drift;
+
+  /**
+   * The x coordinates of the centers before they were last moved.
+   */
+  private final double[] previousX;
+
+  /**
+   * The y coordinates of the centers before they were last moved.
+   */
+  private final double[] previousY;
+
+  /**
+   * The margin for rounding, scaled to the coordinates of the points.
+   */
+  private final double slack;
+
+  /**
+   * Whether the bounds are unset, because the centers have just been set.
+   */
+  private boolean fresh;
+
+  /**
+   * The number of point to center distances computed since the centers were set.
+   */
+  private long computed;
+
+  /**
+   * The number of assignment steps run since the centers were set.
+   */
+  private int assignments;
+
+  /**
+   * Constructs an engine to cluster the given points into k clusters. The initial centers must be
+   * set before the engine is run.
+   *
+   * @param points PointSet, the points to cluster.
+   * @param k      Integer, the number of clusters.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points.
+   */
+  public ElkanEngine(PointSet points, int k) throws IllegalArgumentException {
+    super(points, k);
+    this.upper = new double[this.labels.length];
+    this.lower = new double[this.labels.length * k];
+    this.centerDistance = new double[k * k];
+    this.separation = new double[k];
+    this.drift = new double[k];
+    this.previousX = new double[k];
+    this.previousY = new double[k];
+    double scale = 0;
+    for (int i = 0; i < this.labels.length; i++) {
+      scale = Math.max(scale, Math.max(Math.abs(points.getX(i)), Math.abs(points.getY(i))));
+    }
+    this.slack = SLACK * Math.max(scale, Double.MIN_NORMAL);
+    this.fresh = true;
+  }
+
+  /**
+   * Method to set the centers the iterations start from. The bounds are discarded, so the first
+   * iteration measures every distance.
+   *
+   * @param xs Double[], the x coordinates of the k centers.
+   * @param ys Double[], the y coordinates of the k centers.
+   * @throws IllegalArgumentException When there are not exactly k centers.
+   */
+  @Override
+  public void setCenters(double[] xs, double[] ys) throws IllegalArgumentException {
+    super.setCenters(xs, ys);
+    this.fresh = true;
+    this.computed = 0;
+    this.assignments = 0;
+  }
+
+  /**
+   * Method to assign every point to its nearest center, measuring only the centers its bounds
+   * cannot rule out, and adding it to the running sum and count of its cluster.
+   */
+  @Override
+  protected void assign() {
+    this.assignments++;
+    if (this.fresh) {
+      this.assignAll();
+      this.fresh = false;
+      return;
+    }
+    this.measureCenters();
+    for (int i = 0; i < this.labels.length; i++) {
+      double x = this.points.getX(i);
+      double y = this.points.getY(i);
+      int a = this.labels[i];
+      int offset = i * this.k;
+      double u = this.upper[i];
+      // Unless no other center can be as close as this one, measure those the bounds allow
+      if (u + this.slack >= this.separation[a]) {
+        boolean tight = false;
+        double best = 0;
+        for (int c = 0; c < this.k; c++) {
+          if (c == a || u + this.slack < this.lower[offset + c]
+                  || u + this.slack < 0.5 * this.centerDistance[a * this.k + c]) {
+            continue;
+          }
+          if (!tight) {
+            // Tighten the upper bound to the actual distance before measuring others
+            best = this.squaredDistance(x, y, a);
+            u = Math.sqrt(best);
+            this.lower[offset + a] = u;
+            this.computed++;
+            tight = true;
+            if (u + this.slack < this.lower[offset + c]
+                    || u + this.slack < 0.5 * this.centerDistance[a * this.k + c]) {
+              continue;
+            }
+          }
+          double distance = this.squaredDistance(x, y, c);
+          this.lower[offset + c] = Math.sqrt(distance);
+          this.computed++;
+          // Ties go to the lowest index, as in LloydEngine.nearest
+          if (distance < best || (distance == best && c < a)) {
+            a = c;
+            best = distance;
+            u = this.lower[offset + c];
+          }
+        }
+        this.upper[i] = u;
+        this.labels[i] = a;
+      }
+      this.sumX[a] += x;
+      this.sumY[a] += y;
+      this.counts[a]++;
+    }
+  }
+
+  /**
+   * Method to move each center to the mean of the points assigned to it, then loosen every bound
+   * by how far the centers moved.
+   */
+  @Override
+  protected void updateCenters() {
+    System.arraycopy(this.centerX, 0, this.previousX, 0, this.k);
+    System.arraycopy(this.centerY, 0, this.previousY, 0, this.k);
+    super.updateCenters();
+    for (int c = 0; c < this.k; c++) {
+      double dx = this.centerX[c] - this.previousX[c];
+      double dy = this.centerY[c] - this.previousY[c];
+      this.drift[c] = Math.sqrt(dx * dx + dy * dy);
+    }
+    for (int i = 0; i < this.labels.length; i++) {
+      this.upper[i] += this.drift[this.labels[i]];
+      int offset = i * this.k;
+      for (int c = 0; c < this.k; c++) {
+        this.lower[offset + c] = Math.max(0, this.lower[offset + c] - this.drift[c]);
+      }
+    }
+  }
+
+  /**
+   * Method to get the number of point to center distances computed to assign points since the
+   * centers were set.
+   *
+   * @return Long, the number of distances computed.
+   */
+  public long getDistanceComputations() {
+    return this.computed;
+  }
+
+  /**
+   * Method to get the number of point to center distances that plain Lloyd iterations would have
+   * computed but this engine skipped, since the centers were set.
+   *
+   * @return Long, the number of distances saved.
+   */
+  public long getDistancesSaved() {
+    return (long) this.assignments * this.labels.length * this.k - this.computed;
+  }
+
+  /**
+   * Helper method to assign every point by measuring every center, setting the bounds.
+   */
+  private void assignAll() {
+    for (int i = 0; i < this.labels.length; i++) {
+      double x = this.points.getX(i);
+      double y = this.points.getY(i);
+      int offset = i * this.k;
+      int nearest = 0;
+      double best = Double.POSITIVE_INFINITY;
+      for (int c = 0; c < this.k; c++) {
+        double distance = this.squaredDistance(x, y, c);
+        this.lower[offset + c] = Math.sqrt(distance);
+        if (distance < best) {
+          best = distance;
+          nearest = c;
+        }
+      }
+      this.labels[i] = nearest;
+      this.upper[i] = this.lower[offset + nearest];
+      this.sumX[nearest] += x;
+      this.sumY[nearest] += y;
+      this.counts[nearest]++;
+    }
+    this.computed += (long) this.labels.length * this.k;
+  }
+
+  /**
+   * Helper method to measure the distances between centers, and half the distance from each center
+   * to its nearest other center.
+   */
+  private void measureCenters() {
+    for (int c = 0; c < this.k; c++) {
+      this.separation[c] = Double.POSITIVE_INFINITY;
+    }
+    for (int c = 0; c < this.k; c++) {
+      this.centerDistance[c * this.k + c] = 0;
+      for (int d = c + 1; d < this.k; d++) {
+        double dx = this.centerX[c] - this.centerX[d];
+        double dy = this.centerY[c] - this.centerY[d];
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        this.centerDistance[c * this.k + d] = distance;
+        this.centerDistance[d * this.k + c] = distance;
+        this.separation[c] = Math.min(this.separation[c], 0.5 * distance);
+        this.separation[d] = Math.min(this.separation[d], 0.5 * distance);
+      }
+    }
+  }
+
+  /**
+   * Helper method to compute the squared distance of a point from a center.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   * @param c Integer, the index of the center.
+   * @return Double, the squared distance.
+   */
+  private double squaredDistance(double x, double y, int c) {
+    double dx = x - this.centerX[c];
+    double dy = y - this.centerY[c];
+    return dx * dx + dy * dy;
+  }
+}
@@ -0,0 +1,214 @@
+/**
+ * A LloydEngine that assigns points through a KD-tree, after the filtering algorithm of Kanungo et
+ * al. Each node of the tree is visited with the centers that might still be nearest to some point
+ * under it. The center nearest the middle of the node's box is kept, and every other center that
+ * is farther than it from the whole box is filtered out. Once a single center remains, the whole
+ * node is assigned to it at once, using the node's coordinate sums and count, so no distance is
+ * computed for any point under it.
+ *
+ * <p>A center is only filtered out when it is farther than the kept center from every corner of
+ * the box by a margin for rounding, or is as far and has the higher index, so assignments are the
+ * same as plain Lloyd iterations. The tree can be shared by any number of engines, such as the
+ * restarts of a clustering.
+ */
+public class FilteringEngine extends LloydEngine {
+
+  /**
+   * The margin for rounding in the comparisons, relative to the magnitude of the coordinates.
+   */
+  private static final double SLACK = 1e-9;
+
+  /**
+   * The tree over the points.
+   */
+  private final KdTree tree;
+
+  /**
+   * The candidate centers at each level of the tree, k per level.
+   */
+  private final int[][] candidates;
+
+  /**
+   * The margin for rounding, in squared units of the coordinates.
+   */
+  private final double slack;
+
+  /**
+   * The number of point to center distances computed since the centers were set.
+   */
+  private long computed;
+
+  /**
+   * Constructs an engine to cluster the points of the given tree into k clusters. The initial
+   * centers must be set before the engine is run.
+   *
+   * @param tree KdTree, the tree over the points to cluster.
+   * @param k    Integer, the number of clusters.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points.
+   */
+  public FilteringEngine(KdTree tree, int k) throws IllegalArgumentException {
+    super(tree.getPoints(), k);
+    this.tree = tree;
+    this.candidates = new int[tree.getDepth()][k];
+    for (int c = 0; c < k; c++) {
+      this.candidates[0][c] = c;
+    }
+    double scale = Math.max(Math.max(Math.abs(tree.minX(0)), Math.abs(tree.maxX(0))),
+            Math.max(Math.abs(tree.minY(0)), Math.abs(tree.maxY(0))));
+    this.slack = SLACK * Math.max(scale * scale, Double.MIN_NORMAL);
+  }
+
+  /**
+   * Method to set the centers the iterations start from.
+   *
+   * @param xs Double[], the x coordinates of the k centers.
+   * @param ys Double[], the y coordinates of the k centers.
+   * @throws IllegalArgumentException When there are not exactly k centers.
+   */
+  @Override
+  public void setCenters(double[] xs, double[] ys) throws IllegalArgumentException {
+    super.setCenters(xs, ys);
+    this.computed = 0;
+  }
+
+  /**
+   * Method to assign every point to its nearest center by filtering the centers down the tree, and
+   * adding each node that has a single center left to that center's running sum and count.
+   */
+  @Override
+  protected void assign() {
+    this.filter(0, 0, this.k);
+  }
+
+  /**
+   * Method to get the number of point to center distances computed to assign points since the
+   * centers were set, counting neither the distances to the middle of a box nor those to corners.
+   *
+   * @return Long, the number of distances computed.
+   */
+  public long getDistanceComputations() {
+    return this.computed;
+  }
+
+  /**
+   * Helper method to assign the points under a node among the given candidate centers.
+   *
+   * @param node  Integer, the node.
+   * @param level Integer, the level of the node, 0 for the root, whose candidates to use.
+   * @param count Integer, the number of candidates.
+   */
+  private void filter(int node, int level, int count) {
+    int[] candidate = this.candidates[level];
+    if (count == 1) {
+      this.assignNode(node, candidate[0]);
+      return;
+    }
+    if (this.tree.isLeaf(node)) {
+      this.assignLeaf(node, candidate, count);
+      return;
+    }
+    // Keep the candidate nearest the middle of the box, the lowest index on a tie
+    double middleX = 0.5 * (this.tree.minX(node) + this.tree.maxX(node));
+    double middleY = 0.5 * (this.tree.minY(node) + this.tree.maxY(node));
+    int kept = candidate[0];
+    double best = Double.POSITIVE_INFINITY;
+    for (int j = 0; j < count; j++) {
+      double distance = this.squaredDistance(middleX, middleY, candidate[j]);
+      if (distance < best) {
+        best = distance;
+        kept = candidate[j];
+      }
+    }
+    // Filter out every candidate farther than the kept one from the whole box, keeping index order
+    int[] next = this.candidates[level + 1];
+    int remaining = 0;
+    for (int j = 0; j < count; j++) {
+      int c = candidate[j];
+      if (c == kept || !this.dominated(node, c, kept)) {
+        next[remaining++] = c;
+      }
+    }
+    if (remaining == 1) {
+      this.assignNode(node, kept);
+      return;
+    }
+    this.filter(this.tree.left(node), level + 1, remaining);
+    this.filter(this.tree.right(node), level + 1, remaining);
+  }
+
+  /**
+   * Helper method to check whether a center is no nearer than another to every point in a box,
+   * and would lose any tie to it.
+   *
+   * @param node Integer, the node whose box to check.
+   * @param c    Integer, the center to check.
+   * @param kept Integer, the center to compare it to.
+   * @return Boolean, true if the center can be filtered out.
+   */
+  private boolean dominated(int node, int c, int kept) {
+    // The corner of the box farthest towards c is the point c is most likely to be nearest to
+    double x = this.centerX[c] > this.centerX[kept] ? this.tree.maxX(node) : this.tree.minX(node);
+    double y = this.centerY[c] > this.centerY[kept] ? this.tree.maxY(node) : this.tree.minY(node);
+    double difference = this.squaredDistance(x, y, c) - this.squaredDistance(x, y, kept);
+    return difference > this.slack || (difference == 0 && c > kept
+            && this.centerX[c] == this.centerX[kept] && this.centerY[c] == this.centerY[kept]);
+  }
+
+  /**
+   * Helper method to assign every point under a node to a single center.
+   *
+   * @param node Integer, the node.
+   * @param c    Integer, the center.
+   */
+  private void assignNode(int node, int c) {
+    for (int p = this.tree.start(node); p < this.tree.end(node); p++) {
+      this.labels[this.tree.pointAt(p)] = c;
+    }
+    this.sumX[c] += this.tree.sumX(node);
+    this.sumY[c] += this.tree.sumY(node);
+    this.counts[c] += this.tree.count(node);
+  }
+
+  /**
+   * Helper method to assign each point under a leaf to the nearest of the candidate centers.
+   *
+   * @param node      Integer, the leaf.
+   * @param candidate Integer[], the candidates, in index order.
+   * @param count     Integer, the number of candidates.
+   */
+  private void assignLeaf(int node, int[] candidate, int count) {
+    for (int p = this.tree.start(node); p < this.tree.end(node); p++) {
+      int i = this.tree.pointAt(p);
+      double x = this.points.getX(i);
+      double y = this.points.getY(i);
+      int nearest = candidate[0];
+      double best = Double.POSITIVE_INFINITY;
+      for (int j = 0; j < count; j++) {
+        double distance = this.squaredDistance(x, y, candidate[j]);
+        if (distance < best) {
+          best = distance;
+          nearest = candidate[j];
+        }
+      }
+      this.labels[i] = nearest;
+      this.sumX[nearest] += x;
+      this.sumY[nearest] += y;
+      this.counts[nearest]++;
+    }
+    this.computed += (long) this.tree.count(node) * count;
+  }
+
+  /**
+   * Helper method to compute the squared distance of a point from a center.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   * @param c Integer, the index of the center.
+   * @return Double, the squared distance.
+   */
+  private double squaredDistance(double x, double y, int c) {
+    double dx = x - this.centerX[c];
+    double dy = y - this.centerY[c];
+    return dx * dx + dy * dy;
+  }
+}
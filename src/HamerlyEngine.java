@@ -0,0 +1,278 @@
+/**
+ * A LloydEngine that uses the triangle inequality to skip points whose assignment cannot change,
+ * after Hamerly's algorithm, and that can start from a previous clustering. Each point keeps an
+ * upper bound on the distance to its own center and a single lower bound on the distance to any
+ * other center. A point is only measured when its upper bound reaches either its lower bound or
+ * half the distance from its center to the nearest other center, and only then are all k centers
+ * measured. The bounds take two doubles per point, however large k is.
+ *
+ * <p>A warm start takes the centers and labels of a previous clustering of the first points. Each
+ * of those points is measured against its old center alone, and keeps its label without measuring
+ * any other center if it lies within half the distance to the nearest other center, so after a
+ * small append most points cost one distance and the new points cost k.
+ *
+ * <p>Assignments are identical to plain Lloyd iterations from the same centers, ties included: a
+ * point is only skipped when every other center is strictly farther, with a margin for rounding.
+ */
+public class HamerlyEngine extends LloydEngine {
+
+  /**
+   * The margin for rounding in the bounds, relative to the magnitude of the coordinates.
+   */
+  private static final double SLACK = 1e-9;
+
+  /**
+   * The upper bound on the distance of each point from its own center.
+   */
+  private final double[] upper;
+
+  /**
+   * The lower bound on the distance of each point from every other center.
+   */
+  private final double[] lower;
+
+  /**
+   * Half the distance from each center to its nearest other center.
+   */
+  private final double[] separation;
+
+  /**
+   * The distance each center moved when it was last moved.
+   */
+  private final double[] drift;
+
+  /**
+   * The x coordinates of the centers before they were last moved.
+   */
+  private final double[] previousX;
+
+  /**
+   * The y coordinates of the centers before they were last moved.
+   */
+  private final double[] previousY;
+
+  /**
+   * The margin for rounding, scaled to the coordinates of the points.
+   */
+  private final double slack;
+
+  /**
+   * The number of leading points whose labels were given by a warm start, until the first
+   * assignment; -1 once the bounds are set.
+   */
+  private int known;
+
+  /**
+   * The number of point to center distances computed since the centers were set.
+   */
+  private long computed;
+
+  /**
+   * Constructs an engine to cluster the given points into k clusters. The initial centers, or a
+   * warm start, must be set before the engine is run.
+   *
+   * @param points PointSet, the points to cluster.
+   * @param k      Integer, the number of clusters.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points.
+   */
+  public HamerlyEngine(PointSet points, int k) throws IllegalArgumentException {
+    super(points, k);
+    this.upper = new double[this.labels.length];
+    this.lower = new double[this.labels.length];
+    this.separation = new double[k];
+    this.drift = new double[k];
+    this.previousX = new double[k];
+    this.previousY = new double[k];
+    double scale = 0;
+    for (int i = 0; i < this.labels.length; i++) {
+      scale = Math.max(scale, Math.max(Math.abs(points.getX(i)), Math.abs(points.getY(i))));
+    }
+    this.slack = SLACK * Math.max(scale, Double.MIN_NORMAL);
+    this.known = 0;
+  }
+
+  /**
+   * Method to set the centers the iterations start from. The first iteration measures every
+   * distance.
+   *
+   * @param xs Double[], the x coordinates of the k centers.
+   * @param ys Double[], the y coordinates of the k centers.
+   * @throws IllegalArgumentException When there are not exactly k centers.
+   */
+  @Override
+  public void setCenters(double[] xs, double[] ys) throws IllegalArgumentException {
+    super.setCenters(xs, ys);
+    this.known = 0;
+    this.computed = 0;
+  }
+
+  /**
+   * Method to start the iterations from a previous clustering of the first points, such as the
+   * clustering before points were appended.
+   *
+   * @param previous KmeansResult, the previous clustering.
+   * @throws IllegalArgumentException When the previous clustering does not have k centers or
+   *                                  covers more points than the engine.
+   */
+  public void warmStart(KmeansResult previous) throws IllegalArgumentException {
+    double[] xs = new double[this.k];
+    double[] ys = new double[this.k];
+    previousCenters(previous, this.k, this.labels.length, xs, ys);
+    this.setCenters(xs, ys);
+    for (int i = 0; i < previous.size(); i++) {
+      this.labels[i] = previous.getLabel(i);
+    }
+    this.known = previous.size();
+  }
+
+  /**
+   * Method to assign every point to its nearest center, measuring only the points its bounds
+   * cannot settle, and adding it to the running sum and count of its cluster.
+   */
+  @Override
+  protected void assign() {
+    this.measureSeparation();
+    for (int i = 0; i < this.labels.length; i++) {
+      double x = this.points.getX(i);
+      double y = this.points.getY(i);
+      int a;
+      if (this.known >= 0) {
+        // The first assignment: only warm started points have a label to check
+        a = i < this.known ? this.check(i, x, y) : this.scan(i, x, y);
+      } else {
+        a = this.labels[i];
+        double bound = Math.max(this.separation[a], this.lower[i]);
+        if (this.upper[i] + this.slack >= bound) {
+          // Tighten the upper bound before measuring every center
+          double dx = x - this.centerX[a];
+          double dy = y - this.centerY[a];
+          this.upper[i] = Math.sqrt(dx * dx + dy * dy);
+          this.computed++;
+          if (this.upper[i] + this.slack >= bound) {
+            a = this.scan(i, x, y);
+          }
+        }
+      }
+      this.sumX[a] += x;
+      this.sumY[a] += y;
+      this.counts[a]++;
+    }
+    this.known = -1;
+  }
+
+  /**
+   * Method to move each center to the mean of the points assigned to it, then loosen every bound
+   * by how far the centers moved.
+   */
+  @Override
+  protected void updateCenters() {
+    System.arraycopy(this.centerX, 0, this.previousX, 0, this.k);
+    System.arraycopy(this.centerY, 0, this.previousY, 0, this.k);
+    super.updateCenters();
+    int farthest = 0;
+    double most = 0;
+    double second = 0;
+    for (int c = 0; c < this.k; c++) {
+      double dx = this.centerX[c] - this.previousX[c];
+      double dy = this.centerY[c] - this.previousY[c];
+      this.drift[c] = Math.sqrt(dx * dx + dy * dy);
+      if (this.drift[c] > most) {
+        second = most;
+        most = this.drift[c];
+        farthest = c;
+      } else if (this.drift[c] > second) {
+        second = this.drift[c];
+      }
+    }
+    for (int i = 0; i < this.labels.length; i++) {
+      int a = this.labels[i];
+      this.upper[i] += this.drift[a];
+      // The nearest other center moved at most as far as the farthest moving other center
+      this.lower[i] = Math.max(0, this.lower[i] - (a == farthest ? second : most));
+    }
+  }
+
+  /**
+   * Method to get the number of point to center distances computed to assign points since the
+   * centers were set.
+   *
+   * @return Long, the number of distances computed.
+   */
+  public long getDistanceComputations() {
+    return this.computed;
+  }
+
+  /**
+   * Helper method to check a warm started point against its old center alone, measuring every
+   * center only if another center could be as near.
+   *
+   * @param i Integer, the index of the point.
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   * @return Integer, the index of the nearest center.
+   */
+  private int check(int i, double x, double y) {
+    int a = this.labels[i];
+    double dx = x - this.centerX[a];
+    double dy = y - this.centerY[a];
+    double distance = Math.sqrt(dx * dx + dy * dy);
+    this.computed++;
+    if (distance + this.slack < this.separation[a]) {
+      // Every other center is at least twice the separation from this one, less the distance
+      this.upper[i] = distance;
+      this.lower[i] = 2 * this.separation[a] - distance;
+      return a;
+    }
+    return this.scan(i, x, y);
+  }
+
+  /**
+   * Helper method to measure every center from a point, labelling it with the nearest and setting
+   * its bounds exactly.
+   *
+   * @param i Integer, the index of the point.
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   * @return Integer, the index of the nearest center, the lowest index on a tie.
+   */
+  private int scan(int i, double x, double y) {
+    int nearest = 0;
+    double best = Double.POSITIVE_INFINITY;
+    double next = Double.POSITIVE_INFINITY;
+    for (int c = 0; c < this.k; c++) {
+      double dx = x - this.centerX[c];
+      double dy = y - this.centerY[c];
+      double distance = dx * dx + dy * dy;
+      if (distance < best) {
+        next = best;
+        best = distance;
+        nearest = c;
+      } else if (distance < next) {
+        next = distance;
+      }
+    }
+    this.computed += this.k;
+    this.labels[i] = nearest;
+    this.upper[i] = Math.sqrt(best);
+    this.lower[i] = Math.sqrt(next);
+    return nearest;
+  }
+
+  /**
+   * Helper method to measure half the distance from each center to its nearest other center.
+   */
+  private void measureSeparation() {
+    for (int c = 0; c < this.k; c++) {
+      this.separation[c] = Double.POSITIVE_INFINITY;
+    }
+    for (int c = 0; c < this.k; c++) {
+      for (int d = c + 1; d < this.k; d++) {
+        double dx = this.centerX[c] - this.centerX[d];
+        double dy = this.centerY[c] - this.centerY[d];
+        double half = 0.5 * Math.sqrt(dx * dx + dy * dy);
+        this.separation[c] = Math.min(this.separation[c], half);
+        this.separation[d] = Math.min(this.separation[d], half);
+      }
+    }
+  }
+}
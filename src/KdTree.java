@@ -0,0 +1,466 @@
+/**
+ * A KD-tree over a set of points, with the bounding box, coordinate sums and count of the points
+ * under every node. Each node is split at the median of the wider side of its box, until a node
+ * holds no more than a leaf's worth of points. The tree only reorders point indices, so the points
+ * themselves are never copied.
+ *
+ * <p>Nodes are kept in parallel arrays indexed by node, with node 0 the root, so a tree over n
+ * points costs a few dozen bytes per leaf plus one int per point. A tree is immutable once built,
+ * and may be shared by any number of threads.
+ */
+public final class KdTree {
+
+  /**
+   * The number of points in a leaf, at most.
+   */
+  private static final int LEAF_SIZE = 8;
+
+  /**
+   * The points the tree is built over.
+   */
+  private final PointSet points;
+
+  /**
+   * The indices of the points, ordered so that the points under each node are contiguous.
+   */
+  private final int[] order;
+
+  /**
+   * The position in order of the first point under each node.
+   */
+  private final int[] start;
+
+  /**
+   * The position in order after the last point under each node.
+   */
+  private final int[] end;
+
+  /**
+   * The left child of each node, or -1 for a leaf.
+   */
+  private final int[] left;
+
+  /**
+   * The right child of each node, or -1 for a leaf.
+   */
+  private final int[] right;
+
+  /**
+   * The smallest x coordinate under each node.
+   */
+  private final double[] minX;
+
+  /**
+   * The largest x coordinate under each node.
+   */
+  private final double[] maxX;
+
+  /**
+   * The smallest y coordinate under each node.
+   */
+  private final double[] minY;
+
+  /**
+   * The largest y coordinate under each node.
+   */
+  private final double[] maxY;
+
+  /**
+   * The sum of the x coordinates under each node.
+   */
+  private final double[] sumX;
+
+  /**
+   * The sum of the y coordinates under each node.
+   */
+  private final double[] sumY;
+
+  /**
+   * The number of nodes in the tree.
+   */
+  private int nodes;
+
+  /**
+   * The number of levels in the tree.
+   */
+  private int depth;
+
+  /**
+   * Constructs a tree over the given points.
+   *
+   * @param points PointSet, the points to build the tree over.
+   * @throws IllegalArgumentException When there are no points.
+   */
+  public KdTree(PointSet points) throws IllegalArgumentException {
+    int n = points.size();
+    if (n == 0) {
+      throw new IllegalArgumentException("Cannot build a tree over no points.");
+    }
+    this.points = points;
+    this.order = new int[n];
+    for (int i = 0; i < n; i++) {
+      this.order[i] = i;
+    }
+    // Median splits leave fewer than 2n / LEAF_SIZE leaves, so fewer than 4n / LEAF_SIZE nodes
+    int capacity = 4 * ((n + LEAF_SIZE - 1) / LEAF_SIZE) + 1;
+    this.start = new int[capacity];
+    this.end = new int[capacity];
+    this.left = new int[capacity];
+    this.right = new int[capacity];
+    this.minX = new double[capacity];
+    this.maxX = new double[capacity];
+    this.minY = new double[capacity];
+    this.maxY = new double[capacity];
+    this.sumX = new double[capacity];
+    this.sumY = new double[capacity];
+    this.build(0, n, 1);
+  }
+
+  /**
+   * Helper method to build the node over a range of order, and the nodes below it.
+   *
+   * @param from  Integer, the position of the first point of the node.
+   * @param to    Integer, the position after the last point of the node.
+   * @param level Integer, the level of the node, 1 for the root.
+   * @return Integer, the index of the node.
+   */
+  private int build(int from, int to, int level) {
+    int node = this.nodes++;
+    this.depth = Math.max(this.depth, level);
+    this.start[node] = from;
+    this.end[node] = to;
+    double x0 = Double.POSITIVE_INFINITY;
+    double x1 = Double.NEGATIVE_INFINITY;
+    double y0 = Double.POSITIVE_INFINITY;
+    double y1 = Double.NEGATIVE_INFINITY;
+    double sx = 0;
+    double sy = 0;
+    for (int p = from; p < to; p++) {
+      double x = this.points.getX(this.order[p]);
+      double y = this.points.getY(this.order[p]);
+      x0 = Math.min(x0, x);
+      x1 = Math.max(x1, x);
+      y0 = Math.min(y0, y);
+      y1 = Math.max(y1, y);
+      sx += x;
+      sy += y;
+    }
+    this.minX[node] = x0;
+    this.maxX[node] = x1;
+    this.minY[node] = y0;
+    this.maxY[node] = y1;
+    this.sumX[node] = sx;
+    this.sumY[node] = sy;
+    // A node of identical points cannot be split any further
+    if (to - from <= LEAF_SIZE || (x0 == x1 && y0 == y1)) {
+      this.left[node] = -1;
+      this.right[node] = -1;
+      return node;
+    }
+    boolean splitX = x1 - x0 >= y1 - y0;
+    int middle = (from + to) >>> 1;
+    this.select(from, to, middle, splitX);
+    this.left[node] = this.build(from, middle, level + 1);
+    this.right[node] = this.build(middle, to, level + 1);
+    return node;
+  }
+
+  /**
+   * Helper method to partially order a range of order, so that the point at the given position is
+   * the one a sort would put there, with no greater coordinate before it and no lesser after it.
+   *
+   * @param from   Integer, the position of the first point of the range.
+   * @param to     Integer, the position after the last point of the range.
+   * @param nth    Integer, the position to select.
+   * @param splitX Boolean, true to order by x coordinate, false by y.
+   */
+  private void select(int from, int to, int nth, boolean splitX) {
+    int lo = from;
+    int hi = to - 1;
+    while (lo < hi) {
+      double pivot = this.key(this.order[(lo + hi) >>> 1], splitX);
+      int i = lo;
+      int j = hi;
+      while (i <= j) {
+        while (this.key(this.order[i], splitX) < pivot) {
+          i++;
+        }
+        while (this.key(this.order[j], splitX) > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          int swap = this.order[i];
+          this.order[i] = this.order[j];
+          this.order[j] = swap;
+          i++;
+          j--;
+        }
+      }
+      if (nth <= j) {
+        hi = j;
+      } else if (nth >= i) {
+        lo = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Helper method to get the coordinate a point is ordered by.
+   *
+   * @param index  Integer, the index of the point.
+   * @param splitX Boolean, true for the x coordinate, false for the y.
+   * @return Double, the coordinate.
+   */
+  private double key(int index, boolean splitX) {
+    return splitX ? this.points.getX(index) : this.points.getY(index);
+  }
+
+  /**
+   * Method to get the points the tree is built over.
+   *
+   * @return PointSet, the points.
+   */
+  public PointSet getPoints() {
+    return this.points;
+  }
+
+  /**
+   * Method to get the number of points in the tree.
+   *
+   * @return Integer, the number of points.
+   */
+  public int size() {
+    return this.order.length;
+  }
+
+  /**
+   * Method to get the number of nodes in the tree.
+   *
+   * @return Integer, the number of nodes.
+   */
+  public int getNodes() {
+    return this.nodes;
+  }
+
+  /**
+   * Method to get the number of levels in the tree.
+   *
+   * @return Integer, the number of levels, 1 for a tree that is a single leaf.
+   */
+  public int getDepth() {
+    return this.depth;
+  }
+
+  /**
+   * Method to find the point nearest to a location, descending into the nearer child first and
+   * skipping every node whose box is farther away than the nearest point found so far. Ties go to
+   * the point with the lowest index, as in a scan of every point in order.
+   *
+   * @param x Double, the x coordinate of the location.
+   * @param y Double, the y coordinate of the location.
+   * @return Integer, the index of the nearest point.
+   */
+  public int nearest(double x, double y) {
+    if (Double.isNaN(x) || Double.isNaN(y)) {
+      // No point is nearer than another, so the scan would keep the first
+      return 0;
+    }
+    return this.nearest(0, x, y, -1, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Helper method to search the points under a node for one nearer a location than the best so
+   * far.
+   *
+   * @param node     Integer, the node to search.
+   * @param x        Double, the x coordinate of the location.
+   * @param y        Double, the y coordinate of the location.
+   * @param best     Integer, the index of the nearest point so far, or -1 if there is none.
+   * @param distance Double, the squared distance of the nearest point so far.
+   * @return Integer, the index of the nearest point, under the node or found before.
+   */
+  private int nearest(int node, double x, double y, int best, double distance) {
+    if (this.left[node] < 0) {
+      for (int p = this.start[node]; p < this.end[node]; p++) {
+        int index = this.order[p];
+        double dx = x - this.points.getX(index);
+        double dy = y - this.points.getY(index);
+        double candidate = dx * dx + dy * dy;
+        if (best < 0 || candidate < distance || (candidate == distance && index < best)) {
+          best = index;
+          distance = candidate;
+        }
+      }
+      return best;
+    }
+    int near = this.left[node];
+    int far = this.right[node];
+    double nearBox = this.boxDistance(near, x, y);
+    double farBox = this.boxDistance(far, x, y);
+    if (farBox < nearBox) {
+      near = this.right[node];
+      far = this.left[node];
+      double swap = nearBox;
+      nearBox = farBox;
+      farBox = swap;
+    }
+    // A box exactly as far as the best point may still hold a tie with a lower index
+    if (nearBox <= distance) {
+      best = this.nearest(near, x, y, best, distance);
+      double dx = x - this.points.getX(best);
+      double dy = y - this.points.getY(best);
+      distance = dx * dx + dy * dy;
+    }
+    if (farBox <= distance) {
+      best = this.nearest(far, x, y, best, distance);
+    }
+    return best;
+  }
+
+  /**
+   * Helper method to compute the squared distance from a location to the box of a node, zero if
+   * the location is inside it.
+   *
+   * @param node Integer, the node.
+   * @param x    Double, the x coordinate of the location.
+   * @param y    Double, the y coordinate of the location.
+   * @return Double, the squared distance to the nearest point of the box.
+   */
+  private double boxDistance(int node, double x, double y) {
+    double dx = Math.max(0, Math.max(this.minX[node] - x, x - this.maxX[node]));
+    double dy = Math.max(0, Math.max(this.minY[node] - y, y - this.maxY[node]));
+    return dx * dx + dy * dy;
+  }
+
+  /**
+   * Method to check whether a node is a leaf.
+   *
+   * @param node Integer, the node.
+   * @return Boolean, true if the node has no children.
+   */
+  boolean isLeaf(int node) {
+    return this.left[node] < 0;
+  }
+
+  /**
+   * Method to get the left child of a node.
+   *
+   * @param node Integer, the node.
+   * @return Integer, the left child.
+   */
+  int left(int node) {
+    return this.left[node];
+  }
+
+  /**
+   * Method to get the right child of a node.
+   *
+   * @param node Integer, the node.
+   * @return Integer, the right child.
+   */
+  int right(int node) {
+    return this.right[node];
+  }
+
+  /**
+   * Method to get the position in the point order of the first point under a node.
+   *
+   * @param node Integer, the node.
+   * @return Integer, the position.
+   */
+  int start(int node) {
+    return this.start[node];
+  }
+
+  /**
+   * Method to get the position in the point order after the last point under a node.
+   *
+   * @param node Integer, the node.
+   * @return Integer, the position.
+   */
+  int end(int node) {
+    return this.end[node];
+  }
+
+  /**
+   * Method to get the index of the point at a position in the point order.
+   *
+   * @param position Integer, the position.
+   * @return Integer, the index of the point.
+   */
+  int pointAt(int position) {
+    return this.order[position];
+  }
+
+  /**
+   * Method to get the smallest x coordinate under a node.
+   *
+   * @param node Integer, the node.
+   * @return Double, the smallest x coordinate.
+   */
+  double minX(int node) {
+    return this.minX[node];
+  }
+
+  /**
+   * Method to get the largest x coordinate under a node.
+   *
+   * @param node Integer, the node.
+   * @return Double, the largest x coordinate.
+   */
+  double maxX(int node) {
+    return this.maxX[node];
+  }
+
+  /**
+   * Method to get the smallest y coordinate under a node.
+   *
+   * @param node Integer, the node.
+   * @return Double, the smallest y coordinate.
+   */
+  double minY(int node) {
+    return this.minY[node];
+  }
+
+  /**
+   * Method to get the largest y coordinate under a node.
+   *
+   * @param node Integer, the node.
+   * @return Double, the largest y coordinate.
+   */
+  double maxY(int node) {
+    return this.maxY[node];
+  }
+
+  /**
+   * Method to get the sum of the x coordinates under a node.
+   *
+   * @param node Integer, the node.
+   * @return Double, the sum.
+   */
+  double sumX(int node) {
+    return this.sumX[node];
+  }
+
+  /**
+   * Method to get the sum of the y coordinates under a node.
+   *
+   * @param node Integer, the node.
+   * @return Double, the sum.
+   */
+  double sumY(int node) {
+    return this.sumY[node];
+  }
+
+  /**
+   * Method to get the number of points under a node.
+   *
+   * @param node Integer, the node.
+   * @return Integer, the number of points.
+   */
+  int count(int node) {
+    return this.end[node] - this.start[node];
+  }
+}
@@ -1,7 +1,16 @@
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * This class represents calculations used by the K-means clustering algorithms. Methods are static
@@ -9,25 +18,413 @@ import java.util.List;
  */
 public final class Kmeans {
 
+  /**
+   * The number of oversampling passes k-means|| makes over the data.
+   */
+  private static final int SEEDING_ROUNDS = 5;
+
+  /**
+   * The number of Lloyd iterations k-means|| runs over its weighted samples, at most.
+   */
+  private static final int SEEDING_ITERATIONS = 20;
+
+  /**
+   * The number of points in each chunk of a k-means|| pass.
+   */
+  private static final int SEEDING_GRAIN = 1 << 14;
+
   /**
    * Chooses k points from the given data set at random to be clusters.
    *
-   * @param data given set of points
-   * @param k    number of clusters to generate
+   * @param data   given set of points
+   * @param k      number of clusters to generate
+   * @param random generator to choose the points with, owned by the caller's restart
    * @return array of clusters with each corresponding to the ith point in the dataset
    */
-  protected static List<Cluster> getClusters(List<Point2D.Double> data, int k) {
+  protected static List<Cluster> getClusters(List<Point2D.Double> data, int k,
+                                             SplittableRandom random) {
     List<Cluster> clusters = new ArrayList<Cluster>();
+    Set<Integer> chosen = new HashSet<>();
     for (int i = 0; i < k; i++) {
-      int c = (int) (Math.random() * data.size());
-      while (clusters.contains(c)) {
-        c = (int) (Math.random() * data.size());
+      int c = random.nextInt(data.size());
+      // Compare indices, so no point is chosen twice
+      while (!chosen.add(c)) {
+        c = random.nextInt(data.size());
       }
       clusters.add(new Cluster(i, data.get(c)));
     }
     return clusters;
   }
 
+  /**
+   * Chooses k distinct points from the given data set at random to be the initial centers, written
+   * into the given coordinate arrays. This is the primitive counterpart of getClusters.
+   *
+   * @param points  given set of points
+   * @param k       number of centers to choose
+   * @param centerX array to receive the x coordinates of the k centers
+   * @param centerY array to receive the y coordinates of the k centers
+   * @param random  generator to choose the points with, owned by the caller's restart
+   */
+  protected static void randomCenters(PointSet points, int k, double[] centerX,
+                                      double[] centerY, SplittableRandom random) {
+    Set<Integer> chosen = new HashSet<>();
+    for (int i = 0; i < k; i++) {
+      int c = random.nextInt(points.size());
+      while (!chosen.add(c)) {
+        c = random.nextInt(points.size());
+      }
+      centerX[i] = points.getX(c);
+      centerY[i] = points.getY(c);
+    }
+  }
+
+  /**
+   * Chooses k points from the given data set by k-means++ to be the initial centers: the first at
+   * random, and each after it with probability proportional to its squared distance from the
+   * nearest center chosen so far.
+   *
+   * @param points  given set of points
+   * @param k       number of centers to choose
+   * @param centerX array to receive the x coordinates of the k centers
+   * @param centerY array to receive the y coordinates of the k centers
+   * @param random  generator to choose the points with, owned by the caller's restart
+   */
+  protected static void plusPlusCenters(PointSet points, int k, double[] centerX,
+                                        double[] centerY, SplittableRandom random) {
+    plusPlusCenters(points, null, k, centerX, centerY, random);
+  }
+
+  /**
+   * Chooses k initial centers from the given data set by k-means||. Starting from one point at
+   * random, each of a few passes over the data samples every point with probability proportional
+   * to its squared distance from the nearest sample so far, about 2k points a pass. Each sample is
+   * then weighted by the number of points nearest to it, and the weighted samples are reduced to k
+   * centers with k-means++ and a few Lloyd iterations. The passes are spread across the given
+   * pool, and draw from generators split off in a fixed order, so the centers depend only on the
+   * generator and not on the pool.
+   *
+   * @param points  given set of points
+   * @param k       number of centers to choose
+   * @param centerX array to receive the x coordinates of the k centers
+   * @param centerY array to receive the y coordinates of the k centers
+   * @param random  generator to choose the points with, owned by the caller's restart
+   * @param pool    pool to spread the passes over the data across
+   */
+  protected static void parallelCenters(PointSet points, int k, double[] centerX,
+                                        double[] centerY, SplittableRandom random,
+                                        ForkJoinPool pool) {
+    PointArray samples = new PointArray();
+    double[] weights = parallelSamples(points, k, samples, random, pool);
+    if (weights == null) {
+      // Too few distinct points were sampled to reduce to k centers
+      plusPlusCenters(points, k, centerX, centerY, random);
+      return;
+    }
+    plusPlusCenters(samples, weights, k, centerX, centerY, random);
+    refineCenters(samples, weights, k, centerX, centerY);
+  }
+
+  /**
+   * Samples the points k-means|| reduces to k centers: a few passes over the data, each sampling
+   * every point with probability proportional to its squared distance from the nearest sample so
+   * far, about 2k points a pass. Each sample is then weighted by the number of points nearest to
+   * it.
+   *
+   * @param points  given set of points
+   * @param k       number of centers the samples are for
+   * @param samples empty set to receive the samples
+   * @param random  generator to choose the points with, owned by the caller's restart
+   * @param pool    pool to spread the passes over the data across
+   * @return the weight of each sample, or null if fewer than k points were sampled
+   */
+  protected static double[] parallelSamples(PointSet points, int k, PointArray samples,
+                                            SplittableRandom random, ForkJoinPool pool) {
+    int n = points.size();
+    int chunks = (n + SEEDING_GRAIN - 1) / SEEDING_GRAIN;
+    double[] distances = new double[n];
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    int first = random.nextInt(n);
+    samples.add(points.getX(first), points.getY(first));
+    double cost = nearestSamples(points, distances, samples, 0, chunks, pool);
+    double oversampling = 2.0 * k;
+    for (int round = 0; round < SEEDING_ROUNDS && cost > 0; round++) {
+      // Split a generator off for each chunk in order, so sampling does not depend on scheduling
+      SplittableRandom[] randoms = new SplittableRandom[chunks];
+      for (int c = 0; c < chunks; c++) {
+        randoms[c] = random.split();
+      }
+      PointArray[] sampled = new PointArray[chunks];
+      double total = cost;
+      forChunks(pool, chunks, c -> {
+        PointArray chunkSamples = new PointArray();
+        int end = Math.min(n, (c + 1) * SEEDING_GRAIN);
+        for (int i = c * SEEDING_GRAIN; i < end; i++) {
+          if (randoms[c].nextDouble() * total < oversampling * distances[i]) {
+            chunkSamples.add(points.getX(i), points.getY(i));
+          }
+        }
+        sampled[c] = chunkSamples;
+      });
+      int from = samples.size();
+      for (PointArray chunkSamples : sampled) {
+        samples.addAll(chunkSamples);
+      }
+      cost = nearestSamples(points, distances, samples, from, chunks, pool);
+    }
+    if (samples.size() < k) {
+      return null;
+    }
+    // Weight each sample by the number of points nearest to it
+    int m = samples.size();
+    double[][] partialWeights = new double[chunks][];
+    forChunks(pool, chunks, c -> {
+      double[] weights = new double[m];
+      int end = Math.min(n, (c + 1) * SEEDING_GRAIN);
+      for (int i = c * SEEDING_GRAIN; i < end; i++) {
+        weights[nearest(samples, m, points.getX(i), points.getY(i))]++;
+      }
+      partialWeights[c] = weights;
+    });
+    double[] weights = new double[m];
+    for (double[] partial : partialWeights) {
+      for (int j = 0; j < m; j++) {
+        weights[j] += partial[j];
+      }
+    }
+    return weights;
+  }
+
+  /**
+   * Chooses k centers from a set of weighted points by k-means++, each point's chance of being
+   * chosen multiplied by its weight. The first j centers chosen are the ones k-means++ would choose
+   * for j clusters.
+   *
+   * @param points  given set of points
+   * @param weights weight of each point, or null to weight every point equally
+   * @param k       number of centers to choose
+   * @param centerX array to receive the x coordinates of the k centers
+   * @param centerY array to receive the y coordinates of the k centers
+   * @param random  generator to choose the points with
+   */
+  protected static void plusPlusCenters(PointSet points, double[] weights, int k,
+                                        double[] centerX, double[] centerY,
+                                        SplittableRandom random) {
+    int n = points.size();
+    double[] distances = new double[n];
+    Arrays.fill(distances, 1);
+    for (int c = 0; c < k; c++) {
+      // Every point's chance is its weight times its squared distance from the nearest center
+      double total = 0;
+      for (int i = 0; i < n; i++) {
+        total += weight(weights, i) * distances[i];
+      }
+      int chosen;
+      if (total > 0) {
+        double target = random.nextDouble() * total;
+        chosen = n - 1;
+        for (int i = 0; i < n; i++) {
+          target -= weight(weights, i) * distances[i];
+          if (target < 0) {
+            chosen = i;
+            break;
+          }
+        }
+      } else {
+        // Every point already is a center, so any point will do
+        chosen = random.nextInt(n);
+      }
+      double x = points.getX(chosen);
+      double y = points.getY(chosen);
+      centerX[c] = x;
+      centerY[c] = y;
+      for (int i = 0; i < n; i++) {
+        double dx = points.getX(i) - x;
+        double dy = points.getY(i) - y;
+        double distance = dx * dx + dy * dy;
+        if (c == 0 || distance < distances[i]) {
+          distances[i] = distance;
+        }
+      }
+    }
+  }
+
+  /**
+   * Refines k centers with Lloyd iterations over a set of weighted points, until no point changes
+   * cluster or a few iterations have run.
+   *
+   * @param points  given set of points
+   * @param weights weight of each point
+   * @param k       number of centers
+   * @param centerX x coordinates of the k centers, refined in place
+   * @param centerY y coordinates of the k centers, refined in place
+   */
+  protected static void refineCenters(PointSet points, double[] weights, int k,
+                                      double[] centerX, double[] centerY) {
+    refineCenters(points, weights, k, centerX, centerY, SEEDING_ITERATIONS);
+  }
+
+  /**
+   * Refines k centers with Lloyd iterations over a set of weighted points, until no point changes
+   * cluster or the given number of iterations have run.
+   *
+   * @param points        given set of points
+   * @param weights       weight of each point
+   * @param k             number of centers
+   * @param centerX       x coordinates of the k centers, refined in place
+   * @param centerY       y coordinates of the k centers, refined in place
+   * @param maxIterations number of iterations to run at most
+   * @return the number of iterations run
+   */
+  protected static int refineCenters(PointSet points, double[] weights, int k,
+                                     double[] centerX, double[] centerY, int maxIterations) {
+    int n = points.size();
+    int[] labels = new int[n];
+    Arrays.fill(labels, -1);
+    double[] sumX = new double[k];
+    double[] sumY = new double[k];
+    double[] sumW = new double[k];
+    int iteration = 0;
+    while (iteration < maxIterations) {
+      iteration++;
+      boolean changed = false;
+      Arrays.fill(sumX, 0);
+      Arrays.fill(sumY, 0);
+      Arrays.fill(sumW, 0);
+      for (int i = 0; i < n; i++) {
+        double x = points.getX(i);
+        double y = points.getY(i);
+        int c = nearest(centerX, centerY, k, x, y);
+        changed |= c != labels[i];
+        labels[i] = c;
+        sumX[c] += weights[i] * x;
+        sumY[c] += weights[i] * y;
+        sumW[c] += weights[i];
+      }
+      if (!changed) {
+        break;
+      }
+      for (int c = 0; c < k; c++) {
+        if (sumW[c] > 0) {
+          centerX[c] = sumX[c] / sumW[c];
+          centerY[c] = sumY[c] / sumW[c];
+        }
+      }
+    }
+    return iteration;
+  }
+
+  /**
+   * Helper method to lower each point's squared distance to the nearest sample, given new samples,
+   * and sum the distances.
+   *
+   * @param points    given set of points
+   * @param distances squared distance of each point from the nearest sample, lowered in place
+   * @param samples   samples chosen so far
+   * @param from      index of the first new sample
+   * @param chunks    number of chunks to split the points into
+   * @param pool      pool to spread the chunks across
+   * @return the sum of the squared distances, added up in chunk order
+   */
+  private static double nearestSamples(PointSet points, double[] distances, PointSet samples,
+                                       int from, int chunks, ForkJoinPool pool) {
+    int n = points.size();
+    double[] partial = new double[chunks];
+    forChunks(pool, chunks, c -> {
+      double total = 0;
+      int end = Math.min(n, (c + 1) * SEEDING_GRAIN);
+      for (int i = c * SEEDING_GRAIN; i < end; i++) {
+        double x = points.getX(i);
+        double y = points.getY(i);
+        double best = distances[i];
+        for (int j = from; j < samples.size(); j++) {
+          double dx = x - samples.getX(j);
+          double dy = y - samples.getY(j);
+          best = Math.min(best, dx * dx + dy * dy);
+        }
+        distances[i] = best;
+        total += best;
+      }
+      partial[c] = total;
+    });
+    double cost = 0;
+    for (double total : partial) {
+      cost += total;
+    }
+    return cost;
+  }
+
+  /**
+   * Helper method to run a body for every chunk, spread across a pool.
+   *
+   * @param pool   pool to spread the chunks across
+   * @param chunks number of chunks
+   * @param body   work to do for a chunk, given its index
+   */
+  private static void forChunks(ForkJoinPool pool, int chunks, IntConsumer body) {
+    pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(body)).join();
+  }
+
+  /**
+   * Helper method to find the nearest of a set of points, the lowest index on a tie.
+   *
+   * @param samples given set of points
+   * @param m       number of points to search
+   * @param x       x coordinate to search from
+   * @param y       y coordinate to search from
+   * @return index of the nearest point
+   */
+  private static int nearest(PointSet samples, int m, double x, double y) {
+    int nearest = 0;
+    double best = Double.POSITIVE_INFINITY;
+    for (int j = 0; j < m; j++) {
+      double dx = x - samples.getX(j);
+      double dy = y - samples.getY(j);
+      double distance = dx * dx + dy * dy;
+      if (distance < best) {
+        best = distance;
+        nearest = j;
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Helper method to find the nearest of k centers, the lowest index on a tie.
+   *
+   * @param centerX x coordinates of the centers
+   * @param centerY y coordinates of the centers
+   * @param k       number of centers
+   * @param x       x coordinate to search from
+   * @param y       y coordinate to search from
+   * @return index of the nearest center
+   */
+  private static int nearest(double[] centerX, double[] centerY, int k, double x, double y) {
+    int nearest = 0;
+    double best = Double.POSITIVE_INFINITY;
+    for (int c = 0; c < k; c++) {
+      double dx = x - centerX[c];
+      double dy = y - centerY[c];
+      double distance = dx * dx + dy * dy;
+      if (distance < best) {
+        best = distance;
+        nearest = c;
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Helper method to get the weight of a point.
+   *
+   * @param weights weight of each point, or null to weight every point equally
+   * @param i       index of the point
+   * @return the weight of the point
+   */
+  private static double weight(double[] weights, int i) {
+    return weights == null ? 1 : weights[i];
+  }
+
   /**
    * Assigns a single point to a cluster by finding the minimum distance to all clusters.
    *
@@ -77,20 +474,24 @@ public final class Kmeans {
 
   /**
    * Creates a list of cluster indices for each point that completes the clustering algorithm.
+   * Each point's cluster is looked up by identity, so the labelling is linear in the number of
+   * points and labels identical points separately.
    *
    * @param data     list of data points
    * @param clusters list of clusters
    * @return list of integers, each corresponding to the index of a point's cluster
    */
   protected static List<Integer> reportClusters(List<Point2D.Double> data, List<Cluster> clusters) {
-    List<Integer> clusterIndices = new ArrayList<>();
-    for (Point2D.Double point : data) {
-      for (Cluster c : clusters) {
-        if (c.getDataPoints().contains(point)) {
-          clusterIndices.add(c.getIndex());
-        }
+    Map<Point2D.Double, Integer> clusterOf = new IdentityHashMap<>();
+    for (Cluster c : clusters) {
+      for (Point2D.Double point : c.getDataPoints()) {
+        clusterOf.put(point, c.getIndex());
       }
     }
+    List<Integer> clusterIndices = new ArrayList<>(data.size());
+    for (Point2D.Double point : data) {
+      clusterIndices.add(clusterOf.get(point));
+    }
     return clusterIndices;
   }
 
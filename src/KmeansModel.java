@@ -0,0 +1,416 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A class to represent a fitted k-means model: the centers of a clustering and what is known of
+ * how they were fit, kept to label new points with the nearest center. Unlike a KmeansResult it
+ * holds nothing per training point, so it stays small however large the training data was.
+ *
+ * <p>A model is immutable, so one instance may serve any number of threads at once. Batches of
+ * points are labelled in chunks across a fork-join pool, and with many centers a KD-tree over the
+ * centers skips those that cannot be nearest, so each point costs about log k distances rather
+ * than k. The tree finds exactly the center a scan would, ties going to the lowest index. A model
+ * can be saved and loaded with ModelFile.
+ */
+public final class KmeansModel {
+
+  /**
+   * The number of centers from which the KD-tree over the centers beats a scan of every center,
+   * its pruning making up for the cost of descending it.
+   */
+  private static final int INDEX_THRESHOLD = 128;
+
+  /**
+   * The number of points in each chunk of a batch.
+   */
+  private static final int GRAIN = 1 << 14;
+
+  /**
+   * The x coordinate of each center.
+   */
+  private final double[] centerX;
+
+  /**
+   * The y coordinate of each center.
+   */
+  private final double[] centerY;
+
+  /**
+   * The number of training points in each cluster.
+   */
+  private final int[] sizes;
+
+  /**
+   * The total weight of the training points in each cluster.
+   */
+  private final double[] weights;
+
+  /**
+   * The sum of the weighted squared distances of each cluster's training points from its center,
+   * or null if the clustering did not measure them.
+   */
+  private final double[] inertias;
+
+  /**
+   * The seed the centers were fit from, or null if none was set.
+   */
+  private final Long seed;
+
+  /**
+   * The KD-tree over the centers, or null to scan every center.
+   */
+  private final KdTree index;
+
+  /**
+   * The average distance of each training point from the center of its cluster.
+   */
+  private final double error;
+
+  /**
+   * The sum of the squared distances of each training point from the center of its cluster.
+   */
+  private final double inertia;
+
+  /**
+   * The number of iterations run to fit the centers.
+   */
+  private final int iterations;
+
+  /**
+   * Constructs a model from a clustering, keeping its centers, error, inertia and iterations, and
+   * the size, weight and inertia of each cluster. The labels are not kept.
+   *
+   * @param result KmeansResult, the clustering to keep the centers of.
+   */
+  public KmeansModel(KmeansResult result) {
+    this(result, null);
+  }
+
+  /**
+   * Constructs a model from a clustering, as KmeansModel(KmeansResult) does, also keeping the seed
+   * of the options it was clustered with, if they have one, so the fit can be repeated.
+   *
+   * @param result  KmeansResult, the clustering to keep the centers of.
+   * @param options KmeansOptions, the options the clustering ran with, or null if unknown.
+   */
+  public KmeansModel(KmeansResult result, KmeansOptions options) {
+    int k = result.getK();
+    this.centerX = new double[k];
+    this.centerY = new double[k];
+    this.sizes = new int[k];
+    this.weights = new double[k];
+    this.inertias = result.hasClusterStatistics() ? new double[k] : null;
+    for (int i = 0; i < result.size(); i++) {
+      this.sizes[result.getLabel(i)]++;
+    }
+    for (int c = 0; c < k; c++) {
+      this.centerX[c] = result.getCenterX(c);
+      this.centerY[c] = result.getCenterY(c);
+      if (this.inertias != null) {
+        this.weights[c] = result.getClusterWeight(c);
+        this.inertias[c] = result.getClusterInertia(c);
+      } else {
+        this.weights[c] = this.sizes[c];
+      }
+    }
+    this.index = index(this.centerX, this.centerY);
+    this.error = result.getError();
+    this.inertia = result.getInertia();
+    this.iterations = result.getIterations();
+    this.seed = options != null && options.hasSeed() ? options.getSeed() : null;
+  }
+
+  /**
+   * Constructs a model from its parts, as read back from a model file. The arrays are kept, not
+   * copied.
+   *
+   * @param centerX    Double[], the x coordinate of each center.
+   * @param centerY    Double[], the y coordinate of each center.
+   * @param sizes      Integer[], the number of training points in each cluster.
+   * @param weights    Double[], the total weight of the training points in each cluster.
+   * @param inertias   Double[], the inertia of each cluster, or null if not measured.
+   * @param error      Double, the training error.
+   * @param inertia    Double, the training inertia.
+   * @param iterations Integer, the number of iterations run.
+   * @param seed       Long, the seed the centers were fit from, or null if none was set.
+   */
+  KmeansModel(double[] centerX, double[] centerY, int[] sizes, double[] weights,
+              double[] inertias, double error, double inertia, int iterations, Long seed) {
+    this.centerX = centerX;
+    this.centerY = centerY;
+    this.sizes = sizes;
+    this.weights = weights;
+    this.inertias = inertias;
+    this.index = index(centerX, centerY);
+    this.error = error;
+    this.inertia = inertia;
+    this.iterations = iterations;
+    this.seed = seed;
+  }
+
+  /**
+   * Method to label a point with its nearest center.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   * @return Integer, the index of the nearest center.
+   */
+  public int predict(double x, double y) {
+    if (this.index != null) {
+      return this.index.nearest(x, y);
+    }
+    int nearest = 0;
+    double best = Double.POSITIVE_INFINITY;
+    for (int c = 0; c < this.centerX.length; c++) {
+      double dx = x - this.centerX[c];
+      double dy = y - this.centerY[c];
+      double distance = dx * dx + dy * dy;
+      if (distance < best) {
+        best = distance;
+        nearest = c;
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Method to label a batch of points with their nearest centers, on the common fork-join pool.
+   *
+   * @param xs Double[], the x coordinate of each point.
+   * @param ys Double[], the y coordinate of each point.
+   * @return Integer[], the index of the nearest center of each point.
+   * @throws IllegalArgumentException When the coordinate arrays differ in length.
+   */
+  public int[] predict(double[] xs, double[] ys) throws IllegalArgumentException {
+    int[] labels = new int[xs.length];
+    this.predict(xs, ys, labels, ForkJoinPool.commonPool());
+    return labels;
+  }
+
+  /**
+   * Method to label a batch of points with their nearest centers into a given array, so a caller
+   * labelling batch after batch can reuse its arrays. Batches of more than a chunk are labelled a
+   * chunk at a time across the pool; smaller batches are labelled on the calling thread.
+   *
+   * @param xs     Double[], the x coordinate of each point.
+   * @param ys     Double[], the y coordinate of each point.
+   * @param labels Integer[], filled with the index of the nearest center of each point.
+   * @param pool   ForkJoinPool, the pool to spread large batches across.
+   * @throws IllegalArgumentException When the arrays differ in length.
+   */
+  public void predict(double[] xs, double[] ys, int[] labels, ForkJoinPool pool)
+          throws IllegalArgumentException {
+    if (ys.length != xs.length || labels.length != xs.length) {
+      throw new IllegalArgumentException("Coordinate and label arrays must be the same length.");
+    }
+    int n = xs.length;
+    forChunks(pool, (n + GRAIN - 1) / GRAIN, chunk -> {
+      int end = Math.min(n, (chunk + 1) * GRAIN);
+      for (int i = chunk * GRAIN; i < end; i++) {
+        labels[i] = this.predict(xs[i], ys[i]);
+      }
+    });
+  }
+
+  /**
+   * Method to label every point of a set with its nearest center, on the common fork-join pool.
+   *
+   * @param points PointSet, the points to label.
+   * @return Integer[], the index of the nearest center of each point.
+   */
+  public int[] predict(PointSet points) {
+    int n = points.size();
+    int[] labels = new int[n];
+    forChunks(ForkJoinPool.commonPool(), (n + GRAIN - 1) / GRAIN, chunk -> {
+      int end = Math.min(n, (chunk + 1) * GRAIN);
+      for (int i = chunk * GRAIN; i < end; i++) {
+        labels[i] = this.predict(points.getX(i), points.getY(i));
+      }
+    });
+    return labels;
+  }
+
+  /**
+   * Method to get the number of clusters.
+   *
+   * @return Integer, the number of centers.
+   */
+  public int getK() {
+    return this.centerX.length;
+  }
+
+  /**
+   * Method to get the x coordinate of a center.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Double, the x coordinate of its center.
+   */
+  public double getCenterX(int cluster) {
+    return this.centerX[cluster];
+  }
+
+  /**
+   * Method to get the y coordinate of a center.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Double, the y coordinate of its center.
+   */
+  public double getCenterY(int cluster) {
+    return this.centerY[cluster];
+  }
+
+  /**
+   * Method to get the number of training points labelled with a cluster.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Integer, the number of training points in the cluster.
+   */
+  public int getClusterSize(int cluster) {
+    return this.sizes[cluster];
+  }
+
+  /**
+   * Method to get the total weight of the training points labelled with a cluster.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Double, the sum of the weights of its training points, the number of points if
+   *         unweighted.
+   */
+  public double getClusterWeight(int cluster) {
+    return this.weights[cluster];
+  }
+
+  /**
+   * Method to check whether the model carries the inertia of each cluster, which together with
+   * the weight and center of each cluster is enough to merge or update clusters without the
+   * training points.
+   *
+   * @return Boolean, true if the inertia of each cluster was measured.
+   */
+  public boolean hasClusterStatistics() {
+    return this.inertias != null;
+  }
+
+  /**
+   * Method to get the inertia of a cluster: the weighted sum of the squared distances of its
+   * training points from its center.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Double, the inertia of the cluster.
+   * @throws IllegalStateException When the model carries no cluster statistics.
+   */
+  public double getClusterInertia(int cluster) throws IllegalStateException {
+    if (this.inertias == null) {
+      throw new IllegalStateException("Model carries no cluster statistics.");
+    }
+    return this.inertias[cluster];
+  }
+
+  /**
+   * Method to get the number of points the model was fit to.
+   *
+   * @return Integer, the number of training points.
+   */
+  public int getTrainingSize() {
+    int total = 0;
+    for (int size : this.sizes) {
+      total += size;
+    }
+    return total;
+  }
+
+  /**
+   * Method to get the error of the fit: the average distance of each training point from the
+   * center of its cluster.
+   *
+   * @return Double, the training error.
+   */
+  public double getError() {
+    return this.error;
+  }
+
+  /**
+   * Method to get the inertia of the fit: the sum of the squared distances of each training point
+   * from the center of its cluster.
+   *
+   * @return Double, the training inertia.
+   */
+  public double getInertia() {
+    return this.inertia;
+  }
+
+  /**
+   * Method to get the number of iterations run to fit the centers.
+   *
+   * @return Integer, the number of iterations.
+   */
+  public int getIterations() {
+    return this.iterations;
+  }
+
+  /**
+   * Method to check whether the seed the centers were fit from is known.
+   *
+   * @return Boolean, true if the model was fit with a seed set.
+   */
+  public boolean hasSeed() {
+    return this.seed != null;
+  }
+
+  /**
+   * Method to get the seed the centers were fit from, to repeat the fit.
+   *
+   * @return Long, the seed.
+   * @throws IllegalStateException When the model was fit without a seed.
+   */
+  public long getSeed() throws IllegalStateException {
+    if (this.seed == null) {
+      throw new IllegalStateException("Model was fit without a seed.");
+    }
+    return this.seed;
+  }
+
+  /**
+   * Method to check whether the model labels points through a KD-tree over its centers.
+   *
+   * @return Boolean, true if the centers are indexed, false if every center is scanned.
+   */
+  public boolean isIndexed() {
+    return this.index != null;
+  }
+
+  /**
+   * Helper method to build the KD-tree over the centers, if there are enough of them to pay off.
+   *
+   * @param centerX Double[], the x coordinate of each center.
+   * @param centerY Double[], the y coordinate of each center.
+   * @return KdTree, the tree over the centers, or null to scan every center.
+   */
+  private static KdTree index(double[] centerX, double[] centerY) {
+    if (centerX.length < INDEX_THRESHOLD) {
+      return null;
+    }
+    PointArray centers = new PointArray(centerX.length);
+    for (int c = 0; c < centerX.length; c++) {
+      centers.add(centerX[c], centerY[c]);
+    }
+    return new KdTree(centers);
+  }
+
+  /**
+   * Helper method to run a body for each chunk of a batch, on the pool if there is more than one
+   * chunk or else on the calling thread, waiting for all of them.
+   *
+   * @param pool   ForkJoinPool, the pool to run the chunks on.
+   * @param chunks Integer, the number of chunks.
+   * @param body   IntConsumer, the work for a chunk, given its index.
+   */
+  private static void forChunks(ForkJoinPool pool, int chunks, IntConsumer body) {
+    if (chunks == 1) {
+      body.accept(0);
+    } else if (chunks > 1) {
+      pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(body)).join();
+    }
+  }
+}
@@ -0,0 +1,441 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A class to hold the settings of a k-means clustering run: how many random restarts to run, how
+ * and from what seed their starting centers are drawn, the executor they run on, and the engine
+ * that runs each iteration. Each setter returns the options, so settings can be chained.
+ *
+ * <p>Each restart draws its starting centers from its own generator, split from the seed before
+ * any restart runs, so a given seed gives exactly the same clustering whether the restarts run one
+ * after another or all at once.
+ */
+public class KmeansOptions {
+
+  /**
+   * The number of restarts run by default.
+   */
+  public static final int DEFAULT_RESTARTS = 10;
+
+  /**
+   * The number of random restarts.
+   */
+  private int restarts;
+
+  /**
+   * The seed of the starting centers, or null to draw a fresh seed for every run.
+   */
+  private Long seed;
+
+  /**
+   * The executor the restarts run on, or null to run them on the calling thread.
+   */
+  private ExecutorService executor;
+
+  /**
+   * The pool each iteration is spread across, or null to run each iteration on one thread.
+   */
+  private ForkJoinPool iterationPool;
+
+  /**
+   * Whether to skip distances with the triangle inequality, after Elkan's algorithm.
+   */
+  private boolean elkan;
+
+  /**
+   * Whether to filter centers down a KD-tree, after Kanungo et al.
+   */
+  private boolean filtering;
+
+  /**
+   * Whether to build the clusters by repeatedly splitting the worst cluster in two.
+   */
+  private boolean bisecting;
+
+  /**
+   * The number of points in each mini-batch, or 0 to iterate over every point.
+   */
+  private int batchSize;
+
+  /**
+   * The number of weighted points to compress the data into before clustering, or 0 to cluster
+   * every point.
+   */
+  private int coresetSize;
+
+  /**
+   * Whether to collapse the points into weighted representatives before clustering.
+   */
+  private boolean aggregating;
+
+  /**
+   * The side of the grid cells points are collapsed into, or 0 to collapse identical points only.
+   */
+  private double gridCell;
+
+  /**
+   * The number of mini-batches run at most.
+   */
+  private int maxBatches;
+
+  /**
+   * The number of mini-batches without improvement after which iterations stop.
+   */
+  private int patience;
+
+  /**
+   * The way the starting centers are chosen.
+   */
+  private Seeding seeding;
+
+  /**
+   * Constructs the default options: 10 restarts from a fresh seed, run on the calling thread.
+   */
+  public KmeansOptions() {
+    this.restarts = DEFAULT_RESTARTS;
+    this.maxBatches = MiniBatchEngine.DEFAULT_MAX_BATCHES;
+    this.patience = MiniBatchEngine.DEFAULT_PATIENCE;
+    this.seeding = Seeding.RANDOM;
+  }
+
+  /**
+   * Method to set the number of random restarts. The restart with the minimum error is kept.
+   *
+   * @param restarts Integer, the number of restarts.
+   * @return KmeansOptions, these options.
+   * @throws IllegalArgumentException When the number of restarts is not positive.
+   */
+  public KmeansOptions setRestarts(int restarts) throws IllegalArgumentException {
+    if (restarts <= 0) {
+      throw new IllegalArgumentException("Restarts must be positive.");
+    }
+    this.restarts = restarts;
+    return this;
+  }
+
+  /**
+   * Method to set the seed the starting centers are drawn from, making runs repeatable.
+   *
+   * @param seed Long, the seed.
+   * @return KmeansOptions, these options.
+   */
+  public KmeansOptions setSeed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /**
+   * Method to set the executor the restarts run on, such as a fixed pool of platform threads or a
+   * virtual thread per task executor. The executor is not shut down by the clustering.
+   *
+   * @param executor ExecutorService, the executor, or null to run on the calling thread.
+   * @return KmeansOptions, these options.
+   */
+  public KmeansOptions setExecutor(ExecutorService executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * Method to set the pool each iteration is spread across. The points are divided among the
+   * pool's workers for the assignment step, which pays off with few restarts over many points.
+   *
+   * @param pool ForkJoinPool, the pool, or null to run each iteration on one thread.
+   * @return KmeansOptions, these options.
+   */
+  public KmeansOptions setIterationPool(ForkJoinPool pool) {
+    this.iterationPool = pool;
+    return this;
+  }
+
+  /**
+   * Method to set whether each iteration skips the distances that the triangle inequality shows
+   * cannot change an assignment. The clustering is the same either way; skipping pays off as k
+   * grows, at the cost of k bounds per point. It cannot be combined with filtering or an iteration
+   * pool.
+   *
+   * @param elkan Boolean, true to skip distances with ElkanEngine.
+   * @return KmeansOptions, these options.
+   */
+  public KmeansOptions setElkan(boolean elkan) {
+    this.elkan = elkan;
+    return this;
+  }
+
+  /**
+   * Method to set whether each iteration filters the candidate centers down a KD-tree over the
+   * points, assigning whole subtrees to a center at once. The clustering is the same either way;
+   * filtering pays off on large, well separated data. The tree is built once and shared by every
+   * restart. It cannot be combined with Elkan or an iteration pool.
+   *
+   * @param filtering Boolean, true to filter centers with FilteringEngine.
+   * @return KmeansOptions, these options.
+   */
+  public KmeansOptions setFiltering(boolean filtering) {
+    this.filtering = filtering;
+    return this;
+  }
+
+  /**
+   * Method to set whether to build the clusters top down: starting from a single cluster, the
+   * cluster with the largest inertia is split in two with 2-means until there are k, with the
+   * restarts run for each split. Each iteration then costs O(n) rather than O(n k), so it pays off
+   * for large k, at the cost of a somewhat higher error than flat k-means. Independent branches
+   * split in parallel on the executor, or on the common pool if there is none. It cannot be
+   * combined with filtering.
+   *
+   * @param bisecting Boolean, true to split clusters in two until there are k.
+   * @return KmeansOptions, these options.
+   */
+  public KmeansOptions setBisecting(boolean bisecting) {
+    this.bisecting = bisecting;
+    return this;
+  }
+
+  /**
+   * Method to set the size of the coreset to cluster. With a size set, the data is first
+   * compressed into that many weighted points by sensitivity sampling, the restarts cluster the
+   * weighted points, and a single parallel pass then labels every point with the nearest of the
+   * centers found, on the iteration pool or the common pool. The larger the coreset, the closer
+   * the error to clustering every point. It cannot be combined with Elkan, filtering, mini-batches
+   * or bisecting, as the data is never iterated over.
+   *
+   * @param coresetSize Integer, the number of weighted points, or 0 to cluster every point.
+   * @return KmeansOptions, these options.
+   * @throws IllegalArgumentException When the size is negative.
+   */
+  public KmeansOptions setCoresetSize(int coresetSize) throws IllegalArgumentException {
+    if (coresetSize < 0) {
+      throw new IllegalArgumentException("Coreset size cannot be negative.");
+    }
+    this.coresetSize = coresetSize;
+    return this;
+  }
+
+  /**
+   * Method to set whether to collapse the points into weighted representatives before clustering:
+   * identical points, or points in the same grid cell if a cell is set. The restarts iterate over
+   * the representatives, so their cost grows with the distinct values rather than the points, and a
+   * single pass then labels every point with the nearest of the centers found. Collapsing identical
+   * points gives the same centers as clustering every point. It cannot be combined with Elkan,
+   * filtering, mini-batches, an iteration pool, bisecting or a coreset.
+   *
+   * @param aggregating Boolean, true to cluster weighted representatives of the points.
+   * @return KmeansOptions, these options.
+   */
+  public KmeansOptions setAggregating(boolean aggregating) {
+    this.aggregating = aggregating;
+    return this;
+  }
+
+  /**
+   * Method to set the side of the square grid cells to collapse points into before clustering,
+   * which turns aggregation on. Each cell's points are replaced by their weighted mean, moving them
+   * by less than the cell's diagonal, so the cell should be small next to the clusters.
+   *
+   * @param gridCell Double, the side of each cell, or 0 to collapse identical points only.
+   * @return KmeansOptions, these options.
+   * @throws IllegalArgumentException When the cell is negative or not finite.
+   */
+  public KmeansOptions setGridCell(double gridCell) throws IllegalArgumentException {
+    if (!(gridCell >= 0) || Double.isInfinite(gridCell)) {
+      throw new IllegalArgumentException("Grid cell must be finite and not negative.");
+    }
+    this.gridCell = gridCell;
+    this.aggregating = true;
+    return this;
+  }
+
+  /**
+   * Method to set the number of points in each mini-batch. With a batch size set, each iteration
+   * moves the centers with a random batch of points rather than every point, trading a slightly
+   * higher error for much less work on large datasets. It cannot be combined with Elkan, filtering
+   * or an iteration pool.
+   *
+   * @param batchSize Integer, the number of points in each batch, or 0 to iterate over every point.
+   * @return KmeansOptions, these options.
+   * @throws IllegalArgumentException When the batch size is negative.
+   */
+  public KmeansOptions setBatchSize(int batchSize) throws IllegalArgumentException {
+    if (batchSize < 0) {
+      throw new IllegalArgumentException("Batch size cannot be negative.");
+    }
+    this.batchSize = batchSize;
+    return this;
+  }
+
+  /**
+   * Method to set when mini-batch iterations stop: after the given number of batches, or once the
+   * smoothed batch error has not improved for the given number of batches in a row.
+   *
+   * @param maxBatches Integer, the number of batches run at most.
+   * @param patience   Integer, the number of batches without improvement after which to stop.
+   * @return KmeansOptions, these options.
+   * @throws IllegalArgumentException When either number is not positive.
+   */
+  public KmeansOptions setStopping(int maxBatches, int patience) throws IllegalArgumentException {
+    if (maxBatches <= 0 || patience <= 0) {
+      throw new IllegalArgumentException("Maximum batches and patience must be positive.");
+    }
+    this.maxBatches = maxBatches;
+    this.patience = patience;
+    return this;
+  }
+
+  /**
+   * Method to set the way the starting centers are chosen. k-means++ and k-means|| spread the
+   * centers across the clusters, so fewer restarts and iterations reach an equal or lower error.
+   * k-means|| makes its passes over the data on the iteration pool if there is one, or else on the
+   * common fork-join pool.
+   *
+   * @param seeding Seeding, the way to choose the starting centers.
+   * @return KmeansOptions, these options.
+   * @throws IllegalArgumentException When the seeding is null.
+   */
+  public KmeansOptions setSeeding(Seeding seeding) throws IllegalArgumentException {
+    if (seeding == null) {
+      throw new IllegalArgumentException("Seeding cannot be null.");
+    }
+    this.seeding = seeding;
+    return this;
+  }
+
+  /**
+   * Method to get the number of random restarts.
+   *
+   * @return Integer, the number of restarts.
+   */
+  public int getRestarts() {
+    return this.restarts;
+  }
+
+  /**
+   * Method to check whether a seed has been set.
+   *
+   * @return Boolean, true if runs are repeatable.
+   */
+  public boolean hasSeed() {
+    return this.seed != null;
+  }
+
+  /**
+   * Method to get the seed the starting centers are drawn from.
+   *
+   * @return Long, the seed.
+   * @throws IllegalStateException When no seed has been set.
+   */
+  public long getSeed() throws IllegalStateException {
+    if (this.seed == null) {
+      throw new IllegalStateException("No seed has been set.");
+    }
+    return this.seed;
+  }
+
+  /**
+   * Method to get the executor the restarts run on.
+   *
+   * @return ExecutorService, the executor, or null to run on the calling thread.
+   */
+  public ExecutorService getExecutor() {
+    return this.executor;
+  }
+
+  /**
+   * Method to get the pool each iteration is spread across.
+   *
+   * @return ForkJoinPool, the pool, or null to run each iteration on one thread.
+   */
+  public ForkJoinPool getIterationPool() {
+    return this.iterationPool;
+  }
+
+  /**
+   * Method to check whether each iteration skips distances with the triangle inequality.
+   *
+   * @return Boolean, true if iterations run on ElkanEngine.
+   */
+  public boolean isElkan() {
+    return this.elkan;
+  }
+
+  /**
+   * Method to check whether each iteration filters centers down a KD-tree.
+   *
+   * @return Boolean, true if iterations run on FilteringEngine.
+   */
+  public boolean isFiltering() {
+    return this.filtering;
+  }
+
+  /**
+   * Method to check whether clusters are built by splitting the worst cluster in two.
+   *
+   * @return Boolean, true if clustering is bisecting.
+   */
+  public boolean isBisecting() {
+    return this.bisecting;
+  }
+
+  /**
+   * Method to get the size of the coreset to cluster.
+   *
+   * @return Integer, the number of weighted points, or 0 to cluster every point.
+   */
+  public int getCoresetSize() {
+    return this.coresetSize;
+  }
+
+  /**
+   * Method to check whether the points are collapsed into weighted representatives first.
+   *
+   * @return Boolean, true if clustering is aggregated.
+   */
+  public boolean isAggregating() {
+    return this.aggregating;
+  }
+
+  /**
+   * Method to get the side of the grid cells points are collapsed into.
+   *
+   * @return Double, the side of each cell, or 0 to collapse identical points only.
+   */
+  public double getGridCell() {
+    return this.gridCell;
+  }
+
+  /**
+   * Method to get the number of points in each mini-batch.
+   *
+   * @return Integer, the batch size, or 0 to iterate over every point.
+   */
+  public int getBatchSize() {
+    return this.batchSize;
+  }
+
+  /**
+   * Method to get the number of mini-batches run at most.
+   *
+   * @return Integer, the maximum number of batches.
+   */
+  public int getMaxBatches() {
+    return this.maxBatches;
+  }
+
+  /**
+   * Method to get the number of mini-batches without improvement after which iterations stop.
+   *
+   * @return Integer, the patience.
+   */
+  public int getPatience() {
+    return this.patience;
+  }
+
+  /**
+   * Method to get the way the starting centers are chosen.
+   *
+   * @return Seeding, the way to choose the starting centers.
+   */
+  public Seeding getSeeding() {
+    return this.seeding;
+  }
+}
@@ -0,0 +1,332 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class to represent the outcome of a k-means clustering: the cluster label of every point, the
+ * cluster centers, and how good and how costly the clustering was. Labels are kept in an int array
+ * in point order, straight from the assignment step. A result is immutable.
+ *
+ * <p>Results from an engine also carry the size of each cluster and the sum of the distances and
+ * squared distances of its points from its center, measured in the same pass as the error, so
+ * centroid based scores such as Davies-Bouldin need no further pass over the points.
+ */
+public class KmeansResult {
+
+  /**
+   * The cluster index of each point, in point order.
+   */
+  private final int[] labels;
+
+  /**
+   * The x coordinates of the cluster centers.
+   */
+  private final double[] centerX;
+
+  /**
+   * The y coordinates of the cluster centers.
+   */
+  private final double[] centerY;
+
+  /**
+   * The average distance of each point from the center of its cluster.
+   */
+  private final double error;
+
+  /**
+   * The sum of the squared distances of each point from the center of its cluster.
+   */
+  private final double inertia;
+
+  /**
+   * The number of iterations run to reach this result.
+   */
+  private final int iterations;
+
+  /**
+   * The number of points in each cluster, or null if not measured.
+   */
+  private final int[] counts;
+
+  /**
+   * The sum of the distances of the points of each cluster from its center, or null if not
+   * measured.
+   */
+  private final double[] distances;
+
+  /**
+   * The sum of the squared distances of the points of each cluster from its center, or null if
+   * not measured.
+   */
+  private final double[] squares;
+
+  /**
+   * The total weight of the points of each cluster, or null if every point weighs 1.
+   */
+  private final double[] masses;
+
+  /**
+   * Constructs a result. The arrays are copied.
+   *
+   * @param labels     Integer[], the cluster index of each point.
+   * @param centerX    Double[], the x coordinates of the centers.
+   * @param centerY    Double[], the y coordinates of the centers.
+   * @param error      Double, the average distance of each point from its center.
+   * @param inertia    Double, the sum of squared distances of each point from its center.
+   * @param iterations Integer, the number of iterations run.
+   */
+  KmeansResult(int[] labels, double[] centerX, double[] centerY, double error, double inertia,
+               int iterations) {
+    this(labels, labels.length, centerX, centerY, error, inertia, iterations);
+  }
+
+  /**
+   * Constructs a result from the first labels of an array. The arrays are copied.
+   *
+   * @param labels     Integer[], the cluster index of each point, and perhaps more.
+   * @param size       Integer, the number of labels to copy.
+   * @param centerX    Double[], the x coordinates of the centers.
+   * @param centerY    Double[], the y coordinates of the centers.
+   * @param error      Double, the average distance of each point from its center.
+   * @param inertia    Double, the sum of squared distances of each point from its center.
+   * @param iterations Integer, the number of iterations run.
+   */
+  KmeansResult(int[] labels, int size, double[] centerX, double[] centerY, double error,
+               double inertia, int iterations) {
+    this.labels = Arrays.copyOf(labels, size);
+    this.centerX = centerX.clone();
+    this.centerY = centerY.clone();
+    this.error = error;
+    this.inertia = inertia;
+    this.iterations = iterations;
+    this.counts = null;
+    this.distances = null;
+    this.squares = null;
+    this.masses = null;
+  }
+
+  /**
+   * Constructs a result with the statistics of each cluster. The arrays are copied.
+   *
+   * @param labels     Integer[], the cluster index of each point.
+   * @param centerX    Double[], the x coordinates of the centers.
+   * @param centerY    Double[], the y coordinates of the centers.
+   * @param error      Double, the average distance of each point from its center.
+   * @param inertia    Double, the sum of squared distances of each point from its center.
+   * @param iterations Integer, the number of iterations run.
+   * @param counts     Integer[], the number of points in each cluster.
+   * @param distances  Double[], the sum of the weighted distances of each cluster's points from its
+   *                   center.
+   * @param squares    Double[], the sum of the weighted squared distances of each cluster's points.
+   * @param masses     Double[], the total weight of each cluster, or null if every point weighs 1.
+   */
+  KmeansResult(int[] labels, double[] centerX, double[] centerY, double error, double inertia,
+               int iterations, int[] counts, double[] distances, double[] squares,
+               double[] masses) {
+    this.labels = labels.clone();
+    this.centerX = centerX.clone();
+    this.centerY = centerY.clone();
+    this.error = error;
+    this.inertia = inertia;
+    this.iterations = iterations;
+    this.counts = counts.clone();
+    this.distances = distances.clone();
+    this.squares = squares.clone();
+    this.masses = masses == null ? null : masses.clone();
+  }
+
+  /**
+   * Constructs a result sharing the arrays of another, for results that add to a clustering.
+   *
+   * @param other KmeansResult, the result to share.
+   */
+  KmeansResult(KmeansResult other) {
+    this.labels = other.labels;
+    this.centerX = other.centerX;
+    this.centerY = other.centerY;
+    this.error = other.error;
+    this.inertia = other.inertia;
+    this.iterations = other.iterations;
+    this.counts = other.counts;
+    this.distances = other.distances;
+    this.squares = other.squares;
+    this.masses = other.masses;
+  }
+
+  /**
+   * Method to get the number of points clustered.
+   *
+   * @return Integer, the number of labels.
+   */
+  public int size() {
+    return this.labels.length;
+  }
+
+  /**
+   * Method to get the number of clusters.
+   *
+   * @return Integer, k.
+   */
+  public int getK() {
+    return this.centerX.length;
+  }
+
+  /**
+   * Method to get the cluster of a single point.
+   *
+   * @param index Integer, the index of the point.
+   * @return Integer, the index of the point's cluster.
+   */
+  public int getLabel(int index) {
+    return this.labels[index];
+  }
+
+  /**
+   * Method to get the cluster of every point.
+   *
+   * @return Integer[], a copy of the cluster index of each point, in point order.
+   */
+  public int[] getLabels() {
+    return this.labels.clone();
+  }
+
+  /**
+   * Method to get the cluster of every point as a list, as DataModel.kmeans reports it. The list
+   * is a read-only view of the labels, not a copy.
+   *
+   * @return List of Integer, the cluster index of each point, in point order.
+   */
+  public List<Integer> getLabelList() {
+    return new AbstractList<Integer>() {
+      @Override
+      public Integer get(int index) {
+        return KmeansResult.this.labels[index];
+      }
+
+      @Override
+      public int size() {
+        return KmeansResult.this.labels.length;
+      }
+    };
+  }
+
+  /**
+   * Method to get the x coordinate of a cluster center.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Double, the x coordinate of its center.
+   */
+  public double getCenterX(int cluster) {
+    return this.centerX[cluster];
+  }
+
+  /**
+   * Method to get the y coordinate of a cluster center.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Double, the y coordinate of its center.
+   */
+  public double getCenterY(int cluster) {
+    return this.centerY[cluster];
+  }
+
+  /**
+   * Method to get the error: the average distance of each point from the center of its cluster,
+   * the same metric as Kmeans.computeNewError. For weighted points it is the weighted average.
+   *
+   * @return Double, the error.
+   */
+  public double getError() {
+    return this.error;
+  }
+
+  /**
+   * Method to get the inertia: the sum of the squared distances of each point from the center of
+   * its cluster, each multiplied by the weight of the point if weighted.
+   *
+   * @return Double, the inertia.
+   */
+  public double getInertia() {
+    return this.inertia;
+  }
+
+  /**
+   * Method to get the number of iterations run to reach this result.
+   *
+   * @return Integer, the number of iterations.
+   */
+  public int getIterations() {
+    return this.iterations;
+  }
+
+  /**
+   * Method to check whether the result carries the statistics of each cluster. Results from an
+   * engine do; snapshots of an online model do not.
+   *
+   * @return Boolean, true if the size and distances of each cluster were measured.
+   */
+  public boolean hasClusterStatistics() {
+    return this.counts != null;
+  }
+
+  /**
+   * Method to get the number of points in a cluster.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Integer, the number of points labelled with the cluster.
+   * @throws IllegalStateException When the result carries no cluster statistics.
+   */
+  public int getCount(int cluster) throws IllegalStateException {
+    this.checkStatistics();
+    return this.counts[cluster];
+  }
+
+  /**
+   * Method to get the total weight of the points in a cluster.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Double, the sum of the weights of its points, the number of points if unweighted.
+   * @throws IllegalStateException When the result carries no cluster statistics.
+   */
+  public double getClusterWeight(int cluster) throws IllegalStateException {
+    this.checkStatistics();
+    return this.masses == null ? this.counts[cluster] : this.masses[cluster];
+  }
+
+  /**
+   * Method to get the spread of a cluster: the weighted average distance of its points from its
+   * center.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Double, the spread, or 0 for an empty cluster.
+   * @throws IllegalStateException When the result carries no cluster statistics.
+   */
+  public double getSpread(int cluster) throws IllegalStateException {
+    double mass = this.getClusterWeight(cluster);
+    return mass == 0 ? 0 : this.distances[cluster] / mass;
+  }
+
+  /**
+   * Method to get the inertia of a cluster: the weighted sum of the squared distances of its points
+   * from its center. The inertias of the clusters sum to the inertia.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Double, the inertia of the cluster.
+   * @throws IllegalStateException When the result carries no cluster statistics.
+   */
+  public double getClusterInertia(int cluster) throws IllegalStateException {
+    this.checkStatistics();
+    return this.squares[cluster];
+  }
+
+  /**
+   * Helper method to check that the result carries the statistics of each cluster.
+   *
+   * @throws IllegalStateException When it does not.
+   */
+  private void checkStatistics() throws IllegalStateException {
+    if (this.counts == null) {
+      throw new IllegalStateException("Result carries no cluster statistics.");
+    }
+  }
+}
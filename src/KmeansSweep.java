@@ -0,0 +1,118 @@
+import java.util.List;
+
+/**
+ * A class to represent the outcome of clustering a range of k: the best clustering for each k,
+ * and the curves of error and inertia against k used to choose k. A sweep is immutable.
+ */
+public class KmeansSweep {
+
+  /**
+   * The smallest k in the sweep.
+   */
+  private final int minK;
+
+  /**
+   * The best clustering for each k, from the smallest.
+   */
+  private final KmeansResult[] results;
+
+  /**
+   * Constructs a sweep.
+   *
+   * @param minK    Integer, the smallest k in the sweep.
+   * @param results List of KmeansResult, the best clustering for each k, from the smallest.
+   */
+  KmeansSweep(int minK, List<KmeansResult> results) {
+    this.minK = minK;
+    this.results = results.toArray(new KmeansResult[0]);
+  }
+
+  /**
+   * Method to get the smallest k in the sweep.
+   *
+   * @return Integer, the smallest k.
+   */
+  public int getMinK() {
+    return this.minK;
+  }
+
+  /**
+   * Method to get the largest k in the sweep.
+   *
+   * @return Integer, the largest k.
+   */
+  public int getMaxK() {
+    return this.minK + this.results.length - 1;
+  }
+
+  /**
+   * Method to get the best clustering for a k.
+   *
+   * @param k Integer, the number of clusters.
+   * @return KmeansResult, the clustering with the minimum error for k.
+   * @throws IllegalArgumentException When k is outside the sweep.
+   */
+  public KmeansResult getResult(int k) throws IllegalArgumentException {
+    if (k < this.minK || k > this.getMaxK()) {
+      throw new IllegalArgumentException("k is outside the sweep.");
+    }
+    return this.results[k - this.minK];
+  }
+
+  /**
+   * Method to get the error curve: the error of the best clustering for each k, from the smallest.
+   *
+   * @return Double[], the average distance of each point from the center of its cluster, per k.
+   */
+  public double[] getErrors() {
+    double[] errors = new double[this.results.length];
+    for (int i = 0; i < errors.length; i++) {
+      errors[i] = this.results[i].getError();
+    }
+    return errors;
+  }
+
+  /**
+   * Method to get the inertia curve: the inertia of the best clustering for each k, from the
+   * smallest.
+   *
+   * @return Double[], the sum of the squared distances of each point from its center, per k.
+   */
+  public double[] getInertias() {
+    double[] inertias = new double[this.results.length];
+    for (int i = 0; i < inertias.length; i++) {
+      inertias[i] = this.results[i].getInertia();
+    }
+    return inertias;
+  }
+
+  /**
+   * Method to pick the elbow of the inertia curve: the k whose inertia lies farthest below the
+   * straight line from the smallest k's inertia to the largest's, once both axes are scaled to the
+   * unit square. Adding clusters past the elbow buys little.
+   *
+   * @return Integer, the k at the elbow, or the smallest k if the sweep has fewer than 3 k values.
+   */
+  public int getElbow() {
+    int last = this.results.length - 1;
+    if (last < 2) {
+      return this.minK;
+    }
+    double floor = this.results[last].getInertia();
+    double range = this.results[0].getInertia() - floor;
+    if (!(range > 0)) {
+      return this.minK;
+    }
+    int elbow = 0;
+    double deepest = 0;
+    for (int i = 1; i < last; i++) {
+      double chord = 1 - (double) i / last;
+      double depth = chord - (this.results[i].getInertia() - floor) / range;
+      if (depth > deepest) {
+        deepest = depth;
+        elbow = i;
+      }
+    }
+    return this.minK + elbow;
+  }
+}
@@ -0,0 +1,366 @@
+import java.util.Arrays;
+
+/**
+ * An engine for Lloyd's k-means iteration over primitive arrays. Each iteration assigns every point
+ * to its nearest center, moves each center to the mean of its points, and measures the error as
+ * the average distance of each point from the center of its cluster. Iterations stop once the
+ * error changes by less than 1%, the same rule the DataModel has always used.
+ *
+ * <p>Labels are kept in an int array and each cluster in a running sum and count, all allocated
+ * once when the engine is constructed, so iterating allocates nothing. Nearest centers are found
+ * with squared distances, which need no square root and give the same nearest center; ties go to
+ * the lowest cluster index.
+ */
+public class LloydEngine {
+
+  /**
+   * The relative change in error below which the iterations have converged.
+   */
+  protected static final double TOLERANCE = 0.01;
+
+  /**
+   * The number of iterations after which the engine stops even if it has not converged.
+   */
+  protected static final int MAX_ITERATIONS = 1000;
+
+  /**
+   * The points being clustered.
+   */
+  protected final PointSet points;
+
+  /**
+   * The number of clusters.
+   */
+  protected final int k;
+
+  /**
+   * The x coordinates of the cluster centers.
+   */
+  protected final double[] centerX;
+
+  /**
+   * The y coordinates of the cluster centers.
+   */
+  protected final double[] centerY;
+
+  /**
+   * The index of the cluster each point is assigned to.
+   */
+  protected final int[] labels;
+
+  /**
+   * The sum of the x coordinates of the points assigned to each cluster.
+   */
+  protected final double[] sumX;
+
+  /**
+   * The sum of the y coordinates of the points assigned to each cluster.
+   */
+  protected final double[] sumY;
+
+  /**
+   * The number of points assigned to each cluster.
+   */
+  protected final int[] counts;
+
+  /**
+   * The sum of the distances of the points assigned to each cluster from its center.
+   */
+  protected final double[] distances;
+
+  /**
+   * The sum of the squared distances of the points assigned to each cluster from its center.
+   */
+  protected final double[] squares;
+
+  /**
+   * The number of iterations run so far.
+   */
+  protected int iterations;
+
+  /**
+   * The error after the last iteration.
+   */
+  protected double error;
+
+  /**
+   * The inertia after the last iteration.
+   */
+  protected double inertia;
+
+  /**
+   * Constructs an engine to cluster the given points into k clusters. The initial centers must be
+   * set before the engine is run.
+   *
+   * @param points PointSet, the points to cluster.
+   * @param k      Integer, the number of clusters.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points.
+   */
+  public LloydEngine(PointSet points, int k) throws IllegalArgumentException {
+    checkK(points, k);
+    this.points = points;
+    this.k = k;
+    this.centerX = new double[k];
+    this.centerY = new double[k];
+    this.labels = new int[points.size()];
+    this.sumX = new double[k];
+    this.sumY = new double[k];
+    this.counts = new int[k];
+    this.distances = new double[k];
+    this.squares = new double[k];
+    this.error = Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Method to check that points can be clustered into k clusters.
+   *
+   * @param points PointSet, the points to cluster.
+   * @param k      Integer, the number of clusters.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points.
+   */
+  static void checkK(PointSet points, int k) throws IllegalArgumentException {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    if (k > points.size()) {
+      throw new IllegalArgumentException("k cannot exceed data size");
+    }
+  }
+
+  /**
+   * Method to check that a previous clustering of the first points can start the iterations over
+   * the given number of points, and to copy its centers.
+   *
+   * @param previous KmeansResult, the previous clustering.
+   * @param k        Integer, the number of clusters.
+   * @param size     Integer, the number of points to cluster.
+   * @param xs       Double[], filled with the x coordinates of the previous centers.
+   * @param ys       Double[], filled with the y coordinates of the previous centers.
+   * @throws IllegalArgumentException When the previous clustering does not have k centers or
+   *                                  covers more points than there are.
+   */
+  static void previousCenters(KmeansResult previous, int k, int size, double[] xs, double[] ys)
+          throws IllegalArgumentException {
+    if (previous.getK() != k) {
+      throw new IllegalArgumentException("Expected " + k + " centers.");
+    }
+    if (previous.size() > size) {
+      throw new IllegalArgumentException("Previous clustering has more points than the data.");
+    }
+    for (int c = 0; c < k; c++) {
+      xs[c] = previous.getCenterX(c);
+      ys[c] = previous.getCenterY(c);
+    }
+  }
+
+  /**
+   * Method to set the centers the iterations start from.
+   *
+   * @param xs Double[], the x coordinates of the k centers.
+   * @param ys Double[], the y coordinates of the k centers.
+   * @throws IllegalArgumentException When there are not exactly k centers.
+   */
+  public void setCenters(double[] xs, double[] ys) throws IllegalArgumentException {
+    if (xs.length != this.k || ys.length != this.k) {
+      throw new IllegalArgumentException("Expected " + this.k + " centers.");
+    }
+    System.arraycopy(xs, 0, this.centerX, 0, this.k);
+    System.arraycopy(ys, 0, this.centerY, 0, this.k);
+    this.iterations = 0;
+    this.error = Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Method to iterate until the error changes by less than 1% between iterations.
+   *
+   * @return Double, the final error.
+   */
+  public double run() {
+    double previous = Double.POSITIVE_INFINITY;
+    while (this.iterations < MAX_ITERATIONS) {
+      this.iterate();
+      // An unchanged error has converged, even when it is zero
+      if (previous != Double.POSITIVE_INFINITY && (this.error == previous
+              || Math.abs(this.error - previous) / previous < TOLERANCE)) {
+        break;
+      }
+      previous = this.error;
+    }
+    return this.error;
+  }
+
+  /**
+   * Method to run a single iteration: assign every point, move the centers, and measure the error.
+   *
+   * @return Double, the error after the iteration.
+   */
+  public double iterate() {
+    Arrays.fill(this.sumX, 0);
+    Arrays.fill(this.sumY, 0);
+    Arrays.fill(this.counts, 0);
+    this.assign();
+    this.updateCenters();
+    this.error = this.computeError();
+    this.iterations++;
+    return this.error;
+  }
+
+  /**
+   * Method to assign every point to the nearest of the current centers without moving them, and
+   * measure the error, as a final pass once the centers are settled.
+   *
+   * @return Double, the error against the current centers.
+   */
+  public double label() {
+    Arrays.fill(this.sumX, 0);
+    Arrays.fill(this.sumY, 0);
+    Arrays.fill(this.counts, 0);
+    this.assign();
+    this.error = this.computeError();
+    return this.error;
+  }
+
+  /**
+   * Method to assign every point to its nearest center, recording its label and adding it to the
+   * running sum and count of its cluster. The sums and counts are zero when this is called.
+   */
+  protected void assign() {
+    for (int i = 0; i < this.labels.length; i++) {
+      double x = this.points.getX(i);
+      double y = this.points.getY(i);
+      int nearest = this.nearest(x, y);
+      this.labels[i] = nearest;
+      this.sumX[nearest] += x;
+      this.sumY[nearest] += y;
+      this.counts[nearest]++;
+    }
+  }
+
+  /**
+   * Method to move each center to the mean of the points assigned to it. A cluster with no points
+   * keeps its center.
+   */
+  protected void updateCenters() {
+    for (int c = 0; c < this.k; c++) {
+      if (this.counts[c] > 0) {
+        this.centerX[c] = this.sumX[c] / this.counts[c];
+        this.centerY[c] = this.sumY[c] / this.counts[c];
+      }
+    }
+  }
+
+  /**
+   * Method to compute the error as the average distance of each point from the center of its
+   * cluster, the same metric as Kmeans.computeNewError. The inertia, the sum of the squared
+   * distances, is recorded in the same pass, along with the distances of each cluster.
+   *
+   * @return Double, the error.
+   */
+  protected double computeError() {
+    Arrays.fill(this.distances, 0);
+    Arrays.fill(this.squares, 0);
+    double total = 0;
+    double squared = 0;
+    for (int i = 0; i < this.labels.length; i++) {
+      int c = this.labels[i];
+      double dx = this.points.getX(i) - this.centerX[c];
+      double dy = this.points.getY(i) - this.centerY[c];
+      double distance = dx * dx + dy * dy;
+      double root = Math.sqrt(distance);
+      squared += distance;
+      total += root;
+      this.squares[c] += distance;
+      this.distances[c] += root;
+    }
+    this.inertia = squared;
+    return total / this.labels.length;
+  }
+
+  /**
+   * Method to find the center nearest to a point.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   * @return Integer, the index of the nearest center, the lowest index on a tie.
+   */
+  protected int nearest(double x, double y) {
+    int nearest = 0;
+    double best = Double.POSITIVE_INFINITY;
+    for (int c = 0; c < this.k; c++) {
+      double dx = x - this.centerX[c];
+      double dy = y - this.centerY[c];
+      double distance = dx * dx + dy * dy;
+      if (distance < best) {
+        best = distance;
+        nearest = c;
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Method to get the cluster of each point after the last iteration. The array is the engine's
+   * own and changes with further iterations.
+   *
+   * @return Integer[], the cluster index of each point, in point order.
+   */
+  public int[] getLabels() {
+    return this.labels;
+  }
+
+  /**
+   * Method to get the x coordinates of the centers. The array is the engine's own.
+   *
+   * @return Double[], the x coordinate of each center.
+   */
+  public double[] getCenterX() {
+    return this.centerX;
+  }
+
+  /**
+   * Method to get the y coordinates of the centers. The array is the engine's own.
+   *
+   * @return Double[], the y coordinate of each center.
+   */
+  public double[] getCenterY() {
+    return this.centerY;
+  }
+
+  /**
+   * Method to get the error after the last iteration.
+   *
+   * @return Double, the average distance of each point from the center of its cluster.
+   */
+  public double getError() {
+    return this.error;
+  }
+
+  /**
+   * Method to get the inertia after the last iteration.
+   *
+   * @return Double, the sum of the squared distances of each point from the center of its cluster.
+   */
+  public double getInertia() {
+    return this.inertia;
+  }
+
+  /**
+   * Method to capture the labels and centers after the last iteration as a result, with the size
+   * and distances of each cluster.
+   *
+   * @return KmeansResult, a snapshot of the clustering.
+   */
+  public KmeansResult getResult() {
+    return new KmeansResult(this.labels, this.centerX, this.centerY, this.error, this.inertia,
+            this.iterations, this.counts, this.distances, this.squares, null);
+  }
+
+  /**
+   * Method to get the number of iterations run since the centers were set.
+   *
+   * @return Integer, the number of iterations.
+   */
+  public int getIterations() {
+    return this.iterations;
+  }
+}
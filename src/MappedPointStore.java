@@ -0,0 +1,461 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An off-heap store of 2D data points backed by a memory-mapped file. Points live in the OS page
+ * cache rather than on the Java heap, so the store can hold more points than the heap could, and
+ * its size has no effect on garbage collection.
+ *
+ * <p>The file is a binary point file: a 64 byte header, followed by each point as a pair of packed
+ * little-endian coordinates. The header holds, in little-endian order:
+ * <ul>
+ *   <li>bytes 0-3: the magic number "PTS1"</li>
+ *   <li>bytes 4-7: the version of the layout, currently 2</li>
+ *   <li>bytes 8-11: the precision, the number of bytes per coordinate: 8 for doubles, 4 for
+ *   floats</li>
+ *   <li>bytes 12-15: reserved, zero</li>
+ *   <li>bytes 16-23: the number of points</li>
+ *   <li>bytes 24-55: the bounds of the points as doubles: x minimum, x maximum, y minimum and y
+ *   maximum</li>
+ *   <li>bytes 56-63: reserved, zero</li>
+ * </ul>
+ *
+ * <p>The file is mapped in fixed-size regions that are added as the store grows. The count and
+ * bounds in the header are updated on every add, so a store reopened from the same file picks up
+ * where it left off, and its points are read in place without being parsed or copied. A store
+ * opened read-only maps exactly the points in the file and never writes to it. A file must only
+ * be open in one writable store at a time.
+ */
+public class MappedPointStore implements PointStore, Closeable {
+
+  /**
+   * The magic number identifying a binary point file ("PTS1").
+   */
+  private static final int MAGIC = 0x50545331;
+
+  /**
+   * The version of the file layout.
+   */
+  private static final int VERSION = 2;
+
+  /**
+   * The number of bytes before the first point.
+   */
+  private static final int HEADER_BYTES = 64;
+
+  /**
+   * The offset of the precision within the header.
+   */
+  private static final int PRECISION_OFFSET = 8;
+
+  /**
+   * The offset of the point count within the header.
+   */
+  private static final int COUNT_OFFSET = 16;
+
+  /**
+   * The offset of the bounds within the header.
+   */
+  private static final int BOUNDS_OFFSET = 24;
+
+  /**
+   * The number of points in each mapped region by default, as a power of two (8M points).
+   */
+  private static final int DEFAULT_REGION_SHIFT = 23;
+
+  /**
+   * The channel of the backing file.
+   */
+  private final FileChannel channel;
+
+  /**
+   * The mapped header of the backing file.
+   */
+  private final MappedByteBuffer header;
+
+  /**
+   * The mapped regions of the backing file, in order.
+   */
+  private final List<MappedByteBuffer> regions;
+
+  /**
+   * The number of bytes per coordinate: 8 for doubles, 4 for floats.
+   */
+  private final int precision;
+
+  /**
+   * The number of points per region, as a power of two.
+   */
+  private final int regionShift;
+
+  /**
+   * The mask that gives a point's index within its region.
+   */
+  private final int regionMask;
+
+  /**
+   * Whether the backing file is deleted when the store is closed.
+   */
+  private final boolean temporary;
+
+  /**
+   * Whether the store was opened read-only, so the backing file is never written.
+   */
+  private final boolean readOnly;
+
+  /**
+   * The backing file.
+   */
+  private final Path file;
+
+  /**
+   * The bounds of the points stored so far.
+   */
+  private final Bounds bounds;
+
+  /**
+   * The number of points stored so far.
+   */
+  private int size;
+
+  /**
+   * Opens a point store backed by the given file. A new file of double precision coordinates is
+   * created if it does not exist yet, otherwise the points already in the file are kept.
+   *
+   * @param file Path, the file backing the store.
+   * @throws IOException When the file cannot be opened or is not a binary point file.
+   */
+  public MappedPointStore(Path file) throws IOException {
+    this(file, 0, DEFAULT_REGION_SHIFT, false, false);
+  }
+
+  /**
+   * Opens a point store backed by the given file, with the given precision. A new file is created
+   * if it does not exist yet, otherwise the points already in the file are kept.
+   *
+   * @param file      Path, the file backing the store.
+   * @param precision Integer, the number of bytes per coordinate: 8 for doubles, 4 for floats.
+   * @throws IOException When the file cannot be opened, is not a binary point file, or has a
+   *                     different precision.
+   */
+  public MappedPointStore(Path file, int precision) throws IOException {
+    this(file, precision, DEFAULT_REGION_SHIFT, false, false);
+  }
+
+  /**
+   * Opens a point store backed by the given file, mapped in regions of the given size.
+   *
+   * @param file        Path, the file backing the store.
+   * @param precision   Integer, the number of bytes per coordinate, or 0 to accept the precision
+   *                    of an existing file and use doubles for a new one.
+   * @param regionShift Integer, the number of points per region as a power of two.
+   * @param temporary   Boolean, true if the file should be deleted when the store is closed.
+   * @throws IOException When the file cannot be opened, is not a binary point file, or has a
+   *                     different precision.
+   */
+  MappedPointStore(Path file, int precision, int regionShift, boolean temporary)
+          throws IOException {
+    this(file, precision, regionShift, temporary, false);
+  }
+
+  /**
+   * Opens a point store backed by the given file, mapped in regions of the given size, either
+   * writable or read-only. A read-only store requires an existing binary point file.
+   *
+   * @param file        Path, the file backing the store.
+   * @param precision   Integer, the number of bytes per coordinate, or 0 to accept the precision
+   *                    of an existing file and use doubles for a new one.
+   * @param regionShift Integer, the number of points per region as a power of two.
+   * @param temporary   Boolean, true if the file should be deleted when the store is closed.
+   * @param readOnly    Boolean, true if the file should be mapped read-only.
+   * @throws IOException When the file cannot be opened, is not a binary point file, or has a
+   *                     different precision.
+   */
+  private MappedPointStore(Path file, int precision, int regionShift, boolean temporary,
+                           boolean readOnly) throws IOException {
+    if (precision != 0 && precision != 4 && precision != 8) {
+      throw new IllegalArgumentException("Precision must be 4 or 8 bytes.");
+    }
+    if (regionShift < 0 || regionShift > 26) {
+      // A region must fit in a single MappedByteBuffer, which is indexed by int
+      throw new IllegalArgumentException("Region shift must be between 0 and 26.");
+    }
+    this.file = file;
+    this.temporary = temporary;
+    this.readOnly = readOnly;
+    this.regionShift = regionShift;
+    this.regionMask = (1 << regionShift) - 1;
+    this.regions = new ArrayList<>();
+    this.channel = readOnly ? FileChannel.open(file, StandardOpenOption.READ)
+            : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    try {
+      boolean fresh = !readOnly && this.channel.size() == 0;
+      if (readOnly && this.channel.size() < HEADER_BYTES) {
+        throw new IOException("Not a binary point file: " + file);
+      }
+      this.header = this.channel.map(readOnly ? FileChannel.MapMode.READ_ONLY
+              : FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+      this.header.order(ByteOrder.LITTLE_ENDIAN);
+      if (fresh) {
+        this.header.putInt(0, MAGIC);
+        this.header.putInt(4, VERSION);
+        this.header.putInt(PRECISION_OFFSET, precision == 0 ? 8 : precision);
+        this.header.putLong(COUNT_OFFSET, 0);
+        this.writeBounds(new Bounds());
+      } else if (this.header.getInt(0) != MAGIC || this.header.getInt(4) != VERSION) {
+        throw new IOException("Not a binary point file: " + file);
+      }
+      this.precision = this.header.getInt(PRECISION_OFFSET);
+      if (this.precision != 4 && this.precision != 8) {
+        throw new IOException("Unsupported precision in " + file + ": " + this.precision);
+      }
+      if (precision != 0 && precision != this.precision) {
+        throw new IOException("Expected precision " + precision + " but " + file + " has "
+                + this.precision);
+      }
+      long count = this.header.getLong(COUNT_OFFSET);
+      if (count < 0 || count > Integer.MAX_VALUE) {
+        throw new IOException("Corrupt point count in " + file + ": " + count);
+      }
+      if (this.channel.size() < HEADER_BYTES + count * 2 * this.precision) {
+        // Mapping the missing points would silently extend the file with zeros
+        throw new IOException("Truncated binary point file " + file + ": expected " + count
+                + " points");
+      }
+      this.size = (int) count;
+      this.bounds = new Bounds(this.header.getDouble(BOUNDS_OFFSET),
+              this.header.getDouble(BOUNDS_OFFSET + 8), this.header.getDouble(BOUNDS_OFFSET + 16),
+              this.header.getDouble(BOUNDS_OFFSET + 24));
+      // Map every region that already holds points
+      while ((long) this.regions.size() << this.regionShift < this.size) {
+        this.mapRegion();
+      }
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Creates a point store backed by a new temporary file, which is deleted when the store is
+   * closed.
+   *
+   * @return MappedPointStore, an empty store.
+   * @throws IOException When the temporary file cannot be created.
+   */
+  public static MappedPointStore temporary() throws IOException {
+    Path file = Files.createTempFile("points", ".bin");
+    // The new file is empty, so the store writes a fresh header into it
+    return new MappedPointStore(file, 8, DEFAULT_REGION_SHIFT, true);
+  }
+
+  /**
+   * Opens a read-only point store over an existing binary point file. Only the points in the
+   * file are mapped, the file is neither grown nor trimmed, and adding points is refused.
+   *
+   * @param file Path, the binary point file to open.
+   * @return MappedPointStore, the read-only store mapped over the file.
+   * @throws IOException When the file cannot be opened or is not a binary point file.
+   */
+  public static MappedPointStore readOnly(Path file) throws IOException {
+    return new MappedPointStore(file, 0, DEFAULT_REGION_SHIFT, false, true);
+  }
+
+  /**
+   * Method to append a point to the end of the store. With a precision of 4 bytes, the
+   * coordinates are rounded to the nearest float.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   * @throws IllegalStateException When the store is read-only or full.
+   */
+  @Override
+  public void add(double x, double y) {
+    if (this.readOnly) {
+      throw new IllegalStateException("Point store is read-only: " + this.file);
+    }
+    if (this.size == Integer.MAX_VALUE) {
+      throw new IllegalStateException("Point store is full.");
+    }
+    int region = this.size >>> this.regionShift;
+    if (region == this.regions.size()) {
+      try {
+        this.mapRegion();
+      } catch (IOException e) {
+        throw new IllegalStateException("Could not grow point store: " + this.file, e);
+      }
+    }
+    int offset = (this.size & this.regionMask) * 2 * this.precision;
+    MappedByteBuffer buffer = this.regions.get(region);
+    if (this.precision == 8) {
+      buffer.putDouble(offset, x);
+      buffer.putDouble(offset + 8, y);
+    } else {
+      // Track the bounds of the coordinates as stored
+      x = (float) x;
+      y = (float) y;
+      buffer.putFloat(offset, (float) x);
+      buffer.putFloat(offset + 4, (float) y);
+    }
+    this.size++;
+    this.header.putLong(COUNT_OFFSET, this.size);
+    if (x < this.bounds.getXMin() || x > this.bounds.getXMax() || y < this.bounds.getYMin()
+            || y > this.bounds.getYMax()) {
+      this.bounds.include(x, y);
+      this.writeBounds(this.bounds);
+    }
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public double getX(int index) {
+    this.checkIndex(index);
+    MappedByteBuffer region = this.regions.get(index >>> this.regionShift);
+    int offset = (index & this.regionMask) * 2 * this.precision;
+    return this.precision == 8 ? region.getDouble(offset) : region.getFloat(offset);
+  }
+
+  @Override
+  public double getY(int index) {
+    this.checkIndex(index);
+    MappedByteBuffer region = this.regions.get(index >>> this.regionShift);
+    int offset = (index & this.regionMask) * 2 * this.precision + this.precision;
+    return this.precision == 8 ? region.getDouble(offset) : region.getFloat(offset);
+  }
+
+  /**
+   * Method to get the bounds of the points in the store, as recorded in the header.
+   *
+   * @return Bounds, a copy of the bounding box of the points.
+   */
+  public Bounds getBounds() {
+    Bounds copy = new Bounds();
+    copy.include(this.bounds);
+    return copy;
+  }
+
+  /**
+   * Method to get the number of bytes per coordinate.
+   *
+   * @return Integer, 8 for doubles or 4 for floats.
+   */
+  public int getPrecision() {
+    return this.precision;
+  }
+
+  /**
+   * Method to get the file backing this store.
+   *
+   * @return Path, the backing file.
+   */
+  public Path getFile() {
+    return this.file;
+  }
+
+  /**
+   * Method to check whether the store was opened read-only.
+   *
+   * @return Boolean, true if points cannot be added to the store.
+   */
+  public boolean isReadOnly() {
+    return this.readOnly;
+  }
+
+  /**
+   * Method to flush the points written so far to the backing file. A read-only store has nothing
+   * to flush.
+   */
+  public void force() {
+    if (this.readOnly) {
+      return;
+    }
+    this.header.force();
+    for (MappedByteBuffer region : this.regions) {
+      region.force();
+    }
+  }
+
+  /**
+   * Closes the backing file, deleting it if this is a temporary store. Otherwise the file of a
+   * writable store is trimmed to the points it holds, since regions are mapped ahead of the points
+   * written. The store must not be used after it has been closed.
+   *
+   * @throws IOException When the file cannot be closed or deleted.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (!this.temporary && !this.readOnly && this.channel.isOpen()) {
+        this.force();
+        try {
+          this.channel.truncate(HEADER_BYTES + (long) this.size * 2 * this.precision);
+        } catch (IOException e) {
+          // Some platforms cannot shrink a mapped file; the count in the header still holds
+        }
+      }
+    } finally {
+      this.channel.close();
+      if (this.temporary) {
+        Files.deleteIfExists(this.file);
+      }
+    }
+  }
+
+  /**
+   * Helper method to write the bounds into the header.
+   *
+   * @param written Bounds, the bounds to write.
+   */
+  private void writeBounds(Bounds written) {
+    this.header.putDouble(BOUNDS_OFFSET, written.getXMin());
+    this.header.putDouble(BOUNDS_OFFSET + 8, written.getXMax());
+    this.header.putDouble(BOUNDS_OFFSET + 16, written.getYMin());
+    this.header.putDouble(BOUNDS_OFFSET + 24, written.getYMax());
+  }
+
+  /**
+   * Helper method to map the next region of the backing file. Mapping beyond the end of the file
+   * extends it, so a read-only store maps its last region only up to the last point.
+   *
+   * @throws IOException When the region cannot be mapped.
+   */
+  private void mapRegion() throws IOException {
+    long regionBytes = (2L * this.precision) << this.regionShift;
+    long position = HEADER_BYTES + this.regions.size() * regionBytes;
+    MappedByteBuffer region;
+    if (this.readOnly) {
+      long end = HEADER_BYTES + (long) this.size * 2 * this.precision;
+      region = this.channel.map(FileChannel.MapMode.READ_ONLY, position,
+              Math.min(regionBytes, end - position));
+    } else {
+      region = this.channel.map(FileChannel.MapMode.READ_WRITE, position, regionBytes);
+    }
+    region.order(ByteOrder.LITTLE_ENDIAN);
+    this.regions.add(region);
+  }
+
+  /**
+   * Helper method to reject indices beyond the points stored so far.
+   *
+   * @param index Integer, the index to check.
+   * @throws IndexOutOfBoundsException When the index does not refer to a stored point.
+   */
+  private void checkIndex(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+  }
+}
@@ -0,0 +1,190 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A LloydEngine that moves the centers with small random batches of points rather than every
+ * point, after Sculley's mini-batch k-means. Each iteration draws a batch of points at random,
+ * assigns each to its nearest center, and then pulls each center towards its points one at a
+ * time. Every center has its own learning rate, one over the number of points it has been pulled
+ * towards, so each center is the running mean of every point it has seen and settles as it sees
+ * more.
+ *
+ * <p>Iterations stop once a smoothed average of the batch errors has not improved for a number of
+ * batches in a row, or after a maximum number of batches. A final pass then assigns every point,
+ * so the labels cover the whole dataset and the error is the average distance of each point from
+ * the center of its cluster, the same metric as Kmeans.computeNewError. The error is usually a
+ * little higher than full Lloyd iterations reach, for a fraction of the work on large datasets.
+ */
+public class MiniBatchEngine extends LloydEngine {
+
+  /**
+   * The number of batches run at most by default.
+   */
+  public static final int DEFAULT_MAX_BATCHES = 500;
+
+  /**
+   * The number of batches without improvement after which iterations stop, by default.
+   */
+  public static final int DEFAULT_PATIENCE = 10;
+
+  /**
+   * The number of batches run at most.
+   */
+  private final int maxBatches;
+
+  /**
+   * The number of batches without improvement after which iterations stop.
+   */
+  private final int patience;
+
+  /**
+   * The index of each point in the current batch.
+   */
+  private final int[] batch;
+
+  /**
+   * The center each point in the current batch is assigned to.
+   */
+  private final int[] batchLabels;
+
+  /**
+   * The number of points each center has been pulled towards since the centers were set.
+   */
+  private final long[] seen;
+
+  /**
+   * The generator the batches are drawn with.
+   */
+  private SplittableRandom random;
+
+  /**
+   * Constructs an engine to cluster the given points into k clusters with batches of the given
+   * size, the default maximum number of batches, and the default patience.
+   *
+   * @param points    PointSet, the points to cluster.
+   * @param k         Integer, the number of clusters.
+   * @param batchSize Integer, the number of points in each batch.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points, or
+   *                                  the batch size is not positive.
+   */
+  public MiniBatchEngine(PointSet points, int k, int batchSize) throws IllegalArgumentException {
+    this(points, k, batchSize, DEFAULT_MAX_BATCHES, DEFAULT_PATIENCE);
+  }
+
+  /**
+   * Constructs an engine to cluster the given points into k clusters with batches of the given
+   * size. The initial centers must be set before the engine is run.
+   *
+   * @param points     PointSet, the points to cluster.
+   * @param k          Integer, the number of clusters.
+   * @param batchSize  Integer, the number of points in each batch.
+   * @param maxBatches Integer, the number of batches run at most.
+   * @param patience   Integer, the number of batches without improvement after which to stop.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points, or
+   *                                  the batch size, maximum or patience is not positive.
+   */
+  public MiniBatchEngine(PointSet points, int k, int batchSize, int maxBatches, int patience)
+          throws IllegalArgumentException {
+    super(points, k);
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive.");
+    }
+    if (maxBatches <= 0) {
+      throw new IllegalArgumentException("Maximum batches must be positive.");
+    }
+    if (patience <= 0) {
+      throw new IllegalArgumentException("Patience must be positive.");
+    }
+    this.maxBatches = maxBatches;
+    this.patience = patience;
+    this.batch = new int[batchSize];
+    this.batchLabels = new int[batchSize];
+    this.seen = new long[k];
+    this.random = new SplittableRandom();
+  }
+
+  /**
+   * Method to set the generator the batches are drawn with, making runs repeatable.
+   *
+   * @param random SplittableRandom, the generator.
+   */
+  public void setRandom(SplittableRandom random) {
+    this.random = random;
+  }
+
+  /**
+   * Method to set the centers the iterations start from. Every center starts with its full
+   * learning rate.
+   *
+   * @param xs Double[], the x coordinates of the k centers.
+   * @param ys Double[], the y coordinates of the k centers.
+   * @throws IllegalArgumentException When there are not exactly k centers.
+   */
+  @Override
+  public void setCenters(double[] xs, double[] ys) throws IllegalArgumentException {
+    super.setCenters(xs, ys);
+    Arrays.fill(this.seen, 0);
+  }
+
+  /**
+   * Method to run batches until the smoothed batch error stops improving, then assign every point
+   * to its nearest center.
+   *
+   * @return Double, the final error over every point.
+   */
+  @Override
+  public double run() {
+    // Smooth over about two batches' share of the data, as the batches are noisy
+    double alpha = Math.min(1, 2.0 * this.batch.length / (this.labels.length + 1));
+    double smoothed = Double.NaN;
+    double best = Double.POSITIVE_INFINITY;
+    int stale = 0;
+    while (this.iterations < this.maxBatches) {
+      double batchError = this.iterate();
+      smoothed = Double.isNaN(smoothed) ? batchError : (1 - alpha) * smoothed + alpha * batchError;
+      if (smoothed < best) {
+        best = smoothed;
+        stale = 0;
+      } else if (++stale >= this.patience) {
+        break;
+      }
+    }
+    // Label every point against the final centers, without moving them
+    return this.label();
+  }
+
+  /**
+   * Method to run a single batch: draw the batch, assign its points, and pull the centers towards
+   * them.
+   *
+   * @return Double, the average distance of the batch's points from their nearest centers before
+   *         the centers moved.
+   */
+  @Override
+  public double iterate() {
+    PointSet points = this.points;
+    double total = 0;
+    // Assign the whole batch against the same centers before any of them moves
+    for (int j = 0; j < this.batch.length; j++) {
+      int i = this.random.nextInt(this.labels.length);
+      double x = points.getX(i);
+      double y = points.getY(i);
+      int c = this.nearest(x, y);
+      this.batch[j] = i;
+      this.batchLabels[j] = c;
+      double dx = x - this.centerX[c];
+      double dy = y - this.centerY[c];
+      total += Math.sqrt(dx * dx + dy * dy);
+    }
+    for (int j = 0; j < this.batch.length; j++) {
+      int i = this.batch[j];
+      int c = this.batchLabels[j];
+      double rate = 1.0 / ++this.seen[c];
+      this.centerX[c] += rate * (points.getX(i) - this.centerX[c]);
+      this.centerY[c] += rate * (points.getY(i) - this.centerY[c]);
+    }
+    this.iterations++;
+    this.error = total / this.batch.length;
+    return this.error;
+  }
+}
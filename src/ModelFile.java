@@ -0,0 +1,326 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A class to save fitted models to compact binary files and load them back, so a process that
+ * only scores points can start from a saved model instead of re-reading the data and refitting.
+ * Methods are static.
+ *
+ * <p>Every model file starts with a 64 byte header whose first 8 bytes hold a magic number naming
+ * the kind of model and the version of its layout, followed by fixed-offset fields and then whole
+ * columns of little-endian values, each aligned to 8 bytes. All values are little-endian.
+ *
+ * <p>A line file ("LIN1", version 1) holds:
+ * <ul>
+ *   <li>bytes 8-11: flags, 1 if the moments of the data follow the header</li>
+ *   <li>bytes 16-39: the constants a, b and c of the line as doubles</li>
+ *   <li>bytes 64-119, if flagged: the moments as the count, a long, then the weight, the means of
+ *   x and y, and the sums of squares XX, YY and XY, as doubles</li>
+ * </ul>
+ *
+ * <p>A k-means model file ("KMM1", version 1) holds:
+ * <ul>
+ *   <li>bytes 8-11: the number of clusters k</li>
+ *   <li>bytes 12-15: flags, 1 if the seed is set, 2 if the cluster inertias are stored</li>
+ *   <li>bytes 16-23: the seed, or zero</li>
+ *   <li>bytes 24-39: the error and inertia as doubles</li>
+ *   <li>bytes 40-43: the number of iterations</li>
+ *   <li>from byte 64: the columns of k values: the x and y coordinates of the centers, the weight
+ *   of each cluster and, if flagged, the inertia of each cluster, as doubles, then the size of
+ *   each cluster as ints</li>
+ * </ul>
+ *
+ * <p>Files are loaded by mapping them rather than reading them through a stream, and each column
+ * is copied out of the mapping in bulk, so a model of a few thousand centers loads in well under a
+ * millisecond. Files are written to a temporary file that then replaces the target, so a process
+ * loading a model never sees one half written. A file of another kind or version is rejected.
+ */
+public final class ModelFile {
+
+  /**
+   * The magic number identifying a line file ("LIN1").
+   */
+  private static final int LINE_MAGIC = 0x4C494E31;
+
+  /**
+   * The magic number identifying a k-means model file ("KMM1").
+   */
+  private static final int KMEANS_MAGIC = 0x4B4D4D31;
+
+  /**
+   * The version of both file layouts.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * The number of bytes before the first column.
+   */
+  private static final int HEADER_BYTES = 64;
+
+  /**
+   * The number of bytes of the moments stored after a line's header.
+   */
+  private static final int MOMENTS_BYTES = 56;
+
+  /**
+   * The flag of a line file storing the moments of the data.
+   */
+  private static final int HAS_MOMENTS = 1;
+
+  /**
+   * The flag of a k-means model file storing the seed.
+   */
+  private static final int HAS_SEED = 1;
+
+  /**
+   * The flag of a k-means model file storing the inertia of each cluster.
+   */
+  private static final int HAS_INERTIAS = 2;
+
+  /**
+   * Method to save a line.
+   *
+   * @param file Path, the file to write. It is replaced if it exists.
+   * @param line Line, the line to save.
+   * @throws IOException When the file cannot be written.
+   */
+  public static void write(Path file, Line line) throws IOException {
+    write(file, line, null);
+  }
+
+  /**
+   * Method to save the moments of some data along with the line fit to them, so the line can be
+   * loaded directly, and the moments combined with those of new data to refit it without the old
+   * data.
+   *
+   * @param file    Path, the file to write. It is replaced if it exists.
+   * @param moments Moments, the moments to save.
+   * @throws IOException           When the file cannot be written.
+   * @throws IllegalStateException When the moments are of fewer than 2 points.
+   */
+  public static void write(Path file, Moments moments) throws IOException, IllegalStateException {
+    write(file, moments.toLine(), moments);
+  }
+
+  /**
+   * Method to load a line saved with or without moments.
+   *
+   * @param file Path, the line file to read.
+   * @return Line, the saved line.
+   * @throws IOException When the file cannot be read or is not a line file.
+   */
+  public static Line readLine(Path file) throws IOException {
+    ByteBuffer buffer = map(file, LINE_MAGIC, "line");
+    try {
+      return new Line(buffer.getDouble(16), buffer.getDouble(24), buffer.getDouble(32));
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Corrupt line file " + file, e);
+    }
+  }
+
+  /**
+   * Method to load the moments saved with a line.
+   *
+   * @param file Path, the line file to read.
+   * @return Moments, the saved moments.
+   * @throws IOException When the file cannot be read, is not a line file, or holds no moments.
+   */
+  public static Moments readMoments(Path file) throws IOException {
+    ByteBuffer buffer = map(file, LINE_MAGIC, "line");
+    if ((buffer.getInt(8) & HAS_MOMENTS) == 0) {
+      throw new IOException("Line file " + file + " holds no moments.");
+    }
+    try {
+      buffer.position(HEADER_BYTES);
+      return new Moments(buffer.getLong(), buffer.getDouble(), buffer.getDouble(),
+              buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException("Corrupt line file " + file, e);
+    }
+  }
+
+  /**
+   * Method to save a k-means model: its centers, the size, weight and any inertia of each cluster,
+   * its error, inertia and iterations, and any seed it was fit from.
+   *
+   * @param file  Path, the file to write. It is replaced if it exists.
+   * @param model KmeansModel, the model to save.
+   * @throws IOException When the file cannot be written.
+   */
+  public static void write(Path file, KmeansModel model) throws IOException {
+    int k = model.getK();
+    boolean inertias = model.hasClusterStatistics();
+    ByteBuffer buffer = header(HEADER_BYTES + k * ((inertias ? 4 : 3) * 8 + 4), KMEANS_MAGIC);
+    buffer.putInt(8, k);
+    buffer.putInt(12, (model.hasSeed() ? HAS_SEED : 0) | (inertias ? HAS_INERTIAS : 0));
+    buffer.putLong(16, model.hasSeed() ? model.getSeed() : 0);
+    buffer.putDouble(24, model.getError());
+    buffer.putDouble(32, model.getInertia());
+    buffer.putInt(40, model.getIterations());
+    buffer.position(HEADER_BYTES);
+    for (int c = 0; c < k; c++) {
+      buffer.putDouble(model.getCenterX(c));
+    }
+    for (int c = 0; c < k; c++) {
+      buffer.putDouble(model.getCenterY(c));
+    }
+    for (int c = 0; c < k; c++) {
+      buffer.putDouble(model.getClusterWeight(c));
+    }
+    if (inertias) {
+      for (int c = 0; c < k; c++) {
+        buffer.putDouble(model.getClusterInertia(c));
+      }
+    }
+    for (int c = 0; c < k; c++) {
+      buffer.putInt(model.getClusterSize(c));
+    }
+    save(file, buffer);
+  }
+
+  /**
+   * Method to load a k-means model, ready to label points.
+   *
+   * @param file Path, the k-means model file to read.
+   * @return KmeansModel, the saved model.
+   * @throws IOException When the file cannot be read or is not a k-means model file.
+   */
+  public static KmeansModel readKmeans(Path file) throws IOException {
+    ByteBuffer buffer = map(file, KMEANS_MAGIC, "k-means model");
+    int k = buffer.getInt(8);
+    int flags = buffer.getInt(12);
+    if (k <= 0) {
+      throw new IOException("Corrupt k-means model file " + file);
+    }
+    double[] centerX = new double[k];
+    double[] centerY = new double[k];
+    double[] weights = new double[k];
+    double[] inertias = (flags & HAS_INERTIAS) != 0 ? new double[k] : null;
+    int[] sizes = new int[k];
+    try {
+      buffer.position(HEADER_BYTES);
+      // Copy each column out of the mapping in bulk
+      buffer.asDoubleBuffer().get(centerX);
+      buffer.position(buffer.position() + 8 * k);
+      buffer.asDoubleBuffer().get(centerY);
+      buffer.position(buffer.position() + 8 * k);
+      buffer.asDoubleBuffer().get(weights);
+      buffer.position(buffer.position() + 8 * k);
+      if (inertias != null) {
+        buffer.asDoubleBuffer().get(inertias);
+        buffer.position(buffer.position() + 8 * k);
+      }
+      buffer.asIntBuffer().get(sizes);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated k-means model file " + file, e);
+    }
+    Long seed = (flags & HAS_SEED) != 0 ? buffer.getLong(16) : null;
+    return new KmeansModel(centerX, centerY, sizes, weights, inertias, buffer.getDouble(24),
+            buffer.getDouble(32), buffer.getInt(40), seed);
+  }
+
+  /**
+   * Helper method to save a line and perhaps the moments it was fit to.
+   *
+   * @param file    Path, the file to write.
+   * @param line    Line, the line to save.
+   * @param moments Moments, the moments to save, or null to save the line alone.
+   * @throws IOException When the file cannot be written.
+   */
+  private static void write(Path file, Line line, Moments moments) throws IOException {
+    ByteBuffer buffer = header(HEADER_BYTES + (moments == null ? 0 : MOMENTS_BYTES), LINE_MAGIC);
+    buffer.putInt(8, moments == null ? 0 : HAS_MOMENTS);
+    buffer.putDouble(16, line.getA());
+    buffer.putDouble(24, line.getB());
+    buffer.putDouble(32, line.getC());
+    if (moments != null) {
+      buffer.position(HEADER_BYTES);
+      buffer.putLong(moments.getCount());
+      buffer.putDouble(moments.getWeight());
+      buffer.putDouble(moments.getMeanX());
+      buffer.putDouble(moments.getMeanY());
+      buffer.putDouble(moments.getSumXX());
+      buffer.putDouble(moments.getSumYY());
+      buffer.putDouble(moments.getSumXY());
+    }
+    save(file, buffer);
+  }
+
+  /**
+   * Helper method to allocate the contents of a file, with the magic number and version written.
+   *
+   * @param bytes Integer, the size of the file.
+   * @param magic Integer, the magic number of the kind of model.
+   * @return ByteBuffer, the zeroed little-endian contents.
+   */
+  private static ByteBuffer header(int bytes, int magic) {
+    ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(0, magic);
+    buffer.putInt(4, VERSION);
+    return buffer;
+  }
+
+  /**
+   * Helper method to write the contents of a file to a temporary file beside it, then move it
+   * over the file, so the file is either the old one or the whole new one.
+   *
+   * @param file   Path, the file to write.
+   * @param buffer ByteBuffer, the contents to write.
+   * @throws IOException When the file cannot be written.
+   */
+  private static void save(Path file, ByteBuffer buffer) throws IOException {
+    Path absolute = file.toAbsolutePath();
+    Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName() + ".",
+            ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+      Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Helper method to map a model file and check its magic number and version.
+   *
+   * @param file  Path, the file to map.
+   * @param magic Integer, the magic number of the kind of model expected.
+   * @param kind  String, the kind of model expected, for error messages.
+   * @return ByteBuffer, the little-endian read-only mapping of the whole file.
+   * @throws IOException When the file cannot be read, or is not a model file of the kind and
+   *                     version expected.
+   */
+  private static ByteBuffer map(Path file, int magic, String kind) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES) {
+        throw new IOException("Not a " + kind + " file: " + file);
+      }
+      // The mapping stays valid after the channel is closed
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+              .order(ByteOrder.LITTLE_ENDIAN);
+    }
+    if (buffer.getInt(0) != magic) {
+      throw new IOException("Not a " + kind + " file: " + file);
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IOException("Unsupported " + kind + " file version " + buffer.getInt(4) + ": "
+              + file);
+    }
+    return buffer;
+  }
+}
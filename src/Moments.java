@@ -0,0 +1,326 @@
+/**
+ * A class to maintain the running moments of a set of 2D data points: the count, the means of x
+ * and y, and the co-moments (sums of squared deviations from the means) XX, YY and XY. Points are
+ * added one at a time with Welford's update, which stays numerically stable without a second pass
+ * over the data, so a line of best fit is available in constant time at any moment.
+ *
+ * <p>These are the sufficient statistics of the linear regression, so the moments of separate
+ * shards of data can be combined into the moments of all the data, and fit with a single line,
+ * without reading any of the points again.
+ *
+ * <p>Each point may carry a weight, which defaults to one. A point's contribution can be removed
+ * again, and the weight of every point so far can be scaled down at once, which is what sliding
+ * window and exponentially decayed fits need.
+ */
+public class Moments {
+
+  /**
+   * The number of points added so far.
+   */
+  private long count;
+
+  /**
+   * The total weight of the points added so far. Equal to the count when no weights were given.
+   */
+  private double weight;
+
+  /**
+   * The mean of the x coordinates.
+   */
+  private double meanX;
+
+  /**
+   * The mean of the y coordinates.
+   */
+  private double meanY;
+
+  /**
+   * The sum of squared deviations of x from its mean.
+   */
+  private double sumXX;
+
+  /**
+   * The sum of squared deviations of y from its mean.
+   */
+  private double sumYY;
+
+  /**
+   * The sum of the products of the x and y deviations from their means.
+   */
+  private double sumXY;
+
+  /**
+   * Constructs an empty set of moments, as for a data set with no points.
+   */
+  public Moments() {
+    this.clear();
+  }
+
+  /**
+   * Constructs a copy of the given moments.
+   *
+   * @param other Moments, the moments to copy.
+   */
+  public Moments(Moments other) {
+    this(other.count, other.weight, other.meanX, other.meanY, other.sumXX, other.sumYY,
+            other.sumXY);
+  }
+
+  /**
+   * Constructs a set of moments from already computed statistics.
+   *
+   * @param count  Long, the number of points.
+   * @param weight Double, the total weight of the points.
+   * @param meanX Double, the mean of the x coordinates.
+   * @param meanY Double, the mean of the y coordinates.
+   * @param sumXX Double, the sum of squares XX.
+   * @param sumYY Double, the sum of squares YY.
+   * @param sumXY Double, the sum of squares XY.
+   * @throws IllegalArgumentException When the count or weight is negative.
+   */
+  Moments(long count, double weight, double meanX, double meanY, double sumXX, double sumYY,
+          double sumXY) throws IllegalArgumentException {
+    if (count < 0 || weight < 0) {
+      throw new IllegalArgumentException("Count and weight cannot be negative.");
+    }
+    this.count = count;
+    this.weight = weight;
+    this.meanX = meanX;
+    this.meanY = meanY;
+    this.sumXX = sumXX;
+    this.sumYY = sumYY;
+    this.sumXY = sumXY;
+  }
+
+  /**
+   * Method to compute the moments of every point in the given set.
+   *
+   * @param points PointSet, the points to summarize.
+   * @return Moments, the moments of the points.
+   */
+  public static Moments of(PointSet points) {
+    Moments moments = new Moments();
+    for (int i = 0; i < points.size(); i++) {
+      moments.add(points.getX(i), points.getY(i));
+    }
+    return moments;
+  }
+
+  /**
+   * Method to compute the moments of every point in the given set, each counted with its weight.
+   *
+   * @param points  PointSet, the points to summarize.
+   * @param weights Double[], the weight of each point, or null to weight every point 1.
+   * @return Moments, the weighted moments of the points.
+   * @throws IllegalArgumentException When a weight is not positive.
+   */
+  public static Moments of(PointSet points, double[] weights) throws IllegalArgumentException {
+    if (weights == null) {
+      return of(points);
+    }
+    Moments moments = new Moments();
+    for (int i = 0; i < points.size(); i++) {
+      moments.add(points.getX(i), points.getY(i), weights[i]);
+    }
+    return moments;
+  }
+
+  /**
+   * Method to update the moments with a new point.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   */
+  public void add(double x, double y) {
+    this.add(x, y, 1);
+  }
+
+  /**
+   * Method to update the moments with a new weighted point.
+   *
+   * @param x      Double, the x coordinate of the point.
+   * @param y      Double, the y coordinate of the point.
+   * @param weight Double, the weight of the point.
+   * @throws IllegalArgumentException When the weight is not positive.
+   */
+  public void add(double x, double y, double weight) throws IllegalArgumentException {
+    if (!(weight > 0)) {
+      throw new IllegalArgumentException("Weight must be positive.");
+    }
+    this.count++;
+    this.weight += weight;
+    double dx = x - this.meanX;
+    double dy = y - this.meanY;
+    this.meanX += dx * weight / this.weight;
+    this.meanY += dy * weight / this.weight;
+    // Pair the deviation from the old mean with the deviation from the new mean (Welford)
+    this.sumXX += weight * dx * (x - this.meanX);
+    this.sumYY += weight * dy * (y - this.meanY);
+    this.sumXY += weight * dx * (y - this.meanY);
+  }
+
+  /**
+   * Method to remove the contribution of a point that was added earlier, in constant time.
+   *
+   * @param x      Double, the x coordinate of the point.
+   * @param y      Double, the y coordinate of the point.
+   * @param weight Double, the weight the point currently carries.
+   * @throws IllegalStateException When there are no points to remove.
+   */
+  public void remove(double x, double y, double weight) throws IllegalStateException {
+    if (this.count == 0) {
+      throw new IllegalStateException("There are no points to remove.");
+    }
+    this.count--;
+    this.weight -= weight;
+    if (this.count == 0 || this.weight <= 0) {
+      this.clear();
+      return;
+    }
+    // Undo the Welford update: the deviation from the current mean, then from the earlier mean
+    double dx = x - this.meanX;
+    double dy = y - this.meanY;
+    this.meanX -= dx * weight / this.weight;
+    this.meanY -= dy * weight / this.weight;
+    this.sumXX -= weight * dx * (x - this.meanX);
+    this.sumYY -= weight * dy * (y - this.meanY);
+    this.sumXY -= weight * dy * (x - this.meanX);
+  }
+
+  /**
+   * Method to scale down the weight of every point added so far by the same factor. The means are
+   * unchanged, while the total weight and the sums of squares shrink by the factor.
+   *
+   * @param factor Double, the factor to multiply every weight by, between 0 and 1.
+   * @throws IllegalArgumentException When the factor is not in the range (0, 1].
+   */
+  public void decay(double factor) throws IllegalArgumentException {
+    if (!(factor > 0 && factor <= 1)) {
+      throw new IllegalArgumentException("Decay factor must be in the range (0, 1].");
+    }
+    this.weight *= factor;
+    this.sumXX *= factor;
+    this.sumYY *= factor;
+    this.sumXY *= factor;
+  }
+
+  /**
+   * Method to combine these moments with the moments of another, disjoint set of points. Neither
+   * set of moments is changed. The combination is exact up to rounding, so moments may be combined
+   * pairwise in any order, such as a tree reduction over many shards.
+   *
+   * @param other Moments, the moments of the other points.
+   * @return Moments, the moments of the points of both sets.
+   */
+  public Moments combine(Moments other) {
+    if (other.count == 0) {
+      return new Moments(this);
+    }
+    if (this.count == 0) {
+      return new Moments(other);
+    }
+    double total = this.weight + other.weight;
+    double dx = other.meanX - this.meanX;
+    double dy = other.meanY - this.meanY;
+    double otherShare = other.weight / total;
+    // The spread between the two means adds to the co-moments in proportion to both weights
+    double cross = this.weight * otherShare;
+    return new Moments(this.count + other.count, total,
+            this.meanX + dx * otherShare,
+            this.meanY + dy * otherShare,
+            this.sumXX + other.sumXX + dx * dx * cross,
+            this.sumYY + other.sumYY + dy * dy * cross,
+            this.sumXY + other.sumXY + dx * dy * cross);
+  }
+
+  /**
+   * Method to calculate the line of best fit for the summarized points.
+   *
+   * @return Line, the standard form line representing the line of best fit.
+   * @throws IllegalStateException When fewer than 2 points have been summarized.
+   */
+  public Line toLine() throws IllegalStateException {
+    // A line of best fit cannot be calculated for less than 2 data points
+    if (this.count < 2) {
+      throw new IllegalStateException("Operation requires the DataModel to have at least two" +
+              "data points.");
+    }
+    return Regression.calculateLine(this.meanX, this.meanY, this.sumXX, this.sumYY, this.sumXY);
+  }
+
+  /**
+   * Method to get the number of points summarized.
+   *
+   * @return Long, the number of points.
+   */
+  public long getCount() {
+    return this.count;
+  }
+
+  /**
+   * Method to get the total weight of the points summarized.
+   *
+   * @return Double, the total weight, which is the number of points when no weights were given.
+   */
+  public double getWeight() {
+    return this.weight;
+  }
+
+  /**
+   * Method to get the mean of the x coordinates.
+   *
+   * @return Double, the average value of x.
+   */
+  public double getMeanX() {
+    return this.meanX;
+  }
+
+  /**
+   * Method to get the mean of the y coordinates.
+   *
+   * @return Double, the average value of y.
+   */
+  public double getMeanY() {
+    return this.meanY;
+  }
+
+  /**
+   * Method to get the sum of squares XX.
+   *
+   * @return Double, the sum of squared deviations of x from its mean.
+   */
+  public double getSumXX() {
+    return this.sumXX;
+  }
+
+  /**
+   * Method to get the sum of squares YY.
+   *
+   * @return Double, the sum of squared deviations of y from its mean.
+   */
+  public double getSumYY() {
+    return this.sumYY;
+  }
+
+  /**
+   * Method to get the sum of squares XY.
+   *
+   * @return Double, the sum of the products of the x and y deviations from their means.
+   */
+  public double getSumXY() {
+    return this.sumXY;
+  }
+
+  /**
+   * Helper method to reset the moments to those of an empty data set.
+   */
+  private void clear() {
+    this.count = 0;
+    this.weight = 0;
+    this.meanX = 0;
+    this.meanY = 0;
+    this.sumXX = 0;
+    this.sumYY = 0;
+    this.sumXY = 0;
+  }
+}
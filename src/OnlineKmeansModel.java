@@ -0,0 +1,387 @@
+import java.util.Arrays;
+
+/**
+ * A DataModel that keeps a k-means clustering up to date as points are added. The first k points
+ * become the centers, and each point after them is labelled with its nearest center, which is
+ * then moved towards it by the point's weight over the total weight the center has been given, so
+ * every center stays the weighted mean of its points. Adding a point costs O(k), however many
+ * points came before.
+ *
+ * <p>Since centers move as points arrive, earlier labels can drift from the nearest center, and
+ * recluster runs a full clustering over every point on demand to set them straight. The error and
+ * inertia are measured as each point is labelled, against the centers at that moment, until the
+ * next recluster.
+ *
+ * <p>Points may be added from several threads. The labels and centers are published as an
+ * immutable snapshot after every point, so snapshot can be called at any moment, from any thread,
+ * without waiting for points being added.
+ */
+public class OnlineKmeansModel extends DataModel {
+
+  /**
+   * The number of clusters.
+   */
+  private final int k;
+
+  /**
+   * The x coordinates of the centers, as they are being updated.
+   */
+  private final double[] centerX;
+
+  /**
+   * The y coordinates of the centers, as they are being updated.
+   */
+  private final double[] centerY;
+
+  /**
+   * The number of points each center has been given, as they are being updated.
+   */
+  private final long[] counts;
+
+  /**
+   * The total weight of the points each center has been given, as they are being updated.
+   */
+  private final double[] masses;
+
+  /**
+   * The number of centers so far, fewer than k until k points have been added.
+   */
+  private int centers;
+
+  /**
+   * The label of each point, in point order. Labels below the published size never change.
+   */
+  private int[] labels;
+
+  /**
+   * The total weight of every point.
+   */
+  private double totalWeight;
+
+  /**
+   * The weighted sum of the distances of each point from its center when it was labelled.
+   */
+  private double totalDistance;
+
+  /**
+   * The weighted sum of the squared distances of each point from its center when it was labelled.
+   */
+  private double totalSquared;
+
+  /**
+   * The clustering as of the last point added.
+   */
+  private volatile State published;
+
+  /**
+   * Constructs an empty DataModel that clusters its points into k clusters as they are added.
+   *
+   * @param k Integer, the number of clusters.
+   * @throws IllegalArgumentException When k is not positive.
+   */
+  public OnlineKmeansModel(int k) throws IllegalArgumentException {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    this.k = k;
+    this.centerX = new double[k];
+    this.centerY = new double[k];
+    this.counts = new long[k];
+    this.masses = new double[k];
+    this.labels = new int[16];
+    this.publish();
+  }
+
+  /**
+   * Method to add a new point to the DataModel, label it with its nearest center, and move that
+   * center towards it.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   */
+  @Override
+  public synchronized void add(double x, double y) {
+    super.add(x, y);
+    this.place(x, y, 1);
+  }
+
+  /**
+   * Method to add a new weighted point to the DataModel, label it with its nearest center, and
+   * move that center towards it by the point's share of the center's total weight.
+   *
+   * @param x      Double, the x coordinate of the point.
+   * @param y      Double, the y coordinate of the point.
+   * @param weight Double, the weight of the point.
+   * @throws IllegalArgumentException When the weight is not positive and finite.
+   */
+  @Override
+  public synchronized void add(double x, double y, double weight)
+          throws IllegalArgumentException {
+    super.add(x, y, weight);
+    this.place(x, y, weight);
+  }
+
+  /**
+   * Method to append every point of another DataModel to this one, in order, with their weights,
+   * labelling each as it is added.
+   *
+   * @param other DataModel, the model whose points to append.
+   */
+  @Override
+  public synchronized void addAll(DataModel other) {
+    boolean weighted = other.isWeighted();
+    PointSet source = other.getPoints();
+    int count = source.size();
+    for (int i = 0; i < count; i++) {
+      if (weighted) {
+        this.add(source.getX(i), source.getY(i), other.getWeight(i));
+      } else {
+        this.add(source.getX(i), source.getY(i));
+      }
+    }
+  }
+
+  /**
+   * Method to recluster every point from scratch with 10 random restarts, replacing the labels,
+   * centers, counts and masses.
+   *
+   * @throws IllegalStateException When there are fewer than k points.
+   */
+  public void recluster() throws IllegalStateException {
+    this.recluster(new KmeansOptions());
+  }
+
+  /**
+   * Method to recluster every point from scratch with the given options, replacing the labels,
+   * centers, counts and masses. Points added meanwhile wait for the reclustering to finish, while
+   * snapshots still report the clustering from before it.
+   *
+   * @param options KmeansOptions, the options to cluster with.
+   * @throws IllegalStateException When there are fewer than k points.
+   */
+  public synchronized void recluster(KmeansOptions options) throws IllegalStateException {
+    if (this.getPoints().size() < this.k) {
+      throw new IllegalStateException("Cannot recluster fewer than k points.");
+    }
+    KmeansResult result = this.cluster(this.k, options);
+    Arrays.fill(this.counts, 0);
+    Arrays.fill(this.masses, 0);
+    for (int c = 0; c < this.k; c++) {
+      this.centerX[c] = result.getCenterX(c);
+      this.centerY[c] = result.getCenterY(c);
+    }
+    int[] fresh = result.getLabels();
+    for (int i = 0; i < fresh.length; i++) {
+      this.counts[fresh[i]]++;
+      this.masses[fresh[i]] += this.getWeight(i);
+    }
+    // A new array, so snapshots taken from the old one stay as they were
+    this.labels = Arrays.copyOf(fresh, Math.max(16, fresh.length + (fresh.length >> 1)));
+    // The error of a weighted clustering is already an average over the total weight
+    this.totalDistance = result.getError() * this.totalWeight;
+    this.totalSquared = result.getInertia();
+    this.publish();
+  }
+
+  /**
+   * Method to get the clustering as of the last point added. It never waits for points being
+   * added. Until k points have been added, it has one center per point.
+   *
+   * @return KmeansResult, the labels and centers, the error and inertia measured as points were
+   *         labelled, and no iterations.
+   */
+  public KmeansResult snapshot() {
+    State state = this.published;
+    return new KmeansResult(state.labels, state.size, state.centerX, state.centerY, state.error,
+            state.inertia, 0);
+  }
+
+  /**
+   * Method to get the label of a single point as of the last point added, in constant time. It
+   * never waits for points being added.
+   *
+   * @param index Integer, the index of the point.
+   * @return Integer, the index of the point's cluster.
+   * @throws IndexOutOfBoundsException When the point had not been added as of the last snapshot.
+   */
+  public int getLabel(int index) throws IndexOutOfBoundsException {
+    State state = this.published;
+    if (index < 0 || index >= state.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + state.size);
+    }
+    return state.labels[index];
+  }
+
+  /**
+   * Method to get the number of points a center has been given as of the last point added. It
+   * never waits for points being added.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Long, the number of points in the cluster.
+   */
+  public long getCount(int cluster) {
+    return this.published.counts[cluster];
+  }
+
+  /**
+   * Method to get the total weight of the points a center has been given as of the last point
+   * added. It never waits for points being added.
+   *
+   * @param cluster Integer, the index of the cluster.
+   * @return Double, the total weight of the points in the cluster, their number if unweighted.
+   */
+  public double getMass(int cluster) {
+    return this.published.masses[cluster];
+  }
+
+  /**
+   * Method to get the number of clusters.
+   *
+   * @return Integer, k.
+   */
+  public int getK() {
+    return this.k;
+  }
+
+  /**
+   * Helper method to publish the current clustering. Only the centers are copied, so publishing
+   * costs O(k); the labels are shared, since those below the published size never change.
+   */
+  private void publish() {
+    int size = this.getPoints().size();
+    this.published = new State(this.labels, size, Arrays.copyOf(this.centerX, this.centers),
+            Arrays.copyOf(this.centerY, this.centers), Arrays.copyOf(this.counts, this.centers),
+            Arrays.copyOf(this.masses, this.centers),
+            size == 0 ? 0 : this.totalDistance / this.totalWeight, this.totalSquared);
+  }
+
+  /**
+   * Helper method to label the point just added with its nearest center, or make it a center of
+   * its own while there are fewer than k, and move that center towards it by its weight over the
+   * center's total weight.
+   *
+   * @param x      Double, the x coordinate of the point.
+   * @param y      Double, the y coordinate of the point.
+   * @param weight Double, the weight of the point.
+   */
+  private void place(double x, double y, double weight) {
+    int c;
+    if (this.centers < this.k) {
+      // Until there are k centers, each point starts a cluster of its own
+      c = this.centers++;
+      this.centerX[c] = x;
+      this.centerY[c] = y;
+    } else {
+      c = this.nearest(x, y);
+      double dx = x - this.centerX[c];
+      double dy = y - this.centerY[c];
+      double squared = dx * dx + dy * dy;
+      this.totalDistance += weight * Math.sqrt(squared);
+      this.totalSquared += weight * squared;
+    }
+    this.totalWeight += weight;
+    this.counts[c]++;
+    this.masses[c] += weight;
+    double rate = weight / this.masses[c];
+    this.centerX[c] += rate * (x - this.centerX[c]);
+    this.centerY[c] += rate * (y - this.centerY[c]);
+    int size = this.getPoints().size();
+    if (size > this.labels.length) {
+      this.labels = Arrays.copyOf(this.labels, this.labels.length + (this.labels.length >> 1));
+    }
+    this.labels[size - 1] = c;
+    this.publish();
+  }
+
+  /**
+   * Helper method to find the center nearest to a point.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   * @return Integer, the index of the nearest center, the lowest index on a tie.
+   */
+  private int nearest(double x, double y) {
+    int nearest = 0;
+    double best = Double.POSITIVE_INFINITY;
+    for (int c = 0; c < this.k; c++) {
+      double dx = x - this.centerX[c];
+      double dy = y - this.centerY[c];
+      double distance = dx * dx + dy * dy;
+      if (distance < best) {
+        best = distance;
+        nearest = c;
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * A published clustering: the labels up to a size, and copies of the centers.
+   */
+  private static final class State {
+
+    /**
+     * The labels, of which only those below the size are part of the clustering.
+     */
+    private final int[] labels;
+
+    /**
+     * The number of points labelled.
+     */
+    private final int size;
+
+    /**
+     * The x coordinates of the centers.
+     */
+    private final double[] centerX;
+
+    /**
+     * The y coordinates of the centers.
+     */
+    private final double[] centerY;
+
+    /**
+     * The number of points each center has been given.
+     */
+    private final long[] counts;
+
+    /**
+     * The total weight of the points each center has been given.
+     */
+    private final double[] masses;
+
+    /**
+     * The average distance of each point from its center when it was labelled.
+     */
+    private final double error;
+
+    /**
+     * The sum of the squared distances of each point from its center when it was labelled.
+     */
+    private final double inertia;
+
+    /**
+     * Constructs a published clustering.
+     *
+     * @param labels  Integer[], the labels.
+     * @param size    Integer, the number of points labelled.
+     * @param centerX Double[], the x coordinates of the centers.
+     * @param centerY Double[], the y coordinates of the centers.
+     * @param counts  Long[], the number of points each center has been given.
+     * @param masses  Double[], the total weight of the points each center has been given.
+     * @param error   Double, the average distance of each point from its center.
+     * @param inertia Double, the sum of the squared distances of each point from its center.
+     */
+    private State(int[] labels, int size, double[] centerX, double[] centerY, long[] counts,
+                  double[] masses, double error, double inertia) {
+      this.labels = labels;
+      this.size = size;
+      this.centerX = centerX;
+      this.centerY = centerY;
+      this.counts = counts;
+      this.masses = masses;
+      this.error = error;
+      this.inertia = inertia;
+    }
+  }
+}
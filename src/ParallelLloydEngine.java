@@ -0,0 +1,261 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A LloydEngine that spreads each iteration across a fork-join pool. The points are divided into
+ * fixed ranges, and each range is assigned by a worker into its own partial sums and counts, so
+ * workers share nothing but the read-only centers and write only their own labels. The partials
+ * are then reduced into the new centers on the calling thread, always in range order, so a run
+ * gives the same result however the ranges were scheduled.
+ *
+ * <p>The partials are allocated once when the engine is constructed, so, like the sequential
+ * engine, iterating allocates nothing beyond the fork-join tasks themselves.
+ */
+public class ParallelLloydEngine extends LloydEngine {
+
+  /**
+   * The number of points in a range by default.
+   */
+  private static final int DEFAULT_GRAIN = 1 << 14;
+
+  /**
+   * The pool that runs the ranges.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * The number of points in each range, except perhaps the last.
+   */
+  private final int grain;
+
+  /**
+   * The number of ranges the points are divided into.
+   */
+  private final int ranges;
+
+  /**
+   * The partial sums of the x coordinates of each cluster, k per range.
+   */
+  private final double[] partialX;
+
+  /**
+   * The partial sums of the y coordinates of each cluster, k per range.
+   */
+  private final double[] partialY;
+
+  /**
+   * The partial counts of each cluster, k per range.
+   */
+  private final int[] partialCounts;
+
+  /**
+   * The partial sums of the distances of each range from their centers.
+   */
+  private final double[] partialError;
+
+  /**
+   * The partial sums of the squared distances of each range from their centers.
+   */
+  private final double[] partialInertia;
+
+  /**
+   * The partial sums of the distances of each cluster from its center, k per range.
+   */
+  private final double[] partialDistances;
+
+  /**
+   * The partial sums of the squared distances of each cluster from its center, k per range.
+   */
+  private final double[] partialSquares;
+
+  /**
+   * Constructs an engine to cluster the given points into k clusters on the given pool, using
+   * ranges of the default size.
+   *
+   * @param points PointSet, the points to cluster.
+   * @param k      Integer, the number of clusters.
+   * @param pool   ForkJoinPool, the pool that runs the ranges.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points, or the
+   *                                  pool is null.
+   */
+  public ParallelLloydEngine(PointSet points, int k, ForkJoinPool pool)
+          throws IllegalArgumentException {
+    this(points, k, pool, DEFAULT_GRAIN);
+  }
+
+  /**
+   * Constructs an engine to cluster the given points into k clusters on the given pool, using
+   * ranges of the given size.
+   *
+   * @param points PointSet, the points to cluster.
+   * @param k      Integer, the number of clusters.
+   * @param pool   ForkJoinPool, the pool that runs the ranges.
+   * @param grain  Integer, the number of points in each range.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points, the
+   *                                  pool is null, or the range size is not positive.
+   */
+  public ParallelLloydEngine(PointSet points, int k, ForkJoinPool pool, int grain)
+          throws IllegalArgumentException {
+    super(points, k);
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null.");
+    }
+    if (grain <= 0) {
+      throw new IllegalArgumentException("Grain must be positive.");
+    }
+    this.pool = pool;
+    this.grain = grain;
+    this.ranges = (this.labels.length + grain - 1) / grain;
+    this.partialX = new double[this.ranges * k];
+    this.partialY = new double[this.ranges * k];
+    this.partialCounts = new int[this.ranges * k];
+    this.partialError = new double[this.ranges];
+    this.partialInertia = new double[this.ranges];
+    this.partialDistances = new double[this.ranges * k];
+    this.partialSquares = new double[this.ranges * k];
+  }
+
+  /**
+   * Method to assign every point to its nearest center, each range on a worker of the pool, and
+   * reduce the partial sums and counts of the ranges into the sums and counts of the clusters.
+   */
+  @Override
+  protected void assign() {
+    Arrays.fill(this.partialX, 0);
+    Arrays.fill(this.partialY, 0);
+    Arrays.fill(this.partialCounts, 0);
+    this.pool.invoke(new Ranges(0, this.ranges, false));
+    // Reduce in range order, so the sums do not depend on which worker finished first
+    for (int r = 0; r < this.ranges; r++) {
+      int offset = r * this.k;
+      for (int c = 0; c < this.k; c++) {
+        this.sumX[c] += this.partialX[offset + c];
+        this.sumY[c] += this.partialY[offset + c];
+        this.counts[c] += this.partialCounts[offset + c];
+      }
+    }
+  }
+
+  /**
+   * Method to compute the error as the average distance of each point from the center of its
+   * cluster, each range on a worker of the pool. The inertia and the distances of each cluster
+   * are recorded in the same pass.
+   *
+   * @return Double, the error.
+   */
+  @Override
+  protected double computeError() {
+    Arrays.fill(this.partialDistances, 0);
+    Arrays.fill(this.partialSquares, 0);
+    this.pool.invoke(new Ranges(0, this.ranges, true));
+    Arrays.fill(this.distances, 0);
+    Arrays.fill(this.squares, 0);
+    double total = 0;
+    double squared = 0;
+    for (int r = 0; r < this.ranges; r++) {
+      total += this.partialError[r];
+      squared += this.partialInertia[r];
+      int offset = r * this.k;
+      for (int c = 0; c < this.k; c++) {
+        this.distances[c] += this.partialDistances[offset + c];
+        this.squares[c] += this.partialSquares[offset + c];
+      }
+    }
+    this.inertia = squared;
+    return total / this.labels.length;
+  }
+
+  /**
+   * Helper method to assign the points of a single range into the range's partials.
+   *
+   * @param range Integer, the index of the range.
+   */
+  private void assignRange(int range) {
+    int offset = range * this.k;
+    int end = Math.min(this.labels.length, (range + 1) * this.grain);
+    for (int i = range * this.grain; i < end; i++) {
+      double x = this.points.getX(i);
+      double y = this.points.getY(i);
+      int nearest = this.nearest(x, y);
+      this.labels[i] = nearest;
+      this.partialX[offset + nearest] += x;
+      this.partialY[offset + nearest] += y;
+      this.partialCounts[offset + nearest]++;
+    }
+  }
+
+  /**
+   * Helper method to measure the distances of the points of a single range from their centers.
+   *
+   * @param range Integer, the index of the range.
+   */
+  private void measureRange(int range) {
+    int offset = range * this.k;
+    double total = 0;
+    double squared = 0;
+    int end = Math.min(this.labels.length, (range + 1) * this.grain);
+    for (int i = range * this.grain; i < end; i++) {
+      int c = this.labels[i];
+      double dx = this.points.getX(i) - this.centerX[c];
+      double dy = this.points.getY(i) - this.centerY[c];
+      double distance = dx * dx + dy * dy;
+      double root = Math.sqrt(distance);
+      squared += distance;
+      total += root;
+      this.partialSquares[offset + c] += distance;
+      this.partialDistances[offset + c] += root;
+    }
+    this.partialError[range] = total;
+    this.partialInertia[range] = squared;
+  }
+
+  /**
+   * A task over a span of ranges, split in half until it covers a single range.
+   */
+  private final class Ranges extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The first range of the span.
+     */
+    private final int from;
+
+    /**
+     * The range after the last range of the span.
+     */
+    private final int to;
+
+    /**
+     * Whether to measure the distances of the ranges rather than assign them.
+     */
+    private final boolean measure;
+
+    /**
+     * Constructs a task over a span of ranges.
+     *
+     * @param from    Integer, the first range.
+     * @param to      Integer, the range after the last range.
+     * @param measure Boolean, true to measure the ranges, false to assign them.
+     */
+    private Ranges(int from, int to, boolean measure) {
+      this.from = from;
+      this.to = to;
+      this.measure = measure;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from > 1) {
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(new Ranges(this.from, middle, this.measure),
+                new Ranges(middle, this.to, this.measure));
+      } else if (this.measure) {
+        measureRange(this.from);
+      } else {
+        assignRange(this.from);
+      }
+    }
+  }
+}
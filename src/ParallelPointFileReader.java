@@ -0,0 +1,212 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A class to read large point files into a DataModel on several threads. The file is split into
+ * byte ranges that start and end on line boundaries, and each range is parsed by its own
+ * PointFileReader on a fork-join pool. The ranges are then appended to the DataModel in their
+ * original order, since the results of kmeans are reported by position, and their bounding boxes
+ * are merged.
+ *
+ * <p>Every line of the file must hold whole "x y" pairs, so that a pair is never split between
+ * two ranges.
+ */
+public class ParallelPointFileReader {
+
+  /**
+   * The size of a range by default, in bytes.
+   */
+  private static final int DEFAULT_CHUNK_BYTES = 8 << 20;
+
+  /**
+   * The number of bytes read at a time while looking for the end of a line.
+   */
+  private static final int SCAN_BYTES = 256;
+
+  /**
+   * The pool that parses the ranges.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * The size of each range, in bytes, before it is extended to the end of its last line.
+   */
+  private final int chunkBytes;
+
+  /**
+   * Constructs a reader that parses ranges of the default size on the common fork-join pool.
+   */
+  public ParallelPointFileReader() {
+    this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+  }
+
+  /**
+   * Constructs a reader that parses ranges of the given size on the given pool.
+   *
+   * @param pool       ForkJoinPool, the pool that parses the ranges.
+   * @param chunkBytes Integer, the size of each range in bytes.
+   * @throws IllegalArgumentException When the pool is null or the range size is not positive.
+   */
+  public ParallelPointFileReader(ForkJoinPool pool, int chunkBytes)
+          throws IllegalArgumentException {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null.");
+    }
+    if (chunkBytes <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive.");
+    }
+    this.pool = pool;
+    this.chunkBytes = chunkBytes;
+  }
+
+  /**
+   * Method to read every point in a point file and add it to a DataModel, in file order.
+   *
+   * @param file  Path, the point file to read.
+   * @param model DataModel, the model to add the points to.
+   * @return Bounds, the bounding box of the points read.
+   * @throws IOException When the file cannot be read or is not a valid point file.
+   */
+  public Bounds read(Path file, DataModel model) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long[] boundaries = this.split(channel);
+      List<Callable<Chunk>> tasks = new ArrayList<>();
+      for (int i = 0; i + 1 < boundaries.length; i++) {
+        long start = boundaries[i];
+        long end = boundaries[i + 1];
+        // Positional reads leave the shared channel's position alone, so ranges do not interfere
+        tasks.add(() -> {
+          DataModel part = new DataModel();
+          Bounds bounds = new PointFileReader().read(channel, start, end, part);
+          return new Chunk(part, bounds);
+        });
+      }
+      List<Future<Chunk>> results = this.pool.invokeAll(tasks);
+      // Stitch the ranges together in file order
+      Bounds bounds = new Bounds();
+      for (Future<Chunk> result : results) {
+        Chunk chunk = getChunk(result);
+        model.addAll(chunk.points);
+        bounds.include(chunk.bounds);
+      }
+      return bounds;
+    }
+  }
+
+  /**
+   * Helper method to split a file into ranges of about the chunk size that each end at the end of
+   * a line (or of the file).
+   *
+   * @param channel FileChannel, the open point file.
+   * @return Long[], the positions that separate the ranges, starting with 0 and ending with the
+   *         size of the file.
+   * @throws IOException When the file cannot be read.
+   */
+  private long[] split(FileChannel channel) throws IOException {
+    long size = channel.size();
+    List<Long> boundaries = new ArrayList<>();
+    boundaries.add(0L);
+    ByteBuffer scan = ByteBuffer.allocate(SCAN_BYTES);
+    long position = 0;
+    while (size - position > this.chunkBytes) {
+      position = nextLine(channel, position + this.chunkBytes, size, scan);
+      boundaries.add(position);
+    }
+    if (position < size) {
+      boundaries.add(size);
+    }
+    long[] result = new long[boundaries.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = boundaries.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * Helper method to find the start of the first line at or after a position.
+   *
+   * @param channel  FileChannel, the open point file.
+   * @param position Long, the position to search from.
+   * @param size     Long, the size of the file.
+   * @param scan     ByteBuffer, a buffer for the bytes searched.
+   * @return Long, the position just after the next line break, or the size of the file if there is
+   *         none.
+   * @throws IOException When the file cannot be read.
+   */
+  private static long nextLine(FileChannel channel, long position, long size, ByteBuffer scan)
+          throws IOException {
+    // A range may start exactly at a line start, so the search begins with the previous byte
+    long from = position - 1;
+    while (from < size) {
+      scan.clear();
+      int read = channel.read(scan, from);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (scan.get(i) == '\n') {
+          return from + i + 1;
+        }
+      }
+      from += read;
+    }
+    return size;
+  }
+
+  /**
+   * Helper method to wait for a parsed range, passing on any error from parsing it.
+   *
+   * @param result Future, the pending range.
+   * @return Chunk, the parsed range.
+   * @throws IOException When the range could not be read or parsed.
+   */
+  private static Chunk getChunk(Future<Chunk> result) throws IOException {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading point file.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Could not read point file.", e.getCause());
+    }
+  }
+
+  /**
+   * The points and bounding box parsed from a single range of a point file.
+   */
+  private static final class Chunk {
+
+    /**
+     * The points in the range.
+     */
+    private final DataModel points;
+
+    /**
+     * The bounding box of the points in the range.
+     */
+    private final Bounds bounds;
+
+    /**
+     * Constructs a parsed range.
+     *
+     * @param points DataModel, the points in the range.
+     * @param bounds Bounds, the bounding box of the points.
+     */
+    private Chunk(DataModel points, Bounds bounds) {
+      this.points = points;
+      this.bounds = bounds;
+    }
+  }
+}
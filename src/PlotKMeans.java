@@ -1,10 +1,6 @@
 import java.awt.Color;
-import java.awt.geom.Point2D;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.List;
-import java.util.Scanner;
+import java.nio.file.Paths;
 
 /**
  * A class used to plot the results of a single k-means clustering algorithm. This class expects to
@@ -21,47 +17,23 @@ public class PlotKMeans {
     ImagePlotter plotter = new ImagePlotter();
     DataModel clusterModel = new DataModel();
     int k = 2;
-    // Initialize the x & y min/max values to the origin
-    double xMin = 0;
-    double xMax = 0;
-    double yMin = 0;
-    double yMax = 0;
-    // Try-catch block necessary due to risk of FileNotFound exception
+    // Try-catch block necessary due to risk of an unreadable or missing file
     try {
-      Scanner s = new Scanner(new FileInputStream("data/clusterdata-2.txt"));
-      // Add all the points from the text file to the DataModel and the ImagePlotter
-      while (s.hasNextLine()) {
-        if (s.hasNextDouble()) {
-          double x = s.nextDouble();
-          double y = s.nextDouble();
-          clusterModel.add(new Point2D.Double(x, y));
-          //plotter.addPoint((int)Math.round(x), (int)Math.round(y));
-          // Set the min and max values as new points are encountered
-          if (x < xMin) {
-            xMin = x;
-          }
-          if (x > xMax) {
-            xMax = x;
-          }
-          if (y < yMin) {
-            yMin = y;
-          }
-          if (y > yMax) {
-            yMax = y;
-          }
-        }
-        // When a blank line is encountered, exit the loop to avoid a NoSuchElementException
-        else {
-          break;
-        }
-      }
-      List clusterIntegerList = clusterModel.kmeans(k);
-      List<Point2D.Double> points = clusterModel.getData();
-      for (int i = 0; i < clusterIntegerList.size(); i++) {
-        double x = points.get(i).getX();
-        double y = points.get(i).getY();
+      // Add all the points from the text file to the DataModel
+      Bounds bounds = new ParallelPointFileReader().read(Paths.get("data/clusterdata-2.txt"),
+              clusterModel);
+      // The x & y min/max values always include the origin
+      double xMin = Math.min(0, bounds.getXMin());
+      double xMax = Math.max(0, bounds.getXMax());
+      double yMin = Math.min(0, bounds.getYMin());
+      double yMax = Math.max(0, bounds.getYMax());
+      KmeansResult clusters = clusterModel.cluster(k);
+      PointSet points = clusterModel.getPoints();
+      for (int i = 0; i < clusters.size(); i++) {
+        double x = points.getX(i);
+        double y = points.getY(i);
         Color color;
-        int index = (int) clusterIntegerList.get(i);
+        int index = clusters.getLabel(i);
 
         switch (index) {
           case 0:
@@ -95,7 +67,7 @@ public class PlotKMeans {
       } catch (IOException e) {
         System.out.println("File not found, encountered by ImagePlotter");
       }
-    } catch (FileNotFoundException e) {
+    } catch (IOException e) {
       System.out.println("File not found, encountered by PlotKMeans");
     }
   }
@@ -1,9 +1,6 @@
 import java.awt.Color;
-import java.awt.geom.Point2D;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Scanner;
+import java.nio.file.Paths;
 
 /**
  * A class used to plot a linear regression. This class expects to work upon a .txt file with two
@@ -21,40 +18,19 @@ public class PlotLinearRegression {
   public static void main(String[] args) {
     ImagePlotter graph = new ImagePlotter();
     DataModel linear = new DataModel();
-    // Initialize the x & y min/max values to the origin
-    double xMin = 0;
-    double xMax = 0;
-    double yMin = 0;
-    double yMax = 0;
-    // Try-catch block necessary due to risk of FileNotFound exception
+    // Try-catch block necessary due to risk of an unreadable or missing file
     try {
-      Scanner scan = new Scanner(new FileInputStream("data/linedata-1.txt"));
-      // Add all the points from the text file to the DataModel and the ImagePlotter
-      while (scan.hasNextLine()) {
-        if (scan.hasNextDouble()) {
-          double x = scan.nextDouble();
-          double y = scan.nextDouble();
-          linear.add(new Point2D.Double(x, y));
-          graph.addPoint((int) Math.round(x), (int) Math.round(y));
-          // Set the min and max values as new points are encountered
-          if (x < xMin) {
-            xMin = x;
-          }
-          if (x > xMax) {
-            xMax = x;
-          }
-          if (y < yMin) {
-            yMin = y;
-          }
-          if (y > yMax) {
-            yMax = y;
-          }
-        }
-        // When a blank line is encountered, exit the loop to avoid a NoSuchElementException
-        else {
-          break;
-        }
+      // Add all the points from the text file to the DataModel, then to the ImagePlotter
+      Bounds bounds = new ParallelPointFileReader().read(Paths.get("data/linedata-1.txt"), linear);
+      PointSet points = linear.getPoints();
+      for (int i = 0; i < points.size(); i++) {
+        graph.addPoint((int) Math.round(points.getX(i)), (int) Math.round(points.getY(i)));
       }
+      // The x & y min/max values always include the origin
+      double xMin = Math.min(0, bounds.getXMin());
+      double xMax = Math.max(0, bounds.getXMax());
+      double yMin = Math.min(0, bounds.getYMin());
+      double yMax = Math.max(0, bounds.getYMax());
       // Set the dimensions according to min/max
       graph.setDimensions((int) Math.round(xMin), (int) Math.round(xMax),
               (int) Math.round(yMin), (int) Math.round(yMax));
@@ -72,7 +48,7 @@ public class PlotLinearRegression {
         System.out.println("File not found, encountered by ImagePlotter");
       }
 
-    } catch (FileNotFoundException e) {
+    } catch (IOException e) {
       System.out.println("File not found, encountered by PlotLinearRegression.");
     }
   }
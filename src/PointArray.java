@@ -0,0 +1,131 @@
+import java.util.Arrays;
+
+/**
+ * A columnar, heap-resident store of 2D data points. The x and y coordinates are kept in two
+ * growable primitive arrays, which costs 16 bytes per point instead of a boxed Point2D object.
+ */
+public class PointArray implements PointStore {
+
+  /**
+   * The capacity given to a store that was not asked for a specific one.
+   */
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * The x coordinates of the points, in the order they were added.
+   */
+  private double[] xs;
+
+  /**
+   * The y coordinates of the points, in the order they were added.
+   */
+  private double[] ys;
+
+  /**
+   * The number of points stored so far.
+   */
+  private int size;
+
+  /**
+   * Constructs an empty point store with a default initial capacity.
+   */
+  public PointArray() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty point store able to hold the given number of points before it must grow.
+   *
+   * @param capacity Integer, the initial capacity.
+   * @throws IllegalArgumentException When the capacity is negative.
+   */
+  public PointArray(int capacity) throws IllegalArgumentException {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative.");
+    }
+    this.xs = new double[capacity];
+    this.ys = new double[capacity];
+    this.size = 0;
+  }
+
+  @Override
+  public void add(double x, double y) {
+    if (this.size == this.xs.length) {
+      this.ensureCapacity(this.size + 1);
+    }
+    this.xs[this.size] = x;
+    this.ys[this.size] = y;
+    this.size++;
+  }
+
+  /**
+   * Method to append every point of a set to the end of the store, in order. Points from another
+   * PointArray are copied column by column in bulk.
+   *
+   * @param source PointSet, the points to append.
+   */
+  @Override
+  public void addAll(PointSet source) {
+    if (!(source instanceof PointArray)) {
+      PointStore.super.addAll(source);
+      return;
+    }
+    PointArray other = (PointArray) source;
+    int count = other.size;
+    this.ensureCapacity(this.size + count);
+    // Read the other columns only after growing, in case the other store is this store
+    System.arraycopy(other.xs, 0, this.xs, this.size, count);
+    System.arraycopy(other.ys, 0, this.ys, this.size, count);
+    this.size += count;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public double getX(int index) {
+    this.checkIndex(index);
+    return this.xs[index];
+  }
+
+  @Override
+  public double getY(int index) {
+    this.checkIndex(index);
+    return this.ys[index];
+  }
+
+  /**
+   * Helper method to grow the columns so they hold at least the given number of points.
+   *
+   * @param capacity Integer, the number of points the columns must hold.
+   */
+  private void ensureCapacity(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalStateException("Point store is full.");
+    }
+    if (capacity > this.xs.length) {
+      // Grow by half again (at least to the capacity) so appending stays amortized constant time
+      int grown = Math.max(capacity, this.xs.length + (this.xs.length >> 1));
+      if (grown < 0) {
+        grown = capacity;
+      }
+      this.xs = Arrays.copyOf(this.xs, grown);
+      this.ys = Arrays.copyOf(this.ys, grown);
+    }
+  }
+
+  /**
+   * Helper method to reject indices beyond the points stored so far. The backing arrays may be
+   * longer than the number of points, so the array bounds check alone is not enough.
+   *
+   * @param index Integer, the index to check.
+   * @throws IndexOutOfBoundsException When the index does not refer to a stored point.
+   */
+  private void checkIndex(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+  }
+}
@@ -0,0 +1,264 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A class to read point files into a DataModel. A point file is a text file of whitespace
+ * separated decimal numbers, read in pairs as the x and y coordinates of each point, usually one
+ * "x y" pair per line.
+ *
+ * <p>The file is read through a FileChannel into a buffer that the reader reuses for every read,
+ * and numbers are parsed straight from the bytes, so no objects are allocated per line. The bounds
+ * of the points are gathered in the same pass. A reader is not thread-safe: use one reader per
+ * thread.
+ */
+public class PointFileReader {
+
+  /**
+   * The size of the read buffer by default.
+   */
+  private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The powers of ten that are exactly representable as doubles.
+   */
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /**
+   * The largest number of significant digits that fits exactly in the 53 bit mantissa of a double.
+   */
+  private static final int MAX_EXACT_DIGITS = 15;
+
+  /**
+   * The bytes of the read buffer.
+   */
+  private final byte[] bytes;
+
+  /**
+   * The read buffer, wrapping the bytes.
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * Constructs a reader with a read buffer of the default size.
+   */
+  public PointFileReader() {
+    this(DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructs a reader with a read buffer of the given size. No single number in a file may be
+   * longer than the buffer.
+   *
+   * @param bufferSize Integer, the size of the read buffer in bytes.
+   * @throws IllegalArgumentException When the buffer size is not positive.
+   */
+  public PointFileReader(int bufferSize) throws IllegalArgumentException {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("Buffer size must be positive.");
+    }
+    this.bytes = new byte[bufferSize];
+    this.buffer = ByteBuffer.wrap(this.bytes);
+  }
+
+  /**
+   * Method to read every point in a point file and add it to a DataModel.
+   *
+   * @param file  Path, the point file to read.
+   * @param model DataModel, the model to add the points to.
+   * @return Bounds, the bounding box of the points read.
+   * @throws IOException When the file cannot be read or is not a valid point file.
+   */
+  public Bounds read(Path file, DataModel model) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return this.read(channel, 0, channel.size(), model);
+    }
+  }
+
+  /**
+   * Method to read the points within a byte range of a point file and add them to a DataModel.
+   * The range must start and end on a boundary between numbers, such as the start of a line. The
+   * channel's own position is not used or changed, so several readers may share a channel.
+   *
+   * @param channel FileChannel, the open point file.
+   * @param start   Long, the position of the first byte to read.
+   * @param end     Long, the position after the last byte to read.
+   * @param model   DataModel, the model to add the points to.
+   * @return Bounds, the bounding box of the points read.
+   * @throws IOException When the file cannot be read or is not a valid point file.
+   */
+  public Bounds read(FileChannel channel, long start, long end, DataModel model)
+          throws IOException {
+    Bounds bounds = new Bounds();
+    long position = start;
+    // Bytes of a number cut off at the end of the buffer, carried over to the start of the next
+    int kept = 0;
+    boolean haveX = false;
+    double x = 0;
+    boolean last = false;
+    while (!last) {
+      int limit = (int) Math.min(this.bytes.length, kept + (end - position));
+      this.buffer.clear();
+      this.buffer.position(kept);
+      this.buffer.limit(limit);
+      while (this.buffer.hasRemaining()) {
+        int read = channel.read(this.buffer, position);
+        if (read < 0) {
+          break;
+        }
+        position += read;
+      }
+      int filled = this.buffer.position();
+      last = position >= end || filled < limit;
+      int i = 0;
+      kept = 0;
+      while (true) {
+        while (i < filled && isWhitespace(this.bytes[i])) {
+          i++;
+        }
+        if (i == filled) {
+          break;
+        }
+        int tokenStart = i;
+        while (i < filled && !isWhitespace(this.bytes[i])) {
+          i++;
+        }
+        if (i == filled && !last) {
+          // The number may continue in the next read, so move it to the front of the buffer
+          if (tokenStart == 0) {
+            throw new IOException("Number longer than the read buffer at byte " + position);
+          }
+          kept = filled - tokenStart;
+          System.arraycopy(this.bytes, tokenStart, this.bytes, 0, kept);
+          break;
+        }
+        double value;
+        try {
+          value = parseDouble(this.bytes, tokenStart, i);
+        } catch (NumberFormatException e) {
+          throw new IOException("Malformed number in point file: " + e.getMessage(), e);
+        }
+        if (haveX) {
+          model.add(x, value);
+          bounds.include(x, value);
+          haveX = false;
+        } else {
+          x = value;
+          haveX = true;
+        }
+      }
+    }
+    if (haveX) {
+      throw new IOException("Point file ends with an x coordinate but no y coordinate.");
+    }
+    return bounds;
+  }
+
+  /**
+   * Method to parse a decimal number, such as "-12.5" or "3e-4", from a range of ASCII bytes.
+   * Numbers with at most 15 significant digits and a small exponent are parsed directly with a
+   * single exactly rounded multiplication or division, without allocating. Anything else falls
+   * back to Double.parseDouble, so the result always matches it.
+   *
+   * @param bytes Byte[], the bytes holding the number.
+   * @param start Integer, the position of the first byte of the number.
+   * @param end   Integer, the position after the last byte of the number.
+   * @return Double, the parsed number.
+   * @throws NumberFormatException When the bytes are not a valid number.
+   */
+  static double parseDouble(byte[] bytes, int start, int end) throws NumberFormatException {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+      negative = bytes[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int significant = 0;
+    int exponent = 0;
+    boolean digits = false;
+    boolean point = false;
+    for (; i < end; i++) {
+      int b = bytes[i];
+      if (b >= '0' && b <= '9') {
+        digits = true;
+        mantissa = mantissa * 10 + (b - '0');
+        if (mantissa != 0 && ++significant > MAX_EXACT_DIGITS) {
+          return parseSlow(bytes, start, end);
+        }
+        if (point) {
+          exponent--;
+        }
+      } else if (b == '.' && !point) {
+        point = true;
+      } else {
+        break;
+      }
+    }
+    if (!digits) {
+      return parseSlow(bytes, start, end);
+    }
+    if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+        negativeExponent = bytes[i] == '-';
+        i++;
+      }
+      int written = 0;
+      boolean exponentDigits = false;
+      for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+        exponentDigits = true;
+        // Cap the exponent: anything this large is out of range for the fast path anyway
+        written = Math.min(written * 10 + (bytes[i] - '0'), 100000);
+      }
+      if (!exponentDigits) {
+        return parseSlow(bytes, start, end);
+      }
+      exponent += negativeExponent ? -written : written;
+    }
+    if (i != end) {
+      return parseSlow(bytes, start, end);
+    }
+    double value;
+    if (mantissa == 0) {
+      value = 0;
+    } else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+      value = mantissa * POWERS_OF_TEN[exponent];
+    } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+      value = mantissa / POWERS_OF_TEN[-exponent];
+    } else {
+      return parseSlow(bytes, start, end);
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Helper method to parse a number the fast path cannot handle exactly, or cannot recognize.
+   *
+   * @param bytes Byte[], the bytes holding the number.
+   * @param start Integer, the position of the first byte of the number.
+   * @param end   Integer, the position after the last byte of the number.
+   * @return Double, the parsed number.
+   * @throws NumberFormatException When the bytes are not a valid number.
+   */
+  private static double parseSlow(byte[] bytes, int start, int end) throws NumberFormatException {
+    return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Helper method to check whether a byte separates numbers.
+   *
+   * @param b Byte, the byte to check.
+   * @return Boolean, true for spaces, tabs and line breaks.
+   */
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * A fixed-capacity ring buffer of 2D data points, stored as primitive x and y columns. Once the
+ * ring is full, each new point overwrites the oldest one, so the ring always holds the most recent
+ * points. Index 0 is the oldest point in the ring.
+ */
+public class PointRing implements PointStore {
+
+  /**
+   * The x coordinates of the points.
+   */
+  private final double[] xs;
+
+  /**
+   * The y coordinates of the points.
+   */
+  private final double[] ys;
+
+  /**
+   * The position of the oldest point in the arrays.
+   */
+  private int start;
+
+  /**
+   * The number of points in the ring.
+   */
+  private int size;
+
+  /**
+   * Constructs an empty ring that holds at most the given number of points.
+   *
+   * @param capacity Integer, the maximum number of points.
+   * @throws IllegalArgumentException When the capacity is not positive.
+   */
+  public PointRing(int capacity) throws IllegalArgumentException {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive.");
+    }
+    this.xs = new double[capacity];
+    this.ys = new double[capacity];
+    this.start = 0;
+    this.size = 0;
+  }
+
+  /**
+   * Method to append a point to the ring, overwriting the oldest point if the ring is full.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   */
+  @Override
+  public void add(double x, double y) {
+    if (this.size < this.xs.length) {
+      int end = this.position(this.size);
+      this.xs[end] = x;
+      this.ys[end] = y;
+      this.size++;
+    } else {
+      // The slot of the oldest point becomes the slot of the newest point
+      this.xs[this.start] = x;
+      this.ys[this.start] = y;
+      this.start = this.position(1);
+    }
+  }
+
+  /**
+   * Method to check whether the next point added will overwrite the oldest point.
+   *
+   * @return Boolean, true if the ring is full.
+   */
+  public boolean isFull() {
+    return this.size == this.xs.length;
+  }
+
+  /**
+   * Method to get the maximum number of points the ring holds.
+   *
+   * @return Integer, the capacity of the ring.
+   */
+  public int getCapacity() {
+    return this.xs.length;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public double getX(int index) {
+    this.checkIndex(index);
+    return this.xs[this.position(index)];
+  }
+
+  @Override
+  public double getY(int index) {
+    this.checkIndex(index);
+    return this.ys[this.position(index)];
+  }
+
+  /**
+   * Helper method to find the position in the arrays of the point at the given index.
+   *
+   * @param index Integer, the index of the point, 0 being the oldest.
+   * @return Integer, the position of the point in the arrays.
+   */
+  private int position(int index) {
+    // Wrap around without a modulo: start and index are both below the capacity
+    int position = this.start + index;
+    return position >= this.xs.length ? position - this.xs.length : position;
+  }
+
+  /**
+   * Helper method to reject indices beyond the points in the ring.
+   *
+   * @param index Integer, the index to check.
+   * @throws IndexOutOfBoundsException When the index does not refer to a point in the ring.
+   */
+  private void checkIndex(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+/**
+ * A read-only view of a collection of 2D data points. Coordinates are exposed as primitive doubles
+ * by index, so the algorithms that operate upon the data never need to copy or box the points.
+ */
+public interface PointSet {
+
+  /**
+   * Method to get the number of points in this set.
+   *
+   * @return Integer, the number of points.
+   */
+  int size();
+
+  /**
+   * Method to get the x coordinate of the point at the given index.
+   *
+   * @param index Integer, the index of the point.
+   * @return Double, the x coordinate of the point.
+   */
+  double getX(int index);
+
+  /**
+   * Method to get the y coordinate of the point at the given index.
+   *
+   * @param index Integer, the index of the point.
+   * @return Double, the y coordinate of the point.
+   */
+  double getY(int index);
+}
@@ -0,0 +1,33 @@
+/**
+ * A growable store of 2D data points that backs a DataModel. Points can only be appended, and are
+ * read back through the PointSet methods.
+ */
+public interface PointStore extends PointSet {
+
+  /**
+   * Method to append a point to the end of the store.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   */
+  void add(double x, double y);
+
+  /**
+   * Method to append every point of a set to the end of the store, in order.
+   *
+   * @param source PointSet, the points to append.
+   */
+  default void addAll(PointSet source) {
+    int count = source.size();
+    if (source == this) {
+      // A store that evicts its oldest point, such as a full PointRing, shifts every index as
+      // points are added, so a store appending its own points copies them first
+      PointArray copy = new PointArray(count);
+      copy.addAll(source);
+      source = copy;
+    }
+    for (int i = 0; i < count; i++) {
+      this.add(source.getX(i), source.getY(i));
+    }
+  }
+}
@@ -29,6 +29,34 @@ public final class Regression {
     return (points.stream().mapToDouble(p -> p.getY()).sum()) / points.size();
   }
 
+  /**
+   * Method to calculate the average value of x from a columnar view, without boxing the points.
+   *
+   * @param points PointSet, the data from the DataModel.
+   * @return Double, the average value of x.
+   */
+  protected static double averageX(PointSet points) {
+    double sum = 0;
+    for (int i = 0; i < points.size(); i++) {
+      sum += points.getX(i);
+    }
+    return sum / points.size();
+  }
+
+  /**
+   * Method to calculate the average value of y from a columnar view, without boxing the points.
+   *
+   * @param points PointSet, the data from the DataModel.
+   * @return Double, the average value of y.
+   */
+  protected static double averageY(PointSet points) {
+    double sum = 0;
+    for (int i = 0; i < points.size(); i++) {
+      sum += points.getY(i);
+    }
+    return sum / points.size();
+  }
+
   /**
    * Method to get the sum of squares for 'XX', 'YY', and 'XY'. An array of three doubles is
    * returned. The indices are as follows: [0] = sumXX, [1] = sumYY, and [2] = sumXY. This method
@@ -52,6 +80,29 @@ public final class Regression {
     return new double[]{sumXX, sumYY, sumXY};
   }
 
+  /**
+   * Method to get the sum of squares for 'XX', 'YY', and 'XY' from a columnar view, without boxing
+   * the points. The indices of the returned array match sumSquares(List, double, double).
+   *
+   * @param points PointSet, the data points in the DataModel.
+   * @param avgX   Double, the average value of x.
+   * @param avgY   Double, the average value of y.
+   * @return Double Array, the three double values sum of squares XX, YY, and XY.
+   */
+  protected static double[] sumSquares(PointSet points, double avgX, double avgY) {
+    double sumXX = 0;
+    double sumYY = 0;
+    double sumXY = 0;
+    for (int i = 0; i < points.size(); i++) {
+      double dx = points.getX(i) - avgX;
+      double dy = points.getY(i) - avgY;
+      sumXX += dx * dx;
+      sumYY += dy * dy;
+      sumXY += dx * dy;
+    }
+    return new double[]{sumXX, sumYY, sumXY};
+  }
+
   /**
    * Method to return the distance.
    *
@@ -86,4 +137,32 @@ public final class Regression {
     }
     return theta;
   }
+
+  /**
+   * Method to calculate the line of best fit from the averages and sums of squares of the data.
+   * This method coordinates the remaining steps of the linear regression, and uses the results as
+   * the three constants needed to construct a Line: a,b,c.
+   *
+   * @param avgX  Double, the average value of x.
+   * @param avgY  Double, the average value of y.
+   * @param sumXX Double, sum of squares XX.
+   * @param sumYY Double, sum of squares YY.
+   * @param sumXY Double, sum of squares XY.
+   * @return Line, the standard form line representing the line of best fit.
+   */
+  protected static Line calculateLine(double avgX, double avgY, double sumXX, double sumYY,
+                                      double sumXY) {
+    // Step 1: Compute distance using the provided formula
+    // Piazza @449: d = infinity is a valid case, no need to check for division by zero
+    double distance = Regression.distance(sumXX, sumYY, sumXY);
+    // Step 2: Compute theta using the provided formula
+    double theta = Math.toDegrees(Math.atan(distance));
+    // Step 3: Compute positive result for f(t): t = theta or t = theta + 180
+    theta = Regression.formula(theta, sumXX, sumYY, sumXY);
+    // Step 4: Compute the a,b,c constants required to define a line in the standard form equation
+    double lineConstantA = Math.cos(Math.toRadians(theta / 2));
+    double lineConstantB = Math.sin(Math.toRadians(theta / 2));
+    double lineConstantC = (-1 * lineConstantA * avgX) - (lineConstantB * avgY);
+    return new Line(lineConstantA, lineConstantB, lineConstantC);
+  }
 }
@@ -0,0 +1,23 @@
+/**
+ * The ways of choosing the centers a k-means clustering starts from.
+ */
+public enum Seeding {
+
+  /**
+   * k distinct points chosen uniformly at random.
+   */
+  RANDOM,
+
+  /**
+   * k-means++: each center is a point chosen with probability proportional to its squared distance
+   * from the centers chosen so far, which spreads the centers across the clusters.
+   */
+  PLUS_PLUS,
+
+  /**
+   * k-means||: a few parallel passes that each oversample about 2k points by their squared
+   * distance, after which the weighted samples are reduced to k centers with k-means++. It suits
+   * large datasets, since it needs a handful of passes over the data rather than k.
+   */
+  PARALLEL
+}
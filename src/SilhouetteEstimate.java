@@ -0,0 +1,111 @@
+/**
+ * A class to represent a silhouette estimated from a random sample of points: the sample mean, its
+ * standard error, and bounds that hold the true silhouette of every point with a given confidence.
+ * An estimate is immutable.
+ */
+public class SilhouetteEstimate {
+
+  /**
+   * The mean silhouette of the sampled points.
+   */
+  private final double mean;
+
+  /**
+   * The standard error of the mean.
+   */
+  private final double standardError;
+
+  /**
+   * The lower bound on the silhouette.
+   */
+  private final double lower;
+
+  /**
+   * The upper bound on the silhouette.
+   */
+  private final double upper;
+
+  /**
+   * The probability that the silhouette lies within the bounds.
+   */
+  private final double confidence;
+
+  /**
+   * The number of points sampled.
+   */
+  private final int samples;
+
+  /**
+   * Constructs an estimate.
+   *
+   * @param mean          Double, the mean silhouette of the sampled points.
+   * @param standardError Double, the standard error of the mean.
+   * @param lower         Double, the lower bound on the silhouette.
+   * @param upper         Double, the upper bound on the silhouette.
+   * @param confidence    Double, the probability that the silhouette lies within the bounds.
+   * @param samples       Integer, the number of points sampled.
+   */
+  SilhouetteEstimate(double mean, double standardError, double lower, double upper,
+                     double confidence, int samples) {
+    this.mean = mean;
+    this.standardError = standardError;
+    this.lower = lower;
+    this.upper = upper;
+    this.confidence = confidence;
+    this.samples = samples;
+  }
+
+  /**
+   * Method to get the estimated silhouette, the mean silhouette of the sampled points.
+   *
+   * @return Double, the estimate, between -1 and 1.
+   */
+  public double getMean() {
+    return this.mean;
+  }
+
+  /**
+   * Method to get the standard error of the estimate, from the spread of the sampled silhouettes.
+   *
+   * @return Double, the standard error, 0 when every point was measured.
+   */
+  public double getStandardError() {
+    return this.standardError;
+  }
+
+  /**
+   * Method to get the lower bound on the silhouette.
+   *
+   * @return Double, the lower bound.
+   */
+  public double getLower() {
+    return this.lower;
+  }
+
+  /**
+   * Method to get the upper bound on the silhouette.
+   *
+   * @return Double, the upper bound.
+   */
+  public double getUpper() {
+    return this.upper;
+  }
+
+  /**
+   * Method to get the probability that the silhouette lies within the bounds.
+   *
+   * @return Double, the confidence.
+   */
+  public double getConfidence() {
+    return this.confidence;
+  }
+
+  /**
+   * Method to get the number of points sampled.
+   *
+   * @return Integer, the sample size.
+   */
+  public int getSamples() {
+    return this.samples;
+  }
+}
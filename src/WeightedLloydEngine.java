@@ -0,0 +1,129 @@
+import java.util.Arrays;
+
+/**
+ * A LloydEngine for weighted points, where a point of weight w counts as w copies of itself: each
+ * center moves to the weighted mean of its points, and the error is the weighted average distance
+ * of each point from the center of its cluster. Clustering a few weighted representatives, such as
+ * the distinct values of heavily duplicated data, gives the same centers as clustering every copy,
+ * at a cost that grows with the representatives rather than the copies.
+ */
+public class WeightedLloydEngine extends LloydEngine {
+
+  /**
+   * The weight of each point.
+   */
+  private final double[] weights;
+
+  /**
+   * The total weight of the points assigned to each cluster.
+   */
+  private final double[] masses;
+
+  /**
+   * The total weight of every point.
+   */
+  private final double total;
+
+  /**
+   * Constructs an engine to cluster the given weighted points into k clusters. The initial
+   * centers must be set before the engine is run.
+   *
+   * @param points  PointSet, the points to cluster.
+   * @param weights Double[], the weight of each point.
+   * @param k       Integer, the number of clusters.
+   * @throws IllegalArgumentException When k is not positive or exceeds the number of points, or
+   *                                  there is not one positive weight per point.
+   */
+  public WeightedLloydEngine(PointSet points, double[] weights, int k)
+          throws IllegalArgumentException {
+    super(points, k);
+    if (weights.length != points.size()) {
+      throw new IllegalArgumentException("Expected one weight per point.");
+    }
+    double sum = 0;
+    for (double weight : weights) {
+      if (!(weight > 0)) {
+        throw new IllegalArgumentException("Weights must be positive.");
+      }
+      sum += weight;
+    }
+    this.weights = weights.clone();
+    this.masses = new double[k];
+    this.total = sum;
+  }
+
+  /**
+   * Method to assign every point to its nearest center, adding its weighted coordinates to the
+   * running sums of its cluster and its weight to the cluster's mass.
+   */
+  @Override
+  protected void assign() {
+    Arrays.fill(this.masses, 0);
+    for (int i = 0; i < this.labels.length; i++) {
+      double x = this.points.getX(i);
+      double y = this.points.getY(i);
+      double weight = this.weights[i];
+      int nearest = this.nearest(x, y);
+      this.labels[i] = nearest;
+      this.sumX[nearest] += weight * x;
+      this.sumY[nearest] += weight * y;
+      this.counts[nearest]++;
+      this.masses[nearest] += weight;
+    }
+  }
+
+  /**
+   * Method to move each center to the weighted mean of the points assigned to it. A cluster with
+   * no points keeps its center.
+   */
+  @Override
+  protected void updateCenters() {
+    for (int c = 0; c < this.k; c++) {
+      if (this.masses[c] > 0) {
+        this.centerX[c] = this.sumX[c] / this.masses[c];
+        this.centerY[c] = this.sumY[c] / this.masses[c];
+      }
+    }
+  }
+
+  /**
+   * Method to compute the error as the weighted average distance of each point from the center of
+   * its cluster. The weighted inertia and the weighted distances of each cluster are recorded in
+   * the same pass.
+   *
+   * @return Double, the error.
+   */
+  @Override
+  protected double computeError() {
+    Arrays.fill(this.distances, 0);
+    Arrays.fill(this.squares, 0);
+    double sum = 0;
+    double squared = 0;
+    for (int i = 0; i < this.labels.length; i++) {
+      int c = this.labels[i];
+      double weight = this.weights[i];
+      double dx = this.points.getX(i) - this.centerX[c];
+      double dy = this.points.getY(i) - this.centerY[c];
+      double distance = dx * dx + dy * dy;
+      double root = weight * Math.sqrt(distance);
+      squared += weight * distance;
+      sum += root;
+      this.squares[c] += weight * distance;
+      this.distances[c] += root;
+    }
+    this.inertia = squared;
+    return sum / this.total;
+  }
+
+  /**
+   * Method to capture the labels and centers after the last iteration as a result, with the size,
+   * weight and weighted distances of each cluster.
+   *
+   * @return KmeansResult, a snapshot of the clustering.
+   */
+  @Override
+  public KmeansResult getResult() {
+    return new KmeansResult(this.labels, this.centerX, this.centerY, this.error, this.inertia,
+            this.iterations, this.counts, this.distances, this.squares, this.masses);
+  }
+}
@@ -0,0 +1,96 @@
+/**
+ * A DataModel that only models the most recent points. The points are kept in a ring buffer, and
+ * once the window is full each new point evicts the oldest one. The evicted point's contribution
+ * is subtracted from the running moments, so fitLine stays constant time and covers exactly the
+ * points in the window.
+ */
+public class WindowedDataModel extends DataModel {
+
+  /**
+   * The ring buffer holding the points in the window.
+   */
+  private final PointRing window;
+
+  /**
+   * Constructs an empty DataModel that models at most the given number of most recent points.
+   *
+   * @param windowSize Integer, the number of points in the window.
+   * @throws IllegalArgumentException When the window size is not positive.
+   */
+  public WindowedDataModel(int windowSize) throws IllegalArgumentException {
+    this(new PointRing(windowSize));
+  }
+
+  /**
+   * Constructs an empty DataModel over the given ring buffer.
+   *
+   * @param window PointRing, the ring buffer to hold the points in the window.
+   */
+  private WindowedDataModel(PointRing window) {
+    super(window);
+    this.window = window;
+  }
+
+  /**
+   * Method to add a new point to the DataModel, evicting the oldest point if the window is full.
+   *
+   * @param x Double, the x coordinate of the point.
+   * @param y Double, the y coordinate of the point.
+   */
+  @Override
+  public void add(double x, double y) {
+    if (this.window.isFull()) {
+      this.runningMoments().remove(this.window.getX(0), this.window.getY(0), 1);
+    }
+    super.add(x, y);
+  }
+
+  /**
+   * Method to add a new weighted point, which this model refuses, as the window evicts points
+   * without their weights.
+   *
+   * @param x      Double, the x coordinate of the point.
+   * @param y      Double, the y coordinate of the point.
+   * @param weight Double, the weight of the point.
+   * @throws IllegalStateException Always.
+   */
+  @Override
+  public void add(double x, double y, double weight) throws IllegalStateException {
+    throw new IllegalStateException("A window cannot hold weighted points.");
+  }
+
+  /**
+   * Method to append every point of another DataModel to this one, in order, evicting the oldest
+   * points as the window fills.
+   *
+   * @param other DataModel, the model whose points to append.
+   * @throws IllegalStateException When the other model's points are weighted.
+   */
+  @Override
+  public void addAll(DataModel other) throws IllegalStateException {
+    if (other.isWeighted()) {
+      throw new IllegalStateException("A window cannot hold weighted points.");
+    }
+    PointSet source = other.getPoints();
+    int count = source.size();
+    if (other == this) {
+      // Each add to a full window evicts the oldest point and shifts every index, so copy the
+      // points of this window before appending them
+      PointArray copy = new PointArray(count);
+      copy.addAll(source);
+      source = copy;
+    }
+    for (int i = 0; i < count; i++) {
+      this.add(source.getX(i), source.getY(i));
+    }
+  }
+
+  /**
+   * Method to get the maximum number of points in the window.
+   *
+   * @return Integer, the size of the window.
+   */
+  public int getWindowSize() {
+    return this.window.getCapacity();
+  }
+}
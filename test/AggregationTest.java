@@ -0,0 +1,176 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the Aggregation class, and for clustering and fitting the representatives of a
+ * DataModel rather than its points.
+ */
+public class AggregationTest {
+
+  /**
+   * Verifies that identical points collapse into one representative weighing their total weight,
+   * in the order each value first appears, and that negative zero matches zero.
+   */
+  @Test
+  public void testExact() {
+    PointArray points = new PointArray();
+    points.add(1, 2);
+    points.add(3, 4);
+    points.add(1, 2);
+    points.add(0.0, 5);
+    points.add(-0.0, 5);
+    points.add(1, 2);
+    Aggregation aggregation = Aggregation.exact(points, new double[]{1, 2, 3, 4, 5, 6});
+    assertEquals(3, aggregation.size());
+    assertEquals(6, aggregation.getSourceSize());
+    assertEquals(1, aggregation.getPoints().getX(0), 0.0);
+    assertEquals(2, aggregation.getPoints().getY(0), 0.0);
+    assertEquals(3, aggregation.getPoints().getX(1), 0.0);
+    assertEquals(5, aggregation.getPoints().getY(2), 0.0);
+    assertEquals(10, aggregation.getWeight(0), 0.0);
+    assertEquals(2, aggregation.getWeight(1), 0.0);
+    assertEquals(9, aggregation.getWeight(2), 0.0);
+    int[] expected = {0, 1, 0, 2, 2, 0};
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], aggregation.getIndex(i));
+    }
+  }
+
+  /**
+   * Verifies that points in the same grid cell collapse into their weighted mean, and that each
+   * representative stays in its cell, over enough cells to grow the hash table.
+   */
+  @Test
+  public void testGrid() {
+    Random random = new Random(5);
+    PointArray points = new PointArray();
+    double[] weights = new double[20000];
+    for (int i = 0; i < weights.length; i++) {
+      points.add(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50);
+      weights[i] = 1 + random.nextInt(3);
+    }
+    Aggregation aggregation = Aggregation.grid(points, weights, 2.5);
+    assertEquals(1600, aggregation.size());
+    double[] sumX = new double[aggregation.size()];
+    double[] sumY = new double[aggregation.size()];
+    double[] mass = new double[aggregation.size()];
+    for (int i = 0; i < weights.length; i++) {
+      int r = aggregation.getIndex(i);
+      // Every point shares a cell with its representative
+      assertEquals(Math.floor(points.getX(i) / 2.5),
+              Math.floor(aggregation.getPoints().getX(r) / 2.5), 0.0);
+      assertEquals(Math.floor(points.getY(i) / 2.5),
+              Math.floor(aggregation.getPoints().getY(r) / 2.5), 0.0);
+      sumX[r] += weights[i] * points.getX(i);
+      sumY[r] += weights[i] * points.getY(i);
+      mass[r] += weights[i];
+    }
+    for (int r = 0; r < aggregation.size(); r++) {
+      assertEquals(mass[r], aggregation.getWeight(r), 1e-9);
+      assertEquals(sumX[r] / mass[r], aggregation.getPoints().getX(r), 1e-9);
+      assertEquals(sumY[r] / mass[r], aggregation.getPoints().getY(r), 1e-9);
+    }
+  }
+
+  /**
+   * Verifies that a cell that is not positive and finite is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroCell() {
+    Aggregation.grid(new PointArray(), null, 0);
+  }
+
+  /**
+   * Verifies that the line fit to the representatives of duplicated points is the line fit to
+   * the points.
+   */
+  @Test
+  public void testFitRepresentatives() {
+    DataModel model = new DataModel();
+    Random random = new Random(6);
+    for (int i = 0; i < 2000; i++) {
+      int x = random.nextInt(20);
+      model.add(x, 3 * x + random.nextInt(5));
+    }
+    Aggregation aggregation = model.aggregate(0);
+    assertTrue(aggregation.size() <= 100);
+    DataModel collapsed = new DataModel();
+    for (int r = 0; r < aggregation.size(); r++) {
+      collapsed.add(aggregation.getPoints().getX(r), aggregation.getPoints().getY(r),
+              aggregation.getWeight(r));
+    }
+    Line expected = model.fitLine();
+    Line line = collapsed.fitLine();
+    assertEquals(expected.getA(), line.getA(), 1e-9);
+    assertEquals(expected.getB(), line.getB(), 1e-9);
+    assertEquals(expected.getC(), line.getC(), 1e-9);
+  }
+
+  /**
+   * Verifies that clustering the representatives of heavily duplicated points labels every point
+   * with its nearest center, and finds as good a clustering as iterating over every point.
+   */
+  @Test
+  public void testAggregatedClustering() {
+    DataModel model = new DataModel();
+    Random random = new Random(7);
+    for (int i = 0; i < 30000; i++) {
+      int blob = random.nextInt(4);
+      model.add(blob * 300 + Math.round(random.nextGaussian() * 20),
+              (blob % 2) * 300 + Math.round(random.nextGaussian() * 20));
+    }
+    KmeansResult raw = model.cluster(4, new KmeansOptions().setSeed(8));
+    for (double cell : new double[]{0, 4}) {
+      KmeansResult result = model.cluster(4, new KmeansOptions().setSeed(8).setGridCell(cell));
+      assertEquals(raw.getError(), result.getError(), raw.getError() * 0.01);
+      assertEquals(raw.getInertia(), result.getInertia(), raw.getInertia() * 0.01);
+      assertEquals(0, result.getIterations());
+      assertNearestLabels(model.getPoints(), result);
+    }
+  }
+
+  /**
+   * Verifies that aggregation cannot be combined with Elkan.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testAggregatedElkan() {
+    DataModel model = new DataModel();
+    for (int i = 0; i < 10; i++) {
+      model.add(i, i);
+    }
+    model.cluster(2, new KmeansOptions().setAggregating(true).setElkan(true));
+  }
+
+  /**
+   * Verifies that k cannot exceed the number of representatives.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooFewRepresentatives() {
+    DataModel model = new DataModel();
+    for (int i = 0; i < 10; i++) {
+      model.add(i % 2, 0);
+    }
+    model.cluster(3, new KmeansOptions().setAggregating(true));
+  }
+
+  /**
+   * Helper to check that every point is labelled with its nearest center.
+   */
+  private static void assertNearestLabels(PointSet points, KmeansResult result) {
+    for (int i = 0; i < points.size(); i++) {
+      int label = result.getLabel(i);
+      double dx = points.getX(i) - result.getCenterX(label);
+      double dy = points.getY(i) - result.getCenterY(label);
+      double own = dx * dx + dy * dy;
+      for (int c = 0; c < result.getK(); c++) {
+        double ox = points.getX(i) - result.getCenterX(c);
+        double oy = points.getY(i) - result.getCenterY(c);
+        assertTrue(own <= ox * ox + oy * oy);
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A JUnit test for the BinaryPointFile class and the binary point file format.
+ */
+public class BinaryPointFileTest {
+
+  private Path text;
+  private Path binary;
+
+  @Before
+  public void setup() throws IOException {
+    text = Files.createTempFile("BinaryPointFileTest", ".txt");
+    binary = Files.createTempFile("BinaryPointFileTest", ".bin");
+    Files.delete(binary);
+    Files.write(text, "384.74 -397.27\n242.55 -271.38\n-350.66 122.46\n0.1 0.2\n"
+            .getBytes(StandardCharsets.US_ASCII));
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(text);
+    Files.deleteIfExists(binary);
+  }
+
+  /**
+   * Verifies that a converted file holds exactly the points of the text file, with its bounds.
+   */
+  @Test
+  public void testConvertDoubles() throws IOException {
+    DataModel expected = new DataModel();
+    Bounds expectedBounds = new PointFileReader().read(text, expected);
+    Bounds bounds = BinaryPointFile.convert(text, binary, 8);
+    assertEquals(expectedBounds.toString(), bounds.toString());
+    // Header (64 bytes) plus 16 bytes per point
+    assertEquals(64 + 4 * 16, Files.size(binary));
+    try (MappedPointStore store = BinaryPointFile.open(binary)) {
+      DataModel actual = new DataModel(store);
+      assertEquals(8, store.getPrecision());
+      assertEquals(expected.getData(), actual.getData());
+      assertEquals(expectedBounds.toString(), store.getBounds().toString());
+      assertEquals(expected.fitLine(), actual.fitLine());
+    }
+  }
+
+  /**
+   * Verifies that a file converted with float precision keeps the points to float accuracy.
+   */
+  @Test
+  public void testConvertFloats() throws IOException {
+    BinaryPointFile.convert(text, binary, 4);
+    assertEquals(64 + 4 * 8, Files.size(binary));
+    try (MappedPointStore store = BinaryPointFile.open(binary)) {
+      assertEquals(4, store.getPrecision());
+      assertEquals(4, store.size());
+      assertEquals(384.74, store.getX(0), 1e-4);
+      assertEquals(-397.27, store.getY(0), 1e-4);
+      assertEquals((float) 0.2, store.getY(3), 0.0);
+    }
+  }
+
+  /**
+   * Verifies that the cached binary file is reused while it is current, and rebuilt once the text
+   * file is newer.
+   */
+  @Test
+  public void testCached() throws IOException {
+    try (MappedPointStore store = BinaryPointFile.cached(text, binary)) {
+      assertEquals(4, store.size());
+    }
+    Files.write(text, "1 2\n3 4\n".getBytes(StandardCharsets.US_ASCII));
+    Files.setLastModifiedTime(text, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+    try (MappedPointStore store = BinaryPointFile.cached(text, binary)) {
+      assertEquals(2, store.size());
+      assertEquals(4, store.getY(1), 0.0);
+    }
+  }
+
+  /**
+   * Verifies that an opened file is mapped read-only: the file keeps its size, and adding a point
+   * is refused.
+   */
+  @Test
+  public void testOpenReadOnly() throws IOException {
+    BinaryPointFile.convert(text, binary, 8);
+    long size = Files.size(binary);
+    try (MappedPointStore store = BinaryPointFile.open(binary)) {
+      assertTrue(store.isReadOnly());
+      assertEquals(size, Files.size(binary));
+      assertEquals(0.1, store.getX(3), 0.0);
+      try {
+        store.add(1, 2);
+        fail("Expected a read-only store to refuse points.");
+      } catch (IllegalStateException e) {
+        // Expected
+      }
+      assertEquals(4, store.size());
+    }
+    assertEquals(size, Files.size(binary));
+  }
+
+  /**
+   * Verifies that a missing binary file is reported.
+   */
+  @Test(expected = IOException.class)
+  public void testOpenMissing() throws IOException {
+    BinaryPointFile.open(binary);
+  }
+
+  /**
+   * Verifies that a file holding fewer points than its header counts is rejected, and left as it
+   * was rather than extended.
+   */
+  @Test
+  public void testTruncated() throws IOException {
+    BinaryPointFile.convert(text, binary, 8);
+    byte[] bytes = Files.readAllBytes(binary);
+    Files.write(binary, Arrays.copyOf(bytes, bytes.length - 8));
+    try {
+      BinaryPointFile.open(binary);
+      fail("Expected a truncated file to be rejected.");
+    } catch (IOException e) {
+      // Expected
+    }
+    assertEquals(bytes.length - 8, Files.size(binary));
+  }
+
+  /**
+   * Verifies that a float file cannot be opened as a double file.
+   */
+  @Test(expected = IOException.class)
+  public void testPrecisionMismatch() throws IOException {
+    BinaryPointFile.convert(text, binary, 4);
+    new MappedPointStore(binary, 8).close();
+  }
+}
@@ -0,0 +1,188 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for bisecting k-means through DataModel, and for the BisectingResult class.
+ */
+public class BisectingResultTest {
+
+  /**
+   * Verifies that the hierarchy is a binary tree whose leaves are the clusters, with every node
+   * holding the points of its children.
+   */
+  @Test
+  public void testHierarchy() {
+    DataModel model = LloydEngineTest.blobs(new Random(1), 5, 200);
+    PointSet points = model.getPoints();
+    BisectingResult result = model.bisect(12, new KmeansOptions().setSeed(2).setRestarts(3));
+    assertEquals(12, result.getK());
+    assertEquals(23, result.getNodes());
+    assertEquals(-1, result.getParent(0));
+    assertEquals(points.size(), result.getNodeSize(0));
+    int leaves = 0;
+    for (int node = 0; node < result.getNodes(); node++) {
+      if (result.isLeaf(node)) {
+        int c = result.getCluster(node);
+        assertEquals(node, result.getLeaf(c));
+        assertEquals(result.getNodeSize(node), result.getCount(c));
+        assertEquals(result.getNodeInertia(node), result.getClusterInertia(c), 1e-6);
+        assertEquals(result.getNodeCenterX(node), result.getCenterX(c), 0.0);
+        leaves++;
+      } else {
+        int left = result.getLeft(node);
+        int right = result.getRight(node);
+        assertEquals(node, result.getParent(left));
+        assertEquals(node, result.getParent(right));
+        assertTrue(left > node && right > node);
+        assertEquals(-1, result.getCluster(node));
+        assertEquals(result.getNodeSize(node),
+                result.getNodeSize(left) + result.getNodeSize(right));
+        // Splitting a cluster never raises its inertia
+        assertTrue(result.getNodeInertia(left) + result.getNodeInertia(right)
+                <= result.getNodeInertia(node) + 1e-6);
+      }
+    }
+    assertEquals(12, leaves);
+    // Every point is labelled with a cluster, and sits nearer its own center than the mean error
+    double total = 0;
+    double inertia = 0;
+    for (int i = 0; i < points.size(); i++) {
+      int c = result.getLabel(i);
+      double dx = points.getX(i) - result.getCenterX(c);
+      double dy = points.getY(i) - result.getCenterY(c);
+      total += Math.sqrt(dx * dx + dy * dy);
+      inertia += dx * dx + dy * dy;
+    }
+    assertEquals(total / points.size(), result.getError(), 1e-9);
+    assertEquals(inertia, result.getInertia(), 1e-6);
+  }
+
+  /**
+   * Verifies that bisecting well separated blobs finds them, through cluster as well as bisect.
+   */
+  @Test
+  public void testFindsBlobs() {
+    DataModel model = new DataModel();
+    Random random = new Random(3);
+    for (int b = 0; b < 4; b++) {
+      for (int i = 0; i < 250; i++) {
+        model.add(b * 1000 + random.nextGaussian(), (b % 2) * 1000 + random.nextGaussian());
+      }
+    }
+    KmeansResult result = model.cluster(4, new KmeansOptions().setSeed(4).setBisecting(true)
+            .setSeeding(Seeding.PLUS_PLUS));
+    assertTrue(result instanceof BisectingResult);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(result.getLabel(i / 250 * 250), result.getLabel(i));
+    }
+    assertTrue(result.getError() < 2);
+  }
+
+  /**
+   * Verifies that a seeded bisection is the same however the branches are scheduled.
+   */
+  @Test
+  public void testRepeatable() {
+    DataModel model = LloydEngineTest.blobs(new Random(5), 6, 300);
+    ExecutorService single = Executors.newSingleThreadExecutor();
+    try {
+      KmeansOptions options = new KmeansOptions().setSeed(6).setRestarts(2);
+      BisectingResult pooled = model.bisect(20, options);
+      BisectingResult serial = model.bisect(20, options.setExecutor(single));
+      assertArrayEquals(pooled.getLabels(), serial.getLabels());
+      assertEquals(pooled.getInertia(), serial.getInertia(), 0.0);
+      for (int node = 0; node < pooled.getNodes(); node++) {
+        assertEquals(pooled.getParent(node), serial.getParent(node));
+      }
+    } finally {
+      single.shutdown();
+    }
+  }
+
+  /**
+   * Verifies that the speculative splits of the final clusters are abandoned once bisecting is
+   * done, rather than running every restart for a result nobody reads. The root splits into a
+   * large tight cluster and a small spread one; only the small one is split again, while the large
+   * one's split is still running on the other thread.
+   */
+  @Test
+  public void testAbandonsSpeculativeSplits() throws InterruptedException {
+    DataModel model = new DataModel();
+    Random random = new Random(9);
+    for (int i = 0; i < 40000; i++) {
+      model.add(random.nextGaussian() * 10, random.nextGaussian() * 10);
+    }
+    for (int i = 0; i < 2000; i++) {
+      model.add(5000 + random.nextGaussian() * 10, (i % 2) * 1000 + random.nextGaussian() * 10);
+    }
+    AtomicInteger completed = new AtomicInteger();
+    ExecutorService pair = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>()) {
+      @Override
+      public <T> Future<T> submit(Callable<T> task) {
+        return super.submit(() -> {
+          T split = task.call();
+          if (split != null) {
+            completed.incrementAndGet();
+          }
+          return split;
+        });
+      }
+    };
+    try {
+      BisectingResult result = model.bisect(3,
+              new KmeansOptions().setSeed(10).setRestarts(100).setExecutor(pair));
+      assertEquals(3, result.getK());
+    } finally {
+      pair.shutdown();
+    }
+    assertTrue(pair.awaitTermination(1, TimeUnit.MINUTES));
+    // Only the splits of the root and of the spread cluster ran to the end
+    assertEquals(2, completed.get());
+  }
+
+  /**
+   * Verifies that clusters of coinciding points are still split until there are k.
+   */
+  @Test
+  public void testCoincidingPoints() {
+    DataModel model = new DataModel();
+    for (int i = 0; i < 6; i++) {
+      model.add(1, 1);
+    }
+    model.add(5, 5);
+    BisectingResult result = model.bisect(5, new KmeansOptions().setSeed(7));
+    int[] counts = new int[5];
+    for (int i = 0; i < result.size(); i++) {
+      counts[result.getLabel(i)]++;
+    }
+    for (int count : counts) {
+      assertTrue(count > 0);
+    }
+    assertFalse(result.isLeaf(0));
+    assertEquals(0, result.getInertia(), 0.0);
+  }
+
+  /**
+   * Verifies that bisecting cannot be combined with filtering.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoFiltering() {
+    DataModel model = LloydEngineTest.blobs(new Random(8), 2, 50);
+    model.bisect(3, new KmeansOptions().setFiltering(true));
+  }
+}
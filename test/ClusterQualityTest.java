@@ -0,0 +1,157 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the ClusterQuality class. The scores are checked against direct computations
+ * from their definitions.
+ */
+public class ClusterQualityTest {
+
+  /**
+   * Verifies that the blocked silhouette matches the pairwise definition, and does not depend on
+   * the number of workers.
+   */
+  @Test
+  public void testSilhouette() {
+    DataModel model = LloydEngineTest.blobs(new Random(1), 3, 200);
+    PointSet points = model.getPoints();
+    KmeansResult result = model.cluster(4, new KmeansOptions().setSeed(2));
+    int n = points.size();
+    double total = 0;
+    for (int i = 0; i < n; i++) {
+      double[] sums = new double[4];
+      int[] counts = new int[4];
+      for (int j = 0; j < n; j++) {
+        double dx = points.getX(i) - points.getX(j);
+        double dy = points.getY(i) - points.getY(j);
+        sums[result.getLabel(j)] += Math.sqrt(dx * dx + dy * dy);
+        counts[result.getLabel(j)]++;
+      }
+      int own = result.getLabel(i);
+      if (counts[own] == 1) {
+        continue;
+      }
+      double a = sums[own] / (counts[own] - 1);
+      double b = Double.POSITIVE_INFINITY;
+      for (int c = 0; c < 4; c++) {
+        if (c != own && counts[c] > 0) {
+          b = Math.min(b, sums[c] / counts[c]);
+        }
+      }
+      total += (b - a) / Math.max(a, b);
+    }
+    double single = ClusterQuality.silhouette(points, result, new ForkJoinPool(1));
+    assertEquals(total / n, single, 1e-9);
+    assertEquals(single, ClusterQuality.silhouette(points, result, new ForkJoinPool(4)), 0.0);
+  }
+
+  /**
+   * Verifies that well separated clusters score near the top of both scales, and better than a
+   * clustering that splits them.
+   */
+  @Test
+  public void testSeparatedClusters() {
+    DataModel model = LloydEngineTest.blobs(new Random(3), 3, 300);
+    PointSet points = model.getPoints();
+    KmeansResult right = model.cluster(3, new KmeansOptions().setSeed(4)
+            .setSeeding(Seeding.PLUS_PLUS));
+    KmeansResult split = model.cluster(6, new KmeansOptions().setSeed(4)
+            .setSeeding(Seeding.PLUS_PLUS));
+    double silhouette = ClusterQuality.silhouette(points, right);
+    assertTrue(silhouette > 0.8);
+    assertTrue(silhouette > ClusterQuality.silhouette(points, split));
+    double daviesBouldin = ClusterQuality.daviesBouldin(points, right);
+    assertTrue(daviesBouldin < 0.3);
+    assertTrue(daviesBouldin < ClusterQuality.daviesBouldin(points, split));
+  }
+
+  /**
+   * Verifies that the sampled silhouette is repeatable, lies within its bounds of the exact score,
+   * and is exact when the sample covers the data.
+   */
+  @Test
+  public void testSampledSilhouette() {
+    DataModel model = LloydEngineTest.blobs(new Random(5), 4, 500);
+    PointSet points = model.getPoints();
+    KmeansResult result = model.cluster(4, new KmeansOptions().setSeed(6));
+    double exact = ClusterQuality.silhouette(points, result);
+    SilhouetteEstimate estimate = ClusterQuality.sampledSilhouette(points, result, 200, 0.99,
+            new SplittableRandom(7));
+    assertEquals(200, estimate.getSamples());
+    assertEquals(0.99, estimate.getConfidence(), 0.0);
+    assertTrue(estimate.getLower() <= exact && exact <= estimate.getUpper());
+    assertTrue(estimate.getStandardError() > 0);
+    assertTrue(Math.abs(estimate.getMean() - exact) < 4 * estimate.getStandardError());
+    assertEquals(estimate.getMean(), ClusterQuality.sampledSilhouette(points, result, 200, 0.99,
+            new SplittableRandom(7)).getMean(), 0.0);
+    SilhouetteEstimate full = ClusterQuality.sampledSilhouette(points, result, 5000, 0.99,
+            new SplittableRandom(8));
+    assertEquals(exact, full.getMean(), 0.0);
+    assertEquals(exact, full.getLower(), 0.0);
+    assertEquals(exact, full.getUpper(), 0.0);
+  }
+
+  /**
+   * Verifies that Davies-Bouldin from the statistics of an engine's result matches a direct
+   * measurement, and that a snapshot without statistics is measured instead.
+   */
+  @Test
+  public void testDaviesBouldin() {
+    OnlineKmeansModel model = new OnlineKmeansModel(3);
+    model.addAll(LloydEngineTest.blobs(new Random(9), 3, 200));
+    PointSet points = model.getPoints();
+    KmeansResult snapshot = model.snapshot();
+    KmeansResult result = model.cluster(3, new KmeansOptions().setSeed(10));
+    for (KmeansResult clustering : new KmeansResult[]{snapshot, result}) {
+      double[] spreads = new double[3];
+      int[] counts = new int[3];
+      for (int i = 0; i < points.size(); i++) {
+        int c = clustering.getLabel(i);
+        double dx = points.getX(i) - clustering.getCenterX(c);
+        double dy = points.getY(i) - clustering.getCenterY(c);
+        spreads[c] += Math.sqrt(dx * dx + dy * dy);
+        counts[c]++;
+      }
+      double total = 0;
+      for (int c = 0; c < 3; c++) {
+        double worst = 0;
+        for (int d = 0; d < 3; d++) {
+          if (d != c) {
+            double dx = clustering.getCenterX(c) - clustering.getCenterX(d);
+            double dy = clustering.getCenterY(c) - clustering.getCenterY(d);
+            worst = Math.max(worst, (spreads[c] / counts[c] + spreads[d] / counts[d])
+                    / Math.sqrt(dx * dx + dy * dy));
+          }
+        }
+        total += worst;
+      }
+      assertEquals(total / 3, ClusterQuality.daviesBouldin(points, clustering), 1e-9);
+    }
+  }
+
+  /**
+   * Verifies that a single cluster cannot be scored.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testSingleCluster() {
+    DataModel model = LloydEngineTest.blobs(new Random(11), 2, 50);
+    ClusterQuality.silhouette(model.getPoints(), model.cluster(1));
+  }
+
+  /**
+   * Verifies that a result must cover the points it is scored against.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testMismatchedPoints() {
+    DataModel model = LloydEngineTest.blobs(new Random(12), 2, 50);
+    KmeansResult result = model.cluster(2);
+    model.add(0, 0);
+    ClusterQuality.daviesBouldin(model.getPoints(), result);
+  }
+}
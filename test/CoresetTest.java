@@ -0,0 +1,158 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the Coreset and CoresetBuilder classes, and for clustering a coreset through
+ * DataModel.
+ */
+public class CoresetTest {
+
+  /**
+   * Helper method to measure the k-means cost of centers on every point.
+   *
+   * @param points  PointSet, the points.
+   * @param centerX Double[], the x coordinates of the centers.
+   * @param centerY Double[], the y coordinates of the centers.
+   * @return Double, the sum of the squared distances of each point from its nearest center.
+   */
+  private static double cost(PointSet points, double[] centerX, double[] centerY) {
+    double cost = 0;
+    for (int i = 0; i < points.size(); i++) {
+      double best = Double.POSITIVE_INFINITY;
+      for (int c = 0; c < centerX.length; c++) {
+        double dx = points.getX(i) - centerX[c];
+        double dy = points.getY(i) - centerY[c];
+        best = Math.min(best, dx * dx + dy * dy);
+      }
+      cost += best;
+    }
+    return cost;
+  }
+
+  /**
+   * Helper method to check that a coreset estimates the cost of several sets of centers, from
+   * well placed to poorly placed, within a relative error.
+   *
+   * @param points  PointSet, the points.
+   * @param coreset Coreset, the coreset of the points.
+   * @param error   Double, the relative error allowed.
+   */
+  private static void assertCosts(PointSet points, Coreset coreset, double error) {
+    Random random = new Random(100);
+    for (int trial = 0; trial < 5; trial++) {
+      double[] centerX = new double[5];
+      double[] centerY = new double[5];
+      for (int c = 0; c < 5; c++) {
+        int index = random.nextInt(points.size());
+        centerX[c] = points.getX(index) + trial * random.nextGaussian() * 50;
+        centerY[c] = points.getY(index) + trial * random.nextGaussian() * 50;
+      }
+      double full = cost(points, centerX, centerY);
+      double estimate = coreset.getCost(centerX, centerY);
+      assertTrue(Math.abs(estimate - full) < error * full);
+    }
+  }
+
+  /**
+   * Verifies that a sampled coreset is small, stands for about as many points as the data, and
+   * estimates the cost of centers closely.
+   */
+  @Test
+  public void testSample() {
+    PointSet points = LloydEngineTest.blobs(new Random(1), 5, 4000).getPoints();
+    Coreset coreset = Coreset.sample(points, 5, 1000, new SplittableRandom(2));
+    assertTrue(coreset.size() <= 1000);
+    assertEquals(points.size(), coreset.getTotalWeight(), 0.1 * points.size());
+    assertCosts(points, coreset, 0.15);
+    Coreset again = Coreset.sample(points, 5, 1000, new SplittableRandom(2));
+    assertArrayEquals(coreset.getWeights(), again.getWeights(), 0.0);
+  }
+
+  /**
+   * Verifies that a coreset no smaller than the data keeps every point, weighted 1.
+   */
+  @Test
+  public void testSmallData() {
+    PointSet points = LloydEngineTest.blobs(new Random(3), 2, 20).getPoints();
+    Coreset coreset = Coreset.sample(points, 2, 40, new SplittableRandom(4));
+    assertEquals(40, coreset.size());
+    assertEquals(40, coreset.getTotalWeight(), 0.0);
+    assertEquals(points.getX(7), coreset.getPoints().getX(7), 0.0);
+  }
+
+  /**
+   * Verifies that merge and reduce over a stream keeps a bounded number of points and still
+   * estimates the cost of centers.
+   */
+  @Test
+  public void testBuilder() {
+    PointSet points = LloydEngineTest.blobs(new Random(5), 5, 6000).getPoints();
+    CoresetBuilder builder = new CoresetBuilder(5, 1000, new SplittableRandom(6));
+    PointArray chunk = new PointArray();
+    for (int i = 0; i < points.size(); i++) {
+      chunk.add(points.getX(i), points.getY(i));
+      if (chunk.size() == 777) {
+        builder.addAll(chunk);
+        chunk = new PointArray();
+      }
+    }
+    builder.addAll(chunk);
+    assertEquals(points.size(), builder.getCount());
+    Coreset coreset = builder.build();
+    // 30 chunks of 1000 leave coresets at levels 1 to 4, and nothing buffered
+    assertTrue(coreset.size() <= 4000);
+    assertEquals(points.size(), coreset.getTotalWeight(), 0.15 * points.size());
+    assertCosts(points, coreset, 0.25);
+  }
+
+  /**
+   * Verifies that clustering a coreset labels every point with its nearest center, with an error
+   * close to clustering every point.
+   */
+  @Test
+  public void testCluster() {
+    DataModel model = LloydEngineTest.blobs(new Random(7), 6, 3000);
+    PointSet points = model.getPoints();
+    KmeansOptions options = new KmeansOptions().setSeed(8).setRestarts(3)
+            .setSeeding(Seeding.PLUS_PLUS);
+    KmeansResult full = model.cluster(6, options);
+    KmeansResult compressed = model.cluster(6, options.setCoresetSize(600));
+    assertEquals(points.size(), compressed.size());
+    assertTrue(compressed.getError() < 1.05 * full.getError());
+    for (int i = 0; i < points.size(); i += 37) {
+      int label = compressed.getLabel(i);
+      double dx = points.getX(i) - compressed.getCenterX(label);
+      double dy = points.getY(i) - compressed.getCenterY(label);
+      for (int c = 0; c < 6; c++) {
+        double ox = points.getX(i) - compressed.getCenterX(c);
+        double oy = points.getY(i) - compressed.getCenterY(c);
+        assertTrue(dx * dx + dy * dy <= ox * ox + oy * oy);
+      }
+    }
+    assertArrayEquals(compressed.getLabels(), model.cluster(6, options).getLabels());
+  }
+
+  /**
+   * Verifies that a coreset cannot be combined with an engine that iterates over the data.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoElkan() {
+    DataModel model = LloydEngineTest.blobs(new Random(9), 2, 50);
+    model.cluster(2, new KmeansOptions().setCoresetSize(20).setElkan(true));
+  }
+
+  /**
+   * Verifies that a coreset must hold at least k points.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testSizeBelowK() {
+    PointSet points = LloydEngineTest.blobs(new Random(10), 2, 50).getPoints();
+    Coreset.sample(points, 5, 4, new SplittableRandom(11));
+  }
+}
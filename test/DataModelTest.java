@@ -5,6 +5,8 @@ import java.awt.geom.Point2D;
 import java.util.ArrayList;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * A JUnit test for the DataModel and underlying Point2D classes. Focus on initial functionality.
@@ -61,4 +63,98 @@ public class DataModelTest {
     expected.add(positives);
     assertEquals(expected, manyPoints.getData());
   }
+
+  /**
+   * Verifies that the point view reflects the points added to the data model, including points
+   * added after the view was obtained.
+   */
+  @Test
+  public void testGetPoints() {
+    DataModel model = new DataModel();
+    PointSet view = model.getPoints();
+    assertEquals(0, view.size());
+    model.add(decimal);
+    model.add(-1.5, 2.5);
+    assertEquals(2, view.size());
+    assertEquals(52.336789, view.getX(0), 0.0);
+    assertEquals(-24.263409, view.getY(0), 0.0);
+    assertEquals(-1.5, view.getX(1), 0.0);
+    assertEquals(2.5, view.getY(1), 0.0);
+  }
+
+  /**
+   * Verifies that appending another data model keeps the order of the points and fits the same
+   * line as adding the points one by one.
+   */
+  @Test
+  public void testAddAll() {
+    DataModel first = new DataModel();
+    DataModel second = new DataModel();
+    DataModel expected = new DataModel();
+    for (int i = 0; i < 10; i++) {
+      DataModel target = i < 4 ? first : second;
+      target.add(i, i * i);
+      expected.add(i, i * i);
+    }
+    first.addAll(second);
+    assertEquals(expected.getData(), first.getData());
+    assertEquals(expected.fitLine().getA(), first.fitLine().getA(), 1e-9);
+    assertEquals(expected.fitLine().getC(), first.fitLine().getC(), 1e-9);
+    // Appending a model to itself doubles its points
+    second.addAll(second);
+    assertEquals(12, second.getPoints().size());
+    assertEquals(4, second.getPoints().getX(6), 0.0);
+    assertEquals(12, second.getMoments().getCount());
+  }
+
+  /**
+   * Verifies that a weighted point counts as that many copies of itself when fitting a line and
+   * clustering, and that appending a weighted model carries its weights.
+   */
+  @Test
+  public void testWeightedAdd() {
+    DataModel weighted = new DataModel();
+    DataModel repeated = new DataModel();
+    for (int i = 0; i < 40; i++) {
+      double x = i % 2 == 0 ? i : i + 100;
+      double y = 2 * i + (i % 3);
+      int weight = 1 + i % 4;
+      if (weight == 1) {
+        weighted.add(x, y);
+      } else {
+        weighted.add(x, y, weight);
+      }
+      for (int copy = 0; copy < weight; copy++) {
+        repeated.add(x, y);
+      }
+    }
+    assertTrue(weighted.isWeighted());
+    assertEquals(1, weighted.getWeight(0), 0.0);
+    assertEquals(4, weighted.getWeight(3), 0.0);
+    assertEquals(repeated.fitLine().getA(), weighted.fitLine().getA(), 1e-9);
+    assertEquals(repeated.fitLine().getC(), weighted.fitLine().getC(), 1e-9);
+    KmeansResult expected = repeated.cluster(2, new KmeansOptions().setSeed(3));
+    KmeansResult result = weighted.cluster(2, new KmeansOptions().setSeed(3));
+    assertEquals(expected.getInertia(), result.getInertia(), 1e-6);
+    assertEquals(expected.getError(), result.getError(), 1e-9);
+    // Appending to an unweighted model weighs its own points 1
+    DataModel combined = new DataModel();
+    combined.add(0, 0);
+    assertFalse(combined.isWeighted());
+    combined.addAll(weighted);
+    combined.addAll(combined);
+    assertEquals(82, combined.getPoints().size());
+    assertEquals(1, combined.getWeight(0), 0.0);
+    assertEquals(4, combined.getWeight(4), 0.0);
+    assertEquals(4, combined.getWeight(45), 0.0);
+    assertEquals(2 * (repeated.getPoints().size() + 1), combined.getMoments().getWeight(), 1e-9);
+  }
+
+  /**
+   * Verifies that a weight that is not positive is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeWeight() {
+    new DataModel().add(1, 1, -1);
+  }
 }
@@ -0,0 +1,98 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the ElkanEngine class. The engine is checked against the plain Lloyd engine,
+ * iteration by iteration, started from the same centers.
+ */
+public class ElkanEngineTest {
+
+  /**
+   * Verifies that every iteration assigns the same labels as plain Lloyd, and that distances were
+   * saved.
+   */
+  @Test
+  public void testMatchesLloyd() {
+    DataModel model = LloydEngineTest.blobs(new Random(10), 12, 150);
+    PointSet points = model.getPoints();
+    Random random = new Random(11);
+    for (int k : new int[]{1, 2, 5, 12, 30}) {
+      double[] seedX = new double[k];
+      double[] seedY = new double[k];
+      for (int c = 0; c < k; c++) {
+        int index = random.nextInt(points.size());
+        seedX[c] = points.getX(index);
+        seedY[c] = points.getY(index);
+      }
+      LloydEngine lloyd = new LloydEngine(points, k);
+      lloyd.setCenters(seedX, seedY);
+      ElkanEngine elkan = new ElkanEngine(points, k);
+      elkan.setCenters(seedX, seedY);
+      for (int iteration = 0; iteration < 15; iteration++) {
+        assertEquals(lloyd.iterate(), elkan.iterate(), 1e-9);
+        assertArrayEquals(lloyd.getLabels(), elkan.getLabels());
+        assertArrayEquals(lloyd.getCenterX(), elkan.getCenterX(), 0.0);
+      }
+      long total = 15L * points.size() * k;
+      assertEquals(total, elkan.getDistanceComputations() + elkan.getDistancesSaved());
+      if (k >= 5) {
+        assertTrue(elkan.getDistancesSaved() > total / 2);
+      }
+    }
+  }
+
+  /**
+   * Verifies that ties between equally distant centers go to the lowest index, as in plain Lloyd.
+   */
+  @Test
+  public void testTies() {
+    DataModel model = new DataModel();
+    for (int x = -3; x <= 3; x++) {
+      for (int y = -3; y <= 3; y++) {
+        model.add(x, y);
+        model.add(x, y);
+      }
+    }
+    PointSet points = model.getPoints();
+    double[] seedX = {1, -1, 1, -1, 0};
+    double[] seedY = {1, 1, -1, -1, 0};
+    LloydEngine lloyd = new LloydEngine(points, 5);
+    lloyd.setCenters(seedX, seedY);
+    ElkanEngine elkan = new ElkanEngine(points, 5);
+    elkan.setCenters(seedX, seedY);
+    for (int iteration = 0; iteration < 10; iteration++) {
+      lloyd.iterate();
+      elkan.iterate();
+      assertArrayEquals(lloyd.getLabels(), elkan.getLabels());
+    }
+  }
+
+  /**
+   * Verifies that DataModel clusters identically with and without Elkan iterations.
+   */
+  @Test
+  public void testOption() {
+    DataModel model = LloydEngineTest.blobs(new Random(12), 8, 100);
+    KmeansOptions options = new KmeansOptions().setSeed(13);
+    KmeansResult lloyd = model.cluster(8, options);
+    KmeansResult elkan = model.cluster(8, options.setElkan(true));
+    assertArrayEquals(lloyd.getLabels(), elkan.getLabels());
+    assertEquals(lloyd.getError(), elkan.getError(), 1e-9);
+    assertEquals(lloyd.getIterations(), elkan.getIterations());
+  }
+
+  /**
+   * Verifies that Elkan iterations cannot be combined with an iteration pool.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoIterationPool() {
+    DataModel model = LloydEngineTest.blobs(new Random(14), 2, 10);
+    model.cluster(2, new KmeansOptions().setElkan(true).setIterationPool(ForkJoinPool.commonPool()));
+  }
+}
@@ -0,0 +1,104 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the FilteringEngine class. The engine is checked against the plain Lloyd
+ * engine, iteration by iteration, started from the same centers.
+ */
+public class FilteringEngineTest {
+
+  /**
+   * Verifies that every iteration assigns the same labels as plain Lloyd, computing far fewer
+   * distances.
+   */
+  @Test
+  public void testMatchesLloyd() {
+    DataModel model = LloydEngineTest.blobs(new Random(16), 10, 400);
+    PointSet points = model.getPoints();
+    KdTree tree = new KdTree(points);
+    Random random = new Random(17);
+    for (int k : new int[]{1, 3, 10, 25}) {
+      double[] seedX = new double[k];
+      double[] seedY = new double[k];
+      for (int c = 0; c < k; c++) {
+        int index = random.nextInt(points.size());
+        seedX[c] = points.getX(index);
+        seedY[c] = points.getY(index);
+      }
+      LloydEngine lloyd = new LloydEngine(points, k);
+      lloyd.setCenters(seedX, seedY);
+      FilteringEngine filtering = new FilteringEngine(tree, k);
+      filtering.setCenters(seedX, seedY);
+      for (int iteration = 0; iteration < 10; iteration++) {
+        assertEquals(lloyd.iterate(), filtering.iterate(), 1e-9);
+        assertArrayEquals(lloyd.getLabels(), filtering.getLabels());
+        assertArrayEquals(lloyd.getCenterX(), filtering.getCenterX(), 1e-9);
+        assertArrayEquals(lloyd.getCenterY(), filtering.getCenterY(), 1e-9);
+      }
+      if (k >= 10) {
+        assertTrue(filtering.getDistanceComputations() < 10L * points.size() * k / 4);
+      }
+    }
+  }
+
+  /**
+   * Verifies that ties between equally distant or identical centers go to the lowest index, as in
+   * plain Lloyd.
+   */
+  @Test
+  public void testTies() {
+    DataModel model = new DataModel();
+    for (int x = -4; x <= 4; x++) {
+      for (int y = -4; y <= 4; y++) {
+        model.add(x, y);
+      }
+    }
+    PointSet points = model.getPoints();
+    double[] seedX = {1, -1, 1, -1, 0, 1};
+    double[] seedY = {1, 1, -1, -1, 0, 1};
+    LloydEngine lloyd = new LloydEngine(points, 6);
+    lloyd.setCenters(seedX, seedY);
+    FilteringEngine filtering = new FilteringEngine(new KdTree(points), 6);
+    filtering.setCenters(seedX, seedY);
+    for (int iteration = 0; iteration < 10; iteration++) {
+      lloyd.iterate();
+      filtering.iterate();
+      assertArrayEquals(lloyd.getLabels(), filtering.getLabels());
+    }
+  }
+
+  /**
+   * Verifies that DataModel clusters identically with and without filtering, and that it reuses
+   * its tree until a point is added.
+   */
+  @Test
+  public void testOption() {
+    DataModel model = LloydEngineTest.blobs(new Random(18), 6, 200);
+    KmeansOptions options = new KmeansOptions().setSeed(19);
+    KmeansResult lloyd = model.cluster(6, options);
+    KmeansResult filtering = model.cluster(6, options.setFiltering(true));
+    assertArrayEquals(lloyd.getLabels(), filtering.getLabels());
+    assertEquals(lloyd.getError(), filtering.getError(), 1e-9);
+    KdTree tree = model.kdTree();
+    assertSame(tree, model.kdTree());
+    model.add(0, 0);
+    assertNotSame(tree, model.kdTree());
+    assertEquals(model.getPoints().size(), model.kdTree().size());
+  }
+
+  /**
+   * Verifies that filtering cannot be combined with Elkan.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoElkan() {
+    DataModel model = LloydEngineTest.blobs(new Random(20), 2, 10);
+    model.cluster(2, new KmeansOptions().setFiltering(true).setElkan(true));
+  }
+}
@@ -0,0 +1,87 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the HamerlyEngine class, and for warm started clustering through DataModel.
+ */
+public class HamerlyEngineTest {
+
+  /**
+   * Verifies that every iteration assigns the same labels as plain Lloyd from the same centers.
+   */
+  @Test
+  public void testMatchesLloyd() {
+    DataModel model = LloydEngineTest.blobs(new Random(35), 8, 200);
+    PointSet points = model.getPoints();
+    Random random = new Random(36);
+    for (int k : new int[]{1, 2, 8, 20}) {
+      double[] seedX = new double[k];
+      double[] seedY = new double[k];
+      for (int c = 0; c < k; c++) {
+        int index = random.nextInt(points.size());
+        seedX[c] = points.getX(index);
+        seedY[c] = points.getY(index);
+      }
+      LloydEngine lloyd = new LloydEngine(points, k);
+      lloyd.setCenters(seedX, seedY);
+      HamerlyEngine hamerly = new HamerlyEngine(points, k);
+      hamerly.setCenters(seedX, seedY);
+      for (int iteration = 0; iteration < 15; iteration++) {
+        assertEquals(lloyd.iterate(), hamerly.iterate(), 1e-9);
+        assertArrayEquals(lloyd.getLabels(), hamerly.getLabels());
+        assertArrayEquals(lloyd.getCenterX(), hamerly.getCenterX(), 0.0);
+      }
+    }
+  }
+
+  /**
+   * Verifies that a warm start after a small append measures far fewer distances than a cold
+   * iteration, and labels the same as plain Lloyd from the previous centers.
+   */
+  @Test
+  public void testWarmStart() {
+    Random random = new Random(37);
+    DataModel model = LloydEngineTest.blobs(random, 6, 1000);
+    KmeansResult previous = model.cluster(6, new KmeansOptions().setSeed(38)
+            .setSeeding(Seeding.PLUS_PLUS));
+    // Append a few percent more points around the existing ones
+    PointSet points = model.getPoints();
+    for (int i = 0; i < 200; i++) {
+      int j = random.nextInt(6000);
+      model.add(points.getX(j) + random.nextGaussian(), points.getY(j) + random.nextGaussian());
+    }
+    HamerlyEngine warm = new HamerlyEngine(model.getPoints(), 6);
+    warm.warmStart(previous);
+    double[] centerX = new double[6];
+    double[] centerY = new double[6];
+    for (int c = 0; c < 6; c++) {
+      centerX[c] = previous.getCenterX(c);
+      centerY[c] = previous.getCenterY(c);
+    }
+    LloydEngine lloyd = new LloydEngine(model.getPoints(), 6);
+    lloyd.setCenters(centerX, centerY);
+    assertEquals(lloyd.run(), warm.run(), 1e-9);
+    assertArrayEquals(lloyd.getLabels(), warm.getLabels());
+    long cold = (long) warm.getIterations() * model.getPoints().size() * 6;
+    assertTrue(warm.getDistanceComputations() < cold / 3);
+
+    KmeansResult refined = model.cluster(6, previous);
+    assertArrayEquals(warm.getLabels(), refined.getLabels());
+    assertEquals(model.getPoints().size(), model.kmeans(6, previous).size());
+  }
+
+  /**
+   * Verifies that a warm start must have k centers.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testWarmStartWrongK() {
+    DataModel model = LloydEngineTest.blobs(new Random(39), 3, 20);
+    KmeansResult previous = model.cluster(3);
+    model.cluster(2, previous);
+  }
+}
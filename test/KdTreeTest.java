@@ -0,0 +1,75 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the KdTree class.
+ */
+public class KdTreeTest {
+
+  /**
+   * Verifies that every node's box, sums and count describe exactly the points under it, and that
+   * the children of a node split its points between them.
+   */
+  @Test
+  public void testNodes() {
+    DataModel model = LloydEngineTest.blobs(new Random(15), 3, 333);
+    KdTree tree = new KdTree(model.getPoints());
+    PointSet points = model.getPoints();
+    assertEquals(points.size(), tree.size());
+    assertEquals(points.size(), tree.count(0));
+    boolean[] seen = new boolean[points.size()];
+    for (int p = 0; p < tree.size(); p++) {
+      seen[tree.pointAt(p)] = true;
+    }
+    for (boolean s : seen) {
+      assertTrue(s);
+    }
+    for (int node = 0; node < tree.getNodes(); node++) {
+      double sumX = 0;
+      double sumY = 0;
+      for (int p = tree.start(node); p < tree.end(node); p++) {
+        double x = points.getX(tree.pointAt(p));
+        double y = points.getY(tree.pointAt(p));
+        assertTrue(x >= tree.minX(node) && x <= tree.maxX(node));
+        assertTrue(y >= tree.minY(node) && y <= tree.maxY(node));
+        sumX += x;
+        sumY += y;
+      }
+      assertEquals(sumX, tree.sumX(node), 1e-6);
+      assertEquals(sumY, tree.sumY(node), 1e-6);
+      if (!tree.isLeaf(node)) {
+        assertEquals(tree.start(node), tree.start(tree.left(node)));
+        assertEquals(tree.end(tree.left(node)), tree.start(tree.right(node)));
+        assertEquals(tree.end(node), tree.end(tree.right(node)));
+      } else {
+        assertTrue(tree.count(node) <= 8);
+      }
+    }
+  }
+
+  /**
+   * Verifies that a tree over many identical points stops splitting them.
+   */
+  @Test
+  public void testIdenticalPoints() {
+    DataModel model = new DataModel();
+    for (int i = 0; i < 100; i++) {
+      model.add(2, 3);
+    }
+    KdTree tree = new KdTree(model.getPoints());
+    assertEquals(1, tree.getNodes());
+    assertEquals(100, tree.count(0));
+  }
+
+  /**
+   * Verifies that a tree cannot be built over no points.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmpty() {
+    new KdTree(new PointArray());
+  }
+}
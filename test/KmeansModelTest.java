@@ -0,0 +1,146 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the KmeansModel class, and for the nearest point search of KdTree it labels
+ * points with when there are many centers.
+ */
+public class KmeansModelTest {
+
+  /**
+   * Verifies that a model keeps the centers and fit of its clustering, and labels the training
+   * points of a clustering that only labels them just as the clustering did.
+   */
+  @Test
+  public void testFitKmeans() {
+    DataModel model = LloydEngineTest.blobs(new Random(40), 4, 300);
+    KmeansOptions options = new KmeansOptions().setSeed(41).setCoresetSize(200);
+    KmeansResult result = model.cluster(4, options);
+    KmeansModel fitted = model.fitKmeans(4, options);
+    assertEquals(4, fitted.getK());
+    assertFalse(fitted.isIndexed());
+    assertEquals(result.getError(), fitted.getError(), 0.0);
+    assertEquals(result.getInertia(), fitted.getInertia(), 0.0);
+    assertEquals(1200, fitted.getTrainingSize());
+    for (int c = 0; c < 4; c++) {
+      assertEquals(result.getCenterX(c), fitted.getCenterX(c), 0.0);
+      assertEquals(result.getCenterY(c), fitted.getCenterY(c), 0.0);
+      assertEquals(result.getCount(c), fitted.getClusterSize(c));
+    }
+    assertArrayEquals(result.getLabels(), fitted.predict(model.getPoints()));
+  }
+
+  /**
+   * Verifies that with many centers the indexed model labels every point with the center a scan
+   * finds, including points exactly between two centers and points far outside the centers, over
+   * batches large enough to run in chunks.
+   */
+  @Test
+  public void testIndexMatchesScan() {
+    Random random = new Random(42);
+    int k = 300;
+    int[] labels = new int[k];
+    double[] centerX = new double[k];
+    double[] centerY = new double[k];
+    for (int c = 0; c < k; c++) {
+      // Snap the centers to a coarse grid, so some coincide and ties are common
+      centerX[c] = random.nextInt(40);
+      centerY[c] = random.nextInt(40);
+      labels[c] = c;
+    }
+    KmeansModel model = new KmeansModel(new KmeansResult(labels, centerX, centerY, 0, 0, 0));
+    assertTrue(model.isIndexed());
+    int n = 100000;
+    double[] xs = new double[n];
+    double[] ys = new double[n];
+    for (int i = 0; i < n; i++) {
+      xs[i] = i % 3 == 0 ? random.nextInt(80) * 0.5 : random.nextDouble() * 100 - 30;
+      ys[i] = i % 3 == 0 ? random.nextInt(80) * 0.5 : random.nextDouble() * 100 - 30;
+    }
+    int[] predicted = model.predict(xs, ys);
+    for (int i = 0; i < n; i++) {
+      assertEquals(scan(centerX, centerY, xs[i], ys[i]), predicted[i]);
+    }
+    assertEquals(0, model.predict(Double.NaN, 1));
+  }
+
+  /**
+   * Verifies that one model serves many threads at once, each labelling its own batches.
+   */
+  @Test
+  public void testConcurrentPredict() throws Exception {
+    DataModel data = LloydEngineTest.blobs(new Random(43), 40, 100);
+    KmeansModel model = data.fitKmeans(150, new KmeansOptions().setSeed(44).setRestarts(2));
+    assertTrue(model.isIndexed());
+    ExecutorService threads = Executors.newFixedThreadPool(8);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      List<Future<Boolean>> checks = new ArrayList<>();
+      for (int t = 0; t < 16; t++) {
+        long seed = 45 + t;
+        checks.add(threads.submit(() -> {
+          Random random = new Random(seed);
+          double[] xs = new double[40000];
+          double[] ys = new double[40000];
+          int[] labels = new int[40000];
+          for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextDouble() * 800 - 400;
+            ys[i] = random.nextDouble() * 800 - 400;
+          }
+          model.predict(xs, ys, labels, pool);
+          for (int i = 0; i < xs.length; i += 7) {
+            if (labels[i] != model.predict(xs[i], ys[i])) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+      for (Future<Boolean> check : checks) {
+        assertTrue(check.get());
+      }
+    } finally {
+      threads.shutdown();
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Verifies that arrays of different lengths are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testMismatchedArrays() {
+    KmeansResult result = new KmeansResult(new int[]{0}, new double[]{0}, new double[]{0}, 0, 0,
+            0);
+    new KmeansModel(result).predict(new double[2], new double[3]);
+  }
+
+  /**
+   * Helper to find the nearest center by scanning every center, ties going to the lowest index.
+   */
+  private static int scan(double[] centerX, double[] centerY, double x, double y) {
+    int nearest = 0;
+    double best = Double.POSITIVE_INFINITY;
+    for (int c = 0; c < centerX.length; c++) {
+      double dx = x - centerX[c];
+      double dy = y - centerY[c];
+      if (dx * dx + dy * dy < best) {
+        best = dx * dx + dy * dy;
+        nearest = c;
+      }
+    }
+    return nearest;
+  }
+}
@@ -0,0 +1,71 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A JUnit test for clustering with KmeansOptions: seeded restarts, and restarts run on an executor.
+ */
+public class KmeansOptionsTest {
+
+  /**
+   * Verifies that a seeded run gives the same clustering every time.
+   */
+  @Test
+  public void testSeedIsRepeatable() {
+    DataModel model = LloydEngineTest.blobs(new Random(4), 5, 100);
+    KmeansResult first = model.cluster(5, new KmeansOptions().setSeed(42));
+    KmeansResult second = model.cluster(5, new KmeansOptions().setSeed(42));
+    assertArrayEquals(first.getLabels(), second.getLabels());
+    assertEquals(first.getError(), second.getError(), 0.0);
+  }
+
+  /**
+   * Verifies that restarts run on a pool give exactly the clustering they give on the calling
+   * thread.
+   */
+  @Test
+  public void testParallelMatchesSequential() {
+    DataModel model = LloydEngineTest.blobs(new Random(5), 6, 150);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      for (long seed = 0; seed < 5; seed++) {
+        KmeansOptions options = new KmeansOptions().setSeed(seed).setRestarts(12);
+        KmeansResult sequential = model.cluster(6, options);
+        KmeansResult parallel = model.cluster(6, options.setExecutor(pool));
+        assertArrayEquals(sequential.getLabels(), parallel.getLabels());
+        assertEquals(sequential.getError(), parallel.getError(), 0.0);
+        assertEquals(sequential.getCenterX(0), parallel.getCenterX(0), 0.0);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Verifies that an invalid k is rejected before any restart is submitted.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testParallelKTooLarge() {
+    DataModel model = new DataModel();
+    model.add(0, 0);
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      model.cluster(2, new KmeansOptions().setExecutor(pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Verifies that the number of restarts must be positive.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testRestartsMustBePositive() {
+    new KmeansOptions().setRestarts(0);
+  }
+}
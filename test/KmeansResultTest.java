@@ -0,0 +1,146 @@
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the KmeansResult class, and for the labels DataModel reports with it.
+ */
+public class KmeansResultTest {
+
+  /**
+   * Verifies that the result agrees with the labels and centers of the best clustering.
+   */
+  @Test
+  public void testClusterResult() {
+    DataModel model = LloydEngineTest.blobs(new Random(3), 3, 100);
+    KmeansResult result = model.cluster(3);
+    PointSet points = model.getPoints();
+    assertEquals(points.size(), result.size());
+    assertEquals(3, result.getK());
+    double total = 0;
+    double squared = 0;
+    for (int i = 0; i < result.size(); i++) {
+      int c = result.getLabel(i);
+      double dx = points.getX(i) - result.getCenterX(c);
+      double dy = points.getY(i) - result.getCenterY(c);
+      squared += dx * dx + dy * dy;
+      total += Math.sqrt(dx * dx + dy * dy);
+    }
+    assertEquals(total / result.size(), result.getError(), 1e-9);
+    assertEquals(squared, result.getInertia(), 1e-6);
+    assertEquals(result.getLabelList(), toList(result.getLabels()));
+  }
+
+  /**
+   * Verifies that the statistics of each cluster agree with its points, from both the sequential
+   * and the parallel engine.
+   */
+  @Test
+  public void testClusterStatistics() {
+    DataModel model = LloydEngineTest.blobs(new Random(4), 3, 100);
+    PointSet points = model.getPoints();
+    KmeansResult sequential = model.cluster(3, new KmeansOptions().setSeed(5));
+    KmeansResult parallel = model.cluster(3, new KmeansOptions().setSeed(5)
+            .setIterationPool(new ForkJoinPool(2)));
+    for (KmeansResult result : Arrays.asList(sequential, parallel)) {
+      assertTrue(result.hasClusterStatistics());
+      int[] counts = new int[3];
+      double[] distances = new double[3];
+      double[] squares = new double[3];
+      for (int i = 0; i < result.size(); i++) {
+        int c = result.getLabel(i);
+        double dx = points.getX(i) - result.getCenterX(c);
+        double dy = points.getY(i) - result.getCenterY(c);
+        counts[c]++;
+        distances[c] += Math.sqrt(dx * dx + dy * dy);
+        squares[c] += dx * dx + dy * dy;
+      }
+      double inertia = 0;
+      for (int c = 0; c < 3; c++) {
+        assertEquals(counts[c], result.getCount(c));
+        assertEquals(distances[c] / counts[c], result.getSpread(c), 1e-9);
+        assertEquals(squares[c], result.getClusterInertia(c), 1e-6);
+        inertia += result.getClusterInertia(c);
+      }
+      assertEquals(result.getInertia(), inertia, 1e-6);
+    }
+  }
+
+  /**
+   * Verifies that a snapshot of an online model carries no cluster statistics.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testNoClusterStatistics() {
+    OnlineKmeansModel model = new OnlineKmeansModel(2);
+    model.add(0, 0);
+    model.add(1, 1);
+    KmeansResult result = model.snapshot();
+    assertFalse(result.hasClusterStatistics());
+    result.getSpread(0);
+  }
+
+  /**
+   * Verifies that the result is a snapshot, unaffected by further iterations of the engine or by
+   * changes to the arrays it hands out.
+   */
+  @Test
+  public void testSnapshot() {
+    DataModel model = new DataModel();
+    model.add(0, 0);
+    model.add(1, 0);
+    model.add(10, 0);
+    LloydEngine engine = new LloydEngine(model.getPoints(), 2);
+    engine.setCenters(new double[]{0, 10}, new double[]{0, 0});
+    engine.iterate();
+    KmeansResult result = engine.getResult();
+    engine.setCenters(new double[]{10, 0}, new double[]{0, 0});
+    engine.iterate();
+    assertArrayEquals(new int[]{0, 0, 1}, result.getLabels());
+    assertEquals(0.5, result.getCenterX(0), 0.0);
+    assertNotSame(result.getLabels(), result.getLabels());
+    result.getLabels()[0] = 1;
+    assertEquals(0, result.getLabel(0));
+    assertEquals(1, result.getIterations());
+  }
+
+  /**
+   * Verifies that identical points are each labelled once, with their own cluster.
+   */
+  @Test
+  public void testReportClustersDuplicates() {
+    List<Point2D.Double> data = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      data.add(new Point2D.Double(1, 1));
+    }
+    data.add(new Point2D.Double(9, 9));
+    List<Cluster> clusters = new ArrayList<>();
+    clusters.add(new Cluster(0, new Point2D.Double(1, 1)));
+    clusters.add(new Cluster(1, new Point2D.Double(9, 9)));
+    for (Point2D.Double point : data) {
+      Kmeans.categorizePoint(point, clusters);
+    }
+    assertEquals(Arrays.asList(0, 0, 0, 1), Kmeans.reportClusters(data, clusters));
+  }
+
+  /**
+   * Helper to box an array of labels.
+   */
+  private static List<Integer> toList(int[] labels) {
+    List<Integer> list = new ArrayList<>();
+    for (int label : labels) {
+      list.add(label);
+    }
+    return list;
+  }
+}
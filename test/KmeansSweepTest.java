@@ -0,0 +1,82 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for sweeping a range of k through DataModel, and for the KmeansSweep class.
+ */
+public class KmeansSweepTest {
+
+  /**
+   * Verifies that a sweep clusters every k in the range, with an inertia curve that falls as k
+   * grows, and an elbow at the number of well separated blobs.
+   */
+  @Test
+  public void testSweep() {
+    DataModel model = new DataModel();
+    Random random = new Random(40);
+    for (int b = 0; b < 4; b++) {
+      for (int i = 0; i < 300; i++) {
+        model.add(b * 500 + random.nextGaussian() * 10, (b % 2) * 500 + random.nextGaussian() * 10);
+      }
+    }
+    KmeansSweep sweep = model.sweep(1, 10, new KmeansOptions().setSeed(41)
+            .setSeeding(Seeding.PLUS_PLUS).setRestarts(3));
+    assertEquals(1, sweep.getMinK());
+    assertEquals(10, sweep.getMaxK());
+    double[] inertias = sweep.getInertias();
+    assertEquals(10, inertias.length);
+    for (int k = 1; k <= 10; k++) {
+      assertEquals(k, sweep.getResult(k).getK());
+      assertEquals(1200, sweep.getResult(k).size());
+      assertEquals(sweep.getResult(k).getError(), sweep.getErrors()[k - 1], 0.0);
+    }
+    assertTrue(inertias[3] < inertias[0] / 100);
+    assertEquals(4, sweep.getElbow());
+  }
+
+  /**
+   * Verifies that a seeded sweep gives the same clusterings on any executor, for every seeding.
+   */
+  @Test
+  public void testRepeatable() {
+    DataModel model = LloydEngineTest.blobs(new Random(42), 5, 300);
+    ExecutorService single = Executors.newSingleThreadExecutor();
+    try {
+      for (Seeding seeding : Seeding.values()) {
+        KmeansOptions options = new KmeansOptions().setSeed(43).setSeeding(seeding).setRestarts(2);
+        KmeansSweep first = model.sweep(2, 7, options);
+        KmeansSweep second = model.sweep(2, 7, options.setExecutor(single));
+        options.setExecutor(null);
+        assertArrayEquals(first.getErrors(), second.getErrors(), 0.0);
+        assertArrayEquals(first.getResult(5).getLabels(), second.getResult(5).getLabels());
+      }
+    } finally {
+      single.shutdown();
+    }
+  }
+
+  /**
+   * Verifies that the largest k cannot exceed the data size.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testRangeTooLarge() {
+    DataModel model = LloydEngineTest.blobs(new Random(44), 1, 5);
+    model.sweep(1, 6, new KmeansOptions());
+  }
+
+  /**
+   * Verifies that k outside the sweep is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testResultOutsideSweep() {
+    DataModel model = LloydEngineTest.blobs(new Random(45), 2, 50);
+    model.sweep(2, 4, new KmeansOptions()).getResult(5);
+  }
+}
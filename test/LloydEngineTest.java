@@ -0,0 +1,128 @@
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the LloydEngine class. The engine is checked against the Cluster based
+ * iterations of the Kmeans helpers, started from the same centers.
+ */
+public class LloydEngineTest {
+
+  /**
+   * Verifies that the engine produces the same labels, centers and error as the Cluster based
+   * iterations.
+   */
+  @Test
+  public void testMatchesClusterIterations() {
+    DataModel model = blobs(new Random(1), 4, 200);
+    PointSet points = model.getPoints();
+    List<Point2D.Double> data = model.getData();
+    Random random = new Random(2);
+    for (int trial = 0; trial < 5; trial++) {
+      int k = 2 + trial;
+      double[] seedX = new double[k];
+      double[] seedY = new double[k];
+      List<Cluster> clusters = new ArrayList<>();
+      for (int c = 0; c < k; c++) {
+        int index = random.nextInt(points.size());
+        seedX[c] = points.getX(index);
+        seedY[c] = points.getY(index);
+        clusters.add(new Cluster(c, data.get(index)));
+      }
+      // The Cluster based iterations, as DataModel.kmeans used to run them
+      double error = Double.POSITIVE_INFINITY;
+      double newError;
+      while (true) {
+        Kmeans.resetClusterDataPointSizes(clusters);
+        for (Point2D.Double point : data) {
+          Kmeans.categorizePoint(point, clusters);
+        }
+        Kmeans.computeClusterCenters(clusters);
+        newError = Kmeans.computeNewError(data, clusters);
+        if (error != Double.POSITIVE_INFINITY && Math.abs(newError - error) / error < 0.01) {
+          break;
+        }
+        error = newError;
+      }
+      int[] expected = new int[data.size()];
+      for (int i = 0; i < expected.length; i++) {
+        for (Cluster c : clusters) {
+          if (c.getDataPoints().contains(data.get(i))) {
+            expected[i] = c.getIndex();
+          }
+        }
+      }
+      LloydEngine engine = new LloydEngine(points, k);
+      engine.setCenters(seedX, seedY);
+      assertEquals(newError, engine.run(), 1e-9);
+      assertArrayEquals(expected, engine.getLabels());
+      for (int c = 0; c < k; c++) {
+        assertEquals(clusters.get(c).getCenter().getX(), engine.getCenterX()[c], 1e-9);
+        assertEquals(clusters.get(c).getCenter().getY(), engine.getCenterY()[c], 1e-9);
+      }
+    }
+  }
+
+  /**
+   * Verifies that the engine stops when every point is its own center and the error is zero.
+   */
+  @Test
+  public void testZeroError() {
+    DataModel model = new DataModel();
+    model.add(0, 0);
+    model.add(5, 5);
+    model.add(-5, 5);
+    LloydEngine engine = new LloydEngine(model.getPoints(), 3);
+    engine.setCenters(new double[]{0, 5, -5}, new double[]{0, 5, 5});
+    assertEquals(0, engine.run(), 0.0);
+    assertArrayEquals(new int[]{0, 1, 2}, engine.getLabels());
+    assertTrue(engine.getIterations() <= 2);
+  }
+
+  /**
+   * Verifies that a cluster left without points keeps its center.
+   */
+  @Test
+  public void testEmptyClusterKeepsCenter() {
+    DataModel model = new DataModel();
+    model.add(0, 0);
+    model.add(1, 0);
+    LloydEngine engine = new LloydEngine(model.getPoints(), 2);
+    engine.setCenters(new double[]{0.5, 100}, new double[]{0, 100});
+    engine.iterate();
+    assertArrayEquals(new int[]{0, 0}, engine.getLabels());
+    assertEquals(100, engine.getCenterX()[1], 0.0);
+  }
+
+  /**
+   * Verifies that k larger than the number of points is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testKTooLarge() {
+    DataModel model = new DataModel();
+    model.add(0, 0);
+    new LloydEngine(model.getPoints(), 2);
+  }
+
+  /**
+   * Helper to build a data model of well separated gaussian blobs.
+   */
+  static DataModel blobs(Random random, int blobs, int perBlob) {
+    DataModel model = new DataModel();
+    for (int b = 0; b < blobs; b++) {
+      double cx = random.nextDouble() * 800 - 400;
+      double cy = random.nextDouble() * 800 - 400;
+      for (int i = 0; i < perBlob; i++) {
+        model.add(cx + random.nextGaussian() * 40, cy + random.nextGaussian() * 40);
+      }
+    }
+    return model;
+  }
+}
@@ -0,0 +1,111 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * A JUnit test for the MappedPointStore class, the off-heap store for a DataModel.
+ */
+public class MappedPointStoreTest {
+
+  private Path file;
+
+  @Before
+  public void setup() throws IOException {
+    file = Files.createTempFile("MappedPointStoreTest", ".bin");
+    Files.delete(file);
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Verifies that points are stored in order across several mapped regions.
+   */
+  @Test
+  public void testAddAcrossRegions() throws IOException {
+    // Regions of 4 points, so 10 points span 3 regions
+    try (MappedPointStore store = new MappedPointStore(file, 0, 2, false)) {
+      for (int i = 0; i < 10; i++) {
+        store.add(i, -2.5 * i);
+      }
+      assertEquals(10, store.size());
+      for (int i = 0; i < 10; i++) {
+        assertEquals(i, store.getX(i), 0.0);
+        assertEquals(-2.5 * i, store.getY(i), 0.0);
+      }
+    }
+  }
+
+  /**
+   * Verifies that reopening a store keeps the points already written, and allows appending.
+   */
+  @Test
+  public void testReopen() throws IOException {
+    try (MappedPointStore store = new MappedPointStore(file, 0, 2, false)) {
+      for (int i = 0; i < 6; i++) {
+        store.add(i, i * i);
+      }
+    }
+    try (MappedPointStore store = new MappedPointStore(file, 0, 2, false)) {
+      assertEquals(6, store.size());
+      assertEquals(25, store.getY(5), 0.0);
+      store.add(6, 36);
+      assertEquals(7, store.size());
+      assertEquals(36, store.getY(6), 0.0);
+    }
+  }
+
+  /**
+   * Verifies that a file that is not a point store is rejected.
+   */
+  @Test
+  public void testRejectsOtherFiles() throws IOException {
+    Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+    try {
+      new MappedPointStore(file).close();
+      fail("A file without the point store header should be rejected.");
+    } catch (IOException e) {
+      // Pass
+    }
+  }
+
+  /**
+   * Verifies that a temporary store deletes its file when closed.
+   */
+  @Test
+  public void testTemporary() throws IOException {
+    MappedPointStore store = MappedPointStore.temporary();
+    store.add(1, 2);
+    assertEquals(1, store.size());
+    store.close();
+    assertFalse(Files.exists(store.getFile()));
+  }
+
+  /**
+   * Verifies that a DataModel on a mapped store fits the same line as a heap DataModel.
+   */
+  @Test
+  public void testDataModelFitLine() throws IOException {
+    try (MappedPointStore store = new MappedPointStore(file, 0, 2, false)) {
+      DataModel mapped = new DataModel(store);
+      DataModel heap = new DataModel();
+      double[][] points = {{-4, 0}, {-3.5, -0.25}, {-3, -0.5}, {-2, -1}, {0, -2}, {-2, -0.96}};
+      for (double[] p : points) {
+        mapped.add(p[0], p[1]);
+        heap.add(p[0], p[1]);
+      }
+      assertEquals(heap.fitLine(), mapped.fitLine());
+      assertEquals(heap.getData(), mapped.getData());
+    }
+  }
+}
@@ -0,0 +1,84 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the MiniBatchEngine class, and for mini-batch clustering through DataModel.
+ */
+public class MiniBatchEngineTest {
+
+  /**
+   * Verifies that mini-batches reach close to the error of full Lloyd iterations, and report it
+   * with the same metric.
+   */
+  @Test
+  public void testCloseToLloyd() {
+    DataModel model = LloydEngineTest.blobs(new Random(21), 5, 4000);
+    KmeansOptions options = new KmeansOptions().setSeed(22).setRestarts(3);
+    KmeansResult lloyd = model.cluster(5, options);
+    KmeansResult batched = model.cluster(5, options.setBatchSize(256));
+    assertTrue(batched.getError() < lloyd.getError() * 1.1);
+    PointSet points = model.getPoints();
+    double total = 0;
+    for (int i = 0; i < points.size(); i++) {
+      int c = batched.getLabel(i);
+      double dx = points.getX(i) - batched.getCenterX(c);
+      double dy = points.getY(i) - batched.getCenterY(c);
+      total += Math.sqrt(dx * dx + dy * dy);
+    }
+    assertEquals(total / points.size(), batched.getError(), 1e-9);
+    assertEquals(points.size(), batched.size());
+  }
+
+  /**
+   * Verifies that a seeded mini-batch run gives the same clustering every time.
+   */
+  @Test
+  public void testSeedIsRepeatable() {
+    DataModel model = LloydEngineTest.blobs(new Random(23), 4, 1000);
+    KmeansOptions options = new KmeansOptions().setSeed(24).setBatchSize(100);
+    assertArrayEquals(model.cluster(4, options).getLabels(), model.cluster(4, options).getLabels());
+  }
+
+  /**
+   * Verifies that iterations stop at the maximum number of batches, and that each center is the
+   * mean of the points it was pulled towards.
+   */
+  @Test
+  public void testStopping() {
+    DataModel model = new DataModel();
+    model.add(0, 0);
+    model.add(2, 0);
+    MiniBatchEngine engine = new MiniBatchEngine(model.getPoints(), 1, 1, 3, 100);
+    engine.setCenters(new double[]{10}, new double[]{10});
+    engine.run();
+    assertEquals(3, engine.getIterations());
+    // The center is the mean of three of the points, whichever were drawn
+    double thirds = engine.getCenterX()[0] * 3 / 2;
+    assertEquals(Math.rint(thirds), thirds, 1e-9);
+    assertEquals(0, engine.getCenterY()[0], 0.0);
+  }
+
+  /**
+   * Verifies that the batch size must be positive.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testBatchSizeMustBePositive() {
+    DataModel model = new DataModel();
+    model.add(0, 0);
+    new MiniBatchEngine(model.getPoints(), 1, 0);
+  }
+
+  /**
+   * Verifies that mini-batches cannot be combined with filtering.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoFiltering() {
+    DataModel model = LloydEngineTest.blobs(new Random(25), 2, 10);
+    model.cluster(2, new KmeansOptions().setBatchSize(5).setFiltering(true));
+  }
+}
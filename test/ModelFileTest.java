@@ -0,0 +1,159 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A JUnit test for the ModelFile class, saving and loading lines and k-means models.
+ */
+public class ModelFileTest {
+
+  private Path file;
+
+  @Before
+  public void setup() throws IOException {
+    file = Files.createTempFile("ModelFileTest", ".model");
+    Files.delete(file);
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Verifies that a line saved alone loads back exactly, with no moments.
+   */
+  @Test
+  public void testLine() throws IOException {
+    Line line = new Line(0.6, -0.8, 12.5);
+    ModelFile.write(file, line);
+    assertEquals(64, Files.size(file));
+    assertEquals(line, ModelFile.readLine(file));
+    try {
+      ModelFile.readMoments(file);
+      fail("A line saved alone has no moments.");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Verifies that moments saved with their line load back exactly, and can be combined with new
+   * data to refit the line without the old data.
+   */
+  @Test
+  public void testMoments() throws IOException {
+    DataModel old = new DataModel();
+    DataModel all = new DataModel();
+    Random random = new Random(50);
+    for (int i = 0; i < 500; i++) {
+      double x = random.nextGaussian() * 10;
+      double y = 2 * x + random.nextGaussian();
+      (i < 300 ? old : all).add(x, y);
+    }
+    ModelFile.write(file, old.getMoments());
+    assertEquals(old.fitLine(), ModelFile.readLine(file));
+    Moments loaded = ModelFile.readMoments(file);
+    assertEquals(old.getMoments().getCount(), loaded.getCount());
+    assertEquals(old.getMoments().getSumXY(), loaded.getSumXY(), 0.0);
+    Line refit = loaded.combine(all.getMoments()).toLine();
+    all.addAll(old);
+    assertEquals(all.fitLine().getA(), refit.getA(), 1e-9);
+    assertEquals(all.fitLine().getC(), refit.getC(), 1e-9);
+  }
+
+  /**
+   * Verifies that a k-means model loads back with the same centers, statistics, seed and fit, and
+   * labels points just as the saved model does, with and without a KD-tree over its centers.
+   */
+  @Test
+  public void testKmeans() throws IOException {
+    DataModel data = LloydEngineTest.blobs(new Random(51), 30, 60);
+    for (int k : new int[]{5, 150}) {
+      KmeansOptions options = new KmeansOptions().setSeed(52).setRestarts(2);
+      KmeansModel model = data.fitKmeans(k, options);
+      ModelFile.write(file, model);
+      assertEquals(64 + k * 36, Files.size(file));
+      KmeansModel loaded = ModelFile.readKmeans(file);
+      assertEquals(k, loaded.getK());
+      assertEquals(model.isIndexed(), loaded.isIndexed());
+      assertEquals(model.getError(), loaded.getError(), 0.0);
+      assertEquals(model.getInertia(), loaded.getInertia(), 0.0);
+      assertEquals(model.getIterations(), loaded.getIterations());
+      assertEquals(52, loaded.getSeed());
+      assertEquals(data.getPoints().size(), loaded.getTrainingSize());
+      assertTrue(loaded.hasClusterStatistics());
+      for (int c = 0; c < k; c++) {
+        assertEquals(model.getCenterX(c), loaded.getCenterX(c), 0.0);
+        assertEquals(model.getCenterY(c), loaded.getCenterY(c), 0.0);
+        assertEquals(model.getClusterSize(c), loaded.getClusterSize(c));
+        assertEquals(model.getClusterWeight(c), loaded.getClusterWeight(c), 0.0);
+        assertEquals(model.getClusterInertia(c), loaded.getClusterInertia(c), 0.0);
+      }
+      assertArrayEquals(model.predict(data.getPoints()), loaded.predict(data.getPoints()));
+    }
+  }
+
+  /**
+   * Verifies that a model without a seed or cluster statistics loads back without them.
+   */
+  @Test
+  public void testKmeansWithoutStatistics() throws IOException {
+    KmeansResult result = new KmeansResult(new int[]{0, 1, 1}, new double[]{0, 4},
+            new double[]{1, 3}, 0.5, 1.5, 2);
+    ModelFile.write(file, new KmeansModel(result));
+    KmeansModel loaded = ModelFile.readKmeans(file);
+    assertFalse(loaded.hasSeed());
+    assertFalse(loaded.hasClusterStatistics());
+    assertEquals(2, loaded.getClusterSize(1));
+    assertEquals(2, loaded.getClusterWeight(1), 0.0);
+    assertEquals(1, loaded.predict(3, 3));
+  }
+
+  /**
+   * Verifies that files of the wrong kind, of another version, or cut short are rejected.
+   */
+  @Test
+  public void testRejectsOtherFiles() throws IOException {
+    ModelFile.write(file, new Line(1, 0, 0));
+    assertRejected();
+    KmeansResult result = new KmeansResult(new int[]{0, 1}, new double[]{0, 4},
+            new double[]{1, 3}, 0, 0, 0);
+    ModelFile.write(file, new KmeansModel(result));
+    byte[] bytes = Files.readAllBytes(file);
+    ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, 2);
+    Files.write(file, bytes);
+    assertRejected();
+    ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, 1);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+    assertRejected();
+    Files.write(file, new byte[10]);
+    assertRejected();
+  }
+
+  /**
+   * Helper to check that the file cannot be loaded as a k-means model.
+   */
+  private void assertRejected() {
+    try {
+      ModelFile.readKmeans(file);
+      fail("Expected the file to be rejected.");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+}
@@ -0,0 +1,169 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A JUnit test for the Moments class. The running moments are checked against the batch
+ * calculations hosted by the Regression class.
+ */
+public class MomentsTest {
+
+  /**
+   * Verify that an empty set of moments has no points.
+   */
+  @Test
+  public void testEmpty() {
+    Moments empty = new Moments();
+    assertEquals(0, empty.getCount());
+    assertEquals(0, empty.getSumXX(), 0.0);
+  }
+
+  /**
+   * Verify that the running moments match the batch averages and sums of squares.
+   */
+  @Test
+  public void testMatchesBatch() {
+    PointArray points = new PointArray();
+    Moments moments = new Moments();
+    Random random = new Random(42);
+    for (int i = 0; i < 1000; i++) {
+      double x = random.nextGaussian() * 100;
+      double y = 0.5 * x + random.nextGaussian() * 20;
+      points.add(x, y);
+      moments.add(x, y);
+    }
+    double avgX = Regression.averageX(points);
+    double avgY = Regression.averageY(points);
+    double[] sumSquares = Regression.sumSquares(points, avgX, avgY);
+    assertEquals(1000, moments.getCount());
+    assertEquals(avgX, moments.getMeanX(), 1e-9);
+    assertEquals(avgY, moments.getMeanY(), 1e-9);
+    assertEquals(sumSquares[0], moments.getSumXX(), 1e-6);
+    assertEquals(sumSquares[1], moments.getSumYY(), 1e-6);
+    assertEquals(sumSquares[2], moments.getSumXY(), 1e-6);
+    assertEquals(sumSquares[2], Moments.of(points).getSumXY(), 1e-6);
+  }
+
+  /**
+   * Verify that the moments stay accurate for points far from the origin, where a naive sum of
+   * squares loses all of its precision.
+   */
+  @Test
+  public void testLargeOffset() {
+    Moments moments = new Moments();
+    moments.add(1e9 + 4, 1e9 + 7);
+    moments.add(1e9 + 7, 1e9 + 13);
+    moments.add(1e9 + 13, 1e9 + 25);
+    moments.add(1e9 + 16, 1e9 + 31);
+    assertEquals(1e9 + 10, moments.getMeanX(), 1e-6);
+    assertEquals(90, moments.getSumXX(), 1e-6);
+    assertEquals(360, moments.getSumYY(), 1e-6);
+    assertEquals(180, moments.getSumXY(), 1e-6);
+  }
+
+  /**
+   * Verify that the constant time fitLine matches the line from a batch computation as the data
+   * model grows.
+   */
+  @Test
+  public void testFitLineMatchesBatch() {
+    DataModel model = new DataModel();
+    Random random = new Random(7);
+    for (int batch = 0; batch < 5; batch++) {
+      for (int i = 0; i < 200; i++) {
+        double x = random.nextDouble() * 800 - 400;
+        model.add(x, -0.75 * x + 30 + random.nextGaussian() * 15);
+      }
+      PointSet points = model.getPoints();
+      double avgX = Regression.averageX(points);
+      double avgY = Regression.averageY(points);
+      double[] sumSquares = Regression.sumSquares(points, avgX, avgY);
+      Line expected = Regression.calculateLine(avgX, avgY, sumSquares[0], sumSquares[1],
+              sumSquares[2]);
+      Line actual = model.fitLine();
+      assertEquals(expected.getA(), actual.getA(), 1e-9);
+      assertEquals(expected.getB(), actual.getB(), 1e-9);
+      assertEquals(expected.getC(), actual.getC(), 1e-6);
+    }
+  }
+
+  /**
+   * Verify that the moments of separate shards, reduced pairwise in a tree, match the moments of
+   * all the points together.
+   */
+  @Test
+  public void testCombineShards() {
+    Random random = new Random(11);
+    DataModel all = new DataModel();
+    Moments[] shards = new Moments[8];
+    for (int s = 0; s < shards.length; s++) {
+      // Shards of different sizes and locations
+      DataModel shard = new DataModel();
+      for (int i = 0; i < 50 + 30 * s; i++) {
+        double x = random.nextGaussian() * 10 + s * 100;
+        double y = 2 * x - 5 + random.nextGaussian();
+        shard.add(x, y);
+        all.add(x, y);
+      }
+      shards[s] = shard.getMoments();
+    }
+    for (int width = 1; width < shards.length; width *= 2) {
+      for (int s = 0; s + width < shards.length; s += 2 * width) {
+        shards[s] = shards[s].combine(shards[s + width]);
+      }
+    }
+    Moments expected = all.getMoments();
+    Moments actual = shards[0];
+    assertEquals(expected.getCount(), actual.getCount());
+    assertEquals(expected.getMeanX(), actual.getMeanX(), 1e-9);
+    assertEquals(expected.getMeanY(), actual.getMeanY(), 1e-9);
+    assertEquals(expected.getSumXX(), actual.getSumXX(), 1e-6);
+    assertEquals(expected.getSumYY(), actual.getSumYY(), 1e-6);
+    assertEquals(expected.getSumXY(), actual.getSumXY(), 1e-6);
+    Line expectedLine = all.fitLine();
+    Line actualLine = actual.toLine();
+    assertEquals(expectedLine.getX(0), actualLine.getX(0), 1e-6);
+    assertEquals(expectedLine.getY(0), actualLine.getY(0), 1e-6);
+  }
+
+  /**
+   * Verify that combining with empty moments leaves the other moments unchanged.
+   */
+  @Test
+  public void testCombineEmpty() {
+    Moments moments = new Moments();
+    moments.add(1, 2);
+    moments.add(3, 5);
+    Moments left = new Moments().combine(moments);
+    Moments right = moments.combine(new Moments());
+    assertEquals(2, left.getCount());
+    assertEquals(2, right.getCount());
+    assertEquals(moments.getSumXY(), left.getSumXY(), 0.0);
+    assertEquals(moments.getSumXY(), right.getSumXY(), 0.0);
+  }
+
+  /**
+   * Verify that the moments of the data model are a snapshot, unaffected by later points.
+   */
+  @Test
+  public void testGetMomentsSnapshot() {
+    DataModel model = new DataModel();
+    model.add(1, 1);
+    Moments snapshot = model.getMoments();
+    model.add(2, 2);
+    assertEquals(1, snapshot.getCount());
+    assertEquals(2, model.getMoments().getCount());
+  }
+
+  /**
+   * Verify that a line cannot be fit from the moments of a single point.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testToLineTooFewPoints() {
+    Moments moments = new Moments();
+    moments.add(1, 1);
+    moments.toLine();
+  }
+}
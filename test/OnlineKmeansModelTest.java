@@ -0,0 +1,123 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the OnlineKmeansModel class.
+ */
+public class OnlineKmeansModelTest {
+
+  /**
+   * Verifies that the first k points become the centers, and that each later point moves its
+   * nearest center to the mean of that center's points.
+   */
+  @Test
+  public void testAdd() {
+    OnlineKmeansModel model = new OnlineKmeansModel(2);
+    model.add(0, 0);
+    assertEquals(1, model.snapshot().getK());
+    model.add(10, 0);
+    model.add(2, 0);
+    model.add(11, 3);
+    KmeansResult result = model.snapshot();
+    assertEquals(2, result.getK());
+    assertEquals(4, result.size());
+    assertEquals(1, result.getCenterX(0), 1e-12);
+    assertEquals(10.5, result.getCenterX(1), 1e-12);
+    assertEquals(1.5, result.getCenterY(1), 1e-12);
+    assertEquals(0, model.getLabel(2));
+    assertEquals(1, model.getLabel(3));
+    assertEquals(2, model.getCount(1));
+    assertEquals((2 + Math.sqrt(10)) / 4, result.getError(), 1e-12);
+  }
+
+  /**
+   * Verifies that a weighted point moves its center by its weight over the center's total weight,
+   * and counts its weight towards the error and inertia.
+   */
+  @Test
+  public void testWeightedAdd() {
+    OnlineKmeansModel model = new OnlineKmeansModel(2);
+    model.add(0, 0, 2);
+    model.add(10, 0);
+    model.add(3, 0);
+    model.add(12, 0, 3);
+    KmeansResult result = model.snapshot();
+    assertEquals(1, result.getCenterX(0), 1e-12);
+    assertEquals(11.5, result.getCenterX(1), 1e-12);
+    assertEquals(2, model.getCount(0));
+    assertEquals(3, model.getMass(0), 0.0);
+    assertEquals(4, model.getMass(1), 0.0);
+    assertEquals((3 + 3 * 2) / 7.0, result.getError(), 1e-12);
+    assertEquals(9 + 3 * 4, result.getInertia(), 1e-12);
+  }
+
+  /**
+   * Verifies that reclustering replaces the labels, centers and counts with a full clustering.
+   */
+  @Test
+  public void testRecluster() {
+    DataModel blobs = LloydEngineTest.blobs(new Random(32), 4, 200);
+    OnlineKmeansModel model = new OnlineKmeansModel(4);
+    model.addAll(blobs);
+    KmeansOptions options = new KmeansOptions().setSeed(33).setSeeding(Seeding.PLUS_PLUS);
+    model.recluster(options);
+    KmeansResult expected = blobs.cluster(4, options);
+    KmeansResult actual = model.snapshot();
+    assertEquals(expected.getError(), actual.getError(), 1e-9);
+    long total = 0;
+    for (int c = 0; c < 4; c++) {
+      assertEquals(expected.getCenterX(c), actual.getCenterX(c), 0.0);
+      total += model.getCount(c);
+    }
+    assertEquals(800, total);
+    for (int i = 0; i < 800; i++) {
+      assertEquals(expected.getLabel(i), model.getLabel(i));
+    }
+    // Points after a recluster carry on from its centers
+    model.add(expected.getCenterX(2), expected.getCenterY(2));
+    assertEquals(2, model.getLabel(800));
+  }
+
+  /**
+   * Verifies that snapshots taken while points are being added are always consistent.
+   */
+  @Test
+  public void testSnapshotWhileAdding() throws InterruptedException {
+    OnlineKmeansModel model = new OnlineKmeansModel(3);
+    AtomicBoolean done = new AtomicBoolean();
+    Thread writer = new Thread(() -> {
+      Random random = new Random(34);
+      for (int i = 0; i < 50000; i++) {
+        model.add(random.nextGaussian(), random.nextGaussian());
+      }
+      done.set(true);
+    });
+    writer.start();
+    int previous = 0;
+    while (!done.get()) {
+      KmeansResult result = model.snapshot();
+      assertTrue(result.size() >= previous);
+      for (int i = 0; i < result.size(); i += 97) {
+        assertTrue(result.getLabel(i) < result.getK());
+      }
+      previous = result.size();
+    }
+    writer.join();
+    assertEquals(50000, model.snapshot().size());
+  }
+
+  /**
+   * Verifies that reclustering needs at least k points.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testReclusterTooFew() {
+    OnlineKmeansModel model = new OnlineKmeansModel(3);
+    model.add(0, 0);
+    model.recluster();
+  }
+}
@@ -0,0 +1,78 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A JUnit test for the ParallelLloydEngine class. The engine is checked against the sequential
+ * engine, started from the same centers.
+ */
+public class ParallelLloydEngineTest {
+
+  /**
+   * Verifies that the engine produces the same labels, centers and error as the sequential engine,
+   * for ranges that do and do not divide the points evenly.
+   */
+  @Test
+  public void testMatchesSequential() {
+    DataModel model = LloydEngineTest.blobs(new Random(6), 5, 300);
+    PointSet points = model.getPoints();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      Random random = new Random(7);
+      for (int grain : new int[]{1, 37, 500, 1500, 100000}) {
+        int k = 5;
+        double[] seedX = new double[k];
+        double[] seedY = new double[k];
+        for (int c = 0; c < k; c++) {
+          int index = random.nextInt(points.size());
+          seedX[c] = points.getX(index);
+          seedY[c] = points.getY(index);
+        }
+        LloydEngine sequential = new LloydEngine(points, k);
+        sequential.setCenters(seedX, seedY);
+        LloydEngine parallel = new ParallelLloydEngine(points, k, pool, grain);
+        parallel.setCenters(seedX, seedY);
+        assertEquals(sequential.run(), parallel.run(), 1e-9);
+        assertEquals(sequential.getIterations(), parallel.getIterations());
+        assertArrayEquals(sequential.getLabels(), parallel.getLabels());
+        assertArrayEquals(sequential.getCenterX(), parallel.getCenterX(), 1e-9);
+        assertArrayEquals(sequential.getCenterY(), parallel.getCenterY(), 1e-9);
+        assertEquals(sequential.getInertia(), parallel.getInertia(), 1e-6);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Verifies that DataModel clusters with the parallel engine when given an iteration pool.
+   */
+  @Test
+  public void testIterationPool() {
+    DataModel model = LloydEngineTest.blobs(new Random(8), 4, 250);
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      KmeansOptions options = new KmeansOptions().setSeed(9);
+      KmeansResult sequential = model.cluster(4, options);
+      KmeansResult parallel = model.cluster(4, options.setIterationPool(pool));
+      assertArrayEquals(sequential.getLabels(), parallel.getLabels());
+      assertEquals(sequential.getError(), parallel.getError(), 1e-9);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Verifies that the range size must be positive.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testGrainMustBePositive() {
+    DataModel model = new DataModel();
+    model.add(0, 0);
+    new ParallelLloydEngine(model.getPoints(), 1, ForkJoinPool.commonPool(), 0);
+  }
+}
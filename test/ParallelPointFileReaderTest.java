@@ -0,0 +1,82 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A JUnit test for the ParallelPointFileReader class. The results are checked against the single
+ * threaded PointFileReader.
+ */
+public class ParallelPointFileReaderTest {
+
+  private Path file;
+  private ForkJoinPool pool;
+
+  @Before
+  public void setup() throws IOException {
+    file = Files.createTempFile("ParallelPointFileReaderTest", ".txt");
+    pool = new ForkJoinPool(4);
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    pool.shutdown();
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Verifies that reading in many small ranges gives the same points, in the same order, and the
+   * same bounds as reading sequentially.
+   */
+  @Test
+  public void testMatchesSequential() throws IOException {
+    StringBuilder text = new StringBuilder();
+    Random random = new Random(29);
+    for (int i = 0; i < 3000; i++) {
+      text.append(String.format(Locale.ROOT, "%.2f %.2f%n", random.nextGaussian() * 300,
+              random.nextGaussian() * 300));
+    }
+    Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+    DataModel expected = new DataModel();
+    Bounds expectedBounds = new PointFileReader().read(file, expected);
+    // Range sizes that split lines at many different places, including a single range
+    for (int chunkBytes : new int[]{1, 13, 100, 4096, 1 << 20}) {
+      DataModel actual = new DataModel();
+      Bounds actualBounds = new ParallelPointFileReader(pool, chunkBytes).read(file, actual);
+      assertEquals(expected.getData(), actual.getData());
+      assertEquals(expectedBounds.toString(), actualBounds.toString());
+      assertEquals(expected.getMoments().getCount(), actual.getMoments().getCount());
+      assertEquals(expected.getMoments().getSumXY(), actual.getMoments().getSumXY(), 1e-3);
+    }
+  }
+
+  /**
+   * Verifies that a file without a final line break is read completely.
+   */
+  @Test
+  public void testNoFinalLineBreak() throws IOException {
+    Files.write(file, "1 2\n3 4\n5 6".getBytes(StandardCharsets.US_ASCII));
+    DataModel model = new DataModel();
+    new ParallelPointFileReader(pool, 2).read(file, model);
+    assertEquals(3, model.getPoints().size());
+    assertEquals(6, model.getPoints().getY(2), 0.0);
+  }
+
+  /**
+   * Verifies that an error in any range is reported.
+   */
+  @Test(expected = IOException.class)
+  public void testMalformedRange() throws IOException {
+    Files.write(file, "1 2\n3 4\n5 x\n7 8\n".getBytes(StandardCharsets.US_ASCII));
+    new ParallelPointFileReader(pool, 4).read(file, new DataModel());
+  }
+}
@@ -0,0 +1,52 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A JUnit test for the PointArray class, the columnar store behind the DataModel.
+ */
+public class PointArrayTest {
+
+  /**
+   * Verifies that a new store is empty.
+   */
+  @Test
+  public void testEmpty() {
+    assertEquals(0, new PointArray().size());
+    assertEquals(0, new PointArray(0).size());
+  }
+
+  /**
+   * Verifies that points are stored in order, including beyond the initial capacity.
+   */
+  @Test
+  public void testAddGrows() {
+    PointArray store = new PointArray(0);
+    for (int i = 0; i < 100; i++) {
+      store.add(i, -i * 0.5);
+    }
+    assertEquals(100, store.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, store.getX(i), 0.0);
+      assertEquals(-i * 0.5, store.getY(i), 0.0);
+    }
+  }
+
+  /**
+   * Verifies that a negative capacity is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeCapacity() {
+    new PointArray(-1);
+  }
+
+  /**
+   * Verifies that unused capacity cannot be read as if it held a point.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testIndexBeyondSize() {
+    PointArray store = new PointArray(10);
+    store.add(1, 1);
+    store.getX(1);
+  }
+}
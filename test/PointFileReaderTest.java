@@ -0,0 +1,152 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Scanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A JUnit test for the PointFileReader class. The hand-written parser is checked against the
+ * parsing done by the Java library.
+ */
+public class PointFileReaderTest {
+
+  private Path file;
+
+  @Before
+  public void setup() throws IOException {
+    file = Files.createTempFile("PointFileReaderTest", ".txt");
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Verifies that numbers are parsed exactly like Double.parseDouble, on both the fast path and
+   * the fallback.
+   */
+  @Test
+  public void testParseDouble() {
+    String[] numbers = {"0", "-0", "+7", "384.74", "-397.27", "0.001", ".5", "5.", "1e3", "-2.5E-3",
+      "12345678901234567890", "3.14159265358979323846", "1e300", "4.9e-324", "NaN", "-Infinity"};
+    for (String number : numbers) {
+      assertParses(number);
+    }
+    Random random = new Random(17);
+    for (int i = 0; i < 10000; i++) {
+      assertParses(Double.toString((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40)
+              - 20)));
+      assertParses(String.format(Locale.ROOT, "%.2f", (random.nextDouble() - 0.5) * 1000));
+    }
+  }
+
+  /**
+   * Verifies that invalid numbers are rejected.
+   */
+  @Test
+  public void testParseDoubleInvalid() {
+    String[] invalid = {"-", ".", "1e", "1.2.3", "abc", "1-2"};
+    for (String number : invalid) {
+      byte[] bytes = number.getBytes(StandardCharsets.US_ASCII);
+      try {
+        PointFileReader.parseDouble(bytes, 0, bytes.length);
+        fail(number + " is not a number.");
+      } catch (NumberFormatException e) {
+        // Pass
+      }
+    }
+  }
+
+  /**
+   * Verifies that reading a data file gives the same points as reading it with a Scanner, even
+   * when numbers are cut off at the end of the read buffer.
+   */
+  @Test
+  public void testMatchesScanner() throws IOException {
+    StringBuilder text = new StringBuilder();
+    Random random = new Random(23);
+    for (int i = 0; i < 500; i++) {
+      text.append(String.format(Locale.ROOT, "%.2f %.2f%n", random.nextDouble() * 800 - 400,
+              random.nextDouble() * 800 - 400));
+    }
+    Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+    DataModel expected = new DataModel();
+    try (Scanner scanner = new Scanner(file).useLocale(Locale.ROOT)) {
+      while (scanner.hasNextDouble()) {
+        expected.add(scanner.nextDouble(), scanner.nextDouble());
+      }
+    }
+    for (int bufferSize : new int[]{8, 64, 1 << 16}) {
+      DataModel actual = new DataModel();
+      new PointFileReader(bufferSize).read(file, actual);
+      assertEquals(expected.getData(), actual.getData());
+    }
+  }
+
+  /**
+   * Verifies that the bounds of the points are reported, and that blank lines, tabs and Windows
+   * line endings are accepted.
+   */
+  @Test
+  public void testBounds() throws IOException {
+    String text = "1.5 -2\r\n\n-3\t4.25\r\n  10 0\n\n";
+    Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+    DataModel model = new DataModel();
+    Bounds bounds = new PointFileReader().read(file, model);
+    assertEquals(3, model.getPoints().size());
+    assertEquals(-3, bounds.getXMin(), 0.0);
+    assertEquals(10, bounds.getXMax(), 0.0);
+    assertEquals(-2, bounds.getYMin(), 0.0);
+    assertEquals(4.25, bounds.getYMax(), 0.0);
+  }
+
+  /**
+   * Verifies that an empty file gives no points and empty bounds.
+   */
+  @Test
+  public void testEmptyFile() throws IOException {
+    DataModel model = new DataModel();
+    Bounds bounds = new PointFileReader().read(file, model);
+    assertEquals(0, model.getPoints().size());
+    assertTrue(bounds.isEmpty());
+  }
+
+  /**
+   * Verifies that a file with a malformed number is rejected.
+   */
+  @Test(expected = IOException.class)
+  public void testMalformedFile() throws IOException {
+    Files.write(file, "1 2\n3 x\n".getBytes(StandardCharsets.US_ASCII));
+    new PointFileReader().read(file, new DataModel());
+  }
+
+  /**
+   * Verifies that a file with a missing y coordinate is rejected.
+   */
+  @Test(expected = IOException.class)
+  public void testMissingY() throws IOException {
+    Files.write(file, "1 2\n3\n".getBytes(StandardCharsets.US_ASCII));
+    new PointFileReader().read(file, new DataModel());
+  }
+
+  /**
+   * Helper to check a single number against Double.parseDouble.
+   */
+  private static void assertParses(String number) {
+    byte[] bytes = (" " + number + " ").getBytes(StandardCharsets.US_ASCII);
+    double expected = Double.parseDouble(number);
+    double actual = PointFileReader.parseDouble(bytes, 1, bytes.length - 1);
+    assertEquals(number, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+  }
+}
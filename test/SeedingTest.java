@@ -0,0 +1,124 @@
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test for the ways of choosing starting centers in the Kmeans class.
+ */
+public class SeedingTest {
+
+  /**
+   * Verifies that random seeding never chooses the same point twice, even when k is the number of
+   * points.
+   */
+  @Test
+  public void testRandomCentersAreDistinct() {
+    DataModel model = new DataModel();
+    for (int i = 0; i < 20; i++) {
+      model.add(i, -i);
+    }
+    double[] centerX = new double[20];
+    double[] centerY = new double[20];
+    Kmeans.randomCenters(model.getPoints(), 20, centerX, centerY, new SplittableRandom(26));
+    Set<Double> seen = new HashSet<>();
+    for (double x : centerX) {
+      assertTrue(seen.add(x));
+    }
+    List<Cluster> clusters = Kmeans.getClusters(model.getData(), 20, new SplittableRandom(27));
+    seen.clear();
+    for (Cluster c : clusters) {
+      assertTrue(seen.add(c.getCenter().getX()));
+    }
+  }
+
+  /**
+   * Verifies that k-means++ puts one center in each of several far apart blobs.
+   */
+  @Test
+  public void testPlusPlusCoversBlobs() {
+    DataModel model = new DataModel();
+    for (int b = 0; b < 5; b++) {
+      for (int i = 0; i < 50; i++) {
+        model.add(b * 1000 + i % 7, i % 5);
+      }
+    }
+    for (long seed = 0; seed < 10; seed++) {
+      double[] centerX = new double[5];
+      double[] centerY = new double[5];
+      Kmeans.plusPlusCenters(model.getPoints(), 5, centerX, centerY, new SplittableRandom(seed));
+      Set<Long> blobs = new HashSet<>();
+      for (double x : centerX) {
+        blobs.add(Math.round(x / 1000));
+      }
+      assertEquals(5, blobs.size());
+    }
+  }
+
+  /**
+   * Verifies that k-means|| chooses the same centers whatever pool makes its passes.
+   */
+  @Test
+  public void testParallelIsRepeatable() {
+    DataModel model = LloydEngineTest.blobs(new Random(28), 6, 10000);
+    ForkJoinPool single = new ForkJoinPool(1);
+    try {
+      double[] x1 = new double[6];
+      double[] y1 = new double[6];
+      double[] x2 = new double[6];
+      double[] y2 = new double[6];
+      Kmeans.parallelCenters(model.getPoints(), 6, x1, y1, new SplittableRandom(29),
+              ForkJoinPool.commonPool());
+      Kmeans.parallelCenters(model.getPoints(), 6, x2, y2, new SplittableRandom(29), single);
+      assertArrayEquals(x1, x2, 0.0);
+      assertArrayEquals(y1, y2, 0.0);
+    } finally {
+      single.shutdown();
+    }
+  }
+
+  /**
+   * Verifies that with a single restart, k-means++ and k-means|| reach a lower total error over
+   * several seeds than random seeding.
+   */
+  @Test
+  public void testBetterThanRandom() {
+    DataModel model = LloydEngineTest.blobs(new Random(30), 10, 200);
+    double random = 0;
+    double plusPlus = 0;
+    double parallel = 0;
+    for (long seed = 0; seed < 10; seed++) {
+      KmeansOptions options = new KmeansOptions().setSeed(seed).setRestarts(1);
+      random += model.cluster(10, options).getError();
+      plusPlus += model.cluster(10, options.setSeeding(Seeding.PLUS_PLUS)).getError();
+      parallel += model.cluster(10, options.setSeeding(Seeding.PARALLEL)).getError();
+    }
+    assertTrue(plusPlus < random);
+    assertTrue(parallel < random);
+  }
+
+  /**
+   * Verifies that k-means++ copes with fewer distinct points than clusters.
+   */
+  @Test
+  public void testDuplicatePoints() {
+    DataModel model = new DataModel();
+    for (int i = 0; i < 10; i++) {
+      model.add(new Point2D.Double(1, 1));
+      model.add(new Point2D.Double(2, 2));
+    }
+    for (Seeding seeding : Seeding.values()) {
+      KmeansResult result = model.cluster(3, new KmeansOptions().setSeeding(seeding).setSeed(31));
+      assertEquals(0, result.getError(), 0.0);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A JUnit test for the WeightedLloydEngine class. Points with integer weights are checked against
+ * a LloydEngine over the same points repeated as many times as their weights.
+ */
+public class WeightedLloydEngineTest {
+
+  /**
+   * Verifies that integer weights give the same labels, centers, error and inertia as repeating
+   * each point, started from the same centers.
+   */
+  @Test
+  public void testMatchesRepeatedPoints() {
+    Random random = new Random(4);
+    PointArray distinct = new PointArray();
+    PointArray repeated = new PointArray();
+    double[] weights = new double[300];
+    for (int i = 0; i < weights.length; i++) {
+      double x = (i % 3) * 200 + random.nextGaussian() * 30;
+      double y = (i % 3) * 100 + random.nextGaussian() * 30;
+      weights[i] = 1 + random.nextInt(4);
+      distinct.add(x, y);
+      for (int copy = 0; copy < weights[i]; copy++) {
+        repeated.add(x, y);
+      }
+    }
+    double[] seedX = {distinct.getX(0), distinct.getX(1), distinct.getX(2)};
+    double[] seedY = {distinct.getY(0), distinct.getY(1), distinct.getY(2)};
+    WeightedLloydEngine weighted = new WeightedLloydEngine(distinct, weights, 3);
+    weighted.setCenters(seedX, seedY);
+    LloydEngine plain = new LloydEngine(repeated, 3);
+    plain.setCenters(seedX, seedY);
+    assertEquals(plain.run(), weighted.run(), 1e-9);
+    assertEquals(plain.getIterations(), weighted.getIterations());
+    assertArrayEquals(plain.getCenterX(), weighted.getCenterX(), 1e-9);
+    assertArrayEquals(plain.getCenterY(), weighted.getCenterY(), 1e-9);
+    KmeansResult expected = plain.getResult();
+    KmeansResult result = weighted.getResult();
+    assertEquals(expected.getInertia(), result.getInertia(), 1e-6);
+    int next = 0;
+    for (int i = 0; i < weights.length; i++) {
+      assertEquals(expected.getLabel(next), result.getLabel(i));
+      next += (int) weights[i];
+    }
+    for (int c = 0; c < 3; c++) {
+      assertEquals(expected.getCount(c), result.getClusterWeight(c), 1e-9);
+      assertEquals(expected.getSpread(c), result.getSpread(c), 1e-9);
+    }
+  }
+
+  /**
+   * Verifies that warm starting a model of weighted points gives the same centers and inertia as
+   * warm starting a model that repeats each point, rather than dropping the weights.
+   */
+  @Test
+  public void testWarmStartWeightedModel() {
+    Random random = new Random(5);
+    DataModel weighted = new DataModel();
+    DataModel repeated = new DataModel();
+    for (int i = 0; i < 300; i++) {
+      double x = (i % 3) * 200 + random.nextGaussian() * 30;
+      double y = (i % 3) * 100 + random.nextGaussian() * 30;
+      int weight = 1 + random.nextInt(4);
+      weighted.add(x, y, weight);
+      for (int copy = 0; copy < weight; copy++) {
+        repeated.add(x, y);
+      }
+    }
+    KmeansResult previous = new KmeansResult(new int[0], new double[]{0, 200, 400},
+            new double[]{0, 100, 200}, 0, 0, 0);
+    KmeansResult expected = repeated.cluster(3, previous);
+    KmeansResult result = weighted.cluster(3, previous);
+    for (int c = 0; c < 3; c++) {
+      assertEquals(expected.getCenterX(c), result.getCenterX(c), 1e-9);
+      assertEquals(expected.getCenterY(c), result.getCenterY(c), 1e-9);
+    }
+    assertEquals(expected.getInertia(), result.getInertia(), 1e-6);
+  }
+
+  /**
+   * Verifies that a weighted model rejects a previous clustering with another number of centers.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testWarmStartWrongK() {
+    DataModel weighted = new DataModel();
+    for (int i = 0; i < 5; i++) {
+      weighted.add(i, i, 2);
+    }
+    weighted.cluster(3, new KmeansResult(new int[0], new double[]{0, 1}, new double[]{0, 1}, 0, 0,
+            0));
+  }
+
+  /**
+   * Verifies that a weight that is not positive is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroWeight() {
+    PointArray points = new PointArray();
+    points.add(0, 0);
+    points.add(1, 1);
+    new WeightedLloydEngine(points, new double[]{1, 0}, 1);
+  }
+
+  /**
+   * Verifies that a weight must be given for every point.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingWeight() {
+    PointArray points = new PointArray();
+    points.add(0, 0);
+    points.add(1, 1);
+    new WeightedLloydEngine(points, new double[]{1}, 1);
+  }
+}
@@ -0,0 +1,209 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * A JUnit test for the WindowedDataModel and DecayedDataModel classes. The incrementally updated
+ * lines are checked against lines fit from scratch.
+ */
+public class WindowedDataModelTest {
+
+  /**
+   * Verifies that the ring buffer keeps the most recent points, oldest first.
+   */
+  @Test
+  public void testPointRing() {
+    PointRing ring = new PointRing(3);
+    for (int i = 0; i < 5; i++) {
+      ring.add(i, 10 * i);
+    }
+    assertEquals(3, ring.size());
+    assertEquals(2, ring.getX(0), 0.0);
+    assertEquals(3, ring.getX(1), 0.0);
+    assertEquals(40, ring.getY(2), 0.0);
+  }
+
+  /**
+   * Verifies that a full ring, window or decayed window appending its own points appends them as
+   * they were before the first one was evicted.
+   */
+  @Test
+  public void testSelfAppend() {
+    PointRing ring = new PointRing(3);
+    WindowedDataModel windowed = new WindowedDataModel(3);
+    WindowedDataModel expectedWindow = new WindowedDataModel(3);
+    DecayedDataModel decayed = new DecayedDataModel(0.5, 2);
+    DecayedDataModel expectedDecayed = new DecayedDataModel(0.5, 2);
+    for (int i = 1; i <= 3; i++) {
+      ring.add(i, i * i);
+      windowed.add(i, i * i);
+    }
+    for (int i = 1; i <= 2; i++) {
+      decayed.add(i, i * i);
+    }
+    ring.addAll(ring);
+    windowed.addAll(windowed);
+    decayed.addAll(decayed);
+    for (int repeat = 0; repeat < 2; repeat++) {
+      for (int i = 1; i <= 3; i++) {
+        expectedWindow.add(i, i * i);
+        if (i <= 2) {
+          expectedDecayed.add(i, i * i);
+        }
+      }
+    }
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i + 1, ring.getX(i), 0.0);
+      assertEquals(i + 1, windowed.getPoints().getX(i), 0.0);
+    }
+    assertEquals(1, decayed.getPoints().getX(0), 0.0);
+    assertEquals(2, decayed.getPoints().getX(1), 0.0);
+    assertMomentsEqual(expectedWindow.getMoments(), windowed.getMoments());
+    assertMomentsEqual(expectedDecayed.getMoments(), decayed.getMoments());
+  }
+
+  /**
+   * Verifies that the windowed line always matches a line fit from only the points in the window.
+   */
+  @Test
+  public void testWindowMatchesRefit() {
+    WindowedDataModel windowed = new WindowedDataModel(50);
+    Random random = new Random(3);
+    for (int i = 0; i < 500; i++) {
+      // The slope drifts over time, so an unwindowed fit would diverge from the windowed one
+      double x = random.nextDouble() * 100;
+      windowed.add(x, x * (1 + i / 100.0) + random.nextGaussian());
+      if (i >= 1 && i % 25 == 0) {
+        DataModel refit = new DataModel();
+        PointSet points = windowed.getPoints();
+        for (int p = 0; p < points.size(); p++) {
+          refit.add(points.getX(p), points.getY(p));
+        }
+        assertEquals(Math.min(i + 1, 50), windowed.getMoments().getCount());
+        Line expected = refit.fitLine();
+        Line actual = windowed.fitLine();
+        assertEquals(expected.getA(), actual.getA(), 1e-9);
+        assertEquals(expected.getB(), actual.getB(), 1e-9);
+        assertEquals(expected.getC(), actual.getC(), 1e-6);
+      }
+    }
+  }
+
+  /**
+   * Verifies that a window needs at least two points to fit a line.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testWindowOfOne() {
+    WindowedDataModel single = new WindowedDataModel(1);
+    single.add(1, 1);
+    single.add(2, 2);
+    single.fitLine();
+  }
+
+  /**
+   * Verifies that the decayed moments match weighted moments computed from scratch, with and
+   * without a bounded window.
+   */
+  @Test
+  public void testDecayMatchesWeightedRefit() {
+    double factor = 0.9;
+    DecayedDataModel unbounded = new DecayedDataModel(factor);
+    DecayedDataModel bounded = new DecayedDataModel(factor, 20);
+    Random random = new Random(5);
+    int n = 60;
+    double[] xs = new double[n];
+    double[] ys = new double[n];
+    for (int i = 0; i < n; i++) {
+      xs[i] = random.nextDouble() * 10;
+      ys[i] = 3 * xs[i] + random.nextGaussian();
+      unbounded.add(xs[i], ys[i]);
+      bounded.add(xs[i], ys[i]);
+    }
+    Moments all = new Moments();
+    Moments recent = new Moments();
+    for (int i = 0; i < n; i++) {
+      double weight = Math.pow(factor, n - 1 - i);
+      all.add(xs[i], ys[i], weight);
+      if (i >= n - 20) {
+        recent.add(xs[i], ys[i], weight);
+      }
+    }
+    assertMomentsEqual(all, unbounded.getMoments());
+    assertMomentsEqual(recent, bounded.getMoments());
+    assertEquals(20, bounded.getPoints().size());
+  }
+
+  /**
+   * Verifies that a weighted point added to a decayed model starts out with its own weight and
+   * then decays like any other, while a decayed window refuses weighted points.
+   */
+  @Test
+  public void testDecayedWeights() {
+    double factor = 0.8;
+    DecayedDataModel decayed = new DecayedDataModel(factor);
+    DataModel source = new DataModel();
+    Random random = new Random(6);
+    int n = 30;
+    double[] xs = new double[n];
+    double[] ys = new double[n];
+    double[] weights = new double[n];
+    for (int i = 0; i < n; i++) {
+      xs[i] = random.nextDouble() * 10;
+      ys[i] = 2 * xs[i] + random.nextGaussian();
+      weights[i] = 1 + random.nextInt(3);
+      if (i < n / 2) {
+        decayed.add(xs[i], ys[i], weights[i]);
+      } else {
+        source.add(xs[i], ys[i], weights[i]);
+      }
+    }
+    decayed.addAll(source);
+    Moments expected = new Moments();
+    for (int i = 0; i < n; i++) {
+      expected.add(xs[i], ys[i], weights[i] * Math.pow(factor, n - 1 - i));
+    }
+    assertMomentsEqual(expected, decayed.getMoments());
+    assertEquals(weights[n - 1], decayed.getWeight(n - 1), 0.0);
+    try {
+      new DecayedDataModel(factor, 10).add(1, 1, 2);
+      fail("Expected a decayed window to refuse weighted points.");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Verifies that an invalid decay factor is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidFactor() {
+    new DecayedDataModel(1.5);
+  }
+
+  /**
+   * Verifies that a window cannot take weighted points, which it would evict without their
+   * weights.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testWindowRejectsWeights() {
+    DataModel weighted = new DataModel();
+    weighted.add(1, 1, 2);
+    new WindowedDataModel(10).addAll(weighted);
+  }
+
+  /**
+   * Helper to compare two sets of moments.
+   */
+  private static void assertMomentsEqual(Moments expected, Moments actual) {
+    assertEquals(expected.getCount(), actual.getCount());
+    assertEquals(expected.getWeight(), actual.getWeight(), 1e-9);
+    assertEquals(expected.getMeanX(), actual.getMeanX(), 1e-9);
+    assertEquals(expected.getMeanY(), actual.getMeanY(), 1e-9);
+    assertEquals(expected.getSumXX(), actual.getSumXX(), 1e-7);
+    assertEquals(expected.getSumYY(), actual.getSumYY(), 1e-7);
+    assertEquals(expected.getSumXY(), actual.getSumXY(), 1e-7);
+  }
+}